@@ -0,0 +1,34 @@
+package com.example.autheticuser.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Conversores CBOR e Smile para /api/**, negociados pelo cabeçalho Accept.
+ *
+ * Os ObjectMappers saem do mesmo Jackson2ObjectMapperBuilder do JSON (módulos e
+ * propriedades spring.jackson.*), então datas e nomes de campos são os mesmos nos
+ * três formatos. Os conversores substituem os padrões do Spring MVC na mesma
+ * posição, depois do JSON: sem Accept, ou aceitando qualquer tipo, a resposta
+ * continua JSON.
+ */
+@Configuration
+public class FormatosBinariosConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
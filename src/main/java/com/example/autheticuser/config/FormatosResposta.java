@@ -0,0 +1,59 @@
+package com.example.autheticuser.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Escolha do formato (JSON, CBOR ou Smile) para respostas escritas diretamente pelo
+ * controller, como os streams, que não passam pelos conversores do Spring MVC.
+ */
+@Component
+@RequiredArgsConstructor
+public class FormatosResposta {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(FormatosBinariosConfig.APPLICATION_SMILE_VALUE);
+
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    // Primeiro tipo do Accept (por qualidade) atendido; JSON quando não há Accept ou ele aceita qualquer tipo
+    public MediaType negociar(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> aceitos;
+        try {
+            aceitos = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(aceitos);
+        for (MediaType aceito : aceitos) {
+            for (MediaType tipo : List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE)) {
+                if (aceito.includes(tipo)) {
+                    return tipo;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // ObjectMapper do formato escolhido (o mesmo usado pelos conversores de /api/**)
+    public ObjectMapper mapper(MediaType tipo) {
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(tipo)) {
+            return cborConverter.getObjectMapper();
+        }
+        if (APPLICATION_SMILE.equalsTypeAndSubtype(tipo)) {
+            return smileConverter.getObjectMapper();
+        }
+        return objectMapper;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.autheticuser.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de leitura (replicas-leitura.habilitado=true).
+ *
+ * O DataSource da aplicação passa a ser um {@link RoteamentoReplicasDataSource}
+ * atrás de um LazyConnectionDataSourceProxy: transações somente leitura vão para as
+ * réplicas de replicas-leitura.urls e o restante para spring.datasource.*. Os
+ * serviços não mudam, o que decide é o readOnly das transações.
+ *
+ * Para testar localmente com bancos independentes (ex.: vários H2 em memória),
+ * replicas-leitura.migrar aplica as migrações do Flyway em cada réplica; com
+ * replicação de verdade o esquema já vem do primário.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replicas-leitura.habilitado", havingValue = "true")
+public class ReplicasLeituraConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicasLeituraConfig.class);
+
+    // O mesmo pool que o Spring Boot criaria, com as propriedades spring.datasource.hikari.*
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(initMethod = "iniciar", destroyMethod = "encerrar")
+    public RoteamentoReplicasDataSource roteamentoReplicasDataSource(
+            HikariDataSource primarioDataSource,
+            DataSourceProperties properties,
+            @Value("${replicas-leitura.urls}") List<String> urls,
+            @Value("${replicas-leitura.tamanho-pool:10}") int tamanhoPool,
+            @Value("${replicas-leitura.tempo-conexao-ms:2000}") long tempoConexaoMs,
+            @Value("${replicas-leitura.janela-leitura-propria-ms:2000}") long janelaLeituraPropriaMs,
+            @Value("${replicas-leitura.intervalo-verificacao-ms:5000}") long intervaloVerificacaoMs,
+            @Value("${replicas-leitura.migrar:false}") boolean migrar,
+            @Value("${spring.flyway.locations:classpath:db/migration}") String[] locaisMigracoes) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String nome = "replica-" + (i + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(nome);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setMaximumPoolSize(tamanhoPool);
+            replica.setConnectionTimeout(tempoConexaoMs);
+            replica.setReadOnly(true);
+            // Uma réplica fora do ar não impede a inicialização: ela só fica fora do rodízio
+            replica.setInitializationFailTimeout(-1);
+            if (migrar) {
+                migrar(nome, replica.getJdbcUrl(), properties, locaisMigracoes);
+            }
+            replicas.put(nome, replica);
+        }
+        log.info("Leituras somente leitura distribuídas entre {} réplicas", replicas.size());
+        return new RoteamentoReplicasDataSource(primarioDataSource, replicas, ReplicasLeituraConfig::usuarioAutenticado,
+                janelaLeituraPropriaMs, intervaloVerificacaoMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoReplicasDataSource roteamentoReplicasDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoReplicasDataSource);
+    }
+
+    // Conexão direta, fora do pool: o tempo limite curto do pool não vale para a criação do esquema
+    private static void migrar(String nome, String url, DataSourceProperties properties, String[] locaisMigracoes) {
+        try {
+            Flyway.configure()
+                    .dataSource(url, properties.determineUsername(), properties.determinePassword())
+                    .locations(locaisMigracoes)
+                    .load()
+                    .migrate();
+        } catch (RuntimeException e) {
+            log.warn("Migrações não aplicadas na réplica {}: {}", nome, e.getMessage());
+        }
+    }
+
+    // Chave da janela de leitura própria: o usuário autenticado da requisição
+    private static String usuarioAutenticado() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao == null || !autenticacao.isAuthenticated() || autenticacao instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return autenticacao.getName();
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.autheticuser.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que separa leituras e escritas entre o banco primário e as réplicas.
+ *
+ * Transações somente leitura ({@code @Transactional(readOnly = true)}) recebem uma
+ * conexão de uma réplica saudável, em rodízio; todo o resto vai para o primário.
+ * Precisa ficar atrás de um LazyConnectionDataSourceProxy: a conexão só é pedida no
+ * primeiro comando, quando o Spring já marcou a transação como somente leitura.
+ *
+ * Réplicas que falham ao entregar uma conexão saem do rodízio até a próxima
+ * verificação bem-sucedida. Depois do commit de uma transação de escrita, as
+ * leituras do mesmo usuário ficam no primário por uma janela curta, para que ele
+ * enxergue o que acabou de gravar mesmo com atraso na replicação.
+ */
+public class RoteamentoReplicasDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(RoteamentoReplicasDataSource.class);
+
+    private final DataSource primario;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Supplier<String> usuarioAtual;
+    private final long janelaLeituraPropriaMs;
+    private final long intervaloVerificacaoMs;
+
+    private final AtomicInteger proxima = new AtomicInteger();
+    // Fim da janela de leitura no primário, por usuário
+    private final Map<String, Long> leituraPropriaAte = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService verificador;
+
+    public RoteamentoReplicasDataSource(DataSource primario, Map<String, DataSource> replicas, Supplier<String> usuarioAtual,
+            long janelaLeituraPropriaMs, long intervaloVerificacaoMs) {
+        this.primario = primario;
+        replicas.forEach((nome, dataSource) -> this.replicas.add(new Replica(nome, dataSource)));
+        this.usuarioAtual = usuarioAtual;
+        this.janelaLeituraPropriaMs = janelaLeituraPropriaMs;
+        this.intervaloVerificacaoMs = intervaloVerificacaoMs;
+    }
+
+    public void iniciar() {
+        if (intervaloVerificacaoMs > 0 && !replicas.isEmpty()) {
+            verificador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "replicas-verificacao");
+                thread.setDaemon(true);
+                return thread;
+            });
+            verificador.scheduleWithFixedDelay(this::verificar, intervaloVerificacaoMs, intervaloVerificacaoMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Os pools das réplicas são criados aqui dentro (não são beans), então são fechados aqui também
+    public void encerrar() {
+        if (verificador != null) {
+            verificador.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) replica.dataSource).close();
+                } catch (Exception e) {
+                    log.warn("Falha ao fechar o pool da réplica {}", replica.nome, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conectar(DataSource::getConnection);
+    }
+
+    // Mesmo roteamento; as credenciais vão para o pool escolhido
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conectar(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection conectar(Conexao conexao) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Só uma transação de escrita de verdade abre a janela; leituras em SUPPORTS ou fora de
+            // transação também chegam aqui (sincronização ativa, sem somente leitura) e não prendem o usuário
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                registrarEscrita();
+            }
+            return conexao.abrir(primario);
+        }
+        if (leituraPropriaPendente()) {
+            return conexao.abrir(primario);
+        }
+        // Tenta cada réplica saudável uma vez, a partir da próxima do rodízio; sem nenhuma, o primário responde
+        int inicio = Math.floorMod(proxima.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (!replica.saudavel) {
+                continue;
+            }
+            try {
+                return conexao.abrir(replica.dataSource);
+            } catch (SQLException | RuntimeException e) {
+                replica.marcarFalha(e);
+            }
+        }
+        return conexao.abrir(primario);
+    }
+
+    // Nomes das réplicas no rodízio no momento
+    public List<String> replicasSaudaveis() {
+        List<String> nomes = new ArrayList<>();
+        for (Replica replica : replicas) {
+            if (replica.saudavel) {
+                nomes.add(replica.nome);
+            }
+        }
+        return nomes;
+    }
+
+    /**
+     * Testa uma conexão de cada réplica: as que voltaram entram de novo no rodízio,
+     * as que pararam de responder saem. Também descarta janelas de leitura vencidas.
+     */
+    public void verificar() {
+        for (Replica replica : replicas) {
+            try (Connection conexao = replica.dataSource.getConnection()) {
+                if (conexao.isValid(1)) {
+                    replica.marcarSucesso();
+                } else {
+                    replica.marcarFalha(null);
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.marcarFalha(e);
+            }
+        }
+        long agora = System.currentTimeMillis();
+        leituraPropriaAte.values().removeIf(ate -> ate <= agora);
+    }
+
+    // A janela começa no commit: antes dele as réplicas não têm como estar atrasadas, e um rollback não abre janela
+    private void registrarEscrita() {
+        String usuario = usuarioAtual.get();
+        if (usuario != null && janelaLeituraPropriaMs > 0) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    leituraPropriaAte.put(usuario, System.currentTimeMillis() + janelaLeituraPropriaMs);
+                }
+            });
+        }
+    }
+
+    private boolean leituraPropriaPendente() {
+        if (leituraPropriaAte.isEmpty()) {
+            return false;
+        }
+        String usuario = usuarioAtual.get();
+        Long ate = usuario == null ? null : leituraPropriaAte.get(usuario);
+        return ate != null && ate > System.currentTimeMillis();
+    }
+
+    @FunctionalInterface
+    private interface Conexao {
+        Connection abrir(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+
+        private final String nome;
+        private final DataSource dataSource;
+        private volatile boolean saudavel = true;
+
+        private Replica(String nome, DataSource dataSource) {
+            this.nome = nome;
+            this.dataSource = dataSource;
+        }
+
+        private void marcarFalha(Exception erro) {
+            if (saudavel) {
+                saudavel = false;
+                log.warn("Réplica de leitura {} fora do rodízio: {}", nome, erro == null ? "conexão inválida" : erro.getMessage());
+            }
+        }
+
+        private void marcarSucesso() {
+            if (!saudavel) {
+                saudavel = true;
+                log.info("Réplica de leitura {} de volta ao rodízio", nome);
+            }
+        }
+    }
+}
@@ -1,22 +1,42 @@
 package com.example.autheticuser.controller;
 
+import com.example.autheticuser.config.FormatosBinariosConfig;
+import com.example.autheticuser.config.FormatosResposta;
 import com.example.autheticuser.model.Cliente;
 import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.VersoesRecursos;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.annotation.PostConstruct;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api")
@@ -25,7 +45,33 @@ import java.util.ArrayList;
 @SecurityRequirement(name = "bearerAuth")
 public class ClienteController {
 
+    // Parâmetro opcional fields= das consultas: só as colunas pedidas são lidas do banco; campo desconhecido = 400
+    private static final String DESCRICAO_FIELDS = "Campos separados por vírgula (opcional, ex.: fields=nome,email); o id vem sempre";
+
+    // No stream por período, a resposta é enviada ao cliente a cada tantas linhas
+    private static final int LINHAS_POR_ENVIO = 500;
+
     private final ClienteService clienteService;
+    private final FormatosResposta formatosResposta;
+    private final VersoesRecursos versoesRecursos;
+    private final MeterRegistry meterRegistry;
+
+    private Counter linhasTransmitidas;
+    private Counter streamsCancelados;
+    private Timer tempoPrimeiroByte;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        linhasTransmitidas = Counter.builder("clientes.periodo.stream.linhas")
+                .description("Clientes enviados por GET /api/periodo/stream")
+                .register(meterRegistry);
+        streamsCancelados = Counter.builder("clientes.periodo.stream.cancelados")
+                .description("Streams por período interrompidos porque o cliente desconectou")
+                .register(meterRegistry);
+        tempoPrimeiroByte = Timer.builder("clientes.periodo.stream.primeiro-byte")
+                .description("Tempo entre o pedido e o envio do primeiro cliente (ou da resposta vazia)")
+                .register(meterRegistry);
+    }
 
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -43,32 +89,94 @@ public class ClienteController {
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Listar todos os clientes", description = "Retorna todos os clientes cadastrados")
-    public ResponseEntity<List<Cliente>> listarClientes() {
-        List<Cliente> clientes = clienteService.buscarTodosClientes();
-        return ResponseEntity.ok(clientes);
+    public ResponseEntity<?> listarClientes(
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(),
+                    () -> comCampos(() -> ResponseEntity.ok(clienteService.buscarCamposDeTodos(fields))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoClientes(),
+                () -> ResponseEntity.ok(clienteService.buscarTodosClientes()));
+    }
+
+    @GetMapping(params = "ids")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Buscar clientes por IDs", description = "Retorna vários clientes em uma única consulta, na ordem dos IDs pedidos, e lista os IDs não encontrados")
+    public ResponseEntity<?> buscarClientesPorIds(
+            @Parameter(description = "IDs separados por vírgula (ex.: 1,2,3)") @RequestParam List<Long> ids,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(),
+                    () -> comCampos(() -> ResponseEntity.ok(clienteService.buscarCamposPorIds(fields, ids))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoClientes(), () -> {
+            try {
+                return ResponseEntity.ok(clienteService.buscarClientesPorIds(ids));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    @PostMapping("/por-ids")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Buscar clientes por IDs (lista no corpo)", description = "Mesmo que GET /api?ids=, para listas grandes demais para a URL")
+    public ResponseEntity<?> buscarClientesPorIdsNoCorpo(
+            @Parameter(description = "IDs dos clientes") @RequestBody List<Long> ids,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return comCampos(() -> ResponseEntity.ok(clienteService.buscarCamposPorIds(fields, ids)));
+        }
+        try {
+            return ResponseEntity.ok(clienteService.buscarClientesPorIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Buscar cliente por ID", description = "Retorna um cliente específico pelo ID")
-    public ResponseEntity<Cliente> buscarClientePorId(
-            @Parameter(description = "ID do cliente") @PathVariable Long id) {
-        return clienteService.buscarClientePorId(id)
+    @Operation(summary = "Buscar cliente por ID", description = "Retorna um cliente específico pelo ID, com ETag. "
+            + "Se o If-None-Match já tiver a versão atual, retorna 304 sem corpo")
+    public ResponseEntity<?> buscarClientePorId(
+            @Parameter(description = "ID do cliente") @PathVariable Long id,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        Optional<String> versao = versoesRecursos.versaoCliente(id);
+        if (versao.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (fields != null) {
+            return condicional(requisicao, versao.get(), () -> comCampos(() -> clienteService.buscarCamposPorId(fields, id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build())));
+        }
+        return condicional(requisicao, versao.get(), () -> clienteService.buscarClientePorId(id)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Atualizar cliente", description = "Atualiza os dados de um cliente existente")
+    @Operation(summary = "Atualizar cliente", description = "Atualiza os dados de um cliente existente. "
+            + "Com If-Match, a ETag precisa ser a atual (412 caso contrário)")
     public ResponseEntity<Cliente> atualizarCliente(
             @Parameter(description = "ID do cliente") @PathVariable Long id,
-            @Parameter(description = "Dados atualizados do cliente") @Valid @RequestBody Cliente cliente) {
+            @Parameter(description = "Dados atualizados do cliente") @Valid @RequestBody Cliente cliente,
+            @Parameter(description = "ETag lida anteriormente (opcional)") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            WebRequest requisicao) {
         try {
-            Cliente clienteAtualizado = clienteService.atualizarCliente(id, cliente);
-            return ResponseEntity.ok(clienteAtualizado);
+            Cliente clienteAtualizado = clienteService.atualizarCliente(id, cliente, ifMatch);
+            return ResponseEntity.ok()
+                    .eTag(etag(requisicao, versoesRecursos.versaoDe(clienteAtualizado)))
+                    .body(clienteAtualizado);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Outro usuário alterou o cliente depois da leitura (ETag diferente)
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         }
     }
 
@@ -87,50 +195,184 @@ public class ClienteController {
 
     @GetMapping("/buscar")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Buscar clientes por nome", description = "Busca clientes que contenham o nome especificado")
-    public ResponseEntity<List<Cliente>> buscarClientesPorNome(
-            @Parameter(description = "Nome do cliente") @RequestParam String nome) {
-        List<Cliente> clientes = clienteService.buscarClientesPorNome(nome);
-        return ResponseEntity.ok(clientes);
+    @Operation(summary = "Buscar clientes por nome", description = "Busca clientes que contenham o nome especificado, ordenados por relevância. O total de resultados vem no cabeçalho X-Total-Count quando paginado")
+    public ResponseEntity<?> buscarClientesPorNome(
+            @Parameter(description = "Nome do cliente") @RequestParam String nome,
+            @Parameter(description = "Página (começa em 0), usada junto com tamanho") @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Máximo de resultados por página (se omitido, retorna todos)") @RequestParam(required = false) Integer tamanho,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (tamanho != null && (pagina < 0 || tamanho < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(), () -> comCampos(() -> tamanho == null
+                    ? ResponseEntity.ok(clienteService.buscarCamposPorNome(fields, nome, 0, Integer.MAX_VALUE).getContent())
+                    : paginado(clienteService.buscarCamposPorNome(fields, nome, pagina, tamanho))));
+        }
+        if (tamanho == null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(),
+                    () -> ResponseEntity.ok(clienteService.buscarClientesPorNome(nome)));
+        }
+        return condicional(requisicao, versoesRecursos.versaoClientes(),
+                () -> paginado(clienteService.buscarClientesPorNome(nome, pagina, tamanho)));
     }
 
     @GetMapping("/email/{email}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Buscar cliente por email", description = "Retorna um cliente específico pelo email")
-    public ResponseEntity<Cliente> buscarClientePorEmail(
-            @Parameter(description = "Email do cliente") @PathVariable String email) {
-        return clienteService.buscarClientePorEmail(email)
+    public ResponseEntity<?> buscarClientePorEmail(
+            @Parameter(description = "Email do cliente") @PathVariable String email,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(), () -> comCampos(() -> clienteService.buscarCamposPorEmail(fields, email)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build())));
+        }
+        return condicional(requisicao, versoesRecursos.versaoClientes(), () -> clienteService.buscarClientePorEmail(email)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @GetMapping("/cpf/{cpf}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Buscar cliente por CPF", description = "Retorna um cliente específico pelo CPF")
-    public ResponseEntity<Cliente> buscarClientePorCpf(
-            @Parameter(description = "CPF do cliente") @PathVariable String cpf) {
-        return clienteService.buscarClientePorCpf(cpf)
+    public ResponseEntity<?> buscarClientePorCpf(
+            @Parameter(description = "CPF do cliente") @PathVariable String cpf,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(), () -> comCampos(() -> clienteService.buscarCamposPorCpf(fields, cpf)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build())));
+        }
+        return condicional(requisicao, versoesRecursos.versaoClientes(), () -> clienteService.buscarClientePorCpf(cpf)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @GetMapping("/telefone")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Buscar clientes por telefone", description = "Busca clientes que contenham o telefone especificado")
-    public ResponseEntity<List<Cliente>> buscarClientesPorTelefone(
-            @Parameter(description = "Telefone do cliente") @RequestParam String telefone) {
-        List<Cliente> clientes = clienteService.buscarClientesPorTelefone(telefone);
-        return ResponseEntity.ok(clientes);
+    @Operation(summary = "Buscar clientes por telefone", description = "Busca clientes cujo telefone contenha (ou termine com) os dígitos informados; pontuação é ignorada")
+    public ResponseEntity<?> buscarClientesPorTelefone(
+            @Parameter(description = "Telefone do cliente (completo ou parcial)") @RequestParam String telefone,
+            @Parameter(description = "Se true, o telefone deve terminar com os dígitos informados") @RequestParam(defaultValue = "false") boolean sufixo,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(),
+                    () -> comCampos(() -> ResponseEntity.ok(clienteService.buscarCamposPorTelefone(fields, telefone, sufixo))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoClientes(),
+                () -> ResponseEntity.ok(clienteService.buscarClientesPorTelefone(telefone, sufixo)));
     }
 
     @GetMapping("/periodo")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Buscar clientes por período", description = "Retorna clientes cadastrados em um período específico (apenas ADMIN)")
-    public ResponseEntity<List<Cliente>> buscarClientesPorPeriodo(
-            @Parameter(description = "Data de início") @RequestParam LocalDateTime dataInicio,
-            @Parameter(description = "Data de fim") @RequestParam LocalDateTime dataFim) {
-        List<Cliente> clientes = clienteService.buscarClientesPorPeriodo(dataInicio, dataFim);
-        return ResponseEntity.ok(clientes);
+    public ResponseEntity<?> buscarClientesPorPeriodo(
+            @Parameter(description = "Data de início (ex.: 2024-01-01T00:00:00)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @Parameter(description = "Data de fim") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoClientes(),
+                    () -> comCampos(() -> ResponseEntity.ok(clienteService.buscarCamposPorPeriodo(fields, dataInicio, dataFim))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoClientes(),
+                () -> ResponseEntity.ok(clienteService.buscarClientesPorPeriodo(dataInicio, dataFim)));
+    }
+
+    @GetMapping(value = "/periodo/stream", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            FormatosBinariosConfig.APPLICATION_SMILE_VALUE })
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Transmitir clientes por período", description = "Mesmo resultado de /periodo, escrito aos poucos a partir de um cursor no banco, "
+            + "sem carregar a lista inteira em memória. Se o cliente desconectar, a consulta é cancelada (apenas ADMIN)")
+    public ResponseEntity<StreamingResponseBody> transmitirClientesPorPeriodo(
+            @Parameter(description = "Data de início (ex.: 2024-01-01T00:00:00)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @Parameter(description = "Data de fim") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        long inicio = System.nanoTime();
+        // Mesmo array em JSON, CBOR ou Smile, conforme o Accept
+        MediaType formato = formatosResposta.negociar(accept);
+
+        StreamingResponseBody corpo = saida -> {
+            long[] linhas = { 0 };
+            try (JsonGenerator json = formatosResposta.mapper(formato).getFactory().createGenerator(saida)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                json.writeStartArray();
+                clienteService.percorrerClientesPorPeriodo(dataInicio, dataFim, cliente -> {
+                    try {
+                        json.writeObject(cliente);
+                        if (++linhas[0] == 1) {
+                            json.flush();
+                            tempoPrimeiroByte.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                        } else if (linhas[0] % LINHAS_POR_ENVIO == 0) {
+                            json.flush();
+                            linhasTransmitidas.increment(LINHAS_POR_ENVIO);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Cliente desconectou: cancela a consulta
+                    }
+                });
+                json.writeEndArray();
+                json.flush();
+                if (linhas[0] == 0) {
+                    tempoPrimeiroByte.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+            } catch (UncheckedIOException e) {
+                streamsCancelados.increment();
+                throw e.getCause();
+            } finally {
+                // Linhas do último lote, que não completou um envio
+                linhasTransmitidas.increment(linhas[0] % LINHAS_POR_ENVIO);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(formato)
+                .body(corpo);
+    }
+
+    // Campo desconhecido em fields (ou outra validação do serviço) vira 400
+    private static <T> ResponseEntity<T> comCampos(Supplier<ResponseEntity<T>> resposta) {
+        try {
+            return resposta.get();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET condicional: com o If-None-Match já na versão atual, responde 304 sem
+     * executar a consulta; senão executa e acrescenta a ETag às respostas 2xx.
+     */
+    private <T> ResponseEntity<T> condicional(WebRequest requisicao, String versao, Supplier<ResponseEntity<T>> consulta) {
+        String etag = etag(requisicao, versao);
+        if (VersoesRecursos.naoModificado(requisicao.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity<T> resposta = consulta.get();
+        if (!resposta.getStatusCode().is2xxSuccessful()) {
+            return resposta;
+        }
+        return ResponseEntity.status(resposta.getStatusCode())
+                .headers(resposta.getHeaders())
+                .eTag(etag)
+                .body(resposta.getBody());
+    }
+
+    // ETag da versão no formato que o Accept vai produzir, com a seleção do fields=
+    private String etag(WebRequest requisicao, String versao) {
+        return VersoesRecursos.etag(versao, requisicao.getParameter("fields"),
+                formatosResposta.negociar(requisicao.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    // Uma página, com o total de resultados no cabeçalho X-Total-Count
+    private static <T> ResponseEntity<List<T>> paginado(Page<T> resultado) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(resultado.getTotalElements()))
+                .body(resultado.getContent());
     }
 
     @GetMapping("/estatisticas/cadastros-hoje")
@@ -140,4 +382,17 @@ public class ClienteController {
         long quantidade = clienteService.contarClientesCadastradosHoje();
         return ResponseEntity.ok(quantidade);
     }
+
+    @GetMapping("/estatisticas/cadastros")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Contar clientes cadastrados por período", description = "Retorna o número de clientes cadastrados entre duas datas, inclusive (apenas ADMIN)")
+    public ResponseEntity<Long> contarClientesCadastradosPorPeriodo(
+            @Parameter(description = "Data de início") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @Parameter(description = "Data de fim") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        if (fim.isBefore(inicio)) {
+            return ResponseEntity.badRequest().build();
+        }
+        long quantidade = clienteService.contarClientesCadastradosPorPeriodo(inicio, fim);
+        return ResponseEntity.ok(quantidade);
+    }
 }
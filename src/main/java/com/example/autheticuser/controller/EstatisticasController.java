@@ -1,18 +1,30 @@
 package com.example.autheticuser.controller;
 
-import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.model.ResumoEstatisticas;
+import com.example.autheticuser.model.SerieMetrica;
+import com.example.autheticuser.service.ColunasProdutos;
+import com.example.autheticuser.service.EstatisticasService;
+import com.example.autheticuser.service.EstatisticasStream;
 import com.example.autheticuser.service.ProdutoService;
+import com.example.autheticuser.service.SerieTemporal;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -23,45 +35,84 @@ import java.util.Map;
 @Tag(name = "Estatísticas", description = "API para estatísticas do sistema (apenas ADMIN)")
 public class EstatisticasController {
 
-    private final ClienteService clienteService;
+    private final EstatisticasService estatisticasService;
+    private final EstatisticasStream estatisticasStream;
     private final ProdutoService produtoService;
+    private final SerieTemporal serieTemporal;
 
     @GetMapping("/dashboard")
-    @Operation(summary = "Dashboard de estatísticas", description = "Retorna estatísticas gerais do sistema")
+    @Operation(summary = "Dashboard de estatísticas", description = "Retorna estatísticas gerais do sistema. Os valores vêm de um snapshot "
+            + "recalculado periodicamente; idadeSnapshotMs indica há quanto tempo ele foi gerado")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         Map<String, Object> stats = new HashMap<>();
-
-        // Estatísticas de clientes
-        long clientesCadastradosHoje = clienteService.contarClientesCadastradosHoje();
-        long totalClientes = clienteService.buscarTodosClientes().size();
-
-        // Estatísticas de produtos
-        long totalProdutos = produtoService.buscarTodosProdutos().size();
-        long produtosComEstoqueBaixo = produtoService.buscarProdutosComEstoqueBaixo().size();
+        ResumoEstatisticas resumo = estatisticasService.obterResumo();
 
         stats.put("clientes", Map.of(
-                "total", totalClientes,
-                "cadastradosHoje", clientesCadastradosHoje));
+                "total", resumo.getTotalClientes(),
+                "cadastradosHoje", resumo.getClientesCadastradosHoje()));
 
         stats.put("produtos", Map.of(
-                "total", totalProdutos,
-                "comEstoqueBaixo", produtosComEstoqueBaixo));
+                "total", resumo.getTotalProdutos(),
+                "comEstoqueBaixo", resumo.getProdutosEstoqueBaixo()));
 
         stats.put("timestamp", System.currentTimeMillis());
+        stats.put("geradoEm", resumo.getGeradoEm());
+        stats.put("idadeSnapshotMs", resumo.idadeMs());
 
         return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/resumo")
-    @Operation(summary = "Resumo do sistema", description = "Retorna um resumo das principais métricas")
+    @Operation(summary = "Resumo do sistema", description = "Retorna um resumo das principais métricas, a partir do mesmo snapshot do dashboard")
     public ResponseEntity<Map<String, Object>> getResumo() {
         Map<String, Object> resumo = new HashMap<>();
+        ResumoEstatisticas snapshot = estatisticasService.obterResumo();
 
-        resumo.put("totalClientes", clienteService.buscarTodosClientes().size());
-        resumo.put("totalProdutos", produtoService.buscarTodosProdutos().size());
-        resumo.put("produtosEstoqueBaixo", produtoService.buscarProdutosComEstoqueBaixo().size());
-        resumo.put("clientesCadastradosHoje", clienteService.contarClientesCadastradosHoje());
+        resumo.put("totalClientes", snapshot.getTotalClientes());
+        resumo.put("totalProdutos", snapshot.getTotalProdutos());
+        resumo.put("produtosEstoqueBaixo", snapshot.getProdutosEstoqueBaixo());
+        resumo.put("clientesCadastradosHoje", snapshot.getClientesCadastradosHoje());
+        resumo.put("idadeSnapshotMs", snapshot.idadeMs());
 
         return ResponseEntity.ok(resumo);
     }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream do dashboard", description = "Stream SSE com as métricas do dashboard: um evento snapshot com todas na conexão "
+            + "e, a cada lote de alterações de clientes ou produtos, um evento estatisticas só com as que mudaram")
+    public SseEmitter acompanharEstatisticas() {
+        return estatisticasStream.assinar();
+    }
+
+    @GetMapping("/produtos")
+    @Operation(summary = "Estatísticas do catálogo", description = "Retorna o valor em estoque (preço x quantidade) por categoria, percentis de preço e o histograma de estoque, "
+            + "calculados sobre uma cópia colunar do catálogo em memória")
+    public ResponseEntity<Map<String, Object>> getEstatisticasProdutos(
+            @Parameter(description = "Categoria (opcional)") @RequestParam(required = false) String categoria) {
+        ColunasProdutos.Agregados agregados = produtoService.agregarCatalogo(categoria);
+
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("produtos", agregados.getProdutos());
+        estatisticas.put("valorEstoqueTotal", agregados.getValorEstoqueTotal());
+        estatisticas.put("porCategoria", agregados.getPorCategoria());
+        estatisticas.put("precos", agregados.getPrecos());
+        estatisticas.put("histogramaEstoque", agregados.getHistogramaEstoque());
+
+        return ResponseEntity.ok(estatisticas);
+    }
+
+    @GetMapping("/serie")
+    @Operation(summary = "Série temporal de uma métrica", description = "Retorna um ponto por intervalo (minuto, hora, dia, semana ou mês) entre from e to, "
+            + "lido de agregados pré-calculados. Métricas: clientes-cadastrados, produtos-criados, produtos-atualizados e estoque-alterado")
+    public ResponseEntity<SerieMetrica> getSerie(
+            @Parameter(description = "Métrica") @RequestParam("metric") String metrica,
+            @Parameter(description = "Início do período (ex.: 2024-05-01T00:00:00)") @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @Parameter(description = "Fim do período, inclusive") @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @Parameter(description = "minuto, hora, dia, semana ou mes (opcional: escolhe a menor que caiba em 500 pontos)") @RequestParam(value = "granularity", required = false) String granularidade) {
+        try {
+            return ResponseEntity.ok(serieTemporal.consultar(metrica, de, ate, granularidade));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -1,22 +1,50 @@
 package com.example.autheticuser.controller;
 
+import com.example.autheticuser.config.FormatosResposta;
+import com.example.autheticuser.model.AjusteEstoque;
 import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ResumoAjusteEstoque;
+import com.example.autheticuser.service.CamposParciais.Registro;
+import com.example.autheticuser.service.CatalogoSnapshot;
+import com.example.autheticuser.service.EstoqueBaixoIndex;
+import com.example.autheticuser.service.ImportacaoProdutoService;
 import com.example.autheticuser.service.ProdutoService;
+import com.example.autheticuser.service.VersoesRecursos;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("api/produtos")
@@ -25,7 +53,15 @@ import java.util.ArrayList;
 @SecurityRequirement(name = "bearerAuth")
 public class ProdutoController {
 
+    // Parâmetro opcional fields= das consultas: só as colunas pedidas são lidas do banco; campo desconhecido = 400
+    private static final String DESCRICAO_FIELDS = "Campos separados por vírgula (opcional, ex.: fields=nome,preco); o id vem sempre";
+
     private final ProdutoService produtoService;
+    private final ImportacaoProdutoService importacaoProdutoService;
+    private final EstoqueBaixoIndex estoqueBaixoIndex;
+    private final ObjectMapper objectMapper;
+    private final VersoesRecursos versoesRecursos;
+    private final FormatosResposta formatosResposta;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -39,32 +75,96 @@ public class ProdutoController {
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Listar todos os produtos", description = "Retorna todos os produtos cadastrados")
-    public ResponseEntity<List<Produto>> listarProdutos() {
-        List<Produto> produtos = produtoService.buscarTodosProdutos();
-        return ResponseEntity.ok(produtos);
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = Produto.class))))
+    public ResponseEntity<?> listarProdutos(
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(),
+                    () -> comCampos(() -> ResponseEntity.ok(produtoService.buscarCamposDeTodos(fields))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoProdutos(), () -> serializado(requisicao,
+                produtoService.buscarTodosSerializados(), produtoService::buscarTodosProdutos));
+    }
+
+    @GetMapping(params = "ids")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Buscar produtos por IDs", description = "Retorna vários produtos em uma única consulta, na ordem dos IDs pedidos, e lista os IDs não encontrados")
+    public ResponseEntity<?> buscarProdutosPorIds(
+            @Parameter(description = "IDs separados por vírgula (ex.: 1,2,3)") @RequestParam List<Long> ids,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(),
+                    () -> comCampos(() -> ResponseEntity.ok(produtoService.buscarCamposPorIds(fields, ids))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoProdutos(), () -> {
+            try {
+                return ResponseEntity.ok(produtoService.buscarProdutosPorIds(ids));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    @PostMapping("/por-ids")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Buscar produtos por IDs (lista no corpo)", description = "Mesmo que GET /api/produtos?ids=, para listas grandes demais para a URL")
+    public ResponseEntity<?> buscarProdutosPorIdsNoCorpo(
+            @Parameter(description = "IDs dos produtos") @RequestBody List<Long> ids,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return comCampos(() -> ResponseEntity.ok(produtoService.buscarCamposPorIds(fields, ids)));
+        }
+        try {
+            return ResponseEntity.ok(produtoService.buscarProdutosPorIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Buscar produto por ID", description = "Retorna um produto específico pelo ID")
-    public ResponseEntity<Produto> buscarProdutoPorId(
-            @Parameter(description = "ID do produto") @PathVariable Long id) {
-        return produtoService.buscarProdutoPorId(id)
+    @Operation(summary = "Buscar produto por ID", description = "Retorna um produto específico pelo ID, com ETag. "
+            + "Se o If-None-Match já tiver a versão atual, retorna 304 sem corpo")
+    public ResponseEntity<?> buscarProdutoPorId(
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        Optional<String> versao = versoesRecursos.versaoProduto(id);
+        if (versao.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (fields != null) {
+            return condicional(requisicao, versao.get(), () -> comCampos(() -> produtoService.buscarCamposPorId(fields, id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build())));
+        }
+        return condicional(requisicao, versao.get(), () -> produtoService.buscarProdutoPorId(id)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Atualizar produto", description = "Atualiza os dados de um produto existente")
+    @Operation(summary = "Atualizar produto", description = "Atualiza os dados de um produto existente. Se o campo versao for enviado e não for o atual, retorna 409. "
+            + "Com If-Match, a ETag precisa ser a atual (412 caso contrário)")
     public ResponseEntity<Produto> atualizarProduto(
             @Parameter(description = "ID do produto") @PathVariable Long id,
-            @Parameter(description = "Dados atualizados do produto") @Valid @RequestBody Produto produto) {
+            @Parameter(description = "Dados atualizados do produto") @Valid @RequestBody Produto produto,
+            @Parameter(description = "ETag lida anteriormente (opcional)") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            WebRequest requisicao) {
         try {
-            Produto produtoAtualizado = produtoService.atualizarProduto(id, produto);
-            return ResponseEntity.ok(produtoAtualizado);
+            Produto produtoAtualizado = produtoService.atualizarProduto(id, produto, ifMatch);
+            return ResponseEntity.ok()
+                    .eTag(etag(requisicao, versoesRecursos.versaoDe(produtoAtualizado)))
+                    .body(produtoAtualizado);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Outro usuário alterou o produto depois da leitura (versão ou ETag diferente)
+            return ResponseEntity.status(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED).build();
         }
     }
 
@@ -83,38 +183,107 @@ public class ProdutoController {
 
     @GetMapping("/buscar")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Buscar produtos por nome", description = "Busca produtos que contenham o nome especificado")
-    public ResponseEntity<List<Produto>> buscarProdutosPorNome(
-            @Parameter(description = "Nome do produto") @RequestParam String nome) {
-        List<Produto> produtos = produtoService.buscarProdutosPorNome(nome);
-        return ResponseEntity.ok(produtos);
+    @Operation(summary = "Buscar produtos por nome", description = "Busca produtos que contenham o nome especificado, ordenados por relevância. O total de resultados vem no cabeçalho X-Total-Count quando paginado")
+    public ResponseEntity<?> buscarProdutosPorNome(
+            @Parameter(description = "Nome do produto") @RequestParam String nome,
+            @Parameter(description = "Página (começa em 0), usada junto com tamanho") @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Máximo de resultados por página (se omitido, retorna todos)") @RequestParam(required = false) Integer tamanho,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (tamanho != null && (pagina < 0 || tamanho < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(), () -> comCampos(() -> tamanho == null
+                    ? ResponseEntity.ok(produtoService.buscarCamposPorNome(fields, nome, 0, Integer.MAX_VALUE).getContent())
+                    : paginado(produtoService.buscarCamposPorNome(fields, nome, pagina, tamanho))));
+        }
+        if (tamanho == null) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(),
+                    () -> ResponseEntity.ok(produtoService.buscarProdutosPorNome(nome)));
+        }
+        return condicional(requisicao, versoesRecursos.versaoProdutos(),
+                () -> paginado(produtoService.buscarProdutosPorNome(nome, pagina, tamanho)));
     }
 
     @GetMapping("/categoria/{categoria}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Buscar produtos por categoria", description = "Retorna produtos de uma categoria específica")
-    public ResponseEntity<List<Produto>> buscarProdutosPorCategoria(
-            @Parameter(description = "Categoria dos produtos") @PathVariable String categoria) {
-        List<Produto> produtos = produtoService.buscarProdutosPorCategoria(categoria);
-        return ResponseEntity.ok(produtos);
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = Produto.class))))
+    public ResponseEntity<?> buscarProdutosPorCategoria(
+            @Parameter(description = "Categoria dos produtos") @PathVariable String categoria,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(),
+                    () -> comCampos(() -> ResponseEntity.ok(produtoService.buscarCamposPorCategoria(fields, categoria))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoProdutos(), () -> serializado(requisicao,
+                produtoService.buscarSerializadosPorCategoria(categoria), () -> produtoService.buscarProdutosPorCategoria(categoria)));
+    }
+
+    @GetMapping("/facetas")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Facetas do catálogo", description = "Retorna as contagens de produtos por categoria, faixa de preço e situação de estoque. "
+            + "Com categoria, as contagens de preço e estoque ficam restritas a ela")
+    public ResponseEntity<Map<String, Object>> contarFacetas(
+            @Parameter(description = "Categoria (opcional)") @RequestParam(required = false) String categoria) {
+        return ResponseEntity.ok(produtoService.contarFacetas(categoria));
     }
 
     @GetMapping("/estoque-baixo")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Produtos com estoque baixo", description = "Retorna produtos com menos de 10 unidades em estoque")
-    public ResponseEntity<List<Produto>> buscarProdutosComEstoqueBaixo() {
-        List<Produto> produtos = produtoService.buscarProdutosComEstoqueBaixo();
-        return ResponseEntity.ok(produtos);
+    @Operation(summary = "Produtos com estoque baixo", description = "Retorna produtos com estoque abaixo do limite configurado (produtos.estoque-baixo.limite, padrão 10)")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = Produto.class))))
+    public ResponseEntity<?> buscarProdutosComEstoqueBaixo(
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(),
+                    () -> comCampos(() -> ResponseEntity.ok(produtoService.buscarCamposComEstoqueBaixo(fields))));
+        }
+        return condicional(requisicao, versoesRecursos.versaoProdutos(), () -> serializado(requisicao,
+                produtoService.buscarSerializadosComEstoqueBaixo(), produtoService::buscarProdutosComEstoqueBaixo));
+    }
+
+    @GetMapping(value = "/estoque-baixo/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Stream de estoque baixo", description = "Stream SSE (evento estoque-baixo) com cada produto que entra ou sai da faixa de estoque baixo")
+    public SseEmitter acompanharEstoqueBaixo() {
+        return estoqueBaixoIndex.assinar();
     }
 
     @GetMapping("/preco")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    @Operation(summary = "Buscar produtos por faixa de preço", description = "Retorna produtos dentro de uma faixa de preço")
-    public ResponseEntity<List<Produto>> buscarProdutosPorFaixaPreco(
+    @Operation(summary = "Buscar produtos por faixa de preço", description = "Retorna produtos dentro de uma faixa de preço, do mais barato para o mais caro. O total de resultados vem no cabeçalho X-Total-Count quando paginado")
+    public ResponseEntity<?> buscarProdutosPorFaixaPreco(
             @Parameter(description = "Preço mínimo") @RequestParam BigDecimal precoMin,
-            @Parameter(description = "Preço máximo") @RequestParam BigDecimal precoMax) {
-        List<Produto> produtos = produtoService.buscarProdutosPorFaixaPreco(precoMin, precoMax);
-        return ResponseEntity.ok(produtos);
+            @Parameter(description = "Preço máximo") @RequestParam BigDecimal precoMax,
+            @Parameter(description = "Categoria (opcional)") @RequestParam(required = false) String categoria,
+            @Parameter(description = "Página (começa em 0), usada junto com tamanho") @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Máximo de resultados por página (se omitido, retorna todos)") @RequestParam(required = false) Integer tamanho,
+            @Parameter(description = DESCRICAO_FIELDS) @RequestParam(required = false) String fields,
+            WebRequest requisicao) {
+        boolean todos = tamanho == null && categoria == null;
+        int tamanhoPagina = tamanho == null ? Integer.MAX_VALUE : tamanho;
+        if (!todos && (pagina < 0 || tamanhoPagina < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (fields != null) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(), () -> comCampos(() -> {
+                Page<Registro> resultado = produtoService.buscarCamposPorFaixaPreco(fields, precoMin, precoMax, categoria,
+                        todos ? 0 : pagina, tamanhoPagina);
+                return todos ? ResponseEntity.ok(resultado.getContent()) : paginado(resultado);
+            }));
+        }
+        if (todos) {
+            return condicional(requisicao, versoesRecursos.versaoProdutos(),
+                    () -> ResponseEntity.ok(produtoService.buscarProdutosPorFaixaPreco(precoMin, precoMax)));
+        }
+        return condicional(requisicao, versoesRecursos.versaoProdutos(), () -> paginado(
+                produtoService.buscarProdutosPorFaixaPreco(precoMin, precoMax, categoria, pagina, tamanhoPagina)));
     }
 
     @PatchMapping("/{id}/estoque")
@@ -130,4 +299,176 @@ public class ProdutoController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @PatchMapping("/estoque")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Ajustar estoque em lote", description = "Aplica uma lista de ajustes {id, quantidade | delta} em uma única transação. "
+            + "Retorna quantos produtos foram atualizados, os ids não encontrados e as violações (apenas ADMIN)")
+    public ResponseEntity<ResumoAjusteEstoque> ajustarEstoqueEmLote(
+            @Parameter(description = "Ajustes: quantidade define o valor absoluto, delta soma ou subtrai") @RequestBody List<AjusteEstoque> ajustes) {
+        if (ajustes.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(produtoService.ajustarEstoqueEmLote(ajustes));
+    }
+
+    @PostMapping("/{id}/reservar")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Reservar estoque", description = "Baixa atomicamente a quantidade do estoque, apenas se houver unidades suficientes (409 caso contrário)")
+    public ResponseEntity<Map<String, Object>> reservarEstoque(
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = "Quantidade a reservar") @RequestParam int quantidade) {
+        try {
+            int estoqueDisponivel = produtoService.reservarEstoque(id, quantidade);
+            return ResponseEntity.ok(Map.of(
+                    "produtoId", id,
+                    "quantidade", quantidade,
+                    "estoqueDisponivel", estoqueDisponivel));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return respostaErroEstoque(e);
+        }
+    }
+
+    @PostMapping("/{id}/liberar")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Liberar estoque", description = "Devolve atomicamente unidades reservadas ao estoque")
+    public ResponseEntity<Map<String, Object>> liberarEstoque(
+            @Parameter(description = "ID do produto") @PathVariable Long id,
+            @Parameter(description = "Quantidade a liberar") @RequestParam int quantidade) {
+        try {
+            int estoqueDisponivel = produtoService.liberarEstoque(id, quantidade);
+            return ResponseEntity.ok(Map.of(
+                    "produtoId", id,
+                    "quantidade", quantidade,
+                    "estoqueDisponivel", estoqueDisponivel));
+        } catch (IllegalArgumentException e) {
+            return respostaErroEstoque(e);
+        }
+    }
+
+    // 404 para produto inexistente, 400 para quantidade inválida
+    private ResponseEntity<Map<String, Object>> respostaErroEstoque(IllegalArgumentException e) {
+        HttpStatus status = "Produto não encontrado".equals(e.getMessage()) ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).body(Map.of("error", e.getMessage()));
+    }
+
+    // Campo desconhecido em fields (ou outra validação do serviço) vira 400
+    private static <T> ResponseEntity<T> comCampos(Supplier<ResponseEntity<T>> resposta) {
+        try {
+            return resposta.get();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Lista em JSON a partir do snapshot do catálogo: os bytes prontos (ou já
+     * comprimidos, se o cliente aceita gzip) vão direto para a resposta. Sem snapshot
+     * em dia, ou com outro formato no Accept, a consulta segue pelo caminho normal.
+     */
+    private ResponseEntity<Object> serializado(WebRequest requisicao, Optional<CatalogoSnapshot.Corpo> snapshot,
+            Supplier<List<Produto>> consulta) {
+        if (snapshot.isEmpty()
+                || !MediaType.APPLICATION_JSON.equals(formatosResposta.negociar(requisicao.getHeader(HttpHeaders.ACCEPT)))) {
+            return ResponseEntity.ok(consulta.get());
+        }
+        boolean gzip = aceitaGzip(requisicao.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] corpo = gzip ? snapshot.get().gzip() : snapshot.get().json();
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(corpo.length)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(corpo);
+    }
+
+    // gzip listado no Accept-Encoding sem q=0
+    private static boolean aceitaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacao : acceptEncoding.split(",")) {
+            String[] partes = codificacao.split(";");
+            if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                for (int i = 1; i < partes.length; i++) {
+                    if (partes[i].replace(" ", "").matches("[qQ]=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * GET condicional: com o If-None-Match já na versão atual, responde 304 sem
+     * executar a consulta; senão executa e acrescenta a ETag às respostas 2xx
+     * (fraca quando o corpo vai comprimido, que não é byte a byte a mesma representação).
+     */
+    private <T> ResponseEntity<T> condicional(WebRequest requisicao, String versao, Supplier<ResponseEntity<T>> consulta) {
+        String etag = etag(requisicao, versao);
+        if (VersoesRecursos.naoModificado(requisicao.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity<T> resposta = consulta.get();
+        if (!resposta.getStatusCode().is2xxSuccessful()) {
+            return resposta;
+        }
+        boolean comprimida = resposta.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING);
+        return ResponseEntity.status(resposta.getStatusCode())
+                .headers(resposta.getHeaders())
+                .eTag(comprimida ? "W/" + etag : etag)
+                .body(resposta.getBody());
+    }
+
+    // ETag da versão no formato que o Accept vai produzir, com a seleção do fields=
+    private String etag(WebRequest requisicao, String versao) {
+        return VersoesRecursos.etag(versao, requisicao.getParameter("fields"),
+                formatosResposta.negociar(requisicao.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    // Uma página, com o total de resultados no cabeçalho X-Total-Count
+    private static <T> ResponseEntity<List<T>> paginado(Page<T> resultado) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(resultado.getTotalElements()))
+                .body(resultado.getContent());
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Importar produtos via CSV", description = "Importa produtos de um arquivo CSV (colunas nome, descricao, preco, quantidadeEstoque, categoria). "
+            + "A resposta é um stream NDJSON com o progresso e, na última linha, o resumo final (apenas ADMIN)")
+    public ResponseEntity<StreamingResponseBody> importarProdutos(
+            @Parameter(description = "Arquivo CSV com cabeçalho") @RequestParam("arquivo") MultipartFile arquivo) {
+        if (arquivo.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody corpo = saida -> {
+            try (InputStream entrada = arquivo.getInputStream()) {
+                escreverLinha(saida, importacaoProdutoService.importar(entrada, progresso -> {
+                    try {
+                        escreverLinha(saida, progresso);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Cliente desconectou: aborta a importação
+                    }
+                }));
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(corpo);
+    }
+
+    // Escreve um objeto JSON por linha e envia imediatamente ao cliente
+    private void escreverLinha(OutputStream saida, Object valor) throws IOException {
+        saida.write(objectMapper.writeValueAsBytes(valor));
+        saida.write('\n');
+        saida.flush();
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.autheticuser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Um item do ajuste de estoque em lote: informar quantidade (valor absoluto) ou delta (variação), nunca os dois
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AjusteEstoque {
+    private Long id;
+    private Integer quantidade;
+    private Integer delta;
+}
@@ -0,0 +1,21 @@
+package com.example.autheticuser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import javax.persistence.*;
+import java.time.LocalDate;
+
+// Total de clientes cadastrados em um dia (agregado mantido a cada criação/remoção)
+@Entity
+@Table(name = "cadastros_diarios")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CadastroDiario {
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private Long total;
+}
@@ -5,9 +5,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Table(name = "clientes")
+@EntityListeners(ClienteEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,7 +30,7 @@ public class Cliente {
     @Column(length = 200)
     private String endereco;
 
-    @Column(length = 20)
+    @Column(unique = true, length = 20)
     private String cpf;
 
     @Column(name = "data_nascimento")
@@ -40,14 +42,15 @@ public class Cliente {
     @Column(name = "data_atualizacao")
     private LocalDateTime dataAtualizacao;
 
+    // dataAtualizacao com a precisão da coluna (microssegundos): o valor em memória é o mesmo gravado, base da ETag
     @PrePersist
     protected void onCreate() {
         dataCadastro = LocalDateTime.now();
-        dataAtualizacao = LocalDateTime.now();
+        dataAtualizacao = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     @PreUpdate
     protected void onUpdate() {
-        dataAtualizacao = LocalDateTime.now();
+        dataAtualizacao = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.autheticuser.model;
+
+import lombok.Getter;
+
+/**
+ * Publicado sempre que um cliente é criado, atualizado ou removido.
+ * Carrega uma cópia do cliente no momento da alteração.
+ */
+@Getter
+public class ClienteAlteradoEvent {
+
+    public enum Tipo {
+        CRIADO, ATUALIZADO, REMOVIDO
+    }
+
+    private final Tipo tipo;
+    private final Cliente cliente;
+
+    public ClienteAlteradoEvent(Tipo tipo, Cliente cliente) {
+        this.tipo = tipo;
+        this.cliente = new Cliente(cliente.getId(), cliente.getNome(), cliente.getEmail(), cliente.getTelefone(),
+                cliente.getEndereco(), cliente.getCpf(), cliente.getDataNascimento(), cliente.getDataCadastro(),
+                cliente.getDataAtualizacao());
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.autheticuser.model;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Traduz os callbacks JPA de Cliente em ClienteAlteradoEvent (o Hibernate obtém este bean do Spring)
+@Component
+@RequiredArgsConstructor
+public class ClienteEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void aoCriar(Cliente cliente) {
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(ClienteAlteradoEvent.Tipo.CRIADO, cliente));
+    }
+
+    @PostUpdate
+    public void aoAtualizar(Cliente cliente) {
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(ClienteAlteradoEvent.Tipo.ATUALIZADO, cliente));
+    }
+
+    @PostRemove
+    public void aoRemover(Cliente cliente) {
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(ClienteAlteradoEvent.Tipo.REMOVIDO, cliente));
+    }
+}
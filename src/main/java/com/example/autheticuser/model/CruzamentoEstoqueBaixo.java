@@ -0,0 +1,16 @@
+package com.example.autheticuser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Um produto que entrou ou saiu da faixa de estoque baixo (enviado no stream /api/produtos/estoque-baixo/stream)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CruzamentoEstoqueBaixo {
+    private Long produtoId;
+    private int quantidadeEstoque;
+    private boolean abaixoDoLimite;
+    private int limite;
+}
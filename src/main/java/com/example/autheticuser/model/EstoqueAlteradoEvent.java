@@ -0,0 +1,26 @@
+package com.example.autheticuser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publicado quando apenas o estoque de um produto muda por meio de um UPDATE
+ * atômico (reserva, liberação ou ajuste), que não passa pelos callbacks JPA.
+ * A versão permite descartar eventos que chegam fora de ordem; com a versão e a
+ * dataAtualizacao da linha, quem guarda o produto inteiro pode atualizá-lo sem relê-lo.
+ */
+@Getter
+@AllArgsConstructor
+public class EstoqueAlteradoEvent {
+    private final Long produtoId;
+    private final int quantidadeEstoque;
+    private final long versao;
+    // null quando desconhecida: o produto precisa ser relido
+    private final LocalDateTime dataAtualizacao;
+
+    public EstoqueAlteradoEvent(Long produtoId, int quantidadeEstoque, long versao) {
+        this(produtoId, quantidadeEstoque, versao, null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.autheticuser.model;
+
+import lombok.Getter;
+
+/**
+ * Publicado sempre que um produto é criado, atualizado ou removido.
+ * Carrega uma cópia do produto no momento da alteração, para que os
+ * consumidores (índices em memória, contadores etc.) não dependam da
+ * entidade gerenciada pelo Hibernate.
+ */
+@Getter
+public class ProdutoAlteradoEvent {
+
+    public enum Tipo {
+        CRIADO, ATUALIZADO, REMOVIDO
+    }
+
+    private final Tipo tipo;
+    private final Produto produto;
+
+    public ProdutoAlteradoEvent(Tipo tipo, Produto produto) {
+        this.tipo = tipo;
+        this.produto = new Produto(produto.getId(), produto.getNome(), produto.getDescricao(), produto.getPreco(),
+                produto.getQuantidadeEstoque(), produto.getCategoria(), produto.getDataCriacao(),
+                produto.getDataAtualizacao(), produto.getVersao());
+    }
+}
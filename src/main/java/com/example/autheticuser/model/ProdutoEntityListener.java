@@ -0,0 +1,32 @@
+package com.example.autheticuser.model;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Traduz os callbacks JPA de Produto em ProdutoAlteradoEvent (o Hibernate obtém este bean do Spring)
+@Component
+@RequiredArgsConstructor
+public class ProdutoEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void aoCriar(Produto produto) {
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(ProdutoAlteradoEvent.Tipo.CRIADO, produto));
+    }
+
+    @PostUpdate
+    public void aoAtualizar(Produto produto) {
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(ProdutoAlteradoEvent.Tipo.ATUALIZADO, produto));
+    }
+
+    @PostRemove
+    public void aoRemover(Produto produto) {
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(ProdutoAlteradoEvent.Tipo.REMOVIDO, produto));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.autheticuser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+// Resultado de uma busca por vários ids: os encontrados na ordem pedida e os ids que não existem
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoPorIds<T> {
+    private List<T> itens;
+    private List<Long> naoEncontrados;
+
+    // Ids distintos na ordem recebida; lista vazia, id nulo ou acima do limite são rejeitados
+    public static List<Long> idsDistintos(List<Long> ids, int maximo) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um id");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Id inválido");
+        }
+        List<Long> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distintos.size() > maximo) {
+            throw new IllegalArgumentException("Máximo de " + maximo + " ids por busca");
+        }
+        return distintos;
+    }
+}
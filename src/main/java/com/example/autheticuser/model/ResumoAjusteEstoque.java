@@ -0,0 +1,18 @@
+package com.example.autheticuser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resultado de um ajuste de estoque em lote (PATCH /api/produtos/estoque)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoAjusteEstoque {
+    private int recebidos;
+    private int atualizados;
+    private List<Long> naoEncontrados;
+    private List<String> violacoes;
+}
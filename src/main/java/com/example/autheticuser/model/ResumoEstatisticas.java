@@ -0,0 +1,24 @@
+package com.example.autheticuser.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// Snapshot imutável das métricas do dashboard (/estatisticas/dashboard e /estatisticas/resumo)
+@Getter
+@RequiredArgsConstructor
+public class ResumoEstatisticas {
+    private final long totalClientes;
+    private final long clientesCadastradosHoje;
+    private final long totalProdutos;
+    private final long produtosEstoqueBaixo;
+    // Instante (epoch ms) em que o cálculo começou
+    private final long geradoEm;
+
+    public long idadeMs() {
+        return idadeMs(System.currentTimeMillis());
+    }
+
+    public long idadeMs(long agora) {
+        return Math.max(0, agora - geradoEm);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.autheticuser.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Progresso (parcial) ou resumo final de uma importação de produtos via CSV
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoImportacao {
+    private long linhasLidas;
+    private long importados;
+    private long invalidos;
+    private long duplicados;
+    private boolean concluido;
+    private boolean falhou;
+    private long duracaoMs;
+    private List<String> erros;
+}
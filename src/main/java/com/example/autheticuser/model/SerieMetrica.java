@@ -0,0 +1,26 @@
+package com.example.autheticuser.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Resposta de GET /estatisticas/serie: um ponto por intervalo, inclusive os vazios
+@Getter
+@RequiredArgsConstructor
+public class SerieMetrica {
+    private final String metrica;
+    private final String granularidade;
+    private final LocalDateTime de;
+    private final LocalDateTime ate;
+    private final long total;
+    private final List<Ponto> pontos;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Ponto {
+        private final LocalDateTime inicio;
+        private final long total;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.autheticuser.repository;
+
+import com.example.autheticuser.model.CadastroDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface CadastroDiarioRepository extends JpaRepository<CadastroDiario, LocalDate> {
+
+    // Somar (ou subtrair) cadastros de um dia, criando a linha do dia se ainda não existir
+    @Modifying
+    @Query(value = "MERGE INTO cadastros_diarios d "
+            + "USING (VALUES (CAST(:dia AS DATE), CAST(:delta AS BIGINT))) AS v(dia, delta) ON d.dia = v.dia "
+            + "WHEN MATCHED THEN UPDATE SET total = d.total + v.delta "
+            + "WHEN NOT MATCHED THEN INSERT (dia, total) VALUES (v.dia, v.delta)", nativeQuery = true)
+    void registrar(@Param("dia") LocalDate dia, @Param("delta") long delta);
+
+    // Total de cadastros entre dois dias (inclusive)
+    @Query("SELECT COALESCE(SUM(d.total), 0) FROM CadastroDiario d WHERE d.dia BETWEEN :inicio AND :fim")
+    long somarPorPeriodo(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+}
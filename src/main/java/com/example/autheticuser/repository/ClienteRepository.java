@@ -1,11 +1,14 @@
 package com.example.autheticuser.repository;
 
 import com.example.autheticuser.model.Cliente;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +22,17 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     // Buscar por nome (case insensitive)
     List<Cliente> findByNomeContainingIgnoreCase(String nome);
 
+    // Buscar por nome com paginação (usado enquanto o índice de nomes não está carregado)
+    Page<Cliente> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
+
+    // Pares (id, nome) para a carga do índice de nomes em memória
+    @Query("SELECT c.id, c.nome FROM Cliente c")
+    List<Object[]> findIdsENomes();
+
+    // Pares (email, cpf) para a carga dos filtros de unicidade em memória
+    @Query("SELECT c.email, c.cpf FROM Cliente c")
+    List<Object[]> findEmailsECpfs();
+
     // Buscar por CPF
     Optional<Cliente> findByCpf(String cpf);
 
@@ -36,7 +50,21 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     // Buscar clientes por telefone
     List<Cliente> findByTelefoneContaining(String telefone);
 
+    // Buscar clientes pelos dígitos do telefone (usado enquanto o índice de telefones não está carregado)
+    @Query(value = "SELECT * FROM clientes WHERE REGEXP_REPLACE(telefone, '[^0-9]', '') LIKE :padrao", nativeQuery = true)
+    List<Cliente> findByDigitosTelefoneLike(@Param("padrao") String padrao);
+
+    // Pares (id, telefone) para a carga do índice de telefones em memória
+    @Query("SELECT c.id, c.telefone FROM Cliente c WHERE c.telefone IS NOT NULL")
+    List<Object[]> findIdsETelefones();
+
+    // Contar clientes cadastrados no intervalo [inicio, fim) (sargável: usa o índice de data_cadastro)
+    @Query("SELECT COUNT(c) FROM Cliente c WHERE c.dataCadastro >= :inicio AND c.dataCadastro < :fim")
+    long countCadastradosEntre(@Param("inicio") LocalDateTime inicio, @Param("fim") LocalDateTime fim);
+
     // Contar clientes cadastrados hoje
-    @Query("SELECT COUNT(c) FROM Cliente c WHERE DATE(c.dataCadastro) = CURRENT_DATE")
-    long countClientesCadastradosHoje();
+    default long countClientesCadastradosHoje() {
+        LocalDate hoje = LocalDate.now();
+        return countCadastradosEntre(hoje.atStartOfDay(), hoje.plusDays(1).atStartOfDay());
+    }
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package com.example.autheticuser.repository;
 
 import com.example.autheticuser.model.Produto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
@@ -15,15 +21,33 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     // Buscar por nome (case insensitive)
     List<Produto> findByNomeContainingIgnoreCase(String nome);
 
+    // Buscar por nome com paginação (usado enquanto o índice de nomes não está carregado)
+    Page<Produto> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
+
+    // Pares (id, nome) para a carga do índice de nomes em memória
+    @Query("SELECT p.id, p.nome FROM Produto p")
+    List<Object[]> findIdsENomes();
+
+    // Trios (id, preço, categoria) para a carga do índice de preços em memória
+    @Query("SELECT p.id, p.preco, p.categoria FROM Produto p")
+    List<Object[]> findIdsPrecosECategorias();
+
+    // Id, categoria, preço, estoque e versão de todos os produtos, para a carga das facetas em memória
+    @Query("SELECT p.id, p.categoria, p.preco, p.quantidadeEstoque, p.versao FROM Produto p")
+    List<Object[]> findIdsCategoriasPrecosEEstoques();
+
     // Buscar por categoria
     List<Produto> findByCategoria(String categoria);
 
     // Buscar produtos com preço menor que um valor
     List<Produto> findByPrecoLessThan(BigDecimal preco);
 
-    // Buscar produtos com estoque baixo (menos de 10 unidades)
-    @Query("SELECT p FROM Produto p WHERE p.quantidadeEstoque < 10")
-    List<Produto> findProdutosComEstoqueBaixo();
+    // Buscar produtos com estoque abaixo do limite (usado enquanto o índice de estoque baixo não está carregado)
+    @Query("SELECT p FROM Produto p WHERE p.quantidadeEstoque < :limite")
+    List<Produto> findProdutosComEstoqueBaixo(@Param("limite") int limite);
+
+    // Contar produtos com estoque abaixo do limite, sem carregar as linhas
+    long countByQuantidadeEstoqueLessThan(int limite);
 
     // Buscar produtos por faixa de preço
     @Query("SELECT p FROM Produto p WHERE p.preco BETWEEN :precoMin AND :precoMax")
@@ -32,4 +56,53 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
     // Verificar se existe produto com nome específico
     boolean existsByNome(String nome);
-}
\ No newline at end of file
+
+    // Dentre os nomes informados, retornar os que já existem (deduplicação da importação)
+    @Query("SELECT p.nome FROM Produto p WHERE p.nome IN :nomes")
+    List<String> findNomesExistentes(@Param("nomes") Collection<String> nomes);
+
+    // Buscar produtos por uma lista de nomes exatos
+    List<Produto> findByNomeIn(Collection<String> nomes);
+
+    // Estoque e versão atuais de um produto, sem carregar a entidade inteira
+    Optional<Estoque> findEstoqueById(Long id);
+
+    // Estoque e versão de vários produtos de uma vez (ajuste em lote)
+    List<Estoque> findEstoqueByIdIn(Collection<Long> ids);
+
+    // Estoque e versão dos produtos abaixo do limite, para a carga do índice de estoque baixo
+    List<Estoque> findEstoqueByQuantidadeEstoqueLessThan(int limite);
+
+    // Baixar estoque atomicamente, apenas se houver quantidade suficiente (retorna linhas afetadas)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque - :quantidade, "
+            + "p.dataAtualizacao = :agora, p.versao = p.versao + 1 "
+            + "WHERE p.id = :id AND p.quantidadeEstoque >= :quantidade")
+    int reservarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade,
+            @Param("agora") LocalDateTime agora);
+
+    // Devolver unidades ao estoque atomicamente (retorna linhas afetadas)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = p.quantidadeEstoque + :quantidade, "
+            + "p.dataAtualizacao = :agora, p.versao = p.versao + 1 WHERE p.id = :id")
+    int liberarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade,
+            @Param("agora") LocalDateTime agora);
+
+    // Definir o estoque sem carregar a entidade (retorna linhas afetadas)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Produto p SET p.quantidadeEstoque = :quantidade, "
+            + "p.dataAtualizacao = :agora, p.versao = p.versao + 1 WHERE p.id = :id")
+    int definirEstoque(@Param("id") Long id, @Param("quantidade") int quantidade,
+            @Param("agora") LocalDateTime agora);
+
+    // Projeção com apenas o estoque, a versão e a dataAtualizacao do produto
+    interface Estoque {
+        Long getId();
+
+        Integer getQuantidadeEstoque();
+
+        Long getVersao();
+
+        LocalDateTime getDataAtualizacao();
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.autheticuser.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Respostas com apenas alguns campos (parâmetro fields=) de produtos e clientes.
+ *
+ * Cada combinação de campos vira uma {@link Selecao} compilada uma única vez: a
+ * lista de colunas do SELECT e os nomes JSON já codificados. A consulta lê só essas
+ * colunas via JDBC (sem montar a entidade) e cada {@link Registro} se escreve com a
+ * seleção da qual veio. O id sempre faz parte da resposta.
+ */
+@Component
+@RequiredArgsConstructor
+public class CamposParciais {
+
+    // Ids por consulta "WHERE id IN (...)"; listas maiores são divididas
+    private static final int IDS_POR_CONSULTA = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Recurso, Map<Long, Selecao>> selecoes = new ConcurrentHashMap<>();
+
+    public enum Tipo {
+        INTEIRO, TEXTO, DECIMAL, DATA_HORA
+    }
+
+    // Campos expostos de cada recurso, na ordem em que aparecem no JSON (o id é sempre o primeiro)
+    public enum Recurso {
+        PRODUTOS("produtos",
+                new Campo("id", "id", Tipo.INTEIRO),
+                new Campo("nome", "nome", Tipo.TEXTO),
+                new Campo("descricao", "descricao", Tipo.TEXTO),
+                new Campo("preco", "preco", Tipo.DECIMAL),
+                new Campo("quantidadeEstoque", "quantidade_estoque", Tipo.INTEIRO),
+                new Campo("categoria", "categoria", Tipo.TEXTO),
+                new Campo("dataCriacao", "data_criacao", Tipo.DATA_HORA),
+                new Campo("dataAtualizacao", "data_atualizacao", Tipo.DATA_HORA),
+                new Campo("versao", "versao", Tipo.INTEIRO)),
+        CLIENTES("clientes",
+                new Campo("id", "id", Tipo.INTEIRO),
+                new Campo("nome", "nome", Tipo.TEXTO),
+                new Campo("email", "email", Tipo.TEXTO),
+                new Campo("telefone", "telefone", Tipo.TEXTO),
+                new Campo("endereco", "endereco", Tipo.TEXTO),
+                new Campo("cpf", "cpf", Tipo.TEXTO),
+                new Campo("dataNascimento", "data_nascimento", Tipo.DATA_HORA),
+                new Campo("dataCadastro", "data_cadastro", Tipo.DATA_HORA),
+                new Campo("dataAtualizacao", "data_atualizacao", Tipo.DATA_HORA));
+
+        private final String tabela;
+        private final Campo[] campos;
+        private final Map<String, Integer> posicoes = new HashMap<>();
+
+        Recurso(String tabela, Campo... campos) {
+            this.tabela = tabela;
+            this.campos = campos;
+            for (int i = 0; i < campos.length; i++) {
+                posicoes.put(campos[i].nome, i);
+            }
+        }
+    }
+
+    public static final class Campo {
+        private final String nome;
+        private final String coluna;
+        private final Tipo tipo;
+
+        Campo(String nome, String coluna, Tipo tipo) {
+            this.nome = nome;
+            this.coluna = coluna;
+            this.tipo = tipo;
+        }
+    }
+
+    // Combinação de campos já compilada: colunas do SELECT e nomes JSON pré-codificados
+    public static final class Selecao {
+        private final Recurso recurso;
+        private final Campo[] campos;
+        private final SerializedString[] nomes;
+        private final String colunas;
+
+        private Selecao(Recurso recurso, long mascara) {
+            List<Campo> escolhidos = new ArrayList<>();
+            for (int i = 0; i < recurso.campos.length; i++) {
+                if ((mascara & (1L << i)) != 0) {
+                    escolhidos.add(recurso.campos[i]);
+                }
+            }
+            this.recurso = recurso;
+            this.campos = escolhidos.toArray(new Campo[0]);
+            this.nomes = new SerializedString[campos.length];
+            StringBuilder sql = new StringBuilder();
+            for (int i = 0; i < campos.length; i++) {
+                nomes[i] = new SerializedString(campos[i].nome);
+                sql.append(i == 0 ? "" : ", ").append(campos[i].coluna);
+            }
+            this.colunas = sql.toString();
+        }
+
+        // Posição do campo na seleção, ou -1 se ele não foi pedido
+        private int posicao(String campo) {
+            for (int i = 0; i < campos.length; i++) {
+                if (campos[i].nome.equals(campo)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Lista de colunas do SELECT, ex.: "id, nome, preco"
+        public String getColunas() {
+            return colunas;
+        }
+
+        private Registro ler(ResultSet linha) throws SQLException {
+            Object[] valores = new Object[campos.length];
+            for (int i = 0; i < campos.length; i++) {
+                valores[i] = ler(linha, i + 1, campos[i].tipo);
+            }
+            return new Registro(this, valores);
+        }
+
+        private static Object ler(ResultSet linha, int coluna, Tipo tipo) throws SQLException {
+            switch (tipo) {
+                case INTEIRO:
+                    long inteiro = linha.getLong(coluna);
+                    return linha.wasNull() ? null : inteiro;
+                case DECIMAL:
+                    return linha.getBigDecimal(coluna);
+                case DATA_HORA:
+                    Timestamp instante = linha.getTimestamp(coluna);
+                    return instante == null ? null : instante.toLocalDateTime();
+                default:
+                    return linha.getString(coluna);
+            }
+        }
+    }
+
+    // Uma linha com os campos de uma seleção; serializada sem reflexão sobre a entidade
+    public static final class Registro implements JsonSerializable {
+        private final Selecao selecao;
+        private final Object[] valores;
+
+        private Registro(Selecao selecao, Object[] valores) {
+            this.selecao = selecao;
+            this.valores = valores;
+        }
+
+        public Long getId() {
+            return (Long) valores[0];
+        }
+
+        // Valor de um campo da seleção (null se não foi pedido)
+        public Object get(String campo) {
+            int posicao = selecao.posicao(campo);
+            return posicao < 0 ? null : valores[posicao];
+        }
+
+        // Troca o valor de um campo da seleção (nada muda se ele não foi pedido)
+        void definir(String campo, Object valor) {
+            int posicao = selecao.posicao(campo);
+            if (posicao >= 0) {
+                valores[posicao] = valor;
+            }
+        }
+
+        @Override
+        public void serialize(JsonGenerator gerador, SerializerProvider provider) throws IOException {
+            gerador.writeStartObject();
+            for (int i = 0; i < valores.length; i++) {
+                gerador.writeFieldName(selecao.nomes[i]);
+                Object valor = valores[i];
+                if (valor == null) {
+                    gerador.writeNull();
+                } else if (valor instanceof Long) {
+                    gerador.writeNumber((Long) valor);
+                } else if (valor instanceof String) {
+                    gerador.writeString((String) valor);
+                } else if (valor instanceof BigDecimal) {
+                    gerador.writeNumber((BigDecimal) valor);
+                } else {
+                    // Datas seguem a mesma configuração do ObjectMapper usada nas entidades
+                    provider.defaultSerializeValue(valor, gerador);
+                }
+            }
+            gerador.writeEndObject();
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gerador, SerializerProvider provider, TypeSerializer tipo)
+                throws IOException {
+            serialize(gerador, provider);
+        }
+    }
+
+    /**
+     * Compila (ou reaproveita) a seleção para a lista de campos recebida.
+     *
+     * @param campos Nomes separados por vírgula, ex.: "nome,preco". O id é incluído sempre.
+     * @throws IllegalArgumentException Se algum campo não existir no recurso.
+     */
+    public Selecao selecionar(Recurso recurso, String campos) {
+        long mascara = 1L; // id
+        if (campos != null) {
+            for (String campo : campos.split(",")) {
+                String nome = campo.trim();
+                if (nome.isEmpty()) {
+                    continue;
+                }
+                Integer posicao = recurso.posicoes.get(nome);
+                if (posicao == null) {
+                    throw new IllegalArgumentException("Campo desconhecido: " + nome);
+                }
+                mascara |= 1L << posicao;
+            }
+        }
+        return selecoes.computeIfAbsent(recurso, r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(mascara, m -> new Selecao(recurso, m));
+    }
+
+    /**
+     * Consulta os campos selecionados com um filtro livre.
+     *
+     * @param complemento Trecho após o FROM, ex.: "WHERE email = ?" ou "ORDER BY id".
+     */
+    public List<Registro> consultar(Selecao selecao, String complemento, Object... parametros) {
+        String sql = "SELECT " + selecao.colunas + " FROM " + selecao.recurso.tabela
+                + (complemento.isEmpty() ? "" : " " + complemento);
+        return jdbcTemplate.query(sql, (linha, numero) -> selecao.ler(linha), parametros);
+    }
+
+    // Busca os registros pelos ids, na ordem recebida; ids inexistentes ficam de fora
+    public List<Registro> buscarPorIds(Selecao selecao, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Registro> porId = new HashMap<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += IDS_POR_CONSULTA) {
+            List<Long> parte = ids.subList(inicio, Math.min(inicio + IDS_POR_CONSULTA, ids.size()));
+            String marcadores = String.join(", ", Collections.nCopies(parte.size(), "?"));
+            for (Registro registro : consultar(selecao, "WHERE id IN (" + marcadores + ")", parte.toArray())) {
+                porId.put(registro.getId(), registro);
+            }
+        }
+        List<Registro> registros = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Registro registro = porId.get(id);
+            if (registro != null) {
+                registros.add(registro);
+            }
+        }
+        return registros;
+    }
+
+    // Ids pedidos que não vieram na resposta
+    public static List<Long> idsAusentes(List<Long> pedidos, List<Registro> encontrados) {
+        Set<Long> presentes = new HashSet<>();
+        encontrados.forEach(registro -> presentes.add(registro.getId()));
+        List<Long> ausentes = new ArrayList<>();
+        for (Long id : pedidos) {
+            if (!presentes.contains(id)) {
+                ausentes.add(id);
+            }
+        }
+        return ausentes;
+    }
+}
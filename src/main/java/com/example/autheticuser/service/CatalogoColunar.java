@@ -0,0 +1,110 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Cópia colunar do catálogo (ColunasProdutos), carregada na inicialização e mantida pelos eventos de produto e estoque
+@Component
+@RequiredArgsConstructor
+public class CatalogoColunar {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoColunar.class);
+
+    private final ProdutoRepository produtoRepository;
+    private final ColunasProdutos colunas = new ColunasProdutos();
+    private volatile boolean pronto;
+    private final AtomicBoolean carregando = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        if (pronto || !carregando.compareAndSet(false, true)) {
+            return; // Já carregado ou carga em andamento
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            preencher(colunas);
+            pronto = true;
+            log.info("Catálogo colunar carregado: {} produtos em {} ms", colunas.tamanho(),
+                    System.currentTimeMillis() - inicio);
+        } finally {
+            carregando.set(false);
+        }
+    }
+
+    // Aplicado somente após o commit, para que alterações desfeitas não entrem nas colunas
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        Produto produto = evento.getProduto();
+        if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+            colunas.remover(produto.getId());
+        } else {
+            gravar(produto.getId(), produto.getPreco(), produto.getQuantidadeEstoque(), produto.getCategoria(),
+                    produto.getVersao());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        colunas.gravarEstoque(evento.getProdutoId(), evento.getQuantidadeEstoque(), evento.getVersao());
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // Antes da carga, agrega uma cópia lida do banco só para esta consulta e dispara a carga em segundo plano
+    public ColunasProdutos.Agregados agregar(String categoria) {
+        if (!pronto) {
+            carregarEmSegundoPlano();
+            ColunasProdutos doBanco = new ColunasProdutos();
+            preencher(doBanco);
+            return doBanco.agregar(categoria);
+        }
+        return colunas.agregar(categoria);
+    }
+
+    private void carregarEmSegundoPlano() {
+        if (carregando.get()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                carregar();
+            } catch (RuntimeException e) {
+                log.error("Falha ao carregar o catálogo colunar", e);
+            }
+        }, "catalogo-colunar-carga");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void preencher(ColunasProdutos destino) {
+        for (Object[] linha : produtoRepository.findIdsCategoriasPrecosEEstoques()) {
+            gravar(destino, (Long) linha[0], (BigDecimal) linha[2], (Integer) linha[3], (String) linha[1],
+                    (Long) linha[4]);
+        }
+    }
+
+    private void gravar(Long id, BigDecimal preco, Integer estoque, String categoria, Long versao) {
+        gravar(colunas, id, preco, estoque, categoria, versao);
+    }
+
+    private static void gravar(ColunasProdutos destino, Long id, BigDecimal preco, Integer estoque, String categoria,
+            Long versao) {
+        if (preco != null && estoque != null) {
+            destino.gravar(id, preco, estoque, categoria, versao == null ? 0 : versao);
+        }
+    }
+}
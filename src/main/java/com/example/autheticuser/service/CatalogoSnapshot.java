@@ -0,0 +1,557 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot imutável do catálogo de produtos, com as listas já serializadas.
+ *
+ * GET /api/produtos, /categoria/{categoria} e /estoque-baixo podem ser respondidos
+ * com os bytes JSON prontos (ou com a versão gzip, comprimida uma vez por lista),
+ * sem Hibernate nem Jackson na requisição. O snapshot é publicado em uma única
+ * referência volatile: leitores não usam lock.
+ *
+ * Os itens ficam em blocos de {@value #IDS_POR_BLOCO} ids consecutivos, cada um com
+ * os seus trechos já juntados (todos, por categoria, estoque baixo); as listas são a
+ * concatenação desses trechos, feita só quando a lista é pedida. Uma alteração
+ * remonta apenas os blocos dos produtos afetados e reaproveita os demais, as
+ * categorias não afetadas e, se for o caso, a lista de estoque baixo (cópia na escrita).
+ *
+ * Cada alteração confirmada da entidade marca o produto como pendente; uma thread de
+ * fundo relê os pendentes em lote e publica o novo snapshot. Enquanto houver
+ * pendências o snapshot não é usado e as consultas vão ao banco, de modo que uma
+ * leitura logo após uma escrita já a enxerga. Alterações só de estoque (reservas,
+ * ajustes e os saldos em memória do {@link EstoqueQuente}) trazem no evento tudo o que
+ * muda no produto e são aplicadas na hora, sem tirar o snapshot de uso.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogoSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoSnapshot.class);
+
+    private static final int TAMANHO_LOTE_RELEITURA = 1000;
+    private static final int IDS_POR_BLOCO = 256;
+    private static final Corpo VAZIO = new Corpo(List.of());
+
+    private final ProdutoRepository produtoRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EstoqueQuente estoqueQuente;
+    private final EstoqueBaixoIndex estoqueBaixoIndex;
+
+    @Value("${produtos.catalogo-snapshot.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${produtos.catalogo-snapshot.atraso-ms:20}")
+    private long atrasoMs;
+
+    @Value("${produtos.catalogo-snapshot.intervalo-recarga-ms:300000}")
+    private long intervaloRecargaMs;
+
+    // Releituras do banco (recarga e pendentes) não seguram o lock do snapshot: os eventos de estoque o
+    // pegam após o commit, ainda com a conexão da transação, e esperariam por uma leitura sem conexão livre
+    private final Object lockReleitura = new Object();
+    private volatile Snapshot snapshot;
+
+    // Produtos alterados desde o último snapshot e o total de marcações (o snapshot guarda até onde chegou)
+    private final Set<Long> pendentes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong alteracoes = new AtomicLong();
+    private final AtomicBoolean agendado = new AtomicBoolean();
+
+    private ScheduledExecutorService agendador;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        if (!habilitado) {
+            return;
+        }
+        recarregar();
+        if (agendador == null) {
+            agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "catalogo-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (intervaloRecargaMs > 0) {
+                agendador.scheduleWithFixedDelay(this::recarregarComSeguranca, intervaloRecargaMs,
+                        intervaloRecargaMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (!pendentes.isEmpty()) {
+            agendar();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    // Criação, edição e remoção pela entidade (após o commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        marcar(evento.getProduto().getId());
+    }
+
+    // Só o estoque mudou: com a versão e a dataAtualizacao no evento, o item é refeito sem reler o produto
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        if (evento.getDataAtualizacao() == null || !aplicarEstoque(evento)) {
+            marcar(evento.getProdutoId());
+        }
+    }
+
+    // Lista completa (em ordem de id), se o snapshot estiver em dia
+    public Optional<Corpo> todos() {
+        return Optional.ofNullable(atual()).map(atual -> atual.todos);
+    }
+
+    public Optional<Corpo> categoria(String categoria) {
+        return Optional.ofNullable(atual()).map(atual -> atual.porCategoria.getOrDefault(categoria, VAZIO));
+    }
+
+    public Optional<Corpo> estoqueBaixo() {
+        return Optional.ofNullable(atual()).map(atual -> atual.estoqueBaixo);
+    }
+
+    /**
+     * Relê o catálogo inteiro e publica um snapshot novo. Cobre alterações que não
+     * passam pelos eventos (outra instância, SQL manual).
+     */
+    public void recarregar() {
+        synchronized (lockReleitura) {
+            long inicio = System.currentTimeMillis();
+            long geracao = alteracoes.get();
+            List<Produto> produtos = lerDoPrimario(() -> produtoRepository.findAll(Sort.by("id")));
+            synchronized (this) {
+                publicarCompleto(geracao, produtos);
+            }
+            log.info("Snapshot do catálogo carregado: {} produtos em {} blocos, {} categorias, {} KB em {} ms",
+                    produtos.size(), snapshot.blocos.size(), snapshot.porCategoria.size(),
+                    snapshot.todos.json().length / 1024, System.currentTimeMillis() - inicio);
+        }
+    }
+
+    // Deve ser chamado com o lock do snapshot
+    private void publicarCompleto(long geracao, List<Produto> produtos) {
+        Snapshot atual = snapshot;
+        int limite = estoqueBaixoIndex.getLimite();
+        Map<Long, TreeMap<Long, Item>> itensPorBloco = new TreeMap<>();
+        Set<String> categorias = new HashSet<>();
+        for (Produto produto : produtos) {
+            Item item = maisNovo(atual, produto, limite);
+            itensPorBloco.computeIfAbsent(bloco(produto.getId()), chave -> new TreeMap<>()).put(produto.getId(), item);
+            if (item.categoria != null) {
+                categorias.add(item.categoria);
+            }
+        }
+
+        TreeMap<Long, Bloco> blocos = new TreeMap<>();
+        itensPorBloco.forEach((chave, itens) -> blocos.put(chave, new Bloco(itens)));
+        Map<String, Corpo> corpos = new HashMap<>();
+        for (String categoria : categorias) {
+            corpos.put(categoria, new Corpo(trechos(blocos, bloco -> bloco.porCategoria.get(categoria))));
+        }
+
+        snapshot = new Snapshot(geracao, Collections.unmodifiableNavigableMap(blocos),
+                new Corpo(trechos(blocos, bloco -> bloco.todos)), Collections.unmodifiableMap(corpos),
+                new Corpo(trechos(blocos, bloco -> bloco.estoqueBaixo)));
+    }
+
+    /**
+     * Aplica os produtos pendentes ao snapshot atual: relê só esses produtos e
+     * remonta os blocos deles, as categorias em que eles estavam ou passaram a
+     * estar e, se for o caso, a de estoque baixo. O restante é reaproveitado.
+     */
+    void aplicarPendentes() {
+        // Só o banco é lido sem o lock do snapshot
+        synchronized (lockReleitura) {
+            if (snapshot == null) {
+                return;
+            }
+            // O total é lido antes de retirar os ids: o que for marcado depois fica para a próxima vez
+            long geracao = alteracoes.get();
+            List<Long> ids = new ArrayList<>();
+            for (Long id : pendentes) {
+                if (pendentes.remove(id)) {
+                    ids.add(id);
+                }
+            }
+            if (ids.isEmpty()) {
+                // Os ids já foram aplicados por uma passada anterior, que retirou o id antes de o total subir
+                synchronized (this) {
+                    Snapshot atual = snapshot;
+                    if (atual.geracao != geracao) {
+                        snapshot = new Snapshot(geracao, atual.blocos, atual.todos, atual.porCategoria,
+                                atual.estoqueBaixo);
+                    }
+                }
+                return;
+            }
+
+            Map<Long, Produto> lidos = new HashMap<>();
+            for (int i = 0; i < ids.size(); i += TAMANHO_LOTE_RELEITURA) {
+                List<Long> lote = ids.subList(i, Math.min(i + TAMANHO_LOTE_RELEITURA, ids.size()));
+                for (Produto produto : lerDoPrimario(() -> produtoRepository.findAllById(lote))) {
+                    lidos.put(produto.getId(), produto);
+                }
+            }
+
+            synchronized (this) {
+                Snapshot atual = snapshot;
+                int limite = estoqueBaixoIndex.getLimite();
+                Map<Long, Item> mudancas = new HashMap<>();
+                for (Long id : ids) {
+                    Produto produto = lidos.get(id);
+                    mudancas.put(id, produto == null ? null : maisNovo(atual, produto, limite));
+                }
+                snapshot = atualizar(atual, geracao, mudancas);
+            }
+        }
+    }
+
+    /**
+     * Refaz o item de um produto a partir de um evento de estoque, sem consultar o
+     * banco e sem mudar a geração do snapshot.
+     *
+     * @return false se o produto não está no snapshot (o evento vira uma releitura).
+     */
+    synchronized boolean aplicarEstoque(EstoqueAlteradoEvent evento) {
+        Snapshot atual = snapshot;
+        if (atual == null) {
+            return true;
+        }
+        Long id = evento.getProdutoId();
+        Bloco bloco = atual.blocos.get(bloco(id));
+        Item item = bloco == null ? null : bloco.itens.get(id);
+        if (item == null) {
+            return false;
+        }
+        // Evento atrasado: o item já reflete uma versão mais nova da linha
+        if (item.produto.getVersao() != null && item.produto.getVersao() > evento.getVersao()) {
+            return true;
+        }
+        Produto anterior = item.produto;
+        Produto produto = new Produto(anterior.getId(), anterior.getNome(), anterior.getDescricao(), anterior.getPreco(),
+                evento.getQuantidadeEstoque(), anterior.getCategoria(), anterior.getDataCriacao(),
+                evento.getDataAtualizacao(), evento.getVersao());
+        Map<Long, Item> mudancas = new HashMap<>();
+        mudancas.put(id, item(produto, estoqueBaixoIndex.getLimite()));
+        snapshot = atualizar(atual, atual.geracao, mudancas);
+        return true;
+    }
+
+    // Novo snapshot com os itens trocados (null = removido): só os blocos e as listas afetados são refeitos
+    private static Snapshot atualizar(Snapshot atual, long geracao, Map<Long, Item> mudancas) {
+        Map<Long, Map<Long, Item>> mudancasPorBloco = new HashMap<>();
+        mudancas.forEach((id, item) -> mudancasPorBloco.computeIfAbsent(bloco(id), chave -> new HashMap<>())
+                .put(id, item));
+
+        TreeMap<Long, Bloco> blocos = new TreeMap<>(atual.blocos);
+        Set<String> categoriasAfetadas = new HashSet<>();
+        boolean estoqueBaixoAfetado = false;
+        for (Map.Entry<Long, Map<Long, Item>> doBloco : mudancasPorBloco.entrySet()) {
+            Bloco anterior = blocos.get(doBloco.getKey());
+            TreeMap<Long, Item> itens = anterior == null ? new TreeMap<>() : new TreeMap<>(anterior.itens);
+            for (Map.Entry<Long, Item> mudanca : doBloco.getValue().entrySet()) {
+                Item novo = mudanca.getValue();
+                Item antigo = novo == null ? itens.remove(mudanca.getKey()) : itens.put(mudanca.getKey(), novo);
+                for (Item afetado : new Item[] {antigo, novo}) {
+                    if (afetado != null) {
+                        if (afetado.categoria != null) {
+                            categoriasAfetadas.add(afetado.categoria);
+                        }
+                        estoqueBaixoAfetado |= afetado.estoqueBaixo;
+                    }
+                }
+            }
+            if (itens.isEmpty()) {
+                blocos.remove(doBloco.getKey());
+            } else {
+                blocos.put(doBloco.getKey(), new Bloco(itens));
+            }
+        }
+
+        Map<String, Corpo> corpos = new HashMap<>(atual.porCategoria);
+        for (String categoria : categoriasAfetadas) {
+            List<byte[]> daCategoria = trechos(blocos, bloco -> bloco.porCategoria.get(categoria));
+            if (daCategoria.isEmpty()) {
+                corpos.remove(categoria);
+            } else {
+                corpos.put(categoria, new Corpo(daCategoria));
+            }
+        }
+
+        return new Snapshot(geracao, Collections.unmodifiableNavigableMap(blocos),
+                new Corpo(trechos(blocos, bloco -> bloco.todos)), Collections.unmodifiableMap(corpos),
+                estoqueBaixoAfetado ? new Corpo(trechos(blocos, bloco -> bloco.estoqueBaixo)) : atual.estoqueBaixo);
+    }
+
+    // O id entra no conjunto antes de o total subir: quem ler o total já encontra o id lá
+    private void marcar(Long id) {
+        if (!habilitado) {
+            return;
+        }
+        pendentes.add(id);
+        alteracoes.incrementAndGet();
+        agendar();
+    }
+
+    // Um pequeno atraso junta as alterações em rajada (ex.: importação) em um só snapshot
+    private void agendar() {
+        if (agendador != null && agendado.compareAndSet(false, true)) {
+            agendador.schedule(this::aplicarComSeguranca, atrasoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void aplicarComSeguranca() {
+        agendado.set(false);
+        try {
+            aplicarPendentes();
+        } catch (RuntimeException e) {
+            // Os ids já retirados precisam ser relidos: a recarga completa cobre todos
+            log.warn("Falha ao atualizar o snapshot do catálogo; será recarregado", e);
+            agendador.schedule(this::recarregarComSeguranca, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private void recarregarComSeguranca() {
+        try {
+            recarregar();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao recarregar o snapshot do catálogo", e);
+        }
+    }
+
+    // Em transação de escrita: com réplicas de leitura, a releitura após o commit não pode vir de uma réplica atrasada
+    private List<Produto> lerDoPrimario(Supplier<List<Produto>> consulta) {
+        return transactionTemplate.execute(status -> consulta.get());
+    }
+
+    // Snapshot em dia com todas as alterações confirmadas, ou null (as consultas vão ao banco)
+    private Snapshot atual() {
+        Snapshot atual = snapshot;
+        return atual != null && atual.geracao == alteracoes.get() ? atual : null;
+    }
+
+    // Item do produto relido, a não ser que um evento de estoque aplicado durante a leitura já tenha
+    // trazido uma versão mais nova
+    private Item maisNovo(Snapshot atual, Produto produto, int limiteEstoqueBaixo) {
+        Bloco bloco = atual == null ? null : atual.blocos.get(bloco(produto.getId()));
+        Item existente = bloco == null ? null : bloco.itens.get(produto.getId());
+        if (existente != null && existente.produto.getVersao() != null && produto.getVersao() != null
+                && existente.produto.getVersao() > produto.getVersao()) {
+            return existente;
+        }
+        return item(produto, limiteEstoqueBaixo);
+    }
+
+    private Item item(Produto produto, int limiteEstoqueBaixo) {
+        // A entidade já está fora da transação: o saldo de um produto quente não chega ao banco
+        produto.setQuantidadeEstoque(estoqueQuente.estoqueVisivel(produto.getId(), produto.getQuantidadeEstoque()));
+        try {
+            return new Item(produto,
+                    produto.getQuantidadeEstoque() != null && produto.getQuantidadeEstoque() < limiteEstoqueBaixo,
+                    objectMapper.writeValueAsBytes(produto));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long bloco(Long id) {
+        return Math.floorDiv(id, IDS_POR_BLOCO);
+    }
+
+    // Trechos não vazios de uma lista, na ordem dos blocos (e, portanto, dos ids)
+    private static List<byte[]> trechos(NavigableMap<Long, Bloco> blocos, Function<Bloco, byte[]> trecho) {
+        List<byte[]> trechos = new ArrayList<>();
+        for (Bloco bloco : blocos.values()) {
+            byte[] doBloco = trecho.apply(bloco);
+            if (doBloco != null) {
+                trechos.add(doBloco);
+            }
+        }
+        return trechos;
+    }
+
+    // Itens separados por vírgula, sem os colchetes; null se não há nenhum
+    private static byte[] juntar(List<Item> itens) {
+        if (itens.isEmpty()) {
+            return null;
+        }
+        int tamanho = itens.size() - 1;
+        for (Item item : itens) {
+            tamanho += item.json.length;
+        }
+        byte[] json = new byte[tamanho];
+        int posicao = 0;
+        for (Item item : itens) {
+            if (posicao > 0) {
+                json[posicao++] = ',';
+            }
+            System.arraycopy(item.json, 0, json, posicao, item.json.length);
+            posicao += item.json.length;
+        }
+        return json;
+    }
+
+    /**
+     * Uma lista serializada. Os arrays são compartilhados entre as requisições e
+     * não devem ser alterados.
+     */
+    public static final class Corpo {
+
+        private final List<byte[]> trechos;
+        private volatile byte[] json;
+        private volatile byte[] gzip;
+
+        private Corpo(List<byte[]> trechos) {
+            this.trechos = trechos;
+        }
+
+        // Mesmo formato que o Jackson produz para a lista, [item,item,...], juntado na primeira vez em que é pedido
+        public byte[] json() {
+            byte[] juntado = json;
+            if (juntado == null) {
+                int tamanho = 2 + Math.max(trechos.size() - 1, 0);
+                for (byte[] trecho : trechos) {
+                    tamanho += trecho.length;
+                }
+                juntado = new byte[tamanho];
+                juntado[0] = '[';
+                int posicao = 1;
+                for (byte[] trecho : trechos) {
+                    if (posicao > 1) {
+                        juntado[posicao++] = ',';
+                    }
+                    System.arraycopy(trecho, 0, juntado, posicao, trecho.length);
+                    posicao += trecho.length;
+                }
+                juntado[posicao] = ']';
+                json = juntado;
+            }
+            return juntado;
+        }
+
+        // Comprimido na primeira vez em que é pedido e guardado junto com a lista
+        public byte[] gzip() {
+            byte[] comprimido = gzip;
+            if (comprimido == null) {
+                byte[] original = json();
+                ByteArrayOutputStream saida = new ByteArrayOutputStream(original.length / 4 + 32);
+                try (GZIPOutputStream compressor = new GZIPOutputStream(saida)) {
+                    compressor.write(original);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                comprimido = saida.toByteArray();
+                gzip = comprimido;
+            }
+            return comprimido;
+        }
+    }
+
+    // O produto fica junto do JSON para que um evento de estoque refaça o item sem reler a linha; não é alterado
+    private static final class Item {
+
+        private final Produto produto;
+        private final String categoria;
+        private final boolean estoqueBaixo;
+        private final byte[] json;
+
+        private Item(Produto produto, boolean estoqueBaixo, byte[] json) {
+            this.produto = produto;
+            this.categoria = produto.getCategoria();
+            this.estoqueBaixo = estoqueBaixo;
+            this.json = json;
+        }
+    }
+
+    // Até IDS_POR_BLOCO ids consecutivos, com os trechos de cada lista já juntados (null = nenhum item)
+    private static final class Bloco {
+
+        private final NavigableMap<Long, Item> itens;
+        private final byte[] todos;
+        private final Map<String, byte[]> porCategoria;
+        private final byte[] estoqueBaixo;
+
+        private Bloco(TreeMap<Long, Item> itens) {
+            Map<String, List<Item>> daCategoria = new HashMap<>();
+            List<Item> abaixoDoLimite = new ArrayList<>();
+            for (Item item : itens.values()) {
+                if (item.categoria != null) {
+                    daCategoria.computeIfAbsent(item.categoria, categoria -> new ArrayList<>()).add(item);
+                }
+                if (item.estoqueBaixo) {
+                    abaixoDoLimite.add(item);
+                }
+            }
+            Map<String, byte[]> juntados = new HashMap<>();
+            daCategoria.forEach((categoria, lista) -> juntados.put(categoria, juntar(lista)));
+
+            this.itens = Collections.unmodifiableNavigableMap(itens);
+            this.todos = juntar(new ArrayList<>(itens.values()));
+            this.porCategoria = juntados;
+            this.estoqueBaixo = juntar(abaixoDoLimite);
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final long geracao;
+        private final NavigableMap<Long, Bloco> blocos;
+        private final Corpo todos;
+        private final Map<String, Corpo> porCategoria;
+        private final Corpo estoqueBaixo;
+
+        private Snapshot(long geracao, NavigableMap<Long, Bloco> blocos, Corpo todos, Map<String, Corpo> porCategoria,
+                Corpo estoqueBaixo) {
+            this.geracao = geracao;
+            this.blocos = blocos;
+            this.todos = todos;
+            this.porCategoria = porCategoria;
+            this.estoqueBaixo = estoqueBaixo;
+        }
+    }
+}
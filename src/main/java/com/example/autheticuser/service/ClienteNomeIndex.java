@@ -0,0 +1,54 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ClienteAlteradoEvent;
+import com.example.autheticuser.repository.ClienteRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Índice de trigramas sobre Cliente.nome, carregado na inicialização e mantido pelos eventos de ClienteEntityListener
+@Component
+@RequiredArgsConstructor
+public class ClienteNomeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ClienteNomeIndex.class);
+
+    private final ClienteRepository clienteRepository;
+    private final TrigramIndex indice = new TrigramIndex();
+    private volatile boolean pronto;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        long inicio = System.currentTimeMillis();
+        for (Object[] linha : clienteRepository.findIdsENomes()) {
+            indice.indexar((Long) linha[0], (String) linha[1]);
+        }
+        pronto = true;
+        log.info("Índice de nomes de clientes carregado: {} registros em {} ms", indice.tamanho(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    // Aplicado somente após o commit, para que alterações desfeitas não entrem no índice
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        if (evento.getTipo() == ClienteAlteradoEvent.Tipo.REMOVIDO) {
+            indice.remover(evento.getCliente().getId());
+        } else {
+            indice.indexar(evento.getCliente().getId(), evento.getCliente().getNome());
+        }
+    }
+
+    // Enquanto não estiver pronto, os serviços consultam o banco diretamente
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public Page<Long> buscar(String nome, int pagina, int tamanho) {
+        return indice.buscar(nome, pagina, tamanho);
+    }
+}
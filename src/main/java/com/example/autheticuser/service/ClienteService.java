@@ -1,21 +1,67 @@
 package com.example.autheticuser.service;
 
+import com.example.autheticuser.model.CadastroDiario;
 import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.ResultadoPorIds;
+import com.example.autheticuser.repository.CadastroDiarioRepository;
 import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.service.CamposParciais.Recurso;
+import com.example.autheticuser.service.CamposParciais.Registro;
+import com.example.autheticuser.service.CamposParciais.Selecao;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ClienteService {
 
+    private static final String SQL_CLIENTES_POR_PERIODO = "SELECT id, nome, email, telefone, endereco, cpf, "
+            + "data_nascimento, data_cadastro, data_atualizacao FROM clientes "
+            + "WHERE data_cadastro BETWEEN ? AND ? ORDER BY data_cadastro";
+
     private final ClienteRepository clienteRepository;
+    private final ClienteNomeIndex clienteNomeIndex;
+    private final TelefoneIndex telefoneIndex;
+    private final CadastroDiarioRepository cadastroDiarioRepository;
+    private final TotaisIndex totaisIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final UnicidadeIndex unicidadeIndex;
+    private final EntityManager entityManager;
+    private final CamposParciais camposParciais;
+    private final VersoesRecursos versoesRecursos;
+
+    @Value("${clientes.periodo.tamanho-fetch:500}")
+    private int tamanhoFetch;
+
+    @Value("${clientes.busca-por-ids.maximo:1000}")
+    private int maximoIds;
 
     // Criar cliente
     public Cliente criarCliente(Cliente cliente) {
@@ -33,19 +79,23 @@ public class ClienteService {
             throw new IllegalArgumentException("Email inválido");
         }
 
-        // Verificar se já existe cliente com mesmo email
-        if (clienteRepository.existsByEmail(cliente.getEmail())) {
+        // Verificar se já existe cliente com mesmo email (o filtro em memória evita a consulta quando certamente não existe)
+        if (unicidadeIndex.podeExistirEmail(cliente.getEmail()) && clienteRepository.existsByEmail(cliente.getEmail())) {
             throw new IllegalArgumentException("Já existe um cliente com este email");
         }
 
         // Verificar se já existe cliente com mesmo CPF (se fornecido)
         if (cliente.getCpf() != null && !cliente.getCpf().trim().isEmpty()) {
-            if (clienteRepository.existsByCpf(cliente.getCpf())) {
+            if (unicidadeIndex.podeExistirCpf(cliente.getCpf()) && clienteRepository.existsByCpf(cliente.getCpf())) {
                 throw new IllegalArgumentException("Já existe um cliente com este CPF");
             }
+        } else {
+            cliente.setCpf(null); // CPF em branco não deve colidir no índice único
         }
 
-        return clienteRepository.save(cliente);
+        Cliente novoCliente = gravar(cliente);
+        cadastroDiarioRepository.registrar(novoCliente.getDataCadastro().toLocalDate(), 1);
+        return novoCliente;
     }
 
     // Buscar todos os clientes
@@ -54,12 +104,48 @@ public class ClienteService {
         return clienteRepository.findAll();
     }
 
+    // Contar clientes (contador em memória, sem carregar as linhas)
+    @Transactional(readOnly = true)
+    public long contarClientes() {
+        return totaisIndex.isPronto() ? totaisIndex.getClientes() : clienteRepository.count();
+    }
+
     // Buscar cliente por ID
     @Transactional(readOnly = true)
     public Optional<Cliente> buscarClientePorId(Long id) {
         return clienteRepository.findById(id);
     }
 
+    /**
+     * Busca vários clientes de uma vez, com um único SELECT para os que ainda não
+     * estão na sessão.
+     *
+     * @param ids Os ids na ordem desejada; repetidos são considerados uma vez.
+     * @return Os clientes na ordem pedida e os ids que não existem.
+     */
+    @Transactional(readOnly = true)
+    public ResultadoPorIds<Cliente> buscarClientesPorIds(List<Long> ids) {
+        List<Long> distintos = ResultadoPorIds.idsDistintos(ids, maximoIds);
+
+        List<Cliente> carregados = entityManager.unwrap(Session.class)
+                .byMultipleIds(Cliente.class)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .withBatchSize(distintos.size())
+                .multiLoad(distintos);
+
+        List<Cliente> itens = new ArrayList<>(distintos.size());
+        List<Long> naoEncontrados = new ArrayList<>();
+        for (int i = 0; i < distintos.size(); i++) {
+            if (carregados.get(i) == null) {
+                naoEncontrados.add(distintos.get(i));
+            } else {
+                itens.add(carregados.get(i));
+            }
+        }
+        return new ResultadoPorIds<>(itens, naoEncontrados);
+    }
+
     // Buscar cliente por email
     @Transactional(readOnly = true)
     public Optional<Cliente> buscarClientePorEmail(String email) {
@@ -68,9 +154,26 @@ public class ClienteService {
 
     // Atualizar cliente
     public Cliente atualizarCliente(Long id, Cliente clienteAtualizado) {
-        Cliente clienteExistente = clienteRepository.findById(id)
+        return atualizarCliente(id, clienteAtualizado, null);
+    }
+
+    /**
+     * Atualiza o cliente somente se a versão atual estiver entre as ETags de If-Match.
+     * A linha fica bloqueada da conferência até o commit.
+     *
+     * @param ifMatch Valor do cabeçalho If-Match; null dispensa a conferência.
+     * @throws ObjectOptimisticLockingFailureException Se a versão atual não confere.
+     */
+    public Cliente atualizarCliente(Long id, Cliente clienteAtualizado, String ifMatch) {
+        Cliente clienteExistente = Optional.ofNullable(ifMatch == null
+                        ? entityManager.find(Cliente.class, id)
+                        : entityManager.find(Cliente.class, id, LockModeType.PESSIMISTIC_WRITE))
                 .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
 
+        if (!VersoesRecursos.confere(ifMatch, versoesRecursos.versaoDe(clienteExistente))) {
+            throw new ObjectOptimisticLockingFailureException(Cliente.class, id);
+        }
+
         // Validações
         if (clienteAtualizado.getNome() != null && !clienteAtualizado.getNome().trim().isEmpty()) {
             clienteExistente.setNome(clienteAtualizado.getNome());
@@ -84,6 +187,7 @@ public class ClienteService {
 
             // Verificar se o novo email já existe em outro cliente
             if (!clienteExistente.getEmail().equals(clienteAtualizado.getEmail()) &&
+                    unicidadeIndex.podeExistirEmail(clienteAtualizado.getEmail()) &&
                     clienteRepository.existsByEmail(clienteAtualizado.getEmail())) {
                 throw new IllegalArgumentException("Já existe um cliente com este email");
             }
@@ -100,7 +204,8 @@ public class ClienteService {
 
         if (clienteAtualizado.getCpf() != null && !clienteAtualizado.getCpf().trim().isEmpty()) {
             // Verificar se o novo CPF já existe em outro cliente
-            if (!clienteExistente.getCpf().equals(clienteAtualizado.getCpf()) &&
+            if (!clienteAtualizado.getCpf().equals(clienteExistente.getCpf()) &&
+                    unicidadeIndex.podeExistirCpf(clienteAtualizado.getCpf()) &&
                     clienteRepository.existsByCpf(clienteAtualizado.getCpf())) {
                 throw new IllegalArgumentException("Já existe um cliente com este CPF");
             }
@@ -111,27 +216,77 @@ public class ClienteService {
             clienteExistente.setDataNascimento(clienteAtualizado.getDataNascimento());
         }
 
-        return clienteRepository.save(clienteExistente);
+        return gravar(clienteExistente);
+    }
+
+    // Grava já enviando ao banco, para que uma violação de unicidade (email/CPF gravado por outra
+    // instância ou não visto pelo filtro em memória) vire a mesma mensagem da verificação prévia
+    private Cliente gravar(Cliente cliente) {
+        try {
+            return clienteRepository.saveAndFlush(cliente);
+        } catch (DataIntegrityViolationException e) {
+            if (UnicidadeIndex.violou(e, "uk_clientes_email")) {
+                throw new IllegalArgumentException("Já existe um cliente com este email");
+            }
+            if (UnicidadeIndex.violou(e, "ux_clientes_cpf")) {
+                throw new IllegalArgumentException("Já existe um cliente com este CPF");
+            }
+            throw e;
+        }
     }
 
     // Deletar cliente
     public void deletarCliente(Long id) {
-        if (!clienteRepository.existsById(id)) {
-            throw new IllegalArgumentException("Cliente não encontrado");
+        Cliente cliente = clienteRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Cliente não encontrado"));
+        clienteRepository.delete(cliente);
+
+        if (cliente.getDataCadastro() != null) {
+            cadastroDiarioRepository.registrar(cliente.getDataCadastro().toLocalDate(), -1);
         }
-        clienteRepository.deleteById(id);
     }
 
     // Buscar clientes por nome
     @Transactional(readOnly = true)
     public List<Cliente> buscarClientesPorNome(String nome) {
-        return clienteRepository.findByNomeContainingIgnoreCase(nome);
+        if (!clienteNomeIndex.isPronto()) {
+            return clienteRepository.findByNomeContainingIgnoreCase(nome);
+        }
+        return buscarNaOrdem(clienteNomeIndex.buscar(nome, 0, Integer.MAX_VALUE).getContent());
+    }
+
+    // Buscar clientes por nome com paginação, ordenados por relevância (índice de trigramas)
+    @Transactional(readOnly = true)
+    public Page<Cliente> buscarClientesPorNome(String nome, int pagina, int tamanho) {
+        if (!clienteNomeIndex.isPronto()) {
+            return clienteRepository.findByNomeContainingIgnoreCase(nome, PageRequest.of(pagina, tamanho));
+        }
+        Page<Long> ids = clienteNomeIndex.buscar(nome, pagina, tamanho);
+        return new PageImpl<>(buscarNaOrdem(ids.getContent()), ids.getPageable(), ids.getTotalElements());
     }
 
     // Buscar clientes por telefone
     @Transactional(readOnly = true)
     public List<Cliente> buscarClientesPorTelefone(String telefone) {
-        return clienteRepository.findByTelefoneContaining(telefone);
+        return buscarClientesPorTelefone(telefone, false);
+    }
+
+    // Buscar clientes por trecho (ou final) do telefone, comparando apenas os dígitos
+    @Transactional(readOnly = true)
+    public List<Cliente> buscarClientesPorTelefone(String telefone, boolean sufixo) {
+        String digitos = TelefoneIndex.normalizar(telefone);
+        if (digitos.isEmpty()) {
+            List<Cliente> clientes = clienteRepository.findByTelefoneContaining(telefone);
+            if (sufixo) {
+                clientes.removeIf(c -> !c.getTelefone().endsWith(telefone));
+            }
+            return clientes;
+        }
+        if (!telefoneIndex.isPronto()) {
+            // Mesma comparação do índice: só os dígitos, dos dois lados
+            return clienteRepository.findByDigitosTelefoneLike(sufixo ? "%" + digitos : "%" + digitos + "%");
+        }
+        return buscarNaOrdem(telefoneIndex.buscar(telefone, sufixo));
     }
 
     // Buscar clientes cadastrados em um período
@@ -140,10 +295,112 @@ public class ClienteService {
         return clienteRepository.findByDataCadastroBetween(dataInicio, dataFim);
     }
 
-    // Contar clientes cadastrados hoje
+    // Todos os clientes, lendo do banco apenas os campos pedidos (fields=)
+    @Transactional(readOnly = true)
+    public List<Registro> buscarCamposDeTodos(String campos) {
+        return camposParciais.consultar(camposParciais.selecionar(Recurso.CLIENTES, campos), "ORDER BY id");
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Registro> buscarCamposPorId(String campos, Long id) {
+        Selecao selecao = camposParciais.selecionar(Recurso.CLIENTES, campos);
+        return camposParciais.buscarPorIds(selecao, List.of(id)).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public ResultadoPorIds<Registro> buscarCamposPorIds(String campos, List<Long> ids) {
+        Selecao selecao = camposParciais.selecionar(Recurso.CLIENTES, campos);
+        List<Long> distintos = ResultadoPorIds.idsDistintos(ids, maximoIds);
+        List<Registro> itens = camposParciais.buscarPorIds(selecao, distintos);
+        return new ResultadoPorIds<>(itens, CamposParciais.idsAusentes(distintos, itens));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Registro> buscarCamposPorNome(String campos, String nome, int pagina, int tamanho) {
+        Selecao selecao = camposParciais.selecionar(Recurso.CLIENTES, campos);
+        Page<Long> ids = clienteNomeIndex.isPronto()
+                ? clienteNomeIndex.buscar(nome, pagina, tamanho)
+                : clienteRepository.findByNomeContainingIgnoreCase(nome, PageRequest.of(pagina, tamanho)).map(Cliente::getId);
+        return new PageImpl<>(camposParciais.buscarPorIds(selecao, ids.getContent()), ids.getPageable(),
+                ids.getTotalElements());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Registro> buscarCamposPorEmail(String campos, String email) {
+        Selecao selecao = camposParciais.selecionar(Recurso.CLIENTES, campos);
+        return camposParciais.consultar(selecao, "WHERE email = ?", email).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Registro> buscarCamposPorCpf(String campos, String cpf) {
+        Selecao selecao = camposParciais.selecionar(Recurso.CLIENTES, campos);
+        return camposParciais.consultar(selecao, "WHERE cpf = ?", cpf).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Registro> buscarCamposPorTelefone(String campos, String telefone, boolean sufixo) {
+        Selecao selecao = camposParciais.selecionar(Recurso.CLIENTES, campos);
+        if (!telefoneIndex.isPronto() || TelefoneIndex.normalizar(telefone).isEmpty()) {
+            List<Long> ids = new ArrayList<>();
+            buscarClientesPorTelefone(telefone, sufixo).forEach(cliente -> ids.add(cliente.getId()));
+            return camposParciais.buscarPorIds(selecao, ids);
+        }
+        return camposParciais.buscarPorIds(selecao, telefoneIndex.buscar(telefone, sufixo));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Registro> buscarCamposPorPeriodo(String campos, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        Selecao selecao = camposParciais.selecionar(Recurso.CLIENTES, campos);
+        return camposParciais.consultar(selecao, "WHERE data_cadastro BETWEEN ? AND ? ORDER BY data_cadastro",
+                Timestamp.valueOf(dataInicio), Timestamp.valueOf(dataFim));
+    }
+
+    /**
+     * Percorre os clientes cadastrados no período com um cursor somente leitura e de
+     * avanço único, entregando um de cada vez, sem materializar a lista.
+     *
+     * @param destino Recebe cada cliente, em ordem de cadastro. Se lançar uma exceção
+     *                (ex.: o cliente HTTP desconectou), a consulta é cancelada e a
+     *                exceção é propagada.
+     * @return Quantos clientes foram entregues.
+     */
+    @Transactional(readOnly = true)
+    public long percorrerClientesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Cliente> destino) {
+        AtomicReference<PreparedStatement> consulta = new AtomicReference<>();
+        long[] entregues = { 0 };
+
+        jdbcTemplate.query(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement(SQL_CLIENTES_POR_PERIODO,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(tamanhoFetch);
+            ps.setTimestamp(1, Timestamp.valueOf(dataInicio));
+            ps.setTimestamp(2, Timestamp.valueOf(dataFim));
+            consulta.set(ps);
+            return ps;
+        }, (RowCallbackHandler) linha -> {
+            try {
+                destino.accept(mapearCliente(linha));
+            } catch (RuntimeException e) {
+                cancelar(consulta.get());
+                throw e;
+            }
+            entregues[0]++;
+        });
+        return entregues[0];
+    }
+
+    // Contar clientes cadastrados hoje (lido do agregado diário, não da tabela de clientes)
     @Transactional(readOnly = true)
     public long contarClientesCadastradosHoje() {
-        return clienteRepository.countClientesCadastradosHoje();
+        return cadastroDiarioRepository.findById(LocalDate.now())
+                .map(CadastroDiario::getTotal)
+                .orElse(0L);
+    }
+
+    // Contar clientes cadastrados entre dois dias (inclusive)
+    @Transactional(readOnly = true)
+    public long contarClientesCadastradosPorPeriodo(LocalDate inicio, LocalDate fim) {
+        return cadastroDiarioRepository.somarPorPeriodo(inicio, fim);
     }
 
     // Buscar cliente por CPF
@@ -151,4 +408,49 @@ public class ClienteService {
     public Optional<Cliente> buscarClientePorCpf(String cpf) {
         return clienteRepository.findByCpf(cpf);
     }
-}
\ No newline at end of file
+
+    // Carregar clientes pelos ids, preservando a ordem recebida
+    private List<Cliente> buscarNaOrdem(List<Long> ids) {
+        Map<Long, Cliente> porId = new HashMap<>();
+        for (Cliente cliente : clienteRepository.findAllById(ids)) {
+            porId.put(cliente.getId(), cliente);
+        }
+        List<Cliente> clientes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Cliente cliente = porId.get(id);
+            if (cliente != null) {
+                clientes.add(cliente);
+            }
+        }
+        return clientes;
+    }
+
+    private static Cliente mapearCliente(ResultSet linha) throws SQLException {
+        Cliente cliente = new Cliente();
+        cliente.setId(linha.getLong("id"));
+        cliente.setNome(linha.getString("nome"));
+        cliente.setEmail(linha.getString("email"));
+        cliente.setTelefone(linha.getString("telefone"));
+        cliente.setEndereco(linha.getString("endereco"));
+        cliente.setCpf(linha.getString("cpf"));
+        cliente.setDataNascimento(paraLocalDateTime(linha.getTimestamp("data_nascimento")));
+        cliente.setDataCadastro(paraLocalDateTime(linha.getTimestamp("data_cadastro")));
+        cliente.setDataAtualizacao(paraLocalDateTime(linha.getTimestamp("data_atualizacao")));
+        return cliente;
+    }
+
+    private static LocalDateTime paraLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    // Interrompe a consulta no banco; o JdbcTemplate fecha o cursor em seguida
+    private static void cancelar(PreparedStatement consulta) {
+        try {
+            if (consulta != null) {
+                consulta.cancel();
+            }
+        } catch (SQLException e) {
+            // O cursor será fechado de qualquer forma
+        }
+    }
+}
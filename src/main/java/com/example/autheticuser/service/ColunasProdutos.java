@@ -0,0 +1,362 @@
+package com.example.autheticuser.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cópia colunar do catálogo para agregações: uma coluna por atributo, em arrays
+ * primitivos (preço em centavos, estoque e código da categoria).
+ *
+ * As linhas ficam compactadas em [0, tamanho): ao remover um produto, a última
+ * linha ocupa o seu lugar. Os laços de agregação percorrem os arrays em sequência,
+ * sem objetos intermediários; acima de {@link #LIMIAR_PARALELO} linhas o trabalho
+ * é dividido em fork/join e os parciais são somados.
+ */
+public class ColunasProdutos {
+
+    // Abaixo disso, dividir o trabalho custa mais do que percorrer os arrays em uma thread
+    static final int LIMIAR_PARALELO = 65_536;
+
+    // Limites inferiores das faixas do histograma de estoque: 0, 1-9, 10-49, 50-99, 100-499, 500+
+    private static final int[] LIMITES_HISTOGRAMA = {0, 1, 10, 50, 100, 500};
+
+    private long[] ids = new long[1024];
+    private long[] precos = new long[1024];
+    private int[] estoques = new int[1024];
+    private int[] categorias = new int[1024];
+    private long[] versoes = new long[1024];
+    private int tamanho;
+
+    private final Map<Long, Integer> linhas = new HashMap<>();
+    private final List<String> nomesCategorias = new ArrayList<>();
+    private final Map<String, Integer> codigosCategorias = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Insere ou atualiza a linha de um produto.
+     *
+     * @param versao Versão da linha no banco; alterações mais antigas que a aplicada são ignoradas.
+     */
+    public void gravar(long id, BigDecimal preco, int estoque, String categoria, long versao) {
+        long centavos = preco.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        lock.writeLock().lock();
+        try {
+            Integer linha = linhas.get(id);
+            if (linha == null) {
+                linha = tamanho++;
+                garantirCapacidade(tamanho);
+                linhas.put(id, linha);
+            } else if (versao < versoes[linha]) {
+                return;
+            }
+            ids[linha] = id;
+            precos[linha] = centavos;
+            estoques[linha] = estoque;
+            categorias[linha] = codificar(categoria);
+            versoes[linha] = versao;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Atualiza apenas o estoque (reservas e ajustes feitos com UPDATE direto)
+    public void gravarEstoque(long id, int estoque, long versao) {
+        lock.writeLock().lock();
+        try {
+            Integer linha = linhas.get(id);
+            if (linha != null && versao >= versoes[linha]) {
+                estoques[linha] = estoque;
+                versoes[linha] = versao;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer linha = linhas.remove(id);
+            if (linha == null) {
+                return;
+            }
+            int ultima = --tamanho;
+            if (linha != ultima) {
+                ids[linha] = ids[ultima];
+                precos[linha] = precos[ultima];
+                estoques[linha] = estoques[ultima];
+                categorias[linha] = categorias[ultima];
+                versoes[linha] = versoes[ultima];
+                linhas.put(ids[linha], linha);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return tamanho;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agregados do catálogo: valor em estoque (preço x quantidade) por categoria,
+     * percentis de preço e histograma de estoque.
+     *
+     * @param categoria Se informada, considera apenas os produtos dessa categoria.
+     */
+    public Agregados agregar(String categoria) {
+        lock.readLock().lock();
+        try {
+            int filtro = -1;
+            if (categoria != null) {
+                Integer codigo = codigosCategorias.get(categoria);
+                if (codigo == null) {
+                    return new Agregados(List.copyOf(nomesCategorias), new Parcial(nomesCategorias.size()), new long[0]);
+                }
+                filtro = codigo;
+            }
+
+            Parcial parcial = tamanho >= LIMIAR_PARALELO
+                    ? ForkJoinPool.commonPool().invoke(new Reducao(0, tamanho, filtro))
+                    : somar(0, tamanho, filtro);
+            return new Agregados(List.copyOf(nomesCategorias), parcial, precosOrdenados(filtro, (int) parcial.produtos));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Deve ser chamado com o lock de leitura. Percorre as colunas em sequência, sem criar objetos por linha
+    private Parcial somar(int inicio, int fim, int filtro) {
+        Parcial parcial = new Parcial(nomesCategorias.size());
+        long[] porCategoria = parcial.valorPorCategoria;
+        long[] unidadesPorCategoria = parcial.unidadesPorCategoria;
+        long[] produtosPorCategoria = parcial.produtosPorCategoria;
+        for (int i = inicio; i < fim; i++) {
+            int codigo = categorias[i];
+            if (filtro >= 0 && codigo != filtro) {
+                continue;
+            }
+            long valor = precos[i] * estoques[i];
+            int posicao = codigo + 1; // posição 0 = sem categoria
+            porCategoria[posicao] += valor;
+            unidadesPorCategoria[posicao] += estoques[i];
+            produtosPorCategoria[posicao]++;
+            parcial.histograma[faixaHistograma(estoques[i])]++;
+            parcial.somaPrecos += precos[i];
+            parcial.produtos++;
+        }
+        return parcial;
+    }
+
+    // Deve ser chamado com o lock de leitura
+    private long[] precosOrdenados(int filtro, int quantidade) {
+        long[] selecionados;
+        if (filtro < 0) {
+            selecionados = Arrays.copyOf(precos, tamanho);
+        } else {
+            selecionados = new long[quantidade];
+            int j = 0;
+            for (int i = 0; i < tamanho; i++) {
+                if (categorias[i] == filtro) {
+                    selecionados[j++] = precos[i];
+                }
+            }
+        }
+        if (selecionados.length >= LIMIAR_PARALELO) {
+            Arrays.parallelSort(selecionados);
+        } else {
+            Arrays.sort(selecionados);
+        }
+        return selecionados;
+    }
+
+    private static int faixaHistograma(int estoque) {
+        int faixa = 0;
+        while (faixa + 1 < LIMITES_HISTOGRAMA.length && estoque >= LIMITES_HISTOGRAMA[faixa + 1]) {
+            faixa++;
+        }
+        return faixa;
+    }
+
+    // Deve ser chamado com o lock de escrita
+    private int codificar(String categoria) {
+        if (categoria == null) {
+            return -1;
+        }
+        Integer codigo = codigosCategorias.get(categoria);
+        if (codigo == null) {
+            codigo = nomesCategorias.size();
+            nomesCategorias.add(categoria);
+            codigosCategorias.put(categoria, codigo);
+        }
+        return codigo;
+    }
+
+    // Deve ser chamado com o lock de escrita
+    private void garantirCapacidade(int capacidade) {
+        if (capacidade <= ids.length) {
+            return;
+        }
+        int nova = Math.max(capacidade, ids.length * 2);
+        ids = Arrays.copyOf(ids, nova);
+        precos = Arrays.copyOf(precos, nova);
+        estoques = Arrays.copyOf(estoques, nova);
+        categorias = Arrays.copyOf(categorias, nova);
+        versoes = Arrays.copyOf(versoes, nova);
+    }
+
+    // Divide o intervalo de linhas ao meio até ficar abaixo do limiar e soma os parciais
+    private final class Reducao extends RecursiveTask<Parcial> {
+        private final int inicio;
+        private final int fim;
+        private final int filtro;
+
+        private Reducao(int inicio, int fim, int filtro) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.filtro = filtro;
+        }
+
+        @Override
+        protected Parcial compute() {
+            if (fim - inicio < LIMIAR_PARALELO) {
+                return somar(inicio, fim, filtro);
+            }
+            int meio = (inicio + fim) >>> 1;
+            Reducao esquerda = new Reducao(inicio, meio, filtro);
+            esquerda.fork();
+            Parcial direita = new Reducao(meio, fim, filtro).compute();
+            return esquerda.join().somar(direita);
+        }
+    }
+
+    // Somas parciais de um intervalo de linhas; posição 0 dos arrays por categoria = sem categoria
+    static final class Parcial {
+        private final long[] valorPorCategoria;
+        private final long[] unidadesPorCategoria;
+        private final long[] produtosPorCategoria;
+        private final long[] histograma = new long[LIMITES_HISTOGRAMA.length];
+        private long somaPrecos;
+        private long produtos;
+
+        private Parcial(int categorias) {
+            valorPorCategoria = new long[categorias + 1];
+            unidadesPorCategoria = new long[categorias + 1];
+            produtosPorCategoria = new long[categorias + 1];
+        }
+
+        private Parcial somar(Parcial outro) {
+            for (int i = 0; i < valorPorCategoria.length; i++) {
+                valorPorCategoria[i] += outro.valorPorCategoria[i];
+                unidadesPorCategoria[i] += outro.unidadesPorCategoria[i];
+                produtosPorCategoria[i] += outro.produtosPorCategoria[i];
+            }
+            for (int i = 0; i < histograma.length; i++) {
+                histograma[i] += outro.histograma[i];
+            }
+            somaPrecos += outro.somaPrecos;
+            produtos += outro.produtos;
+            return this;
+        }
+    }
+
+    /**
+     * Resultado de {@link #agregar(String)}. Valores monetários em reais, com 2 casas.
+     */
+    public static final class Agregados {
+        private final List<String> categorias;
+        private final Parcial parcial;
+        private final long[] precosOrdenados;
+
+        private Agregados(List<String> categorias, Parcial parcial, long[] precosOrdenados) {
+            this.categorias = categorias;
+            this.parcial = parcial;
+            this.precosOrdenados = precosOrdenados;
+        }
+
+        public long getProdutos() {
+            return parcial.produtos;
+        }
+
+        public BigDecimal getValorEstoqueTotal() {
+            long total = 0;
+            for (long valor : parcial.valorPorCategoria) {
+                total += valor;
+            }
+            return reais(total);
+        }
+
+        // Categoria -> {produtos, unidades, valorEstoque}; produtos sem categoria ficam em "sem-categoria"
+        public Map<String, Map<String, Object>> getPorCategoria() {
+            Map<String, Map<String, Object>> porCategoria = new LinkedHashMap<>();
+            for (int i = 0; i < parcial.valorPorCategoria.length; i++) {
+                if (parcial.produtosPorCategoria[i] == 0) {
+                    continue;
+                }
+                porCategoria.put(i == 0 ? "sem-categoria" : categorias.get(i - 1), Map.of(
+                        "produtos", parcial.produtosPorCategoria[i],
+                        "unidades", parcial.unidadesPorCategoria[i],
+                        "valorEstoque", reais(parcial.valorPorCategoria[i])));
+            }
+            return porCategoria;
+        }
+
+        // Preço mínimo, máximo, médio e percentis 50, 90 e 99 (vazio se não há produtos)
+        public Map<String, BigDecimal> getPrecos() {
+            Map<String, BigDecimal> precos = new LinkedHashMap<>();
+            if (precosOrdenados.length == 0) {
+                return precos;
+            }
+            precos.put("minimo", reais(precosOrdenados[0]));
+            precos.put("maximo", reais(precosOrdenados[precosOrdenados.length - 1]));
+            precos.put("media", reais(parcial.somaPrecos).divide(BigDecimal.valueOf(parcial.produtos), 2,
+                    RoundingMode.HALF_UP));
+            precos.put("p50", reais(percentil(50)));
+            precos.put("p90", reais(percentil(90)));
+            precos.put("p99", reais(percentil(99)));
+            return precos;
+        }
+
+        // Faixa de estoque -> quantidade de produtos
+        public Map<String, Long> getHistogramaEstoque() {
+            Map<String, Long> histograma = new LinkedHashMap<>();
+            for (int i = 0; i < LIMITES_HISTOGRAMA.length; i++) {
+                String nome;
+                if (i == 0) {
+                    nome = "0";
+                } else if (i + 1 < LIMITES_HISTOGRAMA.length) {
+                    nome = LIMITES_HISTOGRAMA[i] + "-" + (LIMITES_HISTOGRAMA[i + 1] - 1);
+                } else {
+                    nome = LIMITES_HISTOGRAMA[i] + "+";
+                }
+                histograma.put(nome, parcial.histograma[i]);
+            }
+            return histograma;
+        }
+
+        // Percentil pelo método do posto mais próximo
+        private long percentil(int p) {
+            int posicao = (int) Math.ceil(p / 100.0 * precosOrdenados.length) - 1;
+            return precosOrdenados[Math.max(posicao, 0)];
+        }
+
+        private static BigDecimal reais(long centavos) {
+            return BigDecimal.valueOf(centavos, 2);
+        }
+    }
+}
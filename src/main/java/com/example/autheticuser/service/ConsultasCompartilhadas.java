@@ -0,0 +1,244 @@
+package com.example.autheticuser.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Execução única (single-flight) de consultas de produtos idênticas e simultâneas.
+ *
+ * Chamadas com a mesma operação e os mesmos argumentos que chegam enquanto uma delas
+ * está no banco esperam pelo resultado dela em vez de repetir a consulta; o resultado
+ * ainda é reaproveitado por um TTL curto. A chave inclui a versão do catálogo
+ * ({@link VersoesRecursos}), então quem chega depois de uma alteração confirmada
+ * nunca recebe um resultado calculado antes dela. Resultados de versões anteriores
+ * são descartados assim que a versão muda, e os vencidos por uma limpeza periódica.
+ *
+ * Quem executa a consulta abre a própria transação somente leitura (com réplicas, todas
+ * as leituras de uma resposta vão à mesma réplica); quem espera não ocupa conexão.
+ * As entidades do resultado são desanexadas antes de compartilhadas, para não ficarem
+ * presas ao EntityManager de quem executou. Os resultados são compartilhados entre
+ * threads e não devem ser alterados por quem os recebe. Chamadas dentro de uma
+ * transação já aberta (que pode enxergar escritas ainda não confirmadas) não são
+ * compartilhadas.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConsultasCompartilhadas {
+
+    // Contador com as tags operacao e resultado (executada, compartilhada ou cache)
+    public static final String METRICA = "produtos.consultas.compartilhadas";
+
+    private final VersoesRecursos versoesRecursos;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Value("${produtos.consultas-compartilhadas.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${produtos.consultas-compartilhadas.ttl-ms:100}")
+    private long ttlMs;
+
+    @Value("${produtos.consultas-compartilhadas.maximo-resultados:1000}")
+    private int maximoResultados;
+
+    private final Map<Chave, Execucao> execucoes = new ConcurrentHashMap<>();
+    // Versão do catálogo da última chave montada: ao mudar, as chaves das anteriores ficam inalcançáveis
+    private volatile String versaoAtual;
+
+    private ScheduledExecutorService agendador;
+
+    @PostConstruct
+    public void iniciar() {
+        if (ttlMs <= 0) {
+            return; // Sem TTL nada fica guardado depois de concluído
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "consultas-compartilhadas-limpeza");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::limpar, ttlMs, ttlMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    // Remove os resultados concluídos que passaram do TTL
+    public void limpar() {
+        execucoes.values().removeIf(execucao -> execucao.resultado.isDone() && !execucao.valida(ttlMs));
+    }
+
+    public int tamanho() {
+        return execucoes.size();
+    }
+
+    /**
+     * Executa a consulta ou se junta a uma idêntica em andamento (ou recém-concluída).
+     *
+     * @param operacao   Nome da consulta (também usado como tag das métricas).
+     * @param consulta   A consulta em si, executada numa transação somente leitura na thread de quem chegou primeiro.
+     * @param argumentos Os argumentos que distinguem uma chamada da outra.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T executar(String operacao, Supplier<T> consulta, Object... argumentos) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return consulta.get();
+        }
+        if (!habilitado) {
+            return (T) lerEmTransacao(consulta);
+        }
+        String versao = versoesRecursos.versaoProdutos();
+        if (!versao.equals(versaoAtual)) {
+            versaoAtual = versao;
+            // Quem já espera por uma execução antiga tem a referência dela; só o mapa a esquece
+            execucoes.keySet().removeIf(outra -> !outra.versao.equals(versao));
+        }
+        Chave chave = new Chave(operacao, Arrays.asList(argumentos), versao);
+        while (true) {
+            Execucao existente = execucoes.get(chave);
+            if (existente != null) {
+                if (!existente.resultado.isDone()) {
+                    registrar(operacao, "compartilhada");
+                    return (T) aguardar(existente);
+                }
+                if (existente.valida(ttlMs)) {
+                    registrar(operacao, "cache");
+                    return (T) aguardar(existente);
+                }
+                execucoes.remove(chave, existente);
+                continue;
+            }
+
+            Execucao nova = new Execucao();
+            if (execucoes.putIfAbsent(chave, nova) != null) {
+                continue; // Outra thread começou a mesma consulta entre o get e o put
+            }
+            registrar(operacao, "executada");
+            return (T) executar(chave, nova, consulta);
+        }
+    }
+
+    private Object executar(Chave chave, Execucao execucao, Supplier<?> consulta) {
+        Object valor;
+        try {
+            valor = lerEmTransacao(consulta);
+        } catch (RuntimeException | Error e) {
+            // Erros não ficam guardados: quem estava esperando recebe o erro, o próximo tenta de novo
+            execucoes.remove(chave, execucao);
+            execucao.resultado.completeExceptionally(e);
+            throw e;
+        }
+        execucao.concluidaEm = System.currentTimeMillis();
+        execucao.resultado.complete(valor);
+        if (ttlMs <= 0 || execucoes.size() > maximoResultados) {
+            execucoes.remove(chave, execucao);
+        }
+        if (execucoes.size() > maximoResultados) {
+            limpar();
+        }
+        return valor;
+    }
+
+    private Object lerEmTransacao(Supplier<?> consulta) {
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        return leitura.execute(status -> {
+            Object valor = consulta.get();
+            desanexar(valor);
+            return valor;
+        });
+    }
+
+    // Com open-in-view o EntityManager é o da requisição de quem executou: as entidades não podem seguir gerenciadas por ele
+    private void desanexar(Object valor) {
+        if (!(valor instanceof Iterable)) {
+            return;
+        }
+        for (Object item : (Iterable<?>) valor) {
+            if (item != null && item.getClass().isAnnotationPresent(Entity.class) && entityManager.contains(item)) {
+                entityManager.detach(item);
+            }
+        }
+    }
+
+    private static Object aguardar(Execucao execucao) {
+        try {
+            return execucao.resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void registrar(String operacao, String resultado) {
+        meterRegistry.counter(METRICA, "operacao", operacao, "resultado", resultado).increment();
+    }
+
+    private static final class Execucao {
+
+        private final CompletableFuture<Object> resultado = new CompletableFuture<>();
+        private volatile long concluidaEm;
+
+        private boolean valida(long ttlMs) {
+            return !resultado.isCompletedExceptionally() && System.currentTimeMillis() - concluidaEm < ttlMs;
+        }
+    }
+
+    private static final class Chave {
+
+        private final String operacao;
+        private final List<Object> argumentos;
+        private final String versao;
+
+        private Chave(String operacao, List<Object> argumentos, String versao) {
+            this.operacao = operacao;
+            this.argumentos = argumentos;
+            this.versao = versao;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            if (!(outro instanceof Chave)) {
+                return false;
+            }
+            Chave chave = (Chave) outro;
+            return operacao.equals(chave.operacao) && argumentos.equals(chave.argumentos) && versao.equals(chave.versao);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operacao, argumentos, versao);
+        }
+    }
+}
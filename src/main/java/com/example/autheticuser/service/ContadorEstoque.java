@@ -0,0 +1,170 @@
+package com.example.autheticuser.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de estoque dividido em faixas, para produtos muito disputados.
+ *
+ * O saldo fica repartido entre várias faixas independentes; cada reserva tenta
+ * baixar de uma única faixa com CAS, de modo que threads diferentes raramente
+ * disputam a mesma posição de memória. Nenhuma faixa fica negativa (piso zero):
+ * quando a faixa escolhida e as vizinhas não têm saldo suficiente, o contador é
+ * rebalanceado sob um lock, onde a decisão é feita sobre o total exato.
+ *
+ * {@link #fechar()} entrega o saldo final e recusa qualquer operação posterior,
+ * para que o saldo possa voltar ao banco sem perder reservas em andamento.
+ */
+public class ContadorEstoque {
+
+    // Distância (em longs) entre duas faixas, para que não dividam a mesma linha de cache
+    private static final int ESPACAMENTO = 16;
+    // Valor das faixas de um contador fechado; saldos válidos nunca são negativos
+    private static final long FECHADA = Long.MIN_VALUE;
+
+    private final int faixas;
+    private final AtomicLongArray saldos;
+    private final Object rebalanceamento = new Object();
+    private volatile boolean fechado;
+
+    public ContadorEstoque(int faixas, long quantidadeInicial) {
+        if (faixas <= 0) {
+            throw new IllegalArgumentException("Número de faixas deve ser maior que zero");
+        }
+        this.faixas = faixas;
+        this.saldos = new AtomicLongArray(faixas * ESPACAMENTO);
+        distribuir(quantidadeInicial);
+    }
+
+    /**
+     * Reserva unidades do estoque.
+     *
+     * @param quantidade A quantidade desejada (maior que zero).
+     * @return true se a reserva foi feita; false se o estoque total é insuficiente
+     *         ou o contador foi fechado.
+     */
+    public boolean reservar(long quantidade) {
+        int inicio = ThreadLocalRandom.current().nextInt(faixas);
+        for (int i = 0; i < faixas; i++) {
+            if (baixar((inicio + i) % faixas, quantidade)) {
+                return true;
+            }
+        }
+
+        // Nenhuma faixa sozinha tem o suficiente: junta o saldo e decide sobre o total
+        synchronized (rebalanceamento) {
+            if (fechado) {
+                return false;
+            }
+            long total = recolher();
+            boolean reservado = total >= quantidade;
+            distribuir(reservado ? total - quantidade : total);
+            return reservado;
+        }
+    }
+
+    // Devolve unidades ao estoque; false se o contador foi fechado
+    public boolean liberar(long quantidade) {
+        int posicao = posicao(ThreadLocalRandom.current().nextInt(faixas));
+        while (true) {
+            long saldo = saldos.get(posicao);
+            if (saldo < 0) {
+                return false;
+            }
+            if (saldos.compareAndSet(posicao, saldo, saldo + quantidade)) {
+                return true;
+            }
+        }
+    }
+
+    // Substitui o saldo inteiro (ex.: ajuste manual de estoque); false se o contador foi fechado
+    public boolean definir(long quantidade) {
+        synchronized (rebalanceamento) {
+            if (fechado) {
+                return false;
+            }
+            recolher();
+            distribuir(quantidade);
+            return true;
+        }
+    }
+
+    /**
+     * Fecha o contador: as faixas são recolhidas uma a uma e marcadas como fechadas,
+     * de modo que toda operação concluída entra no saldo devolvido e toda operação
+     * posterior falha.
+     *
+     * @return O saldo final.
+     */
+    public long fechar() {
+        synchronized (rebalanceamento) {
+            fechado = true;
+            long total = 0;
+            for (int i = 0; i < faixas; i++) {
+                total += Math.max(saldos.getAndSet(posicao(i), FECHADA), 0);
+            }
+            return total;
+        }
+    }
+
+    public boolean isFechado() {
+        return fechado;
+    }
+
+    // Soma das faixas; com reservas em andamento é um valor aproximado (0 depois de fechado)
+    public long total() {
+        long total = 0;
+        for (int i = 0; i < faixas; i++) {
+            total += Math.max(saldos.get(posicao(i)), 0);
+        }
+        return total;
+    }
+
+    // Total exato, sem reservas em andamento
+    public long totalExato() {
+        synchronized (rebalanceamento) {
+            if (fechado) {
+                return 0;
+            }
+            long total = recolher();
+            distribuir(total);
+            return total;
+        }
+    }
+
+    private boolean baixar(int faixa, long quantidade) {
+        int posicao = posicao(faixa);
+        while (true) {
+            long saldo = saldos.get(posicao);
+            if (saldo < quantidade) {
+                return false;
+            }
+            if (saldos.compareAndSet(posicao, saldo, saldo - quantidade)) {
+                return true;
+            }
+        }
+    }
+
+    // Deve ser chamado com o lock de rebalanceamento
+    private long recolher() {
+        long total = 0;
+        for (int i = 0; i < faixas; i++) {
+            total += saldos.getAndSet(posicao(i), 0);
+        }
+        return total;
+    }
+
+    // Deve ser chamado com o lock de rebalanceamento (ou no construtor)
+    private void distribuir(long total) {
+        long parte = total / faixas;
+        long resto = total % faixas;
+        for (int i = 0; i < faixas; i++) {
+            // Soma em vez de sobrescrever: liberações concorrentes continuam valendo
+            saldos.getAndAdd(posicao(i), parte + (i < resto ? 1 : 0));
+        }
+    }
+
+    private static int posicao(int faixa) {
+        return faixa * ESPACAMENTO;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.autheticuser.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor de CSV incremental: lê um registro por vez a partir de um {@link Reader},
+ * sem carregar o arquivo inteiro em memória. Suporta campos entre aspas (inclusive
+ * com separadores, quebras de linha e aspas duplicadas escapadas).
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private final char separador;
+    private final StringBuilder campo = new StringBuilder();
+    private int proximo = -2; // caractere já lido e ainda não consumido (-2 = nenhum)
+    private long linhaAtual = 1;
+    private long linhaRegistro;
+
+    public CsvReader(Reader reader, char separador) {
+        this.reader = reader;
+        this.separador = separador;
+    }
+
+    /**
+     * Lê o próximo registro do arquivo.
+     *
+     * @return Os campos do registro, ou null ao final do arquivo.
+     */
+    public List<String> lerRegistro() throws IOException {
+        int c = ler();
+        if (c == -1) {
+            return null;
+        }
+        linhaRegistro = linhaAtual;
+
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        boolean entreAspas = false;
+
+        while (true) {
+            if (entreAspas) {
+                if (c == -1) {
+                    throw new IOException("Aspas não fechadas no registro iniciado na linha " + linhaRegistro);
+                }
+                if (c == '"') {
+                    int seguinte = ler();
+                    if (seguinte == '"') {
+                        campo.append('"');
+                    } else {
+                        entreAspas = false;
+                        devolver(seguinte);
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int seguinte = ler();
+                    if (seguinte != '\n') {
+                        devolver(seguinte);
+                    }
+                }
+                campos.add(campo.toString());
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+            c = ler();
+        }
+    }
+
+    // Linha (1-based) em que começou o último registro lido
+    public long getLinhaRegistro() {
+        return linhaRegistro;
+    }
+
+    private int ler() throws IOException {
+        int c;
+        if (proximo != -2) {
+            c = proximo;
+            proximo = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            linhaAtual++;
+        }
+        return c;
+    }
+
+    private void devolver(int c) {
+        if (c == '\n') {
+            linhaAtual--;
+        }
+        proximo = c;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ResumoEstatisticas;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Métricas do dashboard de estatísticas servidas a partir de um snapshot em cache.
+ *
+ * As quatro métricas são calculadas em paralelo num executor limitado e guardadas
+ * juntas num {@link ResumoEstatisticas} imutável. Enquanto o snapshot tem menos que
+ * o TTL ele é devolvido direto; depois disso, e até o limite de obsolescência, ele
+ * continua sendo devolvido enquanto um novo cálculo roda em segundo plano
+ * (stale-while-revalidate). Pedidos simultâneos de atualização compartilham o mesmo
+ * cálculo, então o trabalho no banco não cresce com o número de administradores.
+ */
+@Service
+@RequiredArgsConstructor
+public class EstatisticasService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstatisticasService.class);
+
+    private final ClienteService clienteService;
+    private final ProdutoService produtoService;
+
+    @Value("${estatisticas.resumo.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${estatisticas.resumo.max-obsoleto-ms:60000}")
+    private long maxObsoletoMs;
+
+    @Value("${estatisticas.resumo.threads:4}")
+    private int threads;
+
+    // Relógio da idade do snapshot (substituído nos testes)
+    private Clock relogio = Clock.systemUTC();
+
+    private final AtomicInteger contadorThreads = new AtomicInteger();
+    private final AtomicReference<CompletableFuture<ResumoEstatisticas>> emAndamento = new AtomicReference<>();
+    private volatile ResumoEstatisticas snapshot;
+
+    private ThreadPoolExecutor executor;
+
+    // Fila curta e CallerRunsPolicy: sob sobrecarga quem pediu faz o cálculo, sem acumular tarefas
+    @PostConstruct
+    public void iniciar() {
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(threads * 4),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "estatisticas-" + contadorThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Devolve o snapshot atual das métricas.
+     *
+     * Dentro do TTL devolve o cache; entre o TTL e o limite de obsolescência devolve o
+     * cache e dispara uma atualização em segundo plano; sem snapshot utilizável espera
+     * pelo cálculo (compartilhado com quem mais estiver esperando).
+     */
+    public ResumoEstatisticas obterResumo() {
+        ResumoEstatisticas atual = snapshot;
+        if (atual != null) {
+            long idade = atual.idadeMs(relogio.millis());
+            if (idade < ttlMs) {
+                return atual;
+            }
+            if (idade < ttlMs + maxObsoletoMs) {
+                atualizar();
+                return atual;
+            }
+        }
+
+        try {
+            return atualizar().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Força um cálculo novo (compartilhado com um que já esteja em andamento) e atualiza o snapshot
+    public CompletableFuture<ResumoEstatisticas> recalcular() {
+        return atualizar();
+    }
+
+    // Descarta o snapshot: o próximo pedido espera por um cálculo novo
+    public void invalidar() {
+        snapshot = null;
+    }
+
+    // Inicia um cálculo, ou devolve o que já está em andamento
+    private CompletableFuture<ResumoEstatisticas> atualizar() {
+        CompletableFuture<ResumoEstatisticas> novo = new CompletableFuture<>();
+        CompletableFuture<ResumoEstatisticas> existente = emAndamento.compareAndExchange(null, novo);
+        if (existente != null) {
+            return existente;
+        }
+
+        calcular().whenComplete((resumo, erro) -> {
+            // O snapshot é publicado antes de liberar a vaga, para que o próximo pedido já o enxergue
+            if (erro == null) {
+                snapshot = resumo;
+            } else {
+                log.error("Falha ao calcular as estatísticas do dashboard", erro);
+            }
+            emAndamento.set(null);
+            if (erro == null) {
+                novo.complete(resumo);
+            } else {
+                novo.completeExceptionally(erro);
+            }
+        });
+        return novo;
+    }
+
+    private CompletableFuture<ResumoEstatisticas> calcular() {
+        long inicio = relogio.millis();
+        CompletableFuture<Long> totalClientes = CompletableFuture.supplyAsync(clienteService::contarClientes, executor);
+        CompletableFuture<Long> cadastradosHoje = CompletableFuture.supplyAsync(
+                clienteService::contarClientesCadastradosHoje, executor);
+        CompletableFuture<Long> totalProdutos = CompletableFuture.supplyAsync(produtoService::contarProdutos, executor);
+        CompletableFuture<Long> estoqueBaixo = CompletableFuture.supplyAsync(
+                produtoService::contarProdutosComEstoqueBaixo, executor);
+
+        return CompletableFuture.allOf(totalClientes, cadastradosHoje, totalProdutos, estoqueBaixo)
+                .thenApply(ignorado -> new ResumoEstatisticas(totalClientes.join(), cadastradosHoje.join(),
+                        totalProdutos.join(), estoqueBaixo.join(), inicio));
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ClienteAlteradoEvent;
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.model.ResumoEstatisticas;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Stream SSE do dashboard de estatísticas (GET /estatisticas/stream).
+ *
+ * Alterações confirmadas de clientes e produtos não disparam um cálculo cada: a
+ * primeira abre uma janela de agrupamento e, ao fim dela, um único recálculo é feito
+ * e só as métricas que mudaram são enviadas, serializadas uma vez para todos os
+ * assinantes. Sem assinantes nada é calculado. As conexões ociosas não prendem
+ * threads (requisições assíncronas); um comentário periódico detecta as que caíram.
+ */
+@Component
+@RequiredArgsConstructor
+public class EstatisticasStream {
+
+    private static final Logger log = LoggerFactory.getLogger(EstatisticasStream.class);
+
+    private final EstatisticasService estatisticasService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${estatisticas.stream.agrupamento-ms:250}")
+    private long agrupamentoMs;
+
+    @Value("${estatisticas.stream.heartbeat-ms:30000}")
+    private long heartbeatMs;
+
+    private final List<SseEmitter> assinantes = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean agendado = new AtomicBoolean();
+    private volatile long ultimaAlteracao;
+
+    // Últimos valores enviados; métricas ausentes vão no próximo envio (protegido por lockEnviado)
+    private final Object lockEnviado = new Object();
+    private final Map<String, Long> ultimoEnviado = new HashMap<>();
+
+    private ScheduledExecutorService agendador;
+
+    @PostConstruct
+    public void iniciar() {
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "estatisticas-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::manterConexoes, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+        for (SseEmitter emitter : assinantes) {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * Novo assinante: recebe as métricas completas (evento "snapshot") e, depois,
+     * apenas as que mudarem (evento "estatisticas").
+     */
+    public SseEmitter assinar() {
+        SseEmitter emitter = new SseEmitter(0L); // Sem timeout: o dashboard fica aberto
+        emitter.onCompletion(() -> assinantes.remove(emitter));
+        emitter.onTimeout(() -> assinantes.remove(emitter));
+        emitter.onError(erro -> assinantes.remove(emitter));
+
+        ResumoEstatisticas resumo = estatisticasService.obterResumo();
+        Map<String, Long> valores = valores(resumo);
+        Map<String, Object> inicial = new LinkedHashMap<>(valores);
+        inicial.put("geradoEm", resumo.getGeradoEm());
+        try {
+            synchronized (emitter) {
+                emitter.send(SseEmitter.event().name("snapshot").data(inicial, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        synchronized (lockEnviado) {
+            if (assinantes.isEmpty()) {
+                ultimoEnviado.clear();
+                ultimoEnviado.putAll(valores);
+            } else {
+                // O snapshot do novo assinante pode diferir do último envio: essas métricas vão no próximo delta
+                ultimoEnviado.entrySet().removeIf(enviado -> !enviado.getValue().equals(valores.get(enviado.getKey())));
+            }
+            assinantes.add(emitter);
+        }
+        return emitter;
+    }
+
+    public int getAssinantes() {
+        return assinantes.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        marcarAlteracao();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        marcarAlteracao();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        marcarAlteracao();
+    }
+
+    // A primeira alteração da janela agenda o envio; as demais só entram no mesmo recálculo
+    private void marcarAlteracao() {
+        ultimaAlteracao = System.currentTimeMillis();
+        if (!assinantes.isEmpty() && agendado.compareAndSet(false, true)) {
+            agendador.schedule(this::publicar, agrupamentoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void publicar() {
+        agendado.set(false);
+        if (assinantes.isEmpty()) {
+            return;
+        }
+
+        ResumoEstatisticas resumo;
+        try {
+            resumo = estatisticasService.recalcular().join();
+        } catch (RuntimeException e) {
+            log.error("Falha ao recalcular as estatísticas do stream", e);
+            return;
+        }
+
+        // Um cálculo já em andamento pode ter começado antes da última alteração: agenda outro
+        if (resumo.getGeradoEm() <= ultimaAlteracao && agendado.compareAndSet(false, true)) {
+            agendador.schedule(this::publicar, agrupamentoMs, TimeUnit.MILLISECONDS);
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        synchronized (lockEnviado) {
+            for (Map.Entry<String, Long> metrica : valores(resumo).entrySet()) {
+                Long anterior = ultimoEnviado.put(metrica.getKey(), metrica.getValue());
+                if (!metrica.getValue().equals(anterior)) {
+                    delta.put(metrica.getKey(), metrica.getValue());
+                }
+            }
+        }
+        if (delta.isEmpty()) {
+            return;
+        }
+        delta.put("geradoEm", resumo.getGeradoEm());
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            log.error("Falha ao serializar as estatísticas do stream", e);
+            return;
+        }
+        enviar(() -> SseEmitter.event().name("estatisticas").data(json, MediaType.APPLICATION_JSON));
+    }
+
+    private void manterConexoes() {
+        enviar(() -> SseEmitter.event().comment("ping"));
+    }
+
+    // O builder acumula o texto do evento, por isso cada assinante recebe um novo (o JSON já vem pronto)
+    private void enviar(Supplier<SseEmitter.SseEventBuilder> evento) {
+        for (SseEmitter emitter : assinantes) {
+            try {
+                // SseEmitter não é seguro para envios simultâneos de threads diferentes
+                synchronized (emitter) {
+                    emitter.send(evento.get());
+                }
+            } catch (IOException | IllegalStateException e) {
+                assinantes.remove(emitter); // Cliente desconectou
+            }
+        }
+    }
+
+    private static Map<String, Long> valores(ResumoEstatisticas resumo) {
+        Map<String, Long> valores = new LinkedHashMap<>();
+        valores.put("totalClientes", resumo.getTotalClientes());
+        valores.put("clientesCadastradosHoje", resumo.getClientesCadastradosHoje());
+        valores.put("totalProdutos", resumo.getTotalProdutos());
+        valores.put("produtosEstoqueBaixo", resumo.getProdutosEstoqueBaixo());
+        return valores;
+    }
+}
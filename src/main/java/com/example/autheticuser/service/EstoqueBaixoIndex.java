@@ -0,0 +1,196 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.CruzamentoEstoqueBaixo;
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Conjunto, em memória, dos produtos com estoque abaixo do limite configurado.
+ *
+ * Carregado na inicialização (apenas as linhas abaixo do limite, pelo índice de
+ * quantidade_estoque) e mantido pelos eventos de produto e de estoque, de modo que
+ * a consulta custa o tamanho do resultado. Cada entrada ou saída da faixa é enviada
+ * aos assinantes do stream SSE por uma thread própria, fora da thread que confirmou a
+ * alteração: um cliente lento atrasa só o stream, não as gravações de estoque.
+ */
+@Component
+@RequiredArgsConstructor
+public class EstoqueBaixoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueBaixoIndex.class);
+    // Versão registrada para um produto removido: eventos atrasados dele são ignorados
+    private static final long REMOVIDO = Long.MAX_VALUE;
+
+    private final ProdutoRepository produtoRepository;
+
+    @Value("${produtos.estoque-baixo.limite:10}")
+    private int limite;
+
+    @Value("${produtos.estoque-baixo.heartbeat-ms:30000}")
+    private long heartbeatMs;
+
+    private final NavigableSet<Long> abaixoDoLimite = new ConcurrentSkipListSet<>();
+    // Última versão aplicada por produto, para ignorar eventos que chegam fora de ordem
+    private final Map<Long, Long> versoes = new HashMap<>();
+    private final List<SseEmitter> assinantes = new CopyOnWriteArrayList<>();
+    private volatile boolean pronto;
+
+    private ScheduledExecutorService agendador;
+
+    @PostConstruct
+    public void iniciar() {
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "estoque-baixo-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::manterConexoes, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+        for (SseEmitter emitter : assinantes) {
+            emitter.complete();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        long inicio = System.currentTimeMillis();
+        synchronized (versoes) {
+            abaixoDoLimite.clear();
+            versoes.clear();
+            for (ProdutoRepository.Estoque estoque : produtoRepository.findEstoqueByQuantidadeEstoqueLessThan(limite)) {
+                abaixoDoLimite.add(estoque.getId());
+                versoes.put(estoque.getId(), estoque.getVersao());
+            }
+        }
+        pronto = true;
+        log.info("Índice de estoque baixo carregado: {} produtos abaixo de {} unidades em {} ms",
+                abaixoDoLimite.size(), limite, System.currentTimeMillis() - inicio);
+    }
+
+    // Criação, edição e remoção pela entidade (após o commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        Long id = evento.getProduto().getId();
+        if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+            synchronized (versoes) {
+                versoes.put(id, REMOVIDO);
+                if (abaixoDoLimite.remove(id)) {
+                    notificar(new CruzamentoEstoqueBaixo(id, 0, false, limite));
+                }
+            }
+        } else {
+            aplicar(id, evento.getProduto().getQuantidadeEstoque(), evento.getProduto().getVersao());
+        }
+    }
+
+    // Reservas, liberações e ajustes feitos com UPDATE direto (após o commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        aplicar(evento.getProdutoId(), evento.getQuantidadeEstoque(), evento.getVersao());
+    }
+
+    // Enquanto não estiver pronto, os serviços consultam o banco diretamente
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    // Ids dos produtos abaixo do limite, em ordem crescente
+    public List<Long> ids() {
+        return new ArrayList<>(abaixoDoLimite);
+    }
+
+    public int tamanho() {
+        return abaixoDoLimite.size();
+    }
+
+    // Novo assinante do stream de cruzamentos do limite
+    public SseEmitter assinar() {
+        SseEmitter emitter = new SseEmitter();
+        emitter.onCompletion(() -> assinantes.remove(emitter));
+        emitter.onTimeout(() -> assinantes.remove(emitter));
+        emitter.onError(erro -> assinantes.remove(emitter));
+        assinantes.add(emitter);
+        return emitter;
+    }
+
+    private void aplicar(Long id, Integer quantidade, Long versao) {
+        if (quantidade == null) {
+            return;
+        }
+        synchronized (versoes) {
+            Long conhecida = versoes.get(id);
+            if (conhecida != null && conhecida == REMOVIDO) {
+                return; // Evento de um produto já removido
+            }
+            if (versao != null && conhecida != null && versao < conhecida) {
+                return; // Evento atrasado: já há estado mais novo aplicado
+            }
+            if (versao != null) {
+                versoes.put(id, versao);
+            }
+
+            boolean abaixo = quantidade < limite;
+            boolean mudou = abaixo ? abaixoDoLimite.add(id) : abaixoDoLimite.remove(id);
+            if (mudou) {
+                notificar(new CruzamentoEstoqueBaixo(id, quantidade, abaixo, limite));
+            }
+        }
+    }
+
+    // Chamado com o lock de versoes: só enfileira, na ordem dos cruzamentos; o envio é na thread do stream
+    private void notificar(CruzamentoEstoqueBaixo cruzamento) {
+        if (!assinantes.isEmpty()) {
+            agendador.execute(() -> enviar(() -> SseEmitter.event().name("estoque-baixo").data(cruzamento)));
+        }
+    }
+
+    private void manterConexoes() {
+        enviar(() -> SseEmitter.event().comment("ping"));
+    }
+
+    private void enviar(Supplier<SseEmitter.SseEventBuilder> evento) {
+        for (SseEmitter emitter : assinantes) {
+            try {
+                // SseEmitter não é seguro para envios simultâneos de threads diferentes
+                synchronized (emitter) {
+                    emitter.send(evento.get());
+                }
+            } catch (IOException | IllegalStateException e) {
+                assinantes.remove(emitter); // Cliente desconectou
+            }
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Modo "produto quente": estoque servido da memória, com gravação posterior no banco.
+ *
+ * Para os produtos ativados, o saldo fica em um {@link ContadorEstoque} e as
+ * reservas não tocam o banco, o disco nem nenhum lock compartilhado: só marcam o
+ * produto como alterado. Uma única thread de fundo, a cada intervalo-registro-ms,
+ * anota os saldos dos produtos alterados no log local (uma escrita e um fsync para
+ * todos) e publica um {@link EstoqueAlteradoEvent} com o saldo em memória; a cada
+ * intervalo-gravacao-ms o log é rotacionado e os saldos são gravados em lote na
+ * tabela produtos.
+ *
+ * Arquivos no diretório do log (todos com saldos absolutos, o último de cada produto vale):
+ * - estoque-quente.log: saldos ainda não persistidos
+ * - estoque-quente.anterior: segmento rotacionado, em processo de persistência
+ * - estoque-quente.snapshot: saldos do segmento anterior, ainda não confirmados no banco
+ *
+ * Na inicialização, antes de o servidor web aceitar requisições, o que sobrou desses
+ * arquivos é reaplicado no banco e só então os produtos são ativados. Uma queda do
+ * processo ou da máquina perde no máximo as operações do último intervalo de registro.
+ */
+@Component
+@RequiredArgsConstructor
+public class EstoqueQuente implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueQuente.class);
+
+    private static final String SQL_GRAVAR = "UPDATE produtos SET quantidade_estoque = ?, versao = versao + 1, "
+            + "data_atualizacao = ? WHERE id = ?";
+
+    private final ProdutoRepository produtoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${produtos.estoque-quente.ids:}")
+    private List<Long> idsConfigurados;
+
+    @Value("${produtos.estoque-quente.faixas:16}")
+    private int faixas;
+
+    @Value("${produtos.estoque-quente.intervalo-registro-ms:50}")
+    private long intervaloRegistroMs;
+
+    @Value("${produtos.estoque-quente.intervalo-gravacao-ms:200}")
+    private long intervaloGravacaoMs;
+
+    @Value("${produtos.estoque-quente.diretorio-log:data}")
+    private String diretorioLog;
+
+    private final Map<Long, Quente> contadores = new ConcurrentHashMap<>();
+    // Versão e dataAtualizacao da linha no banco desde a última gravação, enviadas nos eventos dos saldos em memória
+    private final Map<Long, ProdutoRepository.Estoque> linhas = new ConcurrentHashMap<>();
+
+    // Protegidos por lockLog: canal do segmento atual e os saldos anotados nele
+    private final Object lockLog = new Object();
+    private FileChannel canal;
+    private Map<Long, Long> segmento = new HashMap<>();
+
+    // Protegido por lockGravacao: snapshot que ainda não chegou ao banco
+    private final Object lockGravacao = new Object();
+    private final Map<Long, Long> naoConfirmados = new HashMap<>();
+
+    private ScheduledExecutorService agendador;
+
+    // Reaplica o log de uma execução anterior e ativa os produtos configurados. Roda depois que
+    // todos os beans existem (os ouvintes dos eventos já estão registrados) e antes de o
+    // servidor web subir, para que nenhuma escrita pelo banco seja sobrescrita pela recuperação
+    @Override
+    public void afterSingletonsInstantiated() {
+        recuperar();
+        for (Long id : idsConfigurados) {
+            ativar(id);
+        }
+
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "estoque-quente-gravacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::registrarComSeguranca, intervaloRegistroMs, intervaloRegistroMs,
+                TimeUnit.MILLISECONDS);
+        agendador.scheduleWithFixedDelay(this::gravarComSeguranca, intervaloGravacaoMs, intervaloGravacaoMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdown();
+        }
+        gravarComSeguranca();
+        synchronized (lockLog) {
+            fecharCanal();
+        }
+    }
+
+    /**
+     * Passa a servir o estoque do produto a partir da memória. Operações feitas
+     * pelo caminho do banco enquanto a ativação acontece podem ser sobrescritas,
+     * por isso a ativação deve ocorrer na inicialização ou com o produto parado.
+     *
+     * @return false se o produto não existe.
+     */
+    public boolean ativar(Long id) {
+        synchronized (lockGravacao) {
+            if (contadores.containsKey(id)) {
+                return true;
+            }
+            return produtoRepository.findEstoqueById(id)
+                    .map(estoque -> {
+                        linhas.put(id, estoque);
+                        contadores.put(id, new Quente(new ContadorEstoque(faixas, estoque.getQuantidadeEstoque())));
+                        log.info("Produto {} em modo de estoque quente (saldo inicial {})", id,
+                                estoque.getQuantidadeEstoque());
+                        return true;
+                    })
+                    .orElse(false);
+        }
+    }
+
+    // Volta o produto ao caminho do banco, gravando antes o saldo final
+    public void desativar(Long id) {
+        synchronized (lockGravacao) {
+            Quente quente = contadores.remove(id);
+            if (quente == null) {
+                return;
+            }
+            // Operações que ainda chegarem a este contador falham e são refeitas pelo banco, depois da gravação
+            long saldoFinal = quente.contador.fechar();
+            Map<Long, Long> paraGravar;
+            synchronized (lockLog) {
+                anotar(Map.of(id, saldoFinal));
+                paraGravar = trocarSegmento();
+            }
+            if (paraGravar != null) {
+                gravarSegmento(paraGravar);
+            }
+            linhas.remove(id);
+        }
+    }
+
+    public boolean isAtivo(Long id) {
+        return contadores.containsKey(id);
+    }
+
+    // Saldo em memória, ou null se o produto não está em modo quente
+    public Integer saldo(Long id) {
+        Quente quente = contadores.get(id);
+        return quente == null ? null : (int) quente.contador.total();
+    }
+
+    // Estoque que toda leitura mostra: o saldo em memória se o produto está quente, senão o lido do banco
+    public Integer estoqueVisivel(Long id, Integer lidoDoBanco) {
+        Integer saldo = saldo(id);
+        return saldo == null ? lidoDoBanco : saldo;
+    }
+
+    /**
+     * Reserva unidades de um produto quente.
+     *
+     * @return O saldo restante (aproximado sob concorrência), ou null se o produto
+     *         não está em modo quente e a reserva deve seguir pelo banco.
+     * @throws IllegalStateException se o estoque é insuficiente.
+     */
+    public Integer reservar(Long id, int quantidade) {
+        Quente quente = contadores.get(id);
+        if (quente == null) {
+            return null;
+        }
+        if (!quente.contador.reservar(quantidade)) {
+            if (quente.contador.isFechado()) {
+                aguardarDesativacao();
+                return null;
+            }
+            throw new IllegalStateException("Estoque insuficiente");
+        }
+        quente.marcar();
+        return (int) quente.contador.total();
+    }
+
+    // Devolve unidades de um produto quente; null se ele não está em modo quente
+    public Integer liberar(Long id, int quantidade) {
+        Quente quente = contadores.get(id);
+        if (quente == null) {
+            return null;
+        }
+        if (!quente.contador.liberar(quantidade)) {
+            aguardarDesativacao();
+            return null;
+        }
+        quente.marcar();
+        return (int) quente.contador.total();
+    }
+
+    /**
+     * Define o saldo de um produto quente só quando a transação atual confirmar (na
+     * hora, se não há transação): uma gravação que falhe ou seja revertida não muda
+     * o saldo nem chega ao log.
+     *
+     * @return false se o produto não está em modo quente e o saldo deve seguir pelo banco.
+     */
+    public boolean definirAoConfirmar(Long id, int quantidade) {
+        if (!isAtivo(id)) {
+            return false;
+        }
+        // Se o produto sair do modo quente até lá, é porque foi excluído: não há mais saldo a definir
+        aoConfirmar(() -> definir(id, quantidade));
+        return true;
+    }
+
+    /**
+     * Desfaz uma variação já aplicada ao saldo em memória se a transação atual for
+     * revertida. Liberações desfeitas depois que as unidades já foram vendidas são
+     * só registradas no log da aplicação.
+     *
+     * @param delta A variação aplicada (negativa para uma reserva).
+     */
+    public void desfazerSeReverter(Long id, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    if (delta < 0) {
+                        liberar(id, -delta);
+                    } else {
+                        reservar(id, delta);
+                    }
+                } catch (IllegalStateException e) {
+                    log.warn("Não foi possível desfazer a variação {} do produto quente {}: estoque insuficiente",
+                            delta, id);
+                }
+            }
+        });
+    }
+
+    // Define o saldo de um produto quente; false se ele não está em modo quente
+    public boolean definir(Long id, int quantidade) {
+        Quente quente = contadores.get(id);
+        if (quente == null) {
+            return false;
+        }
+        if (!quente.contador.definir(quantidade)) {
+            aguardarDesativacao();
+            return false;
+        }
+        quente.marcar();
+        return true;
+    }
+
+    /**
+     * Anota no log os saldos dos produtos alterados desde a última passada e avisa
+     * os interessados. Também é chamado pelo agendador a cada intervalo de registro.
+     */
+    public void registrar() {
+        Map<Long, Long> alterados = new LinkedHashMap<>();
+        synchronized (lockLog) {
+            contadores.forEach((id, quente) -> {
+                if (quente.alterado.getAndSet(false)) {
+                    long saldo = quente.contador.total();
+                    // Fechado por desativar(), que anota o saldo final: o total lido pode já ser o de um contador vazio
+                    if (!quente.contador.isFechado()) {
+                        alterados.put(id, saldo);
+                    }
+                }
+            });
+            anotar(alterados);
+        }
+        alterados.forEach((id, saldo) -> {
+            ProdutoRepository.Estoque linha = linhas.get(id);
+            if (linha != null) {
+                eventPublisher.publishEvent(new EstoqueAlteradoEvent(id, saldo.intValue(), linha.getVersao(),
+                        linha.getDataAtualizacao()));
+            }
+        });
+    }
+
+    /**
+     * Rotaciona o log e grava no banco os saldos anotados desde a última gravação.
+     * Também é chamado pelo agendador a cada intervalo.
+     */
+    public void gravar() {
+        synchronized (lockGravacao) {
+            registrar();
+            Map<Long, Long> paraGravar;
+            synchronized (lockLog) {
+                paraGravar = trocarSegmento();
+            }
+            if (paraGravar != null) {
+                gravarSegmento(paraGravar);
+            }
+        }
+    }
+
+    /**
+     * Reaplica no banco o que restou do log de uma execução anterior (queda do
+     * processo antes da gravação). Chamado na inicialização, antes das ativações.
+     */
+    public void recuperar() {
+        synchronized (lockGravacao) {
+            Path snapshot = arquivo("snapshot");
+            Path anterior = arquivo("anterior");
+            Path atual = arquivo("log");
+            if (!Files.exists(snapshot) && !Files.exists(anterior) && !Files.exists(atual)) {
+                return;
+            }
+
+            try {
+                // Do mais antigo para o mais novo: o snapshot já inclui o segmento anterior
+                Map<Long, Long> saldos = new HashMap<>();
+                lerSaldos(anterior, saldos);
+                lerSaldos(snapshot, saldos);
+                lerSaldos(atual, saldos);
+
+                log.info("Recuperando estoque quente de execução anterior: {} produtos", saldos.size());
+                persistir(saldos);
+                publicarGravados(saldos.keySet());
+
+                Files.deleteIfExists(atual);
+                Files.deleteIfExists(anterior);
+                Files.deleteIfExists(snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao recuperar o log do estoque quente", e);
+            }
+        }
+    }
+
+    // Deve ser chamado com lockGravacao e lockLog; null se não há nada a gravar
+    private Map<Long, Long> trocarSegmento() {
+        if (segmento.isEmpty()) {
+            return naoConfirmados.isEmpty() ? null : Map.of();
+        }
+        Map<Long, Long> saldos = segmento;
+        segmento = new HashMap<>();
+        rotacionar();
+        return saldos;
+    }
+
+    // Deve ser chamado com lockGravacao
+    private void gravarSegmento(Map<Long, Long> saldosDoSegmento) {
+        Map<Long, Long> saldos = new HashMap<>(naoConfirmados);
+        saldos.putAll(saldosDoSegmento);
+
+        try {
+            escreverSnapshot(saldos);
+            Files.deleteIfExists(arquivo("anterior"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar o snapshot do estoque quente", e);
+        }
+        naoConfirmados.putAll(saldos);
+
+        persistir(saldos);
+
+        naoConfirmados.clear();
+        try {
+            Files.deleteIfExists(arquivo("snapshot"));
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o snapshot do estoque quente", e);
+        }
+        publicarGravados(saldos.keySet());
+    }
+
+    // Contador fechado no meio da operação: o caminho do banco só pode seguir depois que desativar()
+    // gravar o saldo final, senão a gravação sobrescreveria a operação
+    private void aguardarDesativacao() {
+        synchronized (lockGravacao) {
+            // desativar() fecha o contador e grava o saldo sem soltar este lock
+        }
+    }
+
+    private static void aoConfirmar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    private void registrarComSeguranca() {
+        try {
+            registrar();
+        } catch (RuntimeException e) {
+            log.error("Falha ao registrar o estoque quente; nova tentativa no próximo intervalo", e);
+        }
+    }
+
+    private void gravarComSeguranca() {
+        try {
+            gravar();
+        } catch (RuntimeException e) {
+            log.error("Falha na gravação do estoque quente; nova tentativa no próximo intervalo", e);
+        }
+    }
+
+    // Deve ser chamado com lockLog: uma única escrita (e um fsync) com os saldos de todos os produtos
+    private void anotar(Map<Long, Long> saldos) {
+        if (saldos.isEmpty()) {
+            return;
+        }
+        StringBuilder registros = new StringBuilder(saldos.size() * 24);
+        saldos.forEach((id, saldo) -> registros.append("S;").append(id).append(';').append(saldo).append('\n'));
+        try {
+            if (canal == null) {
+                Files.createDirectories(Paths.get(diretorioLog));
+                canal = FileChannel.open(arquivo("log"), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(registros.toString().getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            // fsync a cada passada: o que foi anotado sobrevive a uma queda do processo ou da máquina
+            canal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao escrever no log do estoque quente", e);
+        }
+        segmento.putAll(saldos);
+    }
+
+    // Deve ser chamado com lockLog: fecha o segmento atual (com fsync) e o renomeia para "anterior"
+    private void rotacionar() {
+        try {
+            canal.force(false);
+            fecharCanal();
+            Files.move(arquivo("log"), arquivo("anterior"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao rotacionar o log do estoque quente", e);
+        }
+    }
+
+    private void fecharCanal() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                log.warn("Falha ao fechar o log do estoque quente", e);
+            }
+            canal = null;
+        }
+    }
+
+    // Grava os saldos em lote, em uma única transação
+    private void persistir(Map<Long, Long> saldos) {
+        if (saldos.isEmpty()) {
+            return;
+        }
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> linhas = new ArrayList<>(saldos.size());
+        saldos.forEach((id, saldo) -> linhas.add(new Object[]{saldo, agora, id}));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(SQL_GRAVAR, linhas));
+    }
+
+    // Após uma gravação: produtos ainda quentes são avisados no próximo registro, já com a versão e a data novas
+    private void publicarGravados(Iterable<Long> ids) {
+        List<Long> lista = new ArrayList<>();
+        ids.forEach(lista::add);
+        if (lista.isEmpty()) {
+            return;
+        }
+        for (ProdutoRepository.Estoque estoque : produtoRepository.findEstoqueByIdIn(lista)) {
+            Quente quente = contadores.get(estoque.getId());
+            if (quente != null) {
+                linhas.put(estoque.getId(), estoque);
+                quente.marcar();
+            } else {
+                eventPublisher.publishEvent(new EstoqueAlteradoEvent(estoque.getId(), estoque.getQuantidadeEstoque(),
+                        estoque.getVersao(), estoque.getDataAtualizacao()));
+            }
+        }
+    }
+
+    private void escreverSnapshot(Map<Long, Long> saldos) throws IOException {
+        Path temporario = arquivo("snapshot.tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporario, StandardCharsets.US_ASCII)) {
+            for (Map.Entry<Long, Long> saldo : saldos.entrySet()) {
+                writer.write("S;" + saldo.getKey() + ";" + saldo.getValue() + "\n");
+            }
+        }
+        try (FileChannel arquivoTemporario = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+            arquivoTemporario.force(true);
+        }
+        Files.move(temporario, arquivo("snapshot"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Lê os saldos de um arquivo do log; registros posteriores substituem os anteriores
+    private static void lerSaldos(Path arquivo, Map<Long, Long> saldos) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return;
+        }
+        String conteudo = Files.readString(arquivo, StandardCharsets.US_ASCII);
+        // Só valem linhas terminadas: a última pode ter sido cortada pela queda do processo
+        for (String linha : conteudo.substring(0, conteudo.lastIndexOf('\n') + 1).split("\n")) {
+            String[] campos = linha.split(";");
+            if (campos.length == 3 && "S".equals(campos[0])) {
+                saldos.put(Long.parseLong(campos[1]), Long.parseLong(campos[2]));
+            }
+        }
+    }
+
+    private Path arquivo(String extensao) {
+        return Paths.get(diretorioLog, "estoque-quente." + extensao);
+    }
+
+    // Contador de um produto quente e a marca de alteração desde o último registro
+    private static final class Quente {
+        private final ContadorEstoque contador;
+        private final AtomicBoolean alterado = new AtomicBoolean();
+
+        private Quente(ContadorEstoque contador) {
+            this.contador = contador;
+        }
+
+        // Só escreve quando a marca ainda não está ligada, para não disputar a linha de cache a cada reserva
+        private void marcar() {
+            if (!alterado.get()) {
+                alterado.set(true);
+            }
+        }
+    }
+}
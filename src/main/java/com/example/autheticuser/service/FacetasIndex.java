@@ -0,0 +1,401 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmaps em memória para as contagens da barra lateral do catálogo (facetas).
+ *
+ * Cada produto ocupa uma posição densa (int) e as categorias são codificadas em
+ * um dicionário (texto -> código). Há um {@link BitSet} por categoria, por faixa
+ * de preço e por situação de estoque; as contagens são cardinalidades desses
+ * bitmaps, e o filtro por categoria é um AND entre eles, sem consultar a tabela.
+ * Antes de a carga terminar, as contagens vêm de um GROUP BY no banco e a carga é
+ * disparada em segundo plano, sem prender a requisição.
+ */
+@Component
+@RequiredArgsConstructor
+public class FacetasIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetasIndex.class);
+
+    public static final String SEM_ESTOQUE = "sem-estoque";
+    public static final String ESTOQUE_BAIXO = "estoque-baixo";
+    public static final String DISPONIVEL = "disponivel";
+    private static final String[] SITUACOES = {SEM_ESTOQUE, ESTOQUE_BAIXO, DISPONIVEL};
+
+    private final ProdutoRepository produtoRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${produtos.facetas.faixas-preco:50,100,500,1000}")
+    private List<BigDecimal> limitesFaixas;
+
+    @Value("${produtos.estoque-baixo.limite:10}")
+    private int limiteEstoqueBaixo;
+
+    // Dicionário de categorias: código -> nome e nome -> código
+    private final List<String> categorias = new ArrayList<>();
+    private final Map<String, Integer> codigos = new HashMap<>();
+
+    // Posição densa de cada produto e o que está indexado nela
+    private final Map<Long, Integer> posicoes = new HashMap<>();
+    private final List<Entrada> entradas = new ArrayList<>();
+    private final Deque<Integer> posicoesLivres = new ArrayDeque<>();
+
+    private final List<BitSet> porCategoria = new ArrayList<>();
+    private BitSet[] porFaixa;
+    private final BitSet[] porSituacao = {new BitSet(), new BitSet(), new BitSet()};
+    private final BitSet ocupadas = new BitSet();
+
+    private long[] limitesCentavos;
+    private String[] nomesFaixas;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean pronto;
+    private final AtomicBoolean carregando = new AtomicBoolean();
+
+    @PostConstruct
+    void configurarFaixas() {
+        limitesCentavos = new long[limitesFaixas.size()];
+        nomesFaixas = new String[limitesFaixas.size() + 1];
+        porFaixa = new BitSet[limitesFaixas.size() + 1];
+        String anterior = "0";
+        for (int i = 0; i < limitesFaixas.size(); i++) {
+            limitesCentavos[i] = centavos(limitesFaixas.get(i));
+            nomesFaixas[i] = anterior + "-" + limitesFaixas.get(i).toPlainString();
+            anterior = limitesFaixas.get(i).toPlainString();
+        }
+        nomesFaixas[limitesFaixas.size()] = anterior + "+";
+        for (int i = 0; i < porFaixa.length; i++) {
+            porFaixa[i] = new BitSet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        if (pronto || !carregando.compareAndSet(false, true)) {
+            return; // Já carregado ou carga em andamento
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            List<Object[]> linhas = produtoRepository.findIdsCategoriasPrecosEEstoques();
+            lock.writeLock().lock();
+            try {
+                for (Object[] linha : linhas) {
+                    aplicar((Long) linha[0], (String) linha[1], (BigDecimal) linha[2], (Integer) linha[3],
+                            (Long) linha[4]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            pronto = true;
+            log.info("Facetas do catálogo carregadas: {} produtos, {} categorias em {} ms", linhas.size(),
+                    categorias.size(), System.currentTimeMillis() - inicio);
+        } finally {
+            carregando.set(false);
+        }
+    }
+
+    // Consulta antes da carga (ou após uma falha nela): carrega numa thread própria
+    private void carregarEmSegundoPlano() {
+        if (carregando.get()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                carregar();
+            } catch (RuntimeException e) {
+                log.error("Falha ao carregar as facetas do catálogo", e);
+            }
+        }, "facetas-carga");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Criação, edição e remoção pela entidade (após o commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        Produto produto = evento.getProduto();
+        lock.writeLock().lock();
+        try {
+            if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+                remover(produto.getId());
+            } else {
+                aplicar(produto.getId(), produto.getCategoria(), produto.getPreco(), produto.getQuantidadeEstoque(),
+                        produto.getVersao());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reservas, liberações e ajustes feitos com UPDATE direto (após o commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            Integer posicao = posicoes.get(evento.getProdutoId());
+            if (posicao != null) {
+                Entrada entrada = entradas.get(posicao);
+                aplicar(evento.getProdutoId(), entrada.categoria == -1 ? null : categorias.get(entrada.categoria),
+                        entrada.preco, evento.getQuantidadeEstoque(), evento.getVersao());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Enquanto não estiver pronto, os serviços consultam o banco diretamente
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    /**
+     * Contagens por categoria, faixa de preço e situação de estoque.
+     *
+     * @param categoria Se informada, as contagens de preço e estoque consideram apenas
+     *                  essa categoria (as contagens por categoria continuam gerais).
+     */
+    public Map<String, Object> contar(String categoria) {
+        if (!pronto) {
+            carregarEmSegundoPlano();
+            return contarNoBanco(categoria);
+        }
+        lock.readLock().lock();
+        try {
+            BitSet filtro = ocupadas;
+            if (categoria != null) {
+                Integer codigo = codigos.get(categoria);
+                filtro = codigo == null ? new BitSet() : porCategoria.get(codigo);
+            }
+
+            Map<String, Integer> contagemCategorias = new LinkedHashMap<>();
+            for (int codigo = 0; codigo < categorias.size(); codigo++) {
+                int total = porCategoria.get(codigo).cardinality();
+                if (total > 0) {
+                    contagemCategorias.put(categorias.get(codigo), total);
+                }
+            }
+
+            Map<String, Integer> contagemFaixas = new LinkedHashMap<>();
+            for (int i = 0; i < porFaixa.length; i++) {
+                contagemFaixas.put(nomesFaixas[i], intersecao(porFaixa[i], filtro));
+            }
+
+            Map<String, Integer> contagemEstoque = new LinkedHashMap<>();
+            for (int i = 0; i < SITUACOES.length; i++) {
+                contagemEstoque.put(SITUACOES[i], intersecao(porSituacao[i], filtro));
+            }
+
+            Map<String, Object> facetas = new LinkedHashMap<>();
+            facetas.put("total", filtro.cardinality());
+            facetas.put("categorias", contagemCategorias);
+            facetas.put("faixasPreco", contagemFaixas);
+            facetas.put("estoque", contagemEstoque);
+            return facetas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Mesmas contagens de contar(), com um GROUP BY por categoria, faixa de preço e situação de estoque
+    private Map<String, Object> contarNoBanco(String categoria) {
+        StringBuilder faixaSql = new StringBuilder("CASE");
+        List<Object> parametros = new ArrayList<>();
+        for (int i = 0; i < limitesFaixas.size(); i++) {
+            faixaSql.append(" WHEN preco < ? THEN ").append(i);
+            parametros.add(limitesFaixas.get(i));
+        }
+        faixaSql.append(" ELSE ").append(limitesFaixas.size()).append(" END");
+        parametros.add(limiteEstoqueBaixo);
+        String sql = "SELECT categoria, faixa, situacao, COUNT(*) FROM (SELECT categoria, " + faixaSql
+                + " AS faixa, CASE WHEN quantidade_estoque <= 0 THEN 0 WHEN quantidade_estoque < ? THEN 1 ELSE 2 END"
+                + " AS situacao FROM produtos) p GROUP BY categoria, faixa, situacao ORDER BY categoria";
+
+        Map<String, Integer> contagemCategorias = new LinkedHashMap<>();
+        int[] faixas = new int[nomesFaixas.length];
+        int[] situacoes = new int[SITUACOES.length];
+        int[] total = new int[1];
+        jdbcTemplate.query(sql, linha -> {
+            String nome = linha.getString(1);
+            int quantidade = linha.getInt(4);
+            if (nome != null) {
+                contagemCategorias.merge(nome, quantidade, Integer::sum);
+            }
+            if (categoria == null || categoria.equals(nome)) {
+                faixas[linha.getInt(2)] += quantidade;
+                situacoes[linha.getInt(3)] += quantidade;
+                total[0] += quantidade;
+            }
+        }, parametros.toArray());
+
+        Map<String, Integer> contagemFaixas = new LinkedHashMap<>();
+        for (int i = 0; i < faixas.length; i++) {
+            contagemFaixas.put(nomesFaixas[i], faixas[i]);
+        }
+        Map<String, Integer> contagemEstoque = new LinkedHashMap<>();
+        for (int i = 0; i < SITUACOES.length; i++) {
+            contagemEstoque.put(SITUACOES[i], situacoes[i]);
+        }
+
+        Map<String, Object> facetas = new LinkedHashMap<>();
+        facetas.put("total", total[0]);
+        facetas.put("categorias", contagemCategorias);
+        facetas.put("faixasPreco", contagemFaixas);
+        facetas.put("estoque", contagemEstoque);
+        return facetas;
+    }
+
+    // Ids dos produtos de uma categoria (nome exato), em ordem crescente
+    public List<Long> idsDaCategoria(String categoria) {
+        lock.readLock().lock();
+        try {
+            Integer codigo = codigos.get(categoria);
+            List<Long> ids = new ArrayList<>();
+            if (codigo != null) {
+                BitSet bitmap = porCategoria.get(codigo);
+                for (int posicao = bitmap.nextSetBit(0); posicao >= 0; posicao = bitmap.nextSetBit(posicao + 1)) {
+                    ids.add(entradas.get(posicao).id);
+                }
+            }
+            ids.sort(null);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Deve ser chamado com o lock de escrita
+    private void aplicar(Long id, String categoria, BigDecimal preco, Integer quantidade, Long versao) {
+        if (preco == null || quantidade == null) {
+            return;
+        }
+        Integer posicao = posicoes.get(id);
+        if (posicao != null) {
+            Entrada anterior = entradas.get(posicao);
+            if (versao != null && anterior.versao != null && versao < anterior.versao) {
+                return; // Evento atrasado: já há estado mais novo aplicado
+            }
+            desmarcar(posicao, anterior);
+        } else {
+            posicao = posicoesLivres.isEmpty() ? entradas.size() : posicoesLivres.pop();
+            posicoes.put(id, posicao);
+        }
+
+        Entrada entrada = new Entrada(id, codificar(categoria), preco, faixa(preco), situacao(quantidade), versao);
+        if (posicao == entradas.size()) {
+            entradas.add(entrada);
+        } else {
+            entradas.set(posicao, entrada);
+        }
+        ocupadas.set(posicao);
+        if (entrada.categoria >= 0) {
+            porCategoria.get(entrada.categoria).set(posicao);
+        }
+        porFaixa[entrada.faixa].set(posicao);
+        porSituacao[entrada.situacao].set(posicao);
+    }
+
+    // Deve ser chamado com o lock de escrita
+    private void remover(Long id) {
+        Integer posicao = posicoes.remove(id);
+        if (posicao != null) {
+            desmarcar(posicao, entradas.get(posicao));
+            entradas.set(posicao, null);
+            posicoesLivres.push(posicao);
+        }
+    }
+
+    private void desmarcar(int posicao, Entrada entrada) {
+        ocupadas.clear(posicao);
+        if (entrada.categoria >= 0) {
+            porCategoria.get(entrada.categoria).clear(posicao);
+        }
+        porFaixa[entrada.faixa].clear(posicao);
+        porSituacao[entrada.situacao].clear(posicao);
+    }
+
+    // Código da categoria no dicionário (criado na primeira ocorrência); -1 para produto sem categoria
+    private int codificar(String categoria) {
+        if (categoria == null) {
+            return -1;
+        }
+        Integer codigo = codigos.get(categoria);
+        if (codigo == null) {
+            codigo = categorias.size();
+            categorias.add(categoria);
+            codigos.put(categoria, codigo);
+            porCategoria.add(new BitSet());
+        }
+        return codigo;
+    }
+
+    private int faixa(BigDecimal preco) {
+        long valor = centavos(preco);
+        int faixa = 0;
+        while (faixa < limitesCentavos.length && valor >= limitesCentavos[faixa]) {
+            faixa++;
+        }
+        return faixa;
+    }
+
+    private int situacao(int quantidade) {
+        if (quantidade <= 0) {
+            return 0;
+        }
+        return quantidade < limiteEstoqueBaixo ? 1 : 2;
+    }
+
+    private static int intersecao(BitSet a, BitSet b) {
+        BitSet resultado = (BitSet) a.clone();
+        resultado.and(b);
+        return resultado.cardinality();
+    }
+
+    private static long centavos(BigDecimal valor) {
+        return valor.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static final class Entrada {
+        private final long id;
+        private final int categoria;
+        private final BigDecimal preco;
+        private final int faixa;
+        private final int situacao;
+        private final Long versao;
+
+        private Entrada(long id, int categoria, BigDecimal preco, int faixa, int situacao, Long versao) {
+            this.id = id;
+            this.categoria = categoria;
+            this.preco = preco;
+            this.faixa = faixa;
+            this.situacao = situacao;
+            this.versao = versao;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.autheticuser.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para textos, seguro para uso entre threads.
+ *
+ * Responde "certamente ausente" ou "talvez presente": um valor adicionado nunca é
+ * dado como ausente, mas um valor ausente pode ser dado como presente com a taxa
+ * de falsos positivos escolhida (enquanto o número de inserções não passar da
+ * capacidade). Não há remoção; para esquecer valores o filtro é reconstruído.
+ */
+public class FiltroBloom {
+
+    private final long capacidade;
+    private final long totalBits;
+    private final int funcoes;
+    private final AtomicLongArray bits;
+    private final AtomicLong inseridos = new AtomicLong();
+
+    /**
+     * @param capacidade Quantos valores o filtro deve comportar.
+     * @param taxaFalsoPositivo Taxa de falsos positivos desejada nessa capacidade (entre 0 e 1).
+     */
+    public FiltroBloom(long capacidade, double taxaFalsoPositivo) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade deve ser maior que zero");
+        }
+        if (taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("Taxa de falsos positivos deve estar entre 0 e 1");
+        }
+        this.capacidade = capacidade;
+
+        // m = -n ln(p) / ln(2)^2 bits e k = (m / n) ln(2) funções de hash
+        long palavras = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)) / 64);
+        if (palavras > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacidade grande demais para o filtro");
+        }
+        this.bits = new AtomicLongArray((int) palavras);
+        this.totalBits = palavras * 64;
+        this.funcoes = Math.max(1, (int) Math.round((double) totalBits / capacidade * Math.log(2)));
+    }
+
+    /**
+     * Adiciona um valor ao filtro.
+     *
+     * @return true se algum bit mudou; false se o valor já era dado como presente
+     *         (repetições não contam para a capacidade).
+     */
+    public boolean adicionar(String valor) {
+        long hash = hash(valor);
+        long h1 = hash;
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        boolean alterou = false;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long atual = bits.get(palavra);
+            while ((atual & mascara) == 0) {
+                if (bits.compareAndSet(palavra, atual, atual | mascara)) {
+                    alterou = true;
+                    break;
+                }
+                atual = bits.get(palavra);
+            }
+        }
+        if (alterou) {
+            inseridos.incrementAndGet();
+        }
+        return alterou;
+    }
+
+    // false = o valor certamente nunca foi adicionado
+    public boolean podeConter(String valor) {
+        long hash = hash(valor);
+        long h1 = hash;
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, totalBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCapacidade() {
+        return capacidade;
+    }
+
+    // Valores distintos adicionados (aproximado: um falso positivo na adição não é contado)
+    public long getInseridos() {
+        return inseridos.get();
+    }
+
+    public boolean isSaturado() {
+        return inseridos.get() > capacidade;
+    }
+
+    // FNV-1a de 64 bits sobre os caracteres, seguido da mistura final do MurmurHash3
+    private static long hash(String valor) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= valor.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return misturar(hash);
+    }
+
+    private static long misturar(long x) {
+        x ^= x >>> 33;
+        x *= 0xFF51AFD7ED558CCDL;
+        x ^= x >>> 33;
+        x *= 0xC4CEB93FE1A85EC3L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
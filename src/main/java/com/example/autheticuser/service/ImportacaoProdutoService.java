@@ -0,0 +1,434 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.model.ResumoImportacao;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Importação de produtos a partir de um CSV, processado de forma incremental.
+ *
+ * O arquivo passa por um pipeline de estágios ligados por filas limitadas
+ * (leitura → validação → deduplicação → inserção em lote). Quando um estágio
+ * fica para trás, a fila anterior enche e o estágio produtor bloqueia, de modo
+ * que a memória usada não depende do tamanho do arquivo.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportacaoProdutoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoProdutoService.class);
+
+    private static final int MAX_ERROS_REPORTADOS = 100;
+    private static final long ESPERA_FILA_MS = 100;
+
+    private static final String SQL_INSERIR = "INSERT INTO produtos "
+            + "(nome, descricao, preco, quantidade_estoque, categoria, data_criacao, data_atualizacao) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final LinhaCsv FIM_LINHAS = new LinhaCsv(-1, List.of());
+    private static final List<Produto> FIM_LOTES = new ArrayList<>();
+
+    private static final AtomicInteger contadorThreads = new AtomicInteger();
+
+    private final ProdutoService produtoService;
+    private final ProdutoRepository produtoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${produtos.importacao.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Value("${produtos.importacao.capacidade-fila:2000}")
+    private int capacidadeFila;
+
+    @Value("${produtos.importacao.intervalo-progresso:10000}")
+    private int intervaloProgresso;
+
+    /**
+     * Importa os produtos de um CSV com cabeçalho. Colunas obrigatórias:
+     * nome, preco e quantidadeEstoque; opcionais: descricao e categoria.
+     *
+     * @param entrada   O conteúdo do arquivo CSV (UTF-8).
+     * @param progresso Recebe um resumo parcial a cada intervalo de linhas lidas.
+     * @return O resumo final da importação.
+     */
+    public ResumoImportacao importar(InputStream entrada, Consumer<ResumoImportacao> progresso) {
+        Execucao execucao = new Execucao();
+        ExecutorService executor = Executors.newFixedThreadPool(3, tarefa -> {
+            Thread thread = new Thread(tarefa, "importacao-produtos-" + contadorThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> estagios = List.of(
+                    executor.submit(() -> execucao.executarEstagio(() -> validar(execucao))),
+                    executor.submit(() -> execucao.executarEstagio(() -> deduplicar(execucao))),
+                    executor.submit(() -> execucao.executarEstagio(() -> inserir(execucao))));
+
+            ler(entrada, execucao, progresso);
+
+            for (Future<?> estagio : estagios) {
+                estagio.get();
+            }
+        } catch (IOException | RuntimeException e) {
+            execucao.falhar(e);
+        } catch (ExecutionException e) {
+            execucao.falhar(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            execucao.falhar(e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ResumoImportacao resumo = execucao.resumo(true);
+        log.info("Importação de produtos finalizada: {} linhas, {} importados, {} inválidos, {} duplicados em {} ms",
+                resumo.getLinhasLidas(), resumo.getImportados(), resumo.getInvalidos(),
+                resumo.getDuplicados(), resumo.getDuracaoMs());
+        return resumo;
+    }
+
+    // Estágio 1 (thread do chamador): lê o CSV registro a registro
+    private void ler(InputStream entrada, Execucao execucao, Consumer<ResumoImportacao> progresso)
+            throws IOException {
+        CsvReader csv = new CsvReader(
+                new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8)), ',');
+
+        List<String> cabecalho = csv.lerRegistro();
+        if (cabecalho == null) {
+            throw new IllegalArgumentException("Arquivo CSV vazio");
+        }
+        execucao.colunas = mapearColunas(cabecalho);
+
+        List<String> campos;
+        while ((campos = csv.lerRegistro()) != null) {
+            if (campos.size() == 1 && campos.get(0).trim().isEmpty()) {
+                continue; // Linha em branco
+            }
+            long lidas = execucao.linhasLidas.incrementAndGet();
+            execucao.colocar(execucao.paraValidar, new LinhaCsv(csv.getLinhaRegistro(), campos));
+
+            if (lidas % intervaloProgresso == 0) {
+                progresso.accept(execucao.resumo(false));
+            }
+        }
+        execucao.colocar(execucao.paraValidar, FIM_LINHAS);
+    }
+
+    // Estágio 2: converte a linha em produto e aplica as mesmas regras de criarProduto
+    private void validar(Execucao execucao) {
+        List<Produto> lote = new ArrayList<>(tamanhoLote);
+        LinhaCsv linha;
+        while ((linha = execucao.retirar(execucao.paraValidar)) != FIM_LINHAS) {
+            try {
+                Produto produto = converter(linha, execucao.colunas);
+                produtoService.validarProduto(produto);
+                lote.add(produto);
+            } catch (IllegalArgumentException e) {
+                execucao.invalidos.incrementAndGet();
+                execucao.registrarErro("Linha " + linha.numero + ": " + e.getMessage());
+                continue;
+            }
+
+            if (lote.size() >= tamanhoLote) {
+                execucao.colocar(execucao.paraDeduplicar, lote);
+                lote = new ArrayList<>(tamanhoLote);
+            }
+        }
+        if (!lote.isEmpty()) {
+            execucao.colocar(execucao.paraDeduplicar, lote);
+        }
+        execucao.colocar(execucao.paraDeduplicar, FIM_LOTES);
+    }
+
+    // Estágio 3: descarta nomes repetidos no arquivo ou já existentes no banco
+    private void deduplicar(Execucao execucao) {
+        List<Produto> lote;
+        while ((lote = execucao.retirar(execucao.paraDeduplicar)) != FIM_LOTES) {
+            // Primeiro os nomes em trânsito (lotes aceitos ainda não gravados), depois o banco:
+            // um nome que sai do conjunto em trânsito já está commitado quando o banco é consultado
+            Set<String> nomesLote = new HashSet<>();
+            List<Produto> candidatos = new ArrayList<>(lote.size());
+            for (Produto produto : lote) {
+                if (execucao.nomesEmTransito.contains(produto.getNome()) || !nomesLote.add(produto.getNome())) {
+                    execucao.duplicados.incrementAndGet();
+                } else {
+                    candidatos.add(produto);
+                }
+            }
+
+            Set<String> existentes = nomesLote.isEmpty()
+                    ? Set.of()
+                    : new HashSet<>(produtoRepository.findNomesExistentes(nomesLote));
+
+            List<Produto> novos = new ArrayList<>(candidatos.size());
+            for (Produto produto : candidatos) {
+                if (existentes.contains(produto.getNome())) {
+                    execucao.duplicados.incrementAndGet();
+                } else {
+                    novos.add(produto);
+                    execucao.nomesEmTransito.add(produto.getNome());
+                }
+            }
+
+            if (!novos.isEmpty()) {
+                execucao.colocar(execucao.paraInserir, novos);
+            }
+        }
+        execucao.colocar(execucao.paraInserir, FIM_LOTES);
+    }
+
+    // Estágio 4: grava cada lote com um batch JDBC em sua própria transação
+    private void inserir(Execucao execucao) {
+        List<Produto> lote;
+        while ((lote = execucao.retirar(execucao.paraInserir)) != FIM_LOTES) {
+            List<Produto> produtos = lote;
+            Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(SQL_INSERIR, produtos, produtos.size(), (ps, produto) -> {
+                    ps.setString(1, produto.getNome());
+                    ps.setString(2, produto.getDescricao());
+                    ps.setBigDecimal(3, produto.getPreco());
+                    ps.setInt(4, produto.getQuantidadeEstoque());
+                    ps.setString(5, produto.getCategoria());
+                    ps.setTimestamp(6, agora);
+                    ps.setTimestamp(7, agora);
+                });
+
+                // O batch JDBC não passa pelos callbacks JPA: publica os eventos de criação manualmente
+                List<String> nomes = new ArrayList<>(produtos.size());
+                for (Produto produto : produtos) {
+                    nomes.add(produto.getNome());
+                }
+                for (Produto criado : produtoRepository.findByNomeIn(nomes)) {
+                    eventPublisher.publishEvent(new ProdutoAlteradoEvent(ProdutoAlteradoEvent.Tipo.CRIADO, criado));
+                }
+            });
+
+            execucao.importados.addAndGet(produtos.size());
+            for (Produto produto : produtos) {
+                execucao.nomesEmTransito.remove(produto.getNome());
+            }
+        }
+    }
+
+    private Map<String, Integer> mapearColunas(List<String> cabecalho) {
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < cabecalho.size(); i++) {
+            String nome = cabecalho.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT);
+            if (i == 0 && !nome.isEmpty() && nome.charAt(0) == '\uFEFF') {
+                nome = nome.substring(1); // BOM do UTF-8
+            }
+            colunas.put(nome, i);
+        }
+
+        for (String obrigatoria : List.of("nome", "preco", "quantidadeestoque")) {
+            if (!colunas.containsKey(obrigatoria)) {
+                throw new IllegalArgumentException("Coluna obrigatória ausente no cabeçalho: " + obrigatoria);
+            }
+        }
+        return colunas;
+    }
+
+    private Produto converter(LinhaCsv linha, Map<String, Integer> colunas) {
+        Produto produto = new Produto();
+        produto.setNome(campo(linha, colunas, "nome"));
+        produto.setDescricao(campo(linha, colunas, "descricao"));
+        produto.setCategoria(campo(linha, colunas, "categoria"));
+
+        String preco = campo(linha, colunas, "preco");
+        try {
+            produto.setPreco(preco == null ? null : new BigDecimal(preco));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Preço inválido: " + preco);
+        }
+        verificarPreco(produto.getPreco());
+
+        String quantidade = campo(linha, colunas, "quantidadeestoque");
+        try {
+            produto.setQuantidadeEstoque(quantidade == null ? null : Integer.valueOf(quantidade));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Quantidade em estoque inválida: " + quantidade);
+        }
+
+        // Limites das colunas: evitam que uma única linha derrube o lote inteiro na inserção
+        verificarTamanho(produto.getNome(), 100, "Nome");
+        verificarTamanho(produto.getDescricao(), 500, "Descrição");
+        verificarTamanho(produto.getCategoria(), 50, "Categoria");
+        return produto;
+    }
+
+    private String campo(LinhaCsv linha, Map<String, Integer> colunas, String coluna) {
+        Integer indice = colunas.get(coluna);
+        if (indice == null || indice >= linha.campos.size()) {
+            return null;
+        }
+        String valor = linha.campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    // preco é NUMERIC(10,2): até 8 dígitos inteiros e 2 casas decimais (zeros à direita não contam)
+    private void verificarPreco(BigDecimal preco) {
+        if (preco == null) {
+            return;
+        }
+        if (preco.signum() <= 0) {
+            throw new IllegalArgumentException("Preço deve ser maior que zero");
+        }
+        BigDecimal normalizado = preco.scale() > 2 ? preco.stripTrailingZeros() : preco;
+        if (normalizado.scale() > 2) {
+            throw new IllegalArgumentException("Preço com mais de 2 casas decimais: " + preco.toPlainString());
+        }
+        if (normalizado.precision() - normalizado.scale() > 8) {
+            throw new IllegalArgumentException("Preço excede 8 dígitos inteiros: " + preco.toPlainString());
+        }
+    }
+
+    private void verificarTamanho(String valor, int maximo, String campo) {
+        if (valor != null && valor.length() > maximo) {
+            throw new IllegalArgumentException(campo + " excede " + maximo + " caracteres");
+        }
+    }
+
+    private static final class LinhaCsv {
+        private final long numero;
+        private final List<String> campos;
+
+        private LinhaCsv(long numero, List<String> campos) {
+            this.numero = numero;
+            this.campos = campos;
+        }
+    }
+
+    // Estado compartilhado pelos estágios de uma importação
+    private final class Execucao {
+        private final long inicio = System.nanoTime();
+
+        private final BlockingQueue<LinhaCsv> paraValidar = new ArrayBlockingQueue<>(capacidadeFila);
+        private final BlockingQueue<List<Produto>> paraDeduplicar = new ArrayBlockingQueue<>(capacidadeLotes());
+        private final BlockingQueue<List<Produto>> paraInserir = new ArrayBlockingQueue<>(capacidadeLotes());
+        private final Set<String> nomesEmTransito = ConcurrentHashMap.newKeySet();
+
+        private final AtomicLong linhasLidas = new AtomicLong();
+        private final AtomicLong importados = new AtomicLong();
+        private final AtomicLong invalidos = new AtomicLong();
+        private final AtomicLong duplicados = new AtomicLong();
+        private final AtomicInteger totalErros = new AtomicInteger();
+        private final Queue<String> erros = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Throwable> falha = new AtomicReference<>();
+
+        private volatile Map<String, Integer> colunas;
+
+        private int capacidadeLotes() {
+            return Math.max(2, capacidadeFila / Math.max(1, tamanhoLote));
+        }
+
+        // Bloqueia enquanto a fila estiver cheia (backpressure), abortando se outro estágio falhar
+        private <T> void colocar(BlockingQueue<T> fila, T item) {
+            try {
+                while (!fila.offer(item, ESPERA_FILA_MS, TimeUnit.MILLISECONDS)) {
+                    verificarFalha();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Importação interrompida");
+            }
+        }
+
+        private <T> T retirar(BlockingQueue<T> fila) {
+            try {
+                T item;
+                while ((item = fila.poll(ESPERA_FILA_MS, TimeUnit.MILLISECONDS)) == null) {
+                    verificarFalha();
+                }
+                return item;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Importação interrompida");
+            }
+        }
+
+        private void verificarFalha() {
+            if (falha.get() != null) {
+                throw new CancellationException("Importação abortada");
+            }
+        }
+
+        private void executarEstagio(Runnable estagio) {
+            try {
+                estagio.run();
+            } catch (Throwable e) {
+                falhar(e);
+            }
+        }
+
+        private void falhar(Throwable e) {
+            if (e instanceof CancellationException && falha.get() != null) {
+                return; // Consequência de uma falha já registrada
+            }
+            if (falha.compareAndSet(null, e)) {
+                log.error("Importação de produtos abortada: {}", e.getMessage(), e);
+            }
+        }
+
+        private void registrarErro(String erro) {
+            if (totalErros.incrementAndGet() <= MAX_ERROS_REPORTADOS) {
+                erros.add(erro);
+            }
+        }
+
+        private ResumoImportacao resumo(boolean concluido) {
+            List<String> listaErros = new ArrayList<>(erros);
+            Throwable causa = falha.get();
+            if (causa != null) {
+                listaErros.add("Importação interrompida: " + causa.getMessage());
+            }
+            return new ResumoImportacao(linhasLidas.get(), importados.get(), invalidos.get(), duplicados.get(),
+                    concluido, causa != null, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio),
+                    listaErros);
+        }
+    }
+}
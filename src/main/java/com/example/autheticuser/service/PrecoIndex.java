@@ -0,0 +1,349 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice ordenado de preços (em centavos) para consultas por faixa.
+ *
+ * Os produtos ficam numa árvore ordenada por (preço, id) em que cada nó guarda o
+ * tamanho da sua subárvore: o total de uma faixa e o início de uma página saem da
+ * posição dos limites na árvore, em O(log n), sem percorrer a faixa. Além do índice
+ * geral há um por categoria, de modo que a consulta filtrada considera apenas os
+ * produtos da categoria. Carregado na inicialização e mantido pelos eventos de
+ * ProdutoEntityListener.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrecoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecoIndex.class);
+    private static final BigDecimal MAIOR_CENTAVOS = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MENOR_CENTAVOS = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    private final ProdutoRepository produtoRepository;
+
+    private final Faixas geral = new Faixas();
+    private final Map<String, Faixas> porCategoria = new HashMap<>();
+    private final Map<Long, Entrada> entradas = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean pronto;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        long inicio = System.currentTimeMillis();
+        for (Object[] linha : produtoRepository.findIdsPrecosECategorias()) {
+            indexar((Long) linha[0], (BigDecimal) linha[1], (String) linha[2]);
+        }
+        pronto = true;
+        log.info("Índice de preços carregado: {} produtos em {} ms", tamanho(), System.currentTimeMillis() - inicio);
+    }
+
+    // Aplicado somente após o commit, para que alterações desfeitas não entrem no índice
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        Produto produto = evento.getProduto();
+        if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+            remover(produto.getId());
+        } else {
+            indexar(produto.getId(), produto.getPreco(), produto.getCategoria());
+        }
+    }
+
+    // Enquanto não estiver pronto, os serviços consultam o banco diretamente
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public void indexar(long id, BigDecimal preco, String categoria) {
+        if (preco == null) {
+            return;
+        }
+        Entrada nova = new Entrada(centavos(preco, RoundingMode.HALF_UP), categoria);
+        lock.writeLock().lock();
+        try {
+            Entrada anterior = entradas.put(id, nova);
+            if (anterior != null) {
+                if (anterior.equals(nova)) {
+                    return;
+                }
+                desindexar(id, anterior);
+            }
+            geral.adicionar(nova.centavos, id);
+            if (categoria != null) {
+                porCategoria.computeIfAbsent(categoria, c -> new Faixas()).adicionar(nova.centavos, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(long id) {
+        lock.writeLock().lock();
+        try {
+            Entrada anterior = entradas.remove(id);
+            if (anterior != null) {
+                desindexar(id, anterior);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return entradas.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os ids dos produtos com preço entre os limites (inclusive), do mais
+     * barato para o mais caro; preços iguais em ordem de id.
+     *
+     * @param precoMin  Preço mínimo (valores fora do alcance do índice equivalem a sem limite).
+     * @param precoMax  Preço máximo (idem).
+     * @param categoria Categoria exata, ou null para todas.
+     * @param pagina    A página desejada (0-based).
+     * @param tamanho   O número máximo de ids por página.
+     * @return A página de ids e o total de produtos na faixa.
+     */
+    public Page<Long> buscar(BigDecimal precoMin, BigDecimal precoMax, String categoria, int pagina, int tamanho) {
+        long minimo = limitar(precoMin, RoundingMode.CEILING);
+        long maximo = limitar(precoMax, RoundingMode.FLOOR);
+        long pular = (long) pagina * tamanho;
+        List<Long> ids = new ArrayList<>();
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            Faixas faixas = categoria == null ? geral : porCategoria.get(categoria);
+            if (faixas != null && minimo <= maximo) {
+                int inicio = faixas.contar(minimo, false);
+                int fim = faixas.contar(maximo, true);
+                total = fim - inicio;
+                for (long posicao = inicio + pular; posicao < fim && ids.size() < tamanho; posicao++) {
+                    ids.add(faixas.selecionar((int) posicao));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new PageImpl<>(ids, PageRequest.of(pagina, tamanho), total);
+    }
+
+    // Deve ser chamado com o lock de escrita
+    private void desindexar(long id, Entrada entrada) {
+        geral.remover(entrada.centavos, id);
+        if (entrada.categoria != null) {
+            Faixas faixas = porCategoria.get(entrada.categoria);
+            if (faixas != null) {
+                faixas.remover(entrada.centavos, id);
+                if (faixas.raiz == null) {
+                    porCategoria.remove(entrada.categoria);
+                }
+            }
+        }
+    }
+
+    private static long centavos(BigDecimal preco, RoundingMode arredondamento) {
+        return preco.movePointRight(2).setScale(0, arredondamento).longValueExact();
+    }
+
+    // Limite de busca em centavos; valores além de long ficam no extremo (nenhum preço indexado passa dele)
+    private static long limitar(BigDecimal preco, RoundingMode arredondamento) {
+        BigDecimal valor = preco.movePointRight(2).setScale(0, arredondamento);
+        if (valor.compareTo(MAIOR_CENTAVOS) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (valor.compareTo(MENOR_CENTAVOS) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return valor.longValue();
+    }
+
+    /**
+     * Árvore de busca (treap) ordenada por (centavos, id), com o tamanho de cada
+     * subárvore: contar() dá a posição de um preço e selecionar() o id numa posição,
+     * ambos em O(log n) esperado.
+     */
+    private static final class Faixas {
+        private No raiz;
+
+        private void adicionar(long centavos, long id) {
+            raiz = inserir(raiz, new No(centavos, id));
+        }
+
+        private void remover(long centavos, long id) {
+            raiz = remover(raiz, centavos, id);
+        }
+
+        // Quantos produtos têm preço menor que centavos (ou menor ou igual, se inclusivo)
+        private int contar(long centavos, boolean inclusivo) {
+            int quantidade = 0;
+            No no = raiz;
+            while (no != null) {
+                if (no.centavos < centavos || (inclusivo && no.centavos == centavos)) {
+                    quantidade += tamanho(no.esquerda) + 1;
+                    no = no.direita;
+                } else {
+                    no = no.esquerda;
+                }
+            }
+            return quantidade;
+        }
+
+        // Id na posição informada (0-based) da ordem por preço e id
+        private long selecionar(int posicao) {
+            No no = raiz;
+            while (true) {
+                int antes = tamanho(no.esquerda);
+                if (posicao < antes) {
+                    no = no.esquerda;
+                } else if (posicao == antes) {
+                    return no.id;
+                } else {
+                    posicao -= antes + 1;
+                    no = no.direita;
+                }
+            }
+        }
+
+        private static No inserir(No no, No novo) {
+            if (no == null) {
+                return novo;
+            }
+            if (comparar(novo.centavos, novo.id, no) < 0) {
+                no.esquerda = inserir(no.esquerda, novo);
+                if (no.esquerda.prioridade > no.prioridade) {
+                    no = girarDireita(no);
+                }
+            } else {
+                no.direita = inserir(no.direita, novo);
+                if (no.direita.prioridade > no.prioridade) {
+                    no = girarEsquerda(no);
+                }
+            }
+            no.atualizar();
+            return no;
+        }
+
+        private static No remover(No no, long centavos, long id) {
+            if (no == null) {
+                return null;
+            }
+            int comparacao = comparar(centavos, id, no);
+            if (comparacao < 0) {
+                no.esquerda = remover(no.esquerda, centavos, id);
+            } else if (comparacao > 0) {
+                no.direita = remover(no.direita, centavos, id);
+            } else if (no.esquerda == null) {
+                return no.direita;
+            } else if (no.direita == null) {
+                return no.esquerda;
+            } else if (no.esquerda.prioridade > no.direita.prioridade) {
+                // Desce o nó pelo lado de menor prioridade até ele ficar com um só filho
+                no = girarDireita(no);
+                no.direita = remover(no.direita, centavos, id);
+            } else {
+                no = girarEsquerda(no);
+                no.esquerda = remover(no.esquerda, centavos, id);
+            }
+            no.atualizar();
+            return no;
+        }
+
+        private static No girarDireita(No no) {
+            No esquerda = no.esquerda;
+            no.esquerda = esquerda.direita;
+            esquerda.direita = no;
+            no.atualizar();
+            esquerda.atualizar();
+            return esquerda;
+        }
+
+        private static No girarEsquerda(No no) {
+            No direita = no.direita;
+            no.direita = direita.esquerda;
+            direita.esquerda = no;
+            no.atualizar();
+            direita.atualizar();
+            return direita;
+        }
+
+        private static int comparar(long centavos, long id, No no) {
+            int comparacao = Long.compare(centavos, no.centavos);
+            return comparacao != 0 ? comparacao : Long.compare(id, no.id);
+        }
+
+        private static int tamanho(No no) {
+            return no == null ? 0 : no.tamanho;
+        }
+    }
+
+    private static final class No {
+        private final long centavos;
+        private final long id;
+        private final int prioridade = ThreadLocalRandom.current().nextInt();
+        private int tamanho = 1;
+        private No esquerda;
+        private No direita;
+
+        private No(long centavos, long id) {
+            this.centavos = centavos;
+            this.id = id;
+        }
+
+        private void atualizar() {
+            tamanho = Faixas.tamanho(esquerda) + Faixas.tamanho(direita) + 1;
+        }
+    }
+
+    private static final class Entrada {
+        private final long centavos;
+        private final String categoria;
+
+        private Entrada(long centavos, String categoria) {
+            this.centavos = centavos;
+            this.categoria = categoria;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            if (!(outro instanceof Entrada)) {
+                return false;
+            }
+            Entrada entrada = (Entrada) outro;
+            return centavos == entrada.centavos && Objects.equals(categoria, entrada.categoria);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(centavos) * 31 + (categoria == null ? 0 : categoria.hashCode());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Índice de trigramas sobre Produto.nome, carregado na inicialização e mantido pelos eventos de ProdutoEntityListener
+@Component
+@RequiredArgsConstructor
+public class ProdutoNomeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoNomeIndex.class);
+
+    private final ProdutoRepository produtoRepository;
+    private final TrigramIndex indice = new TrigramIndex();
+    private volatile boolean pronto;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        long inicio = System.currentTimeMillis();
+        for (Object[] linha : produtoRepository.findIdsENomes()) {
+            indice.indexar((Long) linha[0], (String) linha[1]);
+        }
+        pronto = true;
+        log.info("Índice de nomes de produtos carregado: {} registros em {} ms", indice.tamanho(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    // Aplicado somente após o commit, para que alterações desfeitas não entrem no índice
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+            indice.remover(evento.getProduto().getId());
+        } else {
+            indice.indexar(evento.getProduto().getId(), evento.getProduto().getNome());
+        }
+    }
+
+    // Enquanto não estiver pronto, os serviços consultam o banco diretamente
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public Page<Long> buscar(String nome, int pagina, int tamanho) {
+        return indice.buscar(nome, pagina, tamanho);
+    }
+}
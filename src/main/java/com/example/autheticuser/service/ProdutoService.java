@@ -1,13 +1,40 @@
 package com.example.autheticuser.service;
 
+import com.example.autheticuser.model.AjusteEstoque;
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
 import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ResultadoPorIds;
+import com.example.autheticuser.model.ResumoAjusteEstoque;
 import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.CamposParciais.Recurso;
+import com.example.autheticuser.service.CamposParciais.Registro;
+import com.example.autheticuser.service.CamposParciais.Selecao;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -15,11 +42,61 @@ import java.util.Optional;
 @Transactional
 public class ProdutoService {
 
+    private static final int TAMANHO_LOTE_ESTOQUE = 500;
+
+    private static final String SQL_DEFINIR_ESTOQUE = "UPDATE produtos SET quantidade_estoque = ?, "
+            + "versao = versao + 1, data_atualizacao = ? WHERE id = ?";
+    private static final String SQL_VARIAR_ESTOQUE = "UPDATE produtos SET quantidade_estoque = quantidade_estoque + ?, "
+            + "versao = versao + 1, data_atualizacao = ? WHERE id = ? AND quantidade_estoque + ? >= 0";
+
     private final ProdutoRepository produtoRepository;
+    private final ProdutoNomeIndex produtoNomeIndex;
+    private final EstoqueQuente estoqueQuente;
+    private final EstoqueBaixoIndex estoqueBaixoIndex;
+    private final PrecoIndex precoIndex;
+    private final FacetasIndex facetasIndex;
+    private final CatalogoColunar catalogoColunar;
+    private final TotaisIndex totaisIndex;
+    private final UnicidadeIndex unicidadeIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final CamposParciais camposParciais;
+    private final VersoesRecursos versoesRecursos;
+    private final CatalogoSnapshot catalogoSnapshot;
+    private final ConsultasCompartilhadas consultasCompartilhadas;
+
+    @Value("${produtos.busca-por-ids.maximo:1000}")
+    private int maximoIds;
 
     // Criar produto
     public Produto criarProduto(Produto produto) {
-        // Validações
+        validarProduto(produto);
+
+        // Verificar se já existe produto com mesmo nome (o filtro em memória evita a consulta quando certamente não existe)
+        if (unicidadeIndex.podeExistirNomeProduto(produto.getNome()) && produtoRepository.existsByNome(produto.getNome())) {
+            throw new IllegalArgumentException("Já existe um produto com este nome");
+        }
+
+        return gravar(produto);
+    }
+
+    // Grava já enviando ao banco, para que um nome repetido não visto pelo filtro em memória
+    // vire a mesma mensagem da verificação prévia
+    private Produto gravar(Produto produto) {
+        try {
+            return produtoRepository.saveAndFlush(produto);
+        } catch (DataIntegrityViolationException e) {
+            if (UnicidadeIndex.violou(e, "uk_produtos_nome")) {
+                throw new IllegalArgumentException("Já existe um produto com este nome");
+            }
+            throw e;
+        }
+    }
+
+    // Validar os campos obrigatórios de um novo produto (também usado na importação via CSV)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void validarProduto(Produto produto) {
         if (produto.getNome() == null || produto.getNome().trim().isEmpty()) {
             throw new IllegalArgumentException("Nome do produto é obrigatório");
         }
@@ -31,36 +108,97 @@ public class ProdutoService {
         if (produto.getQuantidadeEstoque() == null || produto.getQuantidadeEstoque() < 0) {
             throw new IllegalArgumentException("Quantidade em estoque deve ser maior ou igual a zero");
         }
+    }
 
-        // Verificar se já existe produto com mesmo nome
-        if (produtoRepository.existsByNome(produto.getNome())) {
-            throw new IllegalArgumentException("Já existe um produto com este nome");
-        }
+    // Buscar todos os produtos (chamadas simultâneas compartilham uma única consulta)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Produto> buscarTodosProdutos() {
+        return consultasCompartilhadas.executar("todos", () -> comSaldoQuente(produtoRepository.findAll()));
+    }
 
-        return produtoRepository.save(produto);
+    // Lista completa já serializada pelo snapshot do catálogo (vazio se ele não estiver em dia)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<CatalogoSnapshot.Corpo> buscarTodosSerializados() {
+        return catalogoSnapshot.todos();
     }
 
-    // Buscar todos os produtos
+    // Contar produtos (contador em memória, sem carregar as linhas)
     @Transactional(readOnly = true)
-    public List<Produto> buscarTodosProdutos() {
-        return produtoRepository.findAll();
+    public long contarProdutos() {
+        return totaisIndex.isPronto() ? totaisIndex.getProdutos() : produtoRepository.count();
     }
 
     // Buscar produto por ID
     @Transactional(readOnly = true)
     public Optional<Produto> buscarProdutoPorId(Long id) {
-        return produtoRepository.findById(id);
+        return produtoRepository.findById(id).map(this::comSaldoQuente);
+    }
+
+    /**
+     * Busca vários produtos de uma vez (ex.: itens de um carrinho).
+     *
+     * Usa o multi-load do Hibernate: o que já está na sessão não vai ao banco e o
+     * restante é carregado com um único SELECT ... WHERE id IN (...).
+     *
+     * @param ids Os ids na ordem desejada; repetidos são considerados uma vez.
+     * @return Os produtos na ordem pedida e os ids que não existem.
+     */
+    @Transactional(readOnly = true)
+    public ResultadoPorIds<Produto> buscarProdutosPorIds(List<Long> ids) {
+        List<Long> distintos = ResultadoPorIds.idsDistintos(ids, maximoIds);
+
+        List<Produto> carregados = entityManager.unwrap(Session.class)
+                .byMultipleIds(Produto.class)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .withBatchSize(distintos.size())
+                .multiLoad(distintos);
+
+        List<Produto> itens = new ArrayList<>(distintos.size());
+        List<Long> naoEncontrados = new ArrayList<>();
+        for (int i = 0; i < distintos.size(); i++) {
+            Produto produto = carregados.get(i);
+            if (produto == null) {
+                naoEncontrados.add(distintos.get(i));
+                continue;
+            }
+            itens.add(comSaldoQuente(produto));
+        }
+        return new ResultadoPorIds<>(itens, naoEncontrados);
     }
 
     // Atualizar produto
     public Produto atualizarProduto(Long id, Produto produtoAtualizado) {
-        Produto produtoExistente = produtoRepository.findById(id)
+        return atualizarProduto(id, produtoAtualizado, null);
+    }
+
+    /**
+     * Atualiza o produto somente se a versão atual estiver entre as ETags de If-Match.
+     * A linha fica bloqueada da conferência até o commit.
+     *
+     * @param ifMatch Valor do cabeçalho If-Match; null dispensa a conferência.
+     * @throws ObjectOptimisticLockingFailureException Se a versão atual não confere.
+     */
+    public Produto atualizarProduto(Long id, Produto produtoAtualizado, String ifMatch) {
+        Produto produtoExistente = Optional.ofNullable(ifMatch == null
+                        ? entityManager.find(Produto.class, id)
+                        : entityManager.find(Produto.class, id, LockModeType.PESSIMISTIC_WRITE))
                 .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado"));
 
+        if (!VersoesRecursos.confere(ifMatch, versoesRecursos.versaoDe(produtoExistente))) {
+            throw new ObjectOptimisticLockingFailureException(Produto.class, id);
+        }
+
+        // Se o cliente enviou a versão que leu, ela precisa ser a atual (controle otimista)
+        if (produtoAtualizado.getVersao() != null && !produtoAtualizado.getVersao().equals(produtoExistente.getVersao())) {
+            throw new ObjectOptimisticLockingFailureException(Produto.class, id);
+        }
+
         // Validações
         if (produtoAtualizado.getNome() != null && !produtoAtualizado.getNome().trim().isEmpty()) {
             // Verificar se o novo nome já existe em outro produto
             if (!produtoExistente.getNome().equals(produtoAtualizado.getNome()) &&
+                    unicidadeIndex.podeExistirNomeProduto(produtoAtualizado.getNome()) &&
                     produtoRepository.existsByNome(produtoAtualizado.getNome())) {
                 throw new IllegalArgumentException("Já existe um produto com este nome");
             }
@@ -75,15 +213,27 @@ public class ProdutoService {
             produtoExistente.setPreco(produtoAtualizado.getPreco());
         }
 
+        // Produto quente: o saldo em memória só muda quando a gravação abaixo for confirmada
+        Integer saldoQuente = null;
         if (produtoAtualizado.getQuantidadeEstoque() != null && produtoAtualizado.getQuantidadeEstoque() >= 0) {
-            produtoExistente.setQuantidadeEstoque(produtoAtualizado.getQuantidadeEstoque());
+            if (estoqueQuente.isAtivo(id)) {
+                saldoQuente = produtoAtualizado.getQuantidadeEstoque();
+            } else {
+                produtoExistente.setQuantidadeEstoque(produtoAtualizado.getQuantidadeEstoque());
+            }
         }
 
         if (produtoAtualizado.getCategoria() != null) {
             produtoExistente.setCategoria(produtoAtualizado.getCategoria());
         }
 
-        return produtoRepository.save(produtoExistente);
+        Produto produto = gravar(produtoExistente);
+        if (saldoQuente != null && estoqueQuente.definirAoConfirmar(id, saldoQuente)) {
+            // A resposta já mostra o saldo novo, sem que ele seja gravado pelo dirty checking
+            entityManager.detach(produto);
+            produto.setQuantidadeEstoque(saldoQuente);
+        }
+        return produto;
     }
 
     // Deletar produto
@@ -91,43 +241,453 @@ public class ProdutoService {
         if (!produtoRepository.existsById(id)) {
             throw new IllegalArgumentException("Produto não encontrado");
         }
+        if (estoqueQuente.isAtivo(id)) {
+            estoqueQuente.desativar(id);
+        }
         produtoRepository.deleteById(id);
     }
 
     // Buscar produtos por nome
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Produto> buscarProdutosPorNome(String nome) {
-        return produtoRepository.findByNomeContainingIgnoreCase(nome);
+        return consultasCompartilhadas.executar("nome", () -> {
+            if (!produtoNomeIndex.isPronto()) {
+                return comSaldoQuente(produtoRepository.findByNomeContainingIgnoreCase(nome));
+            }
+            return buscarNaOrdem(produtoNomeIndex.buscar(nome, 0, Integer.MAX_VALUE).getContent());
+        }, nome);
+    }
+
+    // Buscar produtos por nome com paginação, ordenados por relevância (índice de trigramas)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Produto> buscarProdutosPorNome(String nome, int pagina, int tamanho) {
+        return consultasCompartilhadas.executar("nome-paginado", () -> {
+            if (!produtoNomeIndex.isPronto()) {
+                return comSaldoQuente(produtoRepository.findByNomeContainingIgnoreCase(nome,
+                        PageRequest.of(pagina, tamanho)));
+            }
+            Page<Long> ids = produtoNomeIndex.buscar(nome, pagina, tamanho);
+            return new PageImpl<>(buscarNaOrdem(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+        }, nome, pagina, tamanho);
     }
 
     // Buscar produtos por categoria
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Produto> buscarProdutosPorCategoria(String categoria) {
-        return produtoRepository.findByCategoria(categoria);
+        return consultasCompartilhadas.executar("categoria", () -> {
+            if (!facetasIndex.isPronto()) {
+                return comSaldoQuente(produtoRepository.findByCategoria(categoria));
+            }
+            return buscarNaOrdem(facetasIndex.idsDaCategoria(categoria));
+        }, categoria);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<CatalogoSnapshot.Corpo> buscarSerializadosPorCategoria(String categoria) {
+        return catalogoSnapshot.categoria(categoria);
     }
 
-    // Buscar produtos com estoque baixo
+    // Contagens por categoria, faixa de preço e situação de estoque (bitmaps em memória)
     @Transactional(readOnly = true)
+    public Map<String, Object> contarFacetas(String categoria) {
+        return facetasIndex.contar(categoria); // Antes da carga, conta no banco
+    }
+
+    // Valor em estoque por categoria, percentis de preço e histograma de estoque (cópia colunar em memória)
+    @Transactional(readOnly = true)
+    public ColunasProdutos.Agregados agregarCatalogo(String categoria) {
+        return catalogoColunar.agregar(categoria); // Antes da carga, agrega uma leitura do banco
+    }
+
+    // Buscar produtos com estoque abaixo do limite configurado (índice em memória, sem varrer a tabela)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Produto> buscarProdutosComEstoqueBaixo() {
-        return produtoRepository.findProdutosComEstoqueBaixo();
+        return consultasCompartilhadas.executar("estoque-baixo", () -> {
+            if (!estoqueBaixoIndex.isPronto()) {
+                return comSaldoQuente(produtoRepository.findProdutosComEstoqueBaixo(estoqueBaixoIndex.getLimite()));
+            }
+            return buscarNaOrdem(estoqueBaixoIndex.ids());
+        });
     }
 
-    // Buscar produtos por faixa de preço
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<CatalogoSnapshot.Corpo> buscarSerializadosComEstoqueBaixo() {
+        return catalogoSnapshot.estoqueBaixo();
+    }
+
+    // Contar produtos com estoque abaixo do limite
     @Transactional(readOnly = true)
+    public long contarProdutosComEstoqueBaixo() {
+        if (!estoqueBaixoIndex.isPronto()) {
+            return produtoRepository.countByQuantidadeEstoqueLessThan(estoqueBaixoIndex.getLimite());
+        }
+        return estoqueBaixoIndex.tamanho();
+    }
+
+    // Buscar produtos por faixa de preço, do mais barato para o mais caro
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Produto> buscarProdutosPorFaixaPreco(BigDecimal precoMin, BigDecimal precoMax) {
-        return produtoRepository.findByPrecoBetween(precoMin, precoMax);
+        return buscarProdutosPorFaixaPreco(precoMin, precoMax, null, 0, Integer.MAX_VALUE).getContent();
+    }
+
+    // Buscar produtos por faixa de preço com paginação e filtro opcional de categoria (índice de preços)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Produto> buscarProdutosPorFaixaPreco(BigDecimal precoMin, BigDecimal precoMax, String categoria,
+            int pagina, int tamanho) {
+        return consultasCompartilhadas.executar("faixa-preco", () -> {
+            if (!precoIndex.isPronto()) {
+                List<Produto> produtos = new ArrayList<>();
+                for (Produto produto : comSaldoQuente(produtoRepository.findByPrecoBetween(precoMin, precoMax))) {
+                    if (categoria == null || categoria.equals(produto.getCategoria())) {
+                        produtos.add(produto);
+                    }
+                }
+                produtos.sort(Comparator.comparing(Produto::getPreco).thenComparing(Produto::getId));
+                int inicio = (int) Math.min((long) pagina * tamanho, produtos.size());
+                int fim = (int) Math.min((long) inicio + tamanho, produtos.size());
+                return new PageImpl<>(produtos.subList(inicio, fim), PageRequest.of(pagina, tamanho), produtos.size());
+            }
+            Page<Long> ids = precoIndex.buscar(precoMin, precoMax, categoria, pagina, tamanho);
+            return new PageImpl<>(buscarNaOrdem(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+        }, precoMin, precoMax, categoria, pagina, tamanho);
+    }
+
+    // Todos os produtos, lendo do banco apenas os campos pedidos (fields=); compartilhada como a lista completa
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Registro> buscarCamposDeTodos(String campos) {
+        Selecao selecao = camposParciais.selecionar(Recurso.PRODUTOS, campos);
+        return consultasCompartilhadas.executar("campos-todos",
+                () -> camposComSaldoQuente(camposParciais.consultar(selecao, "ORDER BY id")), selecao);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Registro> buscarCamposPorId(String campos, Long id) {
+        Selecao selecao = camposParciais.selecionar(Recurso.PRODUTOS, campos);
+        return camposComSaldoQuente(camposParciais.buscarPorIds(selecao, List.of(id))).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public ResultadoPorIds<Registro> buscarCamposPorIds(String campos, List<Long> ids) {
+        Selecao selecao = camposParciais.selecionar(Recurso.PRODUTOS, campos);
+        List<Long> distintos = ResultadoPorIds.idsDistintos(ids, maximoIds);
+        List<Registro> itens = camposComSaldoQuente(camposParciais.buscarPorIds(selecao, distintos));
+        return new ResultadoPorIds<>(itens, CamposParciais.idsAusentes(distintos, itens));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Registro> buscarCamposPorNome(String campos, String nome, int pagina, int tamanho) {
+        Selecao selecao = camposParciais.selecionar(Recurso.PRODUTOS, campos);
+        return consultasCompartilhadas.executar("campos-nome", () -> {
+            Page<Long> ids = produtoNomeIndex.isPronto()
+                    ? produtoNomeIndex.buscar(nome, pagina, tamanho)
+                    : produtoRepository.findByNomeContainingIgnoreCase(nome, PageRequest.of(pagina, tamanho)).map(Produto::getId);
+            return buscarCamposNaOrdem(selecao, ids);
+        }, selecao, nome, pagina, tamanho);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Registro> buscarCamposPorCategoria(String campos, String categoria) {
+        Selecao selecao = camposParciais.selecionar(Recurso.PRODUTOS, campos);
+        return consultasCompartilhadas.executar("campos-categoria", () -> {
+            if (!facetasIndex.isPronto()) {
+                return camposComSaldoQuente(camposParciais.consultar(selecao, "WHERE categoria = ? ORDER BY id", categoria));
+            }
+            return camposComSaldoQuente(camposParciais.buscarPorIds(selecao, facetasIndex.idsDaCategoria(categoria)));
+        }, selecao, categoria);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Registro> buscarCamposComEstoqueBaixo(String campos) {
+        Selecao selecao = camposParciais.selecionar(Recurso.PRODUTOS, campos);
+        return consultasCompartilhadas.executar("campos-estoque-baixo", () -> {
+            if (!estoqueBaixoIndex.isPronto()) {
+                return camposComSaldoQuente(camposParciais.consultar(selecao,
+                        "WHERE quantidade_estoque < ? ORDER BY id", estoqueBaixoIndex.getLimite()));
+            }
+            return camposComSaldoQuente(camposParciais.buscarPorIds(selecao, estoqueBaixoIndex.ids()));
+        }, selecao);
     }
 
-    // Atualizar estoque
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Registro> buscarCamposPorFaixaPreco(String campos, BigDecimal precoMin, BigDecimal precoMax,
+            String categoria, int pagina, int tamanho) {
+        Selecao selecao = camposParciais.selecionar(Recurso.PRODUTOS, campos);
+        return consultasCompartilhadas.executar("campos-faixa-preco", () -> {
+            Page<Long> ids = precoIndex.isPronto()
+                    ? precoIndex.buscar(precoMin, precoMax, categoria, pagina, tamanho)
+                    : buscarProdutosPorFaixaPreco(precoMin, precoMax, categoria, pagina, tamanho).map(Produto::getId);
+            return buscarCamposNaOrdem(selecao, ids);
+        }, selecao, precoMin, precoMax, categoria, pagina, tamanho);
+    }
+
+    // Atualizar estoque (UPDATE direto, sem carregar e regravar a linha inteira)
     public Produto atualizarEstoque(Long id, Integer novaQuantidade) {
         if (novaQuantidade < 0) {
             throw new IllegalArgumentException("Quantidade em estoque não pode ser negativa");
         }
 
+        // Produto quente: só o contador muda; a gravação posterior leva o saldo ao banco
+        if (estoqueQuente.definir(id, novaQuantidade)) {
+            return produtoRepository.findById(id).map(this::comSaldoQuente)
+                    .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado"));
+        }
+
+        if (produtoRepository.definirEstoque(id, novaQuantidade, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("Produto não encontrado");
+        }
+
         Produto produto = produtoRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado"));
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(id, produto.getQuantidadeEstoque(), produto.getVersao(),
+                produto.getDataAtualizacao()));
+        return produto;
+    }
+
+    // Reservar (baixar) unidades do estoque; falha sem alterar nada se não houver quantidade suficiente
+    public int reservarEstoque(Long id, int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser maior que zero");
+        }
+
+        // Produto quente: a reserva é servida da memória e gravada depois (EstoqueQuente)
+        Integer saldoQuente = estoqueQuente.reservar(id, quantidade);
+        if (saldoQuente != null) {
+            return saldoQuente;
+        }
+
+        if (produtoRepository.reservarEstoque(id, quantidade, LocalDateTime.now()) == 0) {
+            // Nenhuma linha afetada: ou o produto não existe, ou o estoque é insuficiente
+            produtoRepository.findEstoqueById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado"));
+            throw new IllegalStateException("Estoque insuficiente");
+        }
+        return publicarEstoque(id);
+    }
+
+    // Liberar (devolver) unidades ao estoque
+    public int liberarEstoque(Long id, int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser maior que zero");
+        }
+
+        Integer saldoQuente = estoqueQuente.liberar(id, quantidade);
+        if (saldoQuente != null) {
+            return saldoQuente;
+        }
+
+        if (produtoRepository.liberarEstoque(id, quantidade, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("Produto não encontrado");
+        }
+        return publicarEstoque(id);
+    }
+
+    /**
+     * Aplica vários ajustes de estoque em uma única transação, com UPDATEs em lote via JDBC.
+     * Ajustes do mesmo produto são combinados na ordem recebida. Itens inválidos, produtos
+     * inexistentes e variações que deixariam o estoque negativo são reportados e não
+     * impedem a aplicação dos demais.
+     *
+     * @param ajustes Itens com id e quantidade (valor absoluto) ou delta (variação).
+     * @return Quantos produtos foram atualizados, ids não encontrados e violações.
+     */
+    public ResumoAjusteEstoque ajustarEstoqueEmLote(List<AjusteEstoque> ajustes) {
+        List<String> violacoes = new ArrayList<>();
+        Map<Long, AjusteCombinado> porProduto = new LinkedHashMap<>();
+        for (int i = 0; i < ajustes.size(); i++) {
+            AjusteEstoque ajuste = ajustes.get(i);
+            String erro = validarAjuste(ajuste);
+            if (erro != null) {
+                violacoes.add("Item " + i + ": " + erro);
+            } else {
+                porProduto.computeIfAbsent(ajuste.getId(), id -> new AjusteCombinado()).combinar(ajuste);
+            }
+        }
+
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> definicoes = new ArrayList<>();
+        List<Object[]> variacoes = new ArrayList<>();
+        int quentesAtualizados = 0;
+        for (Map.Entry<Long, AjusteCombinado> entrada : porProduto.entrySet()) {
+            Long id = entrada.getKey();
+            AjusteCombinado ajuste = entrada.getValue();
+            if (ajuste.quantidade != null) {
+                long resultado = ajuste.quantidade + ajuste.delta;
+                if (resultado < 0 || resultado > Integer.MAX_VALUE) {
+                    violacoes.add("Produto " + id + ": quantidade resultante inválida (" + resultado + ")");
+                } else if (estoqueQuente.definirAoConfirmar(id, (int) resultado)) {
+                    quentesAtualizados++;
+                } else {
+                    definicoes.add(new Object[]{(int) resultado, agora, id});
+                }
+            } else if (ajuste.delta < -Integer.MAX_VALUE || ajuste.delta > Integer.MAX_VALUE) {
+                violacoes.add("Produto " + id + ": delta combinado fora do intervalo permitido (" + ajuste.delta + ")");
+            } else if (estoqueQuente.isAtivo(id) && ajuste.delta != 0) {
+                // Aplicado já, para que a falta de estoque seja reportada; desfeito se a transação reverter
+                try {
+                    Integer saldo = ajuste.delta < 0
+                            ? estoqueQuente.reservar(id, (int) -ajuste.delta)
+                            : estoqueQuente.liberar(id, (int) ajuste.delta);
+                    if (saldo != null) {
+                        estoqueQuente.desfazerSeReverter(id, (int) ajuste.delta);
+                        quentesAtualizados++;
+                    } else {
+                        variacoes.add(new Object[]{ajuste.delta, agora, id, ajuste.delta});
+                    }
+                } catch (IllegalStateException e) {
+                    violacoes.add("Produto " + id + ": estoque insuficiente para delta " + ajuste.delta);
+                }
+            } else {
+                variacoes.add(new Object[]{ajuste.delta, agora, id, ajuste.delta});
+            }
+        }
+
+        // Linhas não afetadas: produto inexistente ou variação que deixaria o estoque negativo
+        List<Long> atualizados = new ArrayList<>();
+        List<Long> semEfeito = new ArrayList<>();
+        separarPorResultado(definicoes, executarEmLote(SQL_DEFINIR_ESTOQUE, definicoes), atualizados, semEfeito);
+        separarPorResultado(variacoes, executarEmLote(SQL_VARIAR_ESTOQUE, variacoes), atualizados, semEfeito);
+
+        List<Long> naoEncontrados = new ArrayList<>();
+        if (!semEfeito.isEmpty()) {
+            Map<Long, Integer> existentes = new HashMap<>();
+            for (ProdutoRepository.Estoque estoque : produtoRepository.findEstoqueByIdIn(semEfeito)) {
+                existentes.put(estoque.getId(), estoque.getQuantidadeEstoque());
+            }
+            for (Long id : semEfeito) {
+                if (!existentes.containsKey(id)) {
+                    naoEncontrados.add(id);
+                } else {
+                    violacoes.add("Produto " + id + ": estoque insuficiente (atual " + existentes.get(id)
+                            + ", delta " + porProduto.get(id).delta + ")");
+                }
+            }
+        }
+
+        if (!atualizados.isEmpty()) {
+            for (ProdutoRepository.Estoque estoque : produtoRepository.findEstoqueByIdIn(atualizados)) {
+                eventPublisher.publishEvent(new EstoqueAlteradoEvent(estoque.getId(), estoque.getQuantidadeEstoque(),
+                        estoque.getVersao(), estoque.getDataAtualizacao()));
+            }
+        }
+
+        return new ResumoAjusteEstoque(ajustes.size(), atualizados.size() + quentesAtualizados, naoEncontrados,
+                violacoes);
+    }
+
+    // Mensagem de erro de um item do ajuste em lote, ou null se ele é válido
+    private static String validarAjuste(AjusteEstoque ajuste) {
+        if (ajuste == null || ajuste.getId() == null) {
+            return "id é obrigatório";
+        }
+        if ((ajuste.getQuantidade() == null) == (ajuste.getDelta() == null)) {
+            return "informe quantidade ou delta (apenas um dos dois)";
+        }
+        if (ajuste.getQuantidade() != null && ajuste.getQuantidade() < 0) {
+            return "quantidade não pode ser negativa";
+        }
+        return null;
+    }
+
+    // UPDATEs em lotes de TAMANHO_LOTE_ESTOQUE; retorna as linhas afetadas por item
+    private int[] executarEmLote(String sql, List<Object[]> linhas) {
+        int[] afetadas = new int[linhas.size()];
+        if (linhas.isEmpty()) {
+            return afetadas;
+        }
+        int[][] lotes = jdbcTemplate.batchUpdate(sql, linhas, TAMANHO_LOTE_ESTOQUE, (ps, linha) -> {
+            for (int i = 0; i < linha.length; i++) {
+                ps.setObject(i + 1, linha[i]);
+            }
+        });
+        int posicao = 0;
+        for (int[] lote : lotes) {
+            for (int linhasAfetadas : lote) {
+                afetadas[posicao++] = linhasAfetadas;
+            }
+        }
+        return afetadas;
+    }
+
+    // O id é sempre o terceiro parâmetro dos UPDATEs de estoque
+    private static void separarPorResultado(List<Object[]> linhas, int[] afetadas, List<Long> atualizados,
+            List<Long> semEfeito) {
+        for (int i = 0; i < linhas.size(); i++) {
+            (afetadas[i] > 0 ? atualizados : semEfeito).add((Long) linhas.get(i)[2]);
+        }
+    }
+
+    // Lê o estoque resultante de um UPDATE atômico e avisa os interessados
+    private int publicarEstoque(Long id) {
+        ProdutoRepository.Estoque estoque = produtoRepository.findEstoqueById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado"));
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(id, estoque.getQuantidadeEstoque(), estoque.getVersao(),
+                estoque.getDataAtualizacao()));
+        return estoque.getQuantidadeEstoque();
+    }
+
+    // Carregar produtos pelos ids, preservando a ordem recebida
+    private List<Produto> buscarNaOrdem(List<Long> ids) {
+        Map<Long, Produto> porId = new HashMap<>();
+        for (Produto produto : produtoRepository.findAllById(ids)) {
+            porId.put(produto.getId(), produto);
+        }
+        List<Produto> produtos = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Produto produto = porId.get(id);
+            if (produto != null) {
+                produtos.add(comSaldoQuente(produto));
+            }
+        }
+        return produtos;
+    }
+
+    // Produto quente: o saldo em memória está à frente do banco (EstoqueQuente.estoqueVisivel). A entidade
+    // é desanexada antes de receber o saldo, para que ele nunca seja gravado pelo dirty checking
+    private Produto comSaldoQuente(Produto produto) {
+        Integer visivel = estoqueQuente.estoqueVisivel(produto.getId(), produto.getQuantidadeEstoque());
+        if (!Objects.equals(visivel, produto.getQuantidadeEstoque())) {
+            if (entityManager.contains(produto)) {
+                entityManager.detach(produto);
+            }
+            produto.setQuantidadeEstoque(visivel);
+        }
+        return produto;
+    }
+
+    private <T extends Iterable<Produto>> T comSaldoQuente(T produtos) {
+        produtos.forEach(this::comSaldoQuente);
+        return produtos;
+    }
 
-        produto.setQuantidadeEstoque(novaQuantidade);
-        return produtoRepository.save(produto);
+    // Mesma regra para as respostas com fields=, quando quantidadeEstoque foi pedido
+    private <T extends Iterable<Registro>> T camposComSaldoQuente(T registros) {
+        for (Registro registro : registros) {
+            Long lido = (Long) registro.get("quantidadeEstoque");
+            if (lido != null) {
+                registro.definir("quantidadeEstoque",
+                        estoqueQuente.estoqueVisivel(registro.getId(), lido.intValue()).longValue());
+            }
+        }
+        return registros;
+    }
+
+    private Page<Registro> buscarCamposNaOrdem(Selecao selecao, Page<Long> ids) {
+        return new PageImpl<>(camposComSaldoQuente(camposParciais.buscarPorIds(selecao, ids.getContent())),
+                ids.getPageable(), ids.getTotalElements());
+    }
+
+    // Efeito combinado dos ajustes de um mesmo produto: quantidade (se alguma foi definida) mais a soma dos deltas
+    private static final class AjusteCombinado {
+        private Integer quantidade;
+        private long delta;
+
+        private void combinar(AjusteEstoque ajuste) {
+            if (ajuste.getQuantidade() != null) {
+                quantidade = ajuste.getQuantidade();
+                delta = 0;
+            } else {
+                delta += ajuste.getDelta();
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,369 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ClienteAlteradoEvent;
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.model.SerieMetrica;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Séries temporais pré-agregadas de cadastros de clientes e de alterações no catálogo.
+ *
+ * Cada evento confirmado soma 1 no contador em memória do seu minuto; a cada
+ * intervalo os contadores são gravados de uma vez em metricas_serie, nas linhas de
+ * minuto, hora e dia correspondentes. As consultas leem apenas essas linhas (um mês
+ * por dia são ~30 linhas) somadas ao que ainda está em memória, e reagrupam para
+ * semana ou mês quando pedido. Linhas de minuto e de hora antigas são expurgadas.
+ */
+@Component
+@RequiredArgsConstructor
+public class SerieTemporal {
+
+    private static final Logger log = LoggerFactory.getLogger(SerieTemporal.class);
+
+    // Na granularidade automática, a primeira que couber nesse número de pontos
+    private static final int PONTOS_AUTOMATICO = 500;
+    private static final int LIMITE_PONTOS = 10_000;
+    private static final long INTERVALO_EXPURGO_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final String SQL_SOMAR = "MERGE INTO metricas_serie s "
+            + "USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP), CAST(? AS BIGINT))) "
+            + "AS v(metrica, granularidade, inicio, delta) "
+            + "ON s.metrica = v.metrica AND s.granularidade = v.granularidade AND s.inicio = v.inicio "
+            + "WHEN MATCHED THEN UPDATE SET total = s.total + v.delta "
+            + "WHEN NOT MATCHED THEN INSERT (metrica, granularidade, inicio, total) "
+            + "VALUES (v.metrica, v.granularidade, v.inicio, v.delta)";
+    private static final String SQL_CONSULTAR = "SELECT inicio, total FROM metricas_serie "
+            + "WHERE metrica = ? AND granularidade = ? AND inicio BETWEEN ? AND ? ORDER BY inicio";
+    private static final String SQL_EXPURGAR = "DELETE FROM metricas_serie WHERE granularidade = ? AND inicio < ?";
+
+    public enum Metrica {
+        CLIENTES_CADASTRADOS("clientes-cadastrados"),
+        PRODUTOS_CRIADOS("produtos-criados"),
+        PRODUTOS_ATUALIZADOS("produtos-atualizados"),
+        ESTOQUE_ALTERADO("estoque-alterado");
+
+        private final String chave;
+
+        Metrica(String chave) {
+            this.chave = chave;
+        }
+
+        public String getChave() {
+            return chave;
+        }
+
+        public static Metrica deChave(String chave) {
+            for (Metrica metrica : values()) {
+                if (metrica.chave.equalsIgnoreCase(chave)) {
+                    return metrica;
+                }
+            }
+            throw new IllegalArgumentException("Métrica desconhecida: " + chave);
+        }
+    }
+
+    public enum Granularidade {
+        MINUTO("minuto", ChronoUnit.MINUTES),
+        HORA("hora", ChronoUnit.HOURS),
+        DIA("dia", ChronoUnit.DAYS),
+        SEMANA("semana", ChronoUnit.WEEKS),
+        MES("mes", ChronoUnit.MONTHS);
+
+        private final String chave;
+        private final ChronoUnit unidade;
+
+        Granularidade(String chave, ChronoUnit unidade) {
+            this.chave = chave;
+            this.unidade = unidade;
+        }
+
+        public String getChave() {
+            return chave;
+        }
+
+        public static Granularidade deChave(String chave) {
+            for (Granularidade granularidade : values()) {
+                if (granularidade.chave.equalsIgnoreCase(chave)) {
+                    return granularidade;
+                }
+            }
+            throw new IllegalArgumentException("Granularidade desconhecida: " + chave);
+        }
+
+        // Início do intervalo que contém o instante (semanas começam na segunda-feira)
+        public LocalDateTime truncar(LocalDateTime instante) {
+            switch (this) {
+                case SEMANA:
+                    return instante.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MES:
+                    return instante.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+                default:
+                    return instante.truncatedTo(unidade);
+            }
+        }
+
+        public LocalDateTime proximo(LocalDateTime inicio) {
+            return inicio.plus(1, unidade);
+        }
+
+        public long pontos(LocalDateTime de, LocalDateTime ate) {
+            return unidade.between(truncar(de), truncar(ate)) + 1;
+        }
+
+        // Granularidade gravada de onde os pontos são somados
+        Granularidade origem() {
+            return this == MINUTO || this == HORA ? this : DIA;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${estatisticas.serie.intervalo-gravacao-ms:5000}")
+    private long intervaloGravacaoMs;
+
+    @Value("${estatisticas.serie.retencao-minutos-dias:7}")
+    private int retencaoMinutosDias;
+
+    @Value("${estatisticas.serie.retencao-horas-dias:180}")
+    private int retencaoHorasDias;
+
+    // Registros usam o lock de leitura; gravar() usa o de escrita para trocar o mapa sem perder contagens
+    private final ReadWriteLock lockPendentes = new ReentrantReadWriteLock();
+    // Consultas (leitura) não podem ver um lote já fora da memória e ainda não gravado (escrita)
+    private final ReadWriteLock lockGravacao = new ReentrantReadWriteLock();
+    private Map<Metrica, ConcurrentHashMap<LocalDateTime, LongAdder>> pendentes = novosPendentes();
+
+    private volatile long ultimoExpurgo;
+    private ScheduledExecutorService agendador;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (agendador != null) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "serie-temporal-gravacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::gravarComSeguranca, intervaloGravacaoMs, intervaloGravacaoMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdown();
+        }
+        gravarComSeguranca();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        if (evento.getTipo() == ClienteAlteradoEvent.Tipo.CRIADO) {
+            registrar(Metrica.CLIENTES_CADASTRADOS, LocalDateTime.now());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.CRIADO) {
+            registrar(Metrica.PRODUTOS_CRIADOS, LocalDateTime.now());
+        } else if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.ATUALIZADO) {
+            registrar(Metrica.PRODUTOS_ATUALIZADOS, LocalDateTime.now());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        registrar(Metrica.ESTOQUE_ALTERADO, LocalDateTime.now());
+    }
+
+    // Conta um evento no minuto do instante informado
+    public void registrar(Metrica metrica, LocalDateTime instante) {
+        somar(metrica, instante.truncatedTo(ChronoUnit.MINUTES), 1);
+    }
+
+    private void somar(Metrica metrica, LocalDateTime minuto, long quantidade) {
+        lockPendentes.readLock().lock();
+        try {
+            pendentes.get(metrica).computeIfAbsent(minuto, m -> new LongAdder()).add(quantidade);
+        } finally {
+            lockPendentes.readLock().unlock();
+        }
+    }
+
+    /**
+     * Grava os contadores em memória nas linhas de minuto, hora e dia, num único
+     * batch. Consultas esperam a gravação terminar, de modo que nunca veem o mesmo
+     * evento na memória e no banco; os registros só esperam a troca do mapa, nunca
+     * o banco (eles rodam após o commit, ainda segurando a conexão da transação).
+     */
+    public void gravar() {
+        lockGravacao.writeLock().lock();
+        try {
+            Map<Metrica, ConcurrentHashMap<LocalDateTime, LongAdder>> lote;
+            lockPendentes.writeLock().lock();
+            try {
+                lote = pendentes;
+                pendentes = novosPendentes();
+            } finally {
+                lockPendentes.writeLock().unlock();
+            }
+
+            Map<List<Object>, Long> linhas = new HashMap<>();
+            lote.forEach((metrica, minutos) -> minutos.forEach((minuto, contagem) -> {
+                for (Granularidade granularidade : List.of(Granularidade.MINUTO, Granularidade.HORA, Granularidade.DIA)) {
+                    linhas.merge(Arrays.asList(metrica.getChave(), granularidade.name(), granularidade.truncar(minuto)),
+                            contagem.sum(), Long::sum);
+                }
+            }));
+            if (linhas.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> argumentos = new ArrayList<>(linhas.size());
+            linhas.forEach((chave, delta) -> argumentos.add(new Object[] {
+                    chave.get(0), chave.get(1), Timestamp.valueOf((LocalDateTime) chave.get(2)), delta }));
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(SQL_SOMAR, argumentos));
+            } catch (RuntimeException e) {
+                // Devolve o lote à memória para a próxima rodada
+                lote.forEach((metrica, minutos) -> minutos.forEach((minuto, contagem) ->
+                        somar(metrica, minuto, contagem.sum())));
+                throw e;
+            }
+        } finally {
+            lockGravacao.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Consulta uma métrica no período, um ponto por intervalo da granularidade.
+     *
+     * @param chaveMetrica       clientes-cadastrados, produtos-criados, produtos-atualizados ou estoque-alterado.
+     * @param de                 Início do período; o primeiro ponto começa no intervalo que o contém.
+     * @param ate                Fim do período (inclusive).
+     * @param chaveGranularidade minuto, hora, dia, semana ou mes; vazio escolhe a menor que caiba em 500 pontos.
+     * @throws IllegalArgumentException se a métrica ou a granularidade não existem, ou o período é inválido.
+     */
+    public SerieMetrica consultar(String chaveMetrica, LocalDateTime de, LocalDateTime ate, String chaveGranularidade) {
+        Metrica metrica = Metrica.deChave(chaveMetrica);
+        if (ate.isBefore(de)) {
+            throw new IllegalArgumentException("O fim do período deve ser posterior ao início");
+        }
+        Granularidade granularidade = chaveGranularidade == null || chaveGranularidade.isBlank()
+                ? automatica(de, ate)
+                : Granularidade.deChave(chaveGranularidade);
+        if (granularidade.pontos(de, ate) > LIMITE_PONTOS) {
+            throw new IllegalArgumentException("Período grande demais para a granularidade " + granularidade.getChave());
+        }
+
+        LocalDateTime primeiro = granularidade.truncar(de);
+        Map<LocalDateTime, Long> totais = new TreeMap<>();
+        for (LocalDateTime inicio = primeiro; !inicio.isAfter(ate); inicio = granularidade.proximo(inicio)) {
+            totais.put(inicio, 0L);
+        }
+
+        lockGravacao.readLock().lock();
+        try {
+            jdbcTemplate.query(SQL_CONSULTAR, linha -> {
+                totais.merge(granularidade.truncar(linha.getTimestamp(1).toLocalDateTime()), linha.getLong(2), Long::sum);
+            }, metrica.getChave(), granularidade.origem().name(), Timestamp.valueOf(primeiro), Timestamp.valueOf(ate));
+
+            lockPendentes.readLock().lock();
+            try {
+                pendentes.get(metrica).forEach((minuto, contagem) -> {
+                    if (!minuto.isBefore(primeiro) && !minuto.isAfter(ate)) {
+                        totais.merge(granularidade.truncar(minuto), contagem.sum(), Long::sum);
+                    }
+                });
+            } finally {
+                lockPendentes.readLock().unlock();
+            }
+        } finally {
+            lockGravacao.readLock().unlock();
+        }
+
+        List<SerieMetrica.Ponto> pontos = new ArrayList<>(totais.size());
+        long total = 0;
+        for (Map.Entry<LocalDateTime, Long> ponto : totais.entrySet()) {
+            pontos.add(new SerieMetrica.Ponto(ponto.getKey(), ponto.getValue()));
+            total += ponto.getValue();
+        }
+        return new SerieMetrica(metrica.getChave(), granularidade.getChave(), de, ate, total, pontos);
+    }
+
+    // Remove linhas de minuto e de hora fora da retenção
+    public void expurgar() {
+        LocalDateTime agora = LocalDateTime.now();
+        int minutos = jdbcTemplate.update(SQL_EXPURGAR, Granularidade.MINUTO.name(),
+                Timestamp.valueOf(agora.minusDays(retencaoMinutosDias)));
+        int horas = jdbcTemplate.update(SQL_EXPURGAR, Granularidade.HORA.name(),
+                Timestamp.valueOf(agora.minusDays(retencaoHorasDias)));
+        if (minutos + horas > 0) {
+            log.info("Séries temporais: {} linhas de minuto e {} de hora expurgadas", minutos, horas);
+        }
+    }
+
+    private static Granularidade automatica(LocalDateTime de, LocalDateTime ate) {
+        for (Granularidade granularidade : Granularidade.values()) {
+            if (granularidade.pontos(de, ate) <= PONTOS_AUTOMATICO) {
+                return granularidade;
+            }
+        }
+        return Granularidade.MES;
+    }
+
+    private static Map<Metrica, ConcurrentHashMap<LocalDateTime, LongAdder>> novosPendentes() {
+        Map<Metrica, ConcurrentHashMap<LocalDateTime, LongAdder>> mapa = new EnumMap<>(Metrica.class);
+        for (Metrica metrica : Metrica.values()) {
+            mapa.put(metrica, new ConcurrentHashMap<>());
+        }
+        return mapa;
+    }
+
+    private void gravarComSeguranca() {
+        try {
+            gravar();
+            if (System.currentTimeMillis() - ultimoExpurgo >= INTERVALO_EXPURGO_MS) {
+                ultimoExpurgo = System.currentTimeMillis();
+                expurgar();
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha na gravação das séries temporais; nova tentativa no próximo intervalo", e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ClienteAlteradoEvent;
+import com.example.autheticuser.repository.ClienteRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de telefones para busca por trecho ou final do número.
+ *
+ * Os telefones são normalizados para apenas dígitos e cada sufixo de cada número
+ * entra num mapa ordenado, apontando para os clientes que terminam com ele. Um
+ * trecho está contido no número se e só se algum sufixo começa com ele: a busca
+ * percorre apenas a faixa do mapa com esse prefixo, de qualquer tamanho. A busca
+ * por final do número é uma consulta exata ao mapa.
+ *
+ * A recarga monta um índice novo à parte e só então o troca pelo atual; alterações
+ * que chegam durante a carga são aplicadas nos dois.
+ */
+@Component
+@RequiredArgsConstructor
+public class TelefoneIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TelefoneIndex.class);
+    private static final int INTERVALO_LOG_CARGA = 50_000;
+    // Primeiro caractere depois de '9': limite superior da faixa de sufixos com um prefixo
+    private static final char FIM_DIGITOS = '9' + 1;
+
+    private final ClienteRepository clienteRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Dados dados = new Dados();
+    // Alterações recebidas durante uma recarga (null fora dela), reaplicadas no índice novo
+    private Map<Long, String> pendentes;
+    private volatile boolean pronto;
+
+    // Reconstrói o índice a partir da tabela de clientes, registrando o progresso da carga
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void carregar() {
+        long inicio = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendentes = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Dados novo = new Dados();
+        try {
+            List<Object[]> telefones = clienteRepository.findIdsETelefones();
+            log.info("Reconstruindo índice de telefones: {} clientes com telefone", telefones.size());
+            int processados = 0;
+            for (Object[] linha : telefones) {
+                novo.indexar((Long) linha[0], normalizar((String) linha[1]));
+                if (++processados % INTERVALO_LOG_CARGA == 0) {
+                    log.info("Índice de telefones: {}/{} indexados ({} ms)", processados, telefones.size(),
+                            System.currentTimeMillis() - inicio);
+                }
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendentes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendentes.forEach(novo::indexar);
+            pendentes = null;
+            dados = novo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        pronto = true;
+        log.info("Índice de telefones carregado: {} números em {} ms", tamanho(), System.currentTimeMillis() - inicio);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        if (evento.getTipo() == ClienteAlteradoEvent.Tipo.REMOVIDO) {
+            remover(evento.getCliente().getId());
+        } else {
+            indexar(evento.getCliente().getId(), evento.getCliente().getTelefone());
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // Mantém apenas os dígitos: "(11) 98888-7777" -> "11988887777"
+    public static String normalizar(String telefone) {
+        if (telefone == null) {
+            return "";
+        }
+        StringBuilder digitos = new StringBuilder(telefone.length());
+        for (int i = 0; i < telefone.length(); i++) {
+            char c = telefone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+
+    public void indexar(long id, String telefone) {
+        String digitos = normalizar(telefone);
+        lock.writeLock().lock();
+        try {
+            dados.indexar(id, digitos);
+            if (pendentes != null) {
+                pendentes.put(id, digitos);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(long id) {
+        indexar(id, null);
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return dados.numeros.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os clientes cujo telefone (apenas dígitos) contém o trecho informado.
+     *
+     * @param trecho Parte do número; caracteres que não são dígitos são ignorados.
+     * @param sufixo Se true, o número deve terminar com o trecho.
+     * @return Os ids encontrados, em ordem crescente.
+     */
+    public List<Long> buscar(String trecho, boolean sufixo) {
+        String digitos = normalizar(trecho);
+        Set<Long> encontrados = new HashSet<>();
+
+        lock.readLock().lock();
+        try {
+            if (digitos.isEmpty()) {
+                encontrados.addAll(dados.numeros.keySet());
+            } else if (sufixo) {
+                encontrados.addAll(dados.sufixos.getOrDefault(digitos, Collections.emptySet()));
+            } else {
+                for (Set<Long> ids : dados.sufixos.subMap(digitos, true, digitos + FIM_DIGITOS, false).values()) {
+                    encontrados.addAll(ids);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> ids = new ArrayList<>(encontrados);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    // Números por id e sufixos; acessado sempre com o lock (ou, durante a carga, só pela thread que carrega)
+    private static final class Dados {
+
+        private final Map<Long, String> numeros = new HashMap<>();
+        private final NavigableMap<String, Set<Long>> sufixos = new TreeMap<>();
+
+        // Indexa os dígitos já normalizados de um id; vazio remove o id
+        private void indexar(long id, String digitos) {
+            String anterior = digitos.isEmpty() ? numeros.remove(id) : numeros.put(id, digitos);
+            if (anterior != null) {
+                if (anterior.equals(digitos)) {
+                    return;
+                }
+                for (int i = 0; i < anterior.length(); i++) {
+                    String sufixo = anterior.substring(i);
+                    Set<Long> ids = sufixos.get(sufixo);
+                    if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                        sufixos.remove(sufixo);
+                    }
+                }
+            }
+            for (int i = 0; i < digitos.length(); i++) {
+                sufixos.computeIfAbsent(digitos.substring(i), s -> new HashSet<>()).add(id);
+            }
+        }
+    }
+}
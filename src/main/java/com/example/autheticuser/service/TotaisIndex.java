@@ -0,0 +1,209 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ClienteAlteradoEvent;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Totais de clientes e produtos mantidos em memória para o dashboard de estatísticas.
+ *
+ * Os contadores são carregados com count() na inicialização e acompanham os eventos
+ * de criação e remoção já confirmados, de modo que ler o total não toca o banco.
+ * Escritas que não passam por esta instância (outra instância da aplicação, SQL
+ * manual) são absorvidas por uma reconciliação periódica com count().
+ *
+ * Uma criação confirmada pode entrar no count() antes de o evento pós-commit somar
+ * o contador; por isso cada contador conta as transações com criação ou remoção
+ * ainda não concluídas e tem uma geração, avançada a cada uma que começa. O count()
+ * só é aplicado se não havia nenhuma em andamento e a geração não mudou durante ele.
+ */
+@Component
+@RequiredArgsConstructor
+public class TotaisIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TotaisIndex.class);
+
+    private final ClienteRepository clienteRepository;
+    private final ProdutoRepository produtoRepository;
+
+    @Value("${estatisticas.totais.intervalo-reconciliacao-ms:300000}")
+    private long intervaloReconciliacaoMs;
+
+    private final Contador clientes = new Contador("clientes");
+    private final Contador produtos = new Contador("produtos");
+    private volatile boolean pronto;
+
+    private ScheduledExecutorService agendador;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        clientes.valor.set(clienteRepository.count());
+        produtos.valor.set(produtoRepository.count());
+        pronto = true;
+        log.info("Totais carregados: {} clientes, {} produtos", clientes.valor.get(), produtos.valor.get());
+
+        if (intervaloReconciliacaoMs > 0 && agendador == null) {
+            agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "totais-reconciliacao");
+                thread.setDaemon(true);
+                return thread;
+            });
+            agendador.scheduleWithFixedDelay(this::reconciliarComSeguranca, intervaloReconciliacaoMs,
+                    intervaloReconciliacaoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdown();
+        }
+    }
+
+    // Publicado dentro da transação, antes do commit: a partir daqui o count() pode não bater
+    @EventListener
+    public void aoPublicarCliente(ClienteAlteradoEvent evento) {
+        if (evento.getTipo() != ClienteAlteradoEvent.Tipo.ATUALIZADO) {
+            clientes.iniciar();
+        }
+    }
+
+    // Aplicado somente após o commit, para que criações desfeitas não sejam contadas
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        if (evento.getTipo() == ClienteAlteradoEvent.Tipo.CRIADO) {
+            clientes.somar(1);
+        } else if (evento.getTipo() == ClienteAlteradoEvent.Tipo.REMOVIDO) {
+            clientes.somar(-1);
+        }
+    }
+
+    // Depois do commit (já somado) ou do rollback
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void aoConcluirCliente(ClienteAlteradoEvent evento) {
+        if (evento.getTipo() != ClienteAlteradoEvent.Tipo.ATUALIZADO) {
+            clientes.concluir();
+        }
+    }
+
+    @EventListener
+    public void aoPublicarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.getTipo() != ProdutoAlteradoEvent.Tipo.ATUALIZADO) {
+            produtos.iniciar();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.CRIADO) {
+            produtos.somar(1);
+        } else if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+            produtos.somar(-1);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void aoConcluirProduto(ProdutoAlteradoEvent evento) {
+        if (evento.getTipo() != ProdutoAlteradoEvent.Tipo.ATUALIZADO) {
+            produtos.concluir();
+        }
+    }
+
+    /**
+     * Confere os contadores com count() no banco e corrige a diferença.
+     *
+     * @return true se algum contador estava divergente.
+     */
+    public boolean reconciliar() {
+        boolean clientesCorrigidos = clientes.reconciliar(clienteRepository::count);
+        boolean produtosCorrigidos = produtos.reconciliar(produtoRepository::count);
+        return clientesCorrigidos || produtosCorrigidos;
+    }
+
+    // Enquanto não estiver pronto, os serviços usam count() no banco
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public long getClientes() {
+        return clientes.valor.get();
+    }
+
+    public long getProdutos() {
+        return produtos.valor.get();
+    }
+
+    private void reconciliarComSeguranca() {
+        try {
+            reconciliar();
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconciliar os totais com o banco", e);
+        }
+    }
+
+    private static final class Contador {
+
+        private final String nome;
+        private final AtomicLong valor = new AtomicLong();
+        // Avança a cada criação ou remoção publicada; emAndamento cai quando a transação termina
+        private final AtomicLong geracao = new AtomicLong();
+        private final AtomicInteger emAndamento = new AtomicInteger();
+
+        private Contador(String nome) {
+            this.nome = nome;
+        }
+
+        private void iniciar() {
+            emAndamento.incrementAndGet();
+            geracao.incrementAndGet();
+        }
+
+        private synchronized void somar(long delta) {
+            valor.addAndGet(delta);
+        }
+
+        private void concluir() {
+            emAndamento.decrementAndGet();
+        }
+
+        // Só substitui o valor se nenhuma criação ou remoção estava pendente ou começou durante o count()
+        private boolean reconciliar(LongSupplier contagem) {
+            long geracaoAntes = geracao.get();
+            if (emAndamento.get() > 0) {
+                return false; // A próxima rodada confere
+            }
+            long banco = contagem.getAsLong();
+            long antes;
+            synchronized (this) {
+                if (geracao.get() != geracaoAntes || emAndamento.get() > 0) {
+                    return false;
+                }
+                antes = valor.get();
+                if (antes == banco) {
+                    return false;
+                }
+                valor.set(banco);
+            }
+            log.warn("Total de {} divergente: {} em memória, {} no banco; corrigido", nome, antes, banco);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.autheticuser.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de n-gramas (bigramas e trigramas) para busca por substring.
+ *
+ * Cada texto é normalizado (minúsculas, sem acentos) e decomposto em n-gramas; cada
+ * n-grama aponta para os ids que o contêm. Uma busca intersecta as listas dos
+ * trigramas do termo (começando pela menor) e confirma os candidatos com um
+ * contains() no texto normalizado. Termos de 2 caracteres usam a lista do bigrama;
+ * termos de 1 caractere percorrem os textos em memória.
+ */
+public class TrigramIndex {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+
+    private final Map<Long, String> textos = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Indexa (ou reindexa) o texto de um id
+    public void indexar(long id, String texto) {
+        String normalizado = normalizar(texto);
+        lock.writeLock().lock();
+        try {
+            String anterior = textos.put(id, normalizado);
+            if (anterior != null) {
+                if (anterior.equals(normalizado)) {
+                    return;
+                }
+                removerPostings(id, anterior);
+            }
+            for (String grama : gramas(normalizado)) {
+                postings.computeIfAbsent(grama, g -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(long id) {
+        lock.writeLock().lock();
+        try {
+            String anterior = textos.remove(id);
+            if (anterior != null) {
+                removerPostings(id, anterior);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            textos.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return textos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os ids cujo texto contém o termo, ordenados por relevância: texto que
+     * começa com o termo, depois termo no início de uma palavra, depois posição da
+     * ocorrência e, por fim, textos mais curtos.
+     *
+     * @param termo   O trecho procurado (sem distinção de maiúsculas e acentos).
+     * @param pagina  A página desejada (0-based).
+     * @param tamanho O número máximo de ids por página.
+     * @return A página de ids e o total de ocorrências.
+     */
+    public Page<Long> buscar(String termo, int pagina, int tamanho) {
+        String consulta = normalizar(termo);
+        List<Ocorrencia> ocorrencias = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (long id : candidatos(consulta)) {
+                String texto = textos.get(id);
+                int posicao = texto == null ? -1 : texto.indexOf(consulta);
+                if (posicao >= 0) {
+                    ocorrencias.add(new Ocorrencia(id, classificar(texto, posicao), posicao, texto.length()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ocorrencias.sort(Comparator.comparingInt((Ocorrencia o) -> o.classe)
+                .thenComparingInt(o -> o.posicao)
+                .thenComparingInt(o -> o.comprimento)
+                .thenComparingLong(o -> o.id));
+
+        int inicio = (int) Math.min((long) pagina * tamanho, ocorrencias.size());
+        int fim = (int) Math.min((long) inicio + tamanho, ocorrencias.size());
+        List<Long> ids = new ArrayList<>(fim - inicio);
+        for (int i = inicio; i < fim; i++) {
+            ids.add(ocorrencias.get(i).id);
+        }
+        return new PageImpl<>(ids, PageRequest.of(pagina, tamanho), ocorrencias.size());
+    }
+
+    // Normalização usada tanto na indexação quanto na busca
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    // Deve ser chamado com o lock de leitura
+    private Iterable<Long> candidatos(String consulta) {
+        if (consulta.length() < 2) {
+            return textos.keySet();
+        }
+        if (consulta.length() == 2) {
+            return postings.getOrDefault(consulta, Collections.emptySet());
+        }
+
+        List<Set<Long>> listas = new ArrayList<>();
+        for (String trigrama : trigramas(consulta)) {
+            Set<Long> lista = postings.get(trigrama);
+            if (lista == null) {
+                return Collections.emptySet(); // Algum trigrama não ocorre em nenhum texto
+            }
+            listas.add(lista);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> resultado = new ArrayList<>();
+        Set<Long> menor = listas.get(0);
+        for (Long id : menor) {
+            boolean emTodas = true;
+            for (int i = 1; i < listas.size() && emTodas; i++) {
+                emTodas = listas.get(i).contains(id);
+            }
+            if (emTodas) {
+                resultado.add(id);
+            }
+        }
+        return resultado;
+    }
+
+    private void removerPostings(long id, String texto) {
+        for (String grama : gramas(texto)) {
+            Set<Long> lista = postings.get(grama);
+            if (lista != null) {
+                lista.remove(id);
+                if (lista.isEmpty()) {
+                    postings.remove(grama);
+                }
+            }
+        }
+    }
+
+    private static Set<String> gramas(String texto) {
+        Set<String> gramas = new HashSet<>(trigramas(texto));
+        for (int i = 0; i + 2 <= texto.length(); i++) {
+            gramas.add(texto.substring(i, i + 2));
+        }
+        return gramas;
+    }
+
+    private static Set<String> trigramas(String texto) {
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            trigramas.add(texto.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    // 0 = texto começa com o termo, 1 = termo no início de uma palavra, 2 = no meio de uma palavra
+    private static int classificar(String texto, int posicao) {
+        if (posicao == 0) {
+            return 0;
+        }
+        return Character.isLetterOrDigit(texto.charAt(posicao - 1)) ? 2 : 1;
+    }
+
+    private static final class Ocorrencia {
+        private final long id;
+        private final int classe;
+        private final int posicao;
+        private final int comprimento;
+
+        private Ocorrencia(long id, int classe, int posicao, int comprimento) {
+            this.id = id;
+            this.classe = classe;
+            this.posicao = posicao;
+            this.comprimento = comprimento;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.ClienteAlteradoEvent;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.repository.ProdutoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtros de Bloom sobre emails e CPFs de clientes e nomes de produtos, usados
+ * antes dos existsBy* na criação e na atualização.
+ *
+ * Quando o filtro responde "certamente ausente" a consulta de existência é pulada;
+ * quando responde "talvez presente" a consulta é feita como antes. As restrições
+ * únicas do banco continuam sendo a palavra final: valores gravados sem passar por
+ * esta instância (outra instância, SQL manual) só são vistos na próxima
+ * reconstrução, e até lá a violação da restrição é traduzida para a mesma
+ * mensagem da verificação (ver {@link #violou}).
+ *
+ * Filtros de Bloom não removem valores; removidos e valores antigos de registros
+ * atualizados são descartados na reconstrução periódica, que também acontece
+ * quando um filtro passa da capacidade para a qual foi dimensionado.
+ */
+@Component
+@RequiredArgsConstructor
+public class UnicidadeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UnicidadeIndex.class);
+
+    private final ClienteRepository clienteRepository;
+    private final ProdutoRepository produtoRepository;
+
+    @Value("${unicidade.bloom.taxa-falso-positivo:0.01}")
+    private double taxaFalsoPositivo;
+
+    @Value("${unicidade.bloom.capacidade-minima:10000}")
+    private long capacidadeMinima;
+
+    @Value("${unicidade.bloom.intervalo-reconstrucao-ms:3600000}")
+    private long intervaloReconstrucaoMs;
+
+    private volatile Filtros atuais;
+    // Filtros sendo carregados; alterações confirmadas durante a carga vão para os dois
+    private volatile Filtros emConstrucao;
+    private volatile boolean pronto;
+
+    private final AtomicBoolean reconstrucaoPendente = new AtomicBoolean();
+    private final LongAdder consultasEvitadas = new LongAdder();
+    private ScheduledExecutorService agendador;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        reconstruir();
+
+        if (agendador == null) {
+            agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "unicidade-bloom");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (intervaloReconstrucaoMs > 0) {
+                agendador.scheduleWithFixedDelay(this::reconstruirComSeguranca, intervaloReconstrucaoMs,
+                        intervaloReconstrucaoMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdown();
+        }
+    }
+
+    // Recria os filtros a partir do banco e troca os atuais de uma vez
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        long clientes = clienteRepository.count();
+        long produtos = produtoRepository.count();
+
+        Filtros novos = new Filtros(criarFiltro(clientes), criarFiltro(clientes), criarFiltro(produtos));
+        emConstrucao = novos;
+        try {
+            List<Object[]> emailsECpfs = clienteRepository.findEmailsECpfs();
+            for (Object[] linha : emailsECpfs) {
+                adicionar(novos.emails, (String) linha[0]);
+                adicionar(novos.cpfs, (String) linha[1]);
+            }
+            List<Object[]> nomes = produtoRepository.findIdsENomes();
+            for (Object[] linha : nomes) {
+                adicionar(novos.nomesProdutos, (String) linha[1]);
+            }
+            atuais = novos;
+            pronto = true;
+            log.info("Filtros de unicidade carregados: {} clientes, {} produtos em {} ms", emailsECpfs.size(),
+                    nomes.size(), System.currentTimeMillis() - inicio);
+        } finally {
+            emConstrucao = null;
+            reconstrucaoPendente.set(false);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        if (evento.getTipo() != ClienteAlteradoEvent.Tipo.REMOVIDO) {
+            registrar(evento.getCliente().getEmail(), evento.getCliente().getCpf(), null);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        if (evento.getTipo() != ProdutoAlteradoEvent.Tipo.REMOVIDO) {
+            registrar(null, null, evento.getProduto().getNome());
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // false = nenhum cliente tem este email (o existsByEmail pode ser pulado)
+    public boolean podeExistirEmail(String email) {
+        return podeExistir(atuais == null ? null : atuais.emails, email);
+    }
+
+    public boolean podeExistirCpf(String cpf) {
+        return podeExistir(atuais == null ? null : atuais.cpfs, cpf);
+    }
+
+    public boolean podeExistirNomeProduto(String nome) {
+        return podeExistir(atuais == null ? null : atuais.nomesProdutos, nome);
+    }
+
+    // Quantas consultas de existência deixaram de ir ao banco
+    public long getConsultasEvitadas() {
+        return consultasEvitadas.sum();
+    }
+
+    /**
+     * Verifica se a violação de integridade veio da restrição informada.
+     *
+     * @param e A exceção lançada na gravação.
+     * @param restricao Nome da restrição ou índice único (ex.: "uk_clientes_email").
+     */
+    public static boolean violou(DataIntegrityViolationException e, String restricao) {
+        Throwable causa = NestedExceptionUtils.getMostSpecificCause(e);
+        return causa.getMessage() != null
+                && causa.getMessage().toUpperCase(Locale.ROOT).contains(restricao.toUpperCase(Locale.ROOT));
+    }
+
+    private boolean podeExistir(FiltroBloom filtro, String valor) {
+        if (!pronto || filtro == null) {
+            return true;
+        }
+        if (filtro.podeConter(valor)) {
+            return true;
+        }
+        consultasEvitadas.increment();
+        return false;
+    }
+
+    private void registrar(String email, String cpf, String nomeProduto) {
+        Filtros construindo = emConstrucao;
+        for (Filtros filtros : new Filtros[] { atuais, construindo }) {
+            if (filtros != null) {
+                adicionar(filtros.emails, email);
+                adicionar(filtros.cpfs, cpf);
+                adicionar(filtros.nomesProdutos, nomeProduto);
+            }
+        }
+
+        Filtros filtros = atuais;
+        if (filtros != null && construindo == null && filtros.saturado() && agendador != null
+                && reconstrucaoPendente.compareAndSet(false, true)) {
+            log.info("Filtros de unicidade acima da capacidade; agendando reconstrução");
+            agendador.execute(this::reconstruirComSeguranca);
+        }
+    }
+
+    private static void adicionar(FiltroBloom filtro, String valor) {
+        if (valor != null) {
+            filtro.adicionar(valor);
+        }
+    }
+
+    // Folga de 2x sobre o tamanho atual, para absorver o crescimento até a próxima reconstrução
+    private FiltroBloom criarFiltro(long registros) {
+        return new FiltroBloom(Math.max(capacidadeMinima, registros * 2), taxaFalsoPositivo);
+    }
+
+    private void reconstruirComSeguranca() {
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            reconstrucaoPendente.set(false);
+            log.error("Falha ao reconstruir os filtros de unicidade", e);
+        }
+    }
+
+    private static class Filtros {
+
+        private final FiltroBloom emails;
+        private final FiltroBloom cpfs;
+        private final FiltroBloom nomesProdutos;
+
+        Filtros(FiltroBloom emails, FiltroBloom cpfs, FiltroBloom nomesProdutos) {
+            this.emails = emails;
+            this.cpfs = cpfs;
+            this.nomesProdutos = nomesProdutos;
+        }
+
+        boolean saturado() {
+            return emails.isSaturado() || cpfs.isSaturado() || nomesProdutos.isSaturado();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.autheticuser.service;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.ClienteAlteradoEvent;
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ProdutoAlteradoEvent;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versões de produtos e clientes para ETag e requisições condicionais.
+ *
+ * A versão de um recurso é o id mais a dataAtualizacao (em microssegundos), guardada
+ * em um mapa que os eventos de alteração mantêm em dia: responder 304 a um
+ * If-None-Match não carrega a entidade. Um id fora do mapa custa uma consulta de
+ * uma coluna e passa a ficar no mapa, limitado a um número máximo de ids. Produtos
+ * em modo quente incluem o saldo em memória, que muda sem alterar a dataAtualizacao.
+ *
+ * Listas e buscas usam um contador por recurso, incrementado a cada alteração
+ * confirmada, junto com o instante de inicialização (o contador recomeça do zero).
+ * Alterações feitas fora desta instância não geram eventos: uma reconciliação
+ * periódica compara a contagem, o maior id e a maior data_atualizacao de cada
+ * tabela (todos lidos dos índices) com a rodada anterior e, se mudaram, avança o
+ * contador e esvazia o mapa.
+ */
+@Component
+@RequiredArgsConstructor
+public class VersoesRecursos {
+
+    private static final Logger log = LoggerFactory.getLogger(VersoesRecursos.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EstoqueQuente estoqueQuente;
+
+    @Value("${versoes.intervalo-reconciliacao-ms:10000}")
+    private long intervaloReconciliacaoMs;
+
+    @Value("${versoes.maximo-ids:100000}")
+    private int maximoIds;
+
+    private final String inicio = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Long, Long> produtos = new ConcurrentHashMap<>();
+    private final Map<Long, Long> clientes = new ConcurrentHashMap<>();
+    private final AtomicLong geracaoProdutos = new AtomicLong();
+    private final AtomicLong geracaoClientes = new AtomicLong();
+
+    // Resumo de cada tabela na última reconciliação (acessados só pela thread do agendador)
+    private String resumoProdutos;
+    private String resumoClientes;
+
+    private ScheduledExecutorService agendador;
+
+    // A primeira rodada só registra o resumo das tabelas; as seguintes comparam com ele
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (intervaloReconciliacaoMs <= 0 || agendador != null) {
+            return;
+        }
+        reconciliar();
+        agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "versoes-reconciliacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::reconciliarComSeguranca, intervaloReconciliacaoMs,
+                intervaloReconciliacaoMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+
+    // Versão atual do produto, ou vazio se ele não existe
+    public Optional<String> versaoProduto(Long id) {
+        Long marca = marca(produtos, geracaoProdutos, "produtos", id);
+        return marca == null ? Optional.empty() : Optional.of(versaoProduto(id, marca));
+    }
+
+    // Versão de um produto já carregado (ex.: para conferir o If-Match dentro da transação)
+    public String versaoDe(Produto produto) {
+        return versaoProduto(produto.getId(), marca(produto.getDataAtualizacao()));
+    }
+
+    public Optional<String> versaoCliente(Long id) {
+        Long marca = marca(clientes, geracaoClientes, "clientes", id);
+        return marca == null ? Optional.empty() : Optional.of("c" + id + "-" + marca);
+    }
+
+    public String versaoDe(Cliente cliente) {
+        return "c" + cliente.getId() + "-" + marca(cliente.getDataAtualizacao());
+    }
+
+    // Versão de qualquer lista ou busca de produtos (saldos quentes chegam pelos eventos do registro periódico)
+    public String versaoProdutos() {
+        return "p-" + inicio + "-" + geracaoProdutos.get();
+    }
+
+    public String versaoClientes() {
+        return "c-" + inicio + "-" + geracaoClientes.get();
+    }
+
+    /**
+     * Confere as tabelas com a rodada anterior e invalida as versões das que mudaram
+     * sem passar pelos eventos desta instância.
+     *
+     * @return true se alguma tabela mudou.
+     */
+    public synchronized boolean reconciliar() {
+        String produtosAgora = resumo("produtos");
+        String clientesAgora = resumo("clientes");
+        boolean produtosMudaram = resumoProdutos != null && !resumoProdutos.equals(produtosAgora);
+        boolean clientesMudaram = resumoClientes != null && !resumoClientes.equals(clientesAgora);
+        resumoProdutos = produtosAgora;
+        resumoClientes = clientesAgora;
+        if (produtosMudaram) {
+            geracaoProdutos.incrementAndGet();
+            produtos.clear();
+        }
+        if (clientesMudaram) {
+            geracaoClientes.incrementAndGet();
+            clientes.clear();
+        }
+        return produtosMudaram || clientesMudaram;
+    }
+
+    /**
+     * Monta a ETag (forte) de uma versão no formato da resposta: JSON, CBOR e Smile
+     * têm bytes diferentes, então cada um recebe a sua. Pelo mesmo motivo, uma
+     * resposta com fields= leva a seleção na ETag, com as vírgulas trocadas por
+     * pontos (o If-None-Match separa as ETags por vírgula).
+     *
+     * @param campos O fields= da requisição, ou null para o recurso completo.
+     */
+    public static String etag(String versao, String campos, MediaType formato) {
+        String selecao = campos == null ? "" : ";" + campos.replaceAll("\\s", "").replace(',', '.');
+        String sufixo = MediaType.APPLICATION_JSON.equalsTypeAndSubtype(formato) ? "" : "+" + formato.getSubtype();
+        return "\"" + versao + selecao + sufixo + "\"";
+    }
+
+    // If-None-Match: comparação fraca (W/ é ignorado) contra a ETag completa
+    public static boolean naoModificado(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidata : ifNoneMatch.split(",")) {
+            String valor = candidata.trim();
+            if (valor.equals("*") || (valor.startsWith("W/") ? valor.substring(2) : valor).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Match: comparação forte contra a versão atual, em qualquer formato e com
+     * qualquer seleção de campos em que ela tenha sido lida. Ausente = sem pré-condição.
+     */
+    public static boolean confere(String ifMatch, String versao) {
+        if (ifMatch == null) {
+            return true;
+        }
+        for (String candidata : ifMatch.split(",")) {
+            String valor = candidata.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("\"") && valor.endsWith("\"") && valor.length() >= 2) {
+                String lida = valor.substring(1, valor.length() - 1);
+                int fim = lida.length();
+                for (char separador : new char[]{';', '+'}) {
+                    int posicao = lida.indexOf(separador);
+                    fim = posicao < 0 ? fim : Math.min(fim, posicao);
+                }
+                if (lida.substring(0, fim).equals(versao)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // O contador sobe antes de o mapa mudar: uma leitura do banco em andamento não grava valor antigo por cima
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarProduto(ProdutoAlteradoEvent evento) {
+        geracaoProdutos.incrementAndGet();
+        Produto produto = evento.getProduto();
+        if (evento.getTipo() == ProdutoAlteradoEvent.Tipo.REMOVIDO || produto.getDataAtualizacao() == null) {
+            produtos.remove(produto.getId());
+        } else {
+            guardar(produtos, produto.getId(), marca(produto.getDataAtualizacao()));
+        }
+    }
+
+    // Alteração de estoque por UPDATE direto: a nova dataAtualizacao não vem no evento, é relida sob demanda
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarEstoque(EstoqueAlteradoEvent evento) {
+        geracaoProdutos.incrementAndGet();
+        produtos.remove(evento.getProdutoId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        geracaoClientes.incrementAndGet();
+        Cliente cliente = evento.getCliente();
+        if (evento.getTipo() == ClienteAlteradoEvent.Tipo.REMOVIDO || cliente.getDataAtualizacao() == null) {
+            clientes.remove(cliente.getId());
+        } else {
+            guardar(clientes, cliente.getId(), marca(cliente.getDataAtualizacao()));
+        }
+    }
+
+    private String versaoProduto(Long id, long marca) {
+        Integer saldo = estoqueQuente.saldo(id);
+        return "p" + id + "-" + marca + (saldo == null ? "" : "-q" + saldo);
+    }
+
+    // Marca do mapa ou, na falta dela, a dataAtualizacao lida do banco; null se o id não existe
+    private Long marca(Map<Long, Long> marcas, AtomicLong geracao, String tabela, Long id) {
+        Long marca = marcas.get(id);
+        if (marca != null) {
+            return marca;
+        }
+        long antes = geracao.get();
+        List<Timestamp> linhas = jdbcTemplate.queryForList(
+                "SELECT data_atualizacao FROM " + tabela + " WHERE id = ?", Timestamp.class, id);
+        if (linhas.isEmpty()) {
+            return null;
+        }
+        long lida = linhas.get(0) == null ? 0 : marca(linhas.get(0).toLocalDateTime());
+        // Só fica no mapa se nenhuma alteração foi confirmada durante a leitura
+        marcas.compute(id, (chave, atual) -> atual != null ? atual : geracao.get() == antes ? lida : null);
+        limitar(marcas);
+        return lida;
+    }
+
+    private void guardar(Map<Long, Long> marcas, Long id, long marca) {
+        marcas.put(id, marca);
+        limitar(marcas);
+    }
+
+    // Acima do máximo, descarta ids quaisquer: uma versão ausente é só relida do banco
+    private void limitar(Map<Long, Long> marcas) {
+        Iterator<Long> ids = marcas.keySet().iterator();
+        while (marcas.size() > maximoIds && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+
+    // Contagem, maior id e maior data_atualizacao: muda com qualquer inserção, remoção ou edição.
+    // Os três saem dos índices (chave primária e idx_*_data_atualizacao), sem varrer a tabela
+    private String resumo(String tabela) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*), MAX(id), MAX(data_atualizacao) FROM " + tabela,
+                (linha, numero) -> linha.getLong(1) + "/" + linha.getLong(2) + "/" + linha.getTimestamp(3));
+    }
+
+    private void reconciliarComSeguranca() {
+        try {
+            if (reconciliar()) {
+                log.info("Alterações feitas fora da aplicação detectadas: versões de listas invalidadas");
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconciliar as versões com o banco", e);
+        }
+    }
+
+    // Microssegundos, a precisão com que a coluna é gravada
+    private static long marca(LocalDateTime dataAtualizacao) {
+        if (dataAtualizacao == null) {
+            return 0;
+        }
+        return dataAtualizacao.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dataAtualizacao.getNano() / 1_000;
+    }
+}
@@ -0,0 +1,33 @@
+-- Esquema inicial, equivalente ao que o Hibernate gerava com ddl-auto: update
+
+CREATE TABLE users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE clientes (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome             VARCHAR(100) NOT NULL,
+    email            VARCHAR(100) NOT NULL,
+    telefone         VARCHAR(20),
+    endereco         VARCHAR(200),
+    cpf              VARCHAR(20),
+    data_nascimento  TIMESTAMP,
+    data_cadastro    TIMESTAMP,
+    data_atualizacao TIMESTAMP,
+    CONSTRAINT uk_clientes_email UNIQUE (email)
+);
+
+CREATE TABLE produtos (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome               VARCHAR(100) NOT NULL,
+    descricao          VARCHAR(500),
+    preco              NUMERIC(10, 2) NOT NULL,
+    quantidade_estoque INTEGER NOT NULL,
+    categoria          VARCHAR(50),
+    data_criacao       TIMESTAMP,
+    data_atualizacao   TIMESTAMP
+);
@@ -0,0 +1,22 @@
+-- Índices para os caminhos de consulta de ClienteRepository e ProdutoRepository
+
+-- findByCpf / existsByCpf (CPF é único; NULLs não conflitam entre si)
+CREATE UNIQUE INDEX ux_clientes_cpf ON clientes (cpf);
+
+-- findByTelefone* (igualdade e prefixo)
+CREATE INDEX idx_clientes_telefone ON clientes (telefone);
+
+-- findByDataCadastroBetween / contagem de cadastros do dia
+CREATE INDEX idx_clientes_data_cadastro ON clientes (data_cadastro);
+
+-- existsByNome / findNomesExistentes
+CREATE INDEX idx_produtos_nome ON produtos (nome);
+
+-- findByCategoria
+CREATE INDEX idx_produtos_categoria ON produtos (categoria);
+
+-- findByPrecoBetween / findByPrecoLessThan
+CREATE INDEX idx_produtos_preco ON produtos (preco);
+
+-- findProdutosComEstoqueBaixo (quantidade_estoque < limite)
+CREATE INDEX idx_produtos_quantidade_estoque ON produtos (quantidade_estoque);
@@ -0,0 +1,13 @@
+-- Contagem de cadastros de clientes por dia, mantida por ClienteService
+
+CREATE TABLE cadastros_diarios (
+    dia   DATE PRIMARY KEY,
+    total BIGINT NOT NULL
+);
+
+-- Carga inicial a partir dos clientes já existentes
+INSERT INTO cadastros_diarios (dia, total)
+SELECT CAST(data_cadastro AS DATE), COUNT(*)
+FROM clientes
+WHERE data_cadastro IS NOT NULL
+GROUP BY CAST(data_cadastro AS DATE);
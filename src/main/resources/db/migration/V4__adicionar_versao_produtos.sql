@@ -0,0 +1,3 @@
+-- Controle de concorrência otimista (@Version) em produtos
+
+ALTER TABLE produtos ADD COLUMN versao BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,36 @@
+-- Séries temporais pré-agregadas (GET /estatisticas/serie), mantidas por SerieTemporal
+-- Cada evento conta na linha do seu minuto, da sua hora e do seu dia
+
+CREATE TABLE metricas_serie (
+    metrica       VARCHAR(40) NOT NULL,
+    granularidade VARCHAR(6)  NOT NULL,
+    inicio        TIMESTAMP   NOT NULL,
+    total         BIGINT      NOT NULL,
+    PRIMARY KEY (metrica, granularidade, inicio)
+);
+
+-- Carga inicial dos cadastros de clientes e das criações de produtos já existentes
+-- (atualizações e alterações de estoque não têm histórico e começam vazias)
+INSERT INTO metricas_serie (metrica, granularidade, inicio, total)
+SELECT 'clientes-cadastrados', 'MINUTO', DATE_TRUNC('MINUTE', data_cadastro), COUNT(*)
+FROM clientes WHERE data_cadastro IS NOT NULL GROUP BY DATE_TRUNC('MINUTE', data_cadastro);
+
+INSERT INTO metricas_serie (metrica, granularidade, inicio, total)
+SELECT 'clientes-cadastrados', 'HORA', DATE_TRUNC('HOUR', data_cadastro), COUNT(*)
+FROM clientes WHERE data_cadastro IS NOT NULL GROUP BY DATE_TRUNC('HOUR', data_cadastro);
+
+INSERT INTO metricas_serie (metrica, granularidade, inicio, total)
+SELECT 'clientes-cadastrados', 'DIA', DATE_TRUNC('DAY', data_cadastro), COUNT(*)
+FROM clientes WHERE data_cadastro IS NOT NULL GROUP BY DATE_TRUNC('DAY', data_cadastro);
+
+INSERT INTO metricas_serie (metrica, granularidade, inicio, total)
+SELECT 'produtos-criados', 'MINUTO', DATE_TRUNC('MINUTE', data_criacao), COUNT(*)
+FROM produtos WHERE data_criacao IS NOT NULL GROUP BY DATE_TRUNC('MINUTE', data_criacao);
+
+INSERT INTO metricas_serie (metrica, granularidade, inicio, total)
+SELECT 'produtos-criados', 'HORA', DATE_TRUNC('HOUR', data_criacao), COUNT(*)
+FROM produtos WHERE data_criacao IS NOT NULL GROUP BY DATE_TRUNC('HOUR', data_criacao);
+
+INSERT INTO metricas_serie (metrica, granularidade, inicio, total)
+SELECT 'produtos-criados', 'DIA', DATE_TRUNC('DAY', data_criacao), COUNT(*)
+FROM produtos WHERE data_criacao IS NOT NULL GROUP BY DATE_TRUNC('DAY', data_criacao);
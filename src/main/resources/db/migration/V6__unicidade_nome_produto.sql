@@ -0,0 +1,14 @@
+-- Nome de produto passa a ser único também no banco: a verificação em memória
+-- (UnicidadeIndex) pode pular o existsByNome, e a restrição decide em caso de corrida
+
+-- Bases antigas podem ter nomes repetidos: o produto mais antigo mantém o nome e os
+-- demais recebem o próprio id como sufixo ("Caneca" -> "Caneca (42)"), cortando o
+-- nome se preciso para caber nas 100 posições
+UPDATE produtos p
+SET nome = LEFT(p.nome, 100 - LENGTH(' (' || p.id || ')')) || ' (' || p.id || ')',
+    versao = p.versao + 1
+WHERE EXISTS (SELECT 1 FROM produtos o WHERE o.nome = p.nome AND o.id < p.id);
+
+DROP INDEX idx_produtos_nome;
+
+ALTER TABLE produtos ADD CONSTRAINT uk_produtos_nome UNIQUE (nome);
@@ -0,0 +1,5 @@
+-- Reconciliação das versões (VersoesRecursos): COUNT(*), MAX(id) e MAX(data_atualizacao)
+-- a cada intervalo saem dos índices, sem varrer as tabelas
+CREATE INDEX idx_produtos_data_atualizacao ON produtos (data_atualizacao);
+
+CREATE INDEX idx_clientes_data_atualizacao ON clientes (data_atualizacao);
@@ -0,0 +1,154 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.AjusteEstoque;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ResumoAjusteEstoque;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.EstoqueQuente;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes de Ajuste de Estoque em Lote")
+class AjusteEstoqueLoteTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private EstoqueQuente estoqueQuente;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private Produto criar(String nome, int estoque) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal("10.00"));
+                produto.setQuantidadeEstoque(estoque);
+                return produtoService.criarProduto(produto);
+        }
+
+        private int estoque(Produto produto) {
+                return produtoRepository.findEstoqueById(produto.getId()).orElseThrow().getQuantidadeEstoque();
+        }
+
+        @Test
+        @DisplayName("Ajuste em lote deve aplicar válidos e reportar inexistentes e violações")
+        void testAjusteEmLote() throws Exception {
+                Produto a = criar("Produto A", 10);
+                Produto b = criar("Produto B", 5);
+                Produto c = criar("Produto C", 2);
+
+                String corpo = "["
+                                + "{\"id\":" + a.getId() + ",\"quantidade\":50},"
+                                + "{\"id\":" + b.getId() + ",\"delta\":-3},"
+                                + "{\"id\":" + b.getId() + ",\"delta\":1},"
+                                + "{\"id\":" + c.getId() + ",\"delta\":-5},"
+                                + "{\"id\":999999,\"delta\":1},"
+                                + "{\"id\":" + a.getId() + "},"
+                                + "{\"quantidade\":1}"
+                                + "]";
+
+                mockMvc.perform(patch("/api/produtos/estoque").contentType(MediaType.APPLICATION_JSON).content(corpo)
+                                .header("Authorization", "Bearer " + jwtService.generateToken("admin", "ADMIN")))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.recebidos").value(7))
+                                .andExpect(jsonPath("$.atualizados").value(2))
+                                .andExpect(jsonPath("$.naoEncontrados", hasSize(1)))
+                                .andExpect(jsonPath("$.naoEncontrados[0]").value(999999))
+                                .andExpect(jsonPath("$.violacoes", hasSize(3)));
+
+                assertEquals(50, estoque(a));
+                assertEquals(3, estoque(b));
+                assertEquals(2, estoque(c)); // Variação recusada não altera nada
+        }
+
+        @Test
+        @DisplayName("Deltas combinados fora do intervalo de int devem ser reportados, sem derrubar o lote")
+        void testDeltaCombinadoForaDoIntervalo() {
+                Produto a = criar("Produto A", 10);
+                Produto b = criar("Produto B", 5);
+
+                ResumoAjusteEstoque resumo = produtoService.ajustarEstoqueEmLote(List.of(
+                                new AjusteEstoque(a.getId(), null, Integer.MAX_VALUE),
+                                new AjusteEstoque(a.getId(), null, Integer.MAX_VALUE),
+                                new AjusteEstoque(b.getId(), null, -2)));
+
+                assertEquals(1, resumo.getAtualizados());
+                assertEquals(1, resumo.getViolacoes().size());
+                assertTrue(resumo.getViolacoes().get(0).contains("fora do intervalo"));
+                assertEquals(10, estoque(a));
+                assertEquals(3, estoque(b));
+        }
+
+        @Test
+        @DisplayName("Ajustes de produtos quentes não devem sobreviver a um lote revertido")
+        void testAjusteQuenteDesfeitoAoReverter() {
+                Produto a = criar("Produto A", 10);
+                Produto b = criar("Produto B", 20);
+                assertTrue(estoqueQuente.ativar(a.getId()));
+                assertTrue(estoqueQuente.ativar(b.getId()));
+                try {
+                        List<AjusteEstoque> ajustes = List.of(new AjusteEstoque(a.getId(), null, -4),
+                                        new AjusteEstoque(b.getId(), 7, null));
+
+                        transactionTemplate.executeWithoutResult(status -> {
+                                assertEquals(2, produtoService.ajustarEstoqueEmLote(ajustes).getAtualizados());
+                                status.setRollbackOnly();
+                        });
+                        assertEquals(10, estoqueQuente.saldo(a.getId()));
+                        assertEquals(20, estoqueQuente.saldo(b.getId()));
+
+                        produtoService.ajustarEstoqueEmLote(ajustes);
+                        assertEquals(6, estoqueQuente.saldo(a.getId()));
+                        assertEquals(7, estoqueQuente.saldo(b.getId()));
+                } finally {
+                        estoqueQuente.desativar(a.getId());
+                        estoqueQuente.desativar(b.getId());
+                }
+        }
+
+        @Test
+        @DisplayName("Ajuste em lote deve ser restrito a ADMIN")
+        void testAjusteEmLoteNegadoParaUser() throws Exception {
+                mockMvc.perform(patch("/api/produtos/estoque").contentType(MediaType.APPLICATION_JSON).content("[]")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER")))
+                                .andExpect(status().isForbidden());
+        }
+}
@@ -0,0 +1,189 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.model.ResultadoPorIds;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes da Busca por Vários IDs")
+class BuscaPorIdsTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private DadosTeste dados;
+
+        @AfterEach
+        void cleanup() {
+                dados.limpar();
+        }
+
+        private String token() {
+                return "Bearer " + jwtService.generateToken("user", "USER");
+        }
+
+        private long criarProduto(String nome) {
+                return dados.criarProduto(nome, "10.00", 3, null).getId();
+        }
+
+        private long criarCliente(String nome) {
+                Cliente cliente = new Cliente();
+                cliente.setNome(nome);
+                cliente.setEmail("ids-" + System.nanoTime() + "@teste.com");
+                return dados.criarCliente(cliente).getId();
+        }
+
+        private static List<Long> ids(JsonNode itens) {
+                List<Long> ids = new ArrayList<>();
+                itens.forEach(item -> ids.add(item.get("id").asLong()));
+                return ids;
+        }
+
+        private static List<Long> valores(JsonNode lista) {
+                List<Long> valores = new ArrayList<>();
+                lista.forEach(valor -> valores.add(valor.asLong()));
+                return valores;
+        }
+
+        @Test
+        @DisplayName("GET com ids deve manter a ordem pedida e listar os ausentes")
+        void testBuscaProdutosPorIdsNaOrdem() throws Exception {
+                long a = criarProduto("Mouse");
+                long b = criarProduto("Teclado");
+                long c = criarProduto("Monitor");
+                long inexistente = c + 1_000_000;
+
+                String corpo = mockMvc.perform(get("/api/produtos")
+                                .param("ids", c + "," + inexistente + "," + a + "," + b + "," + c)
+                                .header("Authorization", token()))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                JsonNode resposta = objectMapper.readTree(corpo);
+                assertEquals(List.of(c, a, b), ids(resposta.get("itens")));
+                assertEquals(List.of(inexistente), valores(resposta.get("naoEncontrados")));
+                assertEquals(3, resposta.get("itens").get(1).get("quantidadeEstoque").asInt());
+        }
+
+        @Test
+        @DisplayName("A busca por ids deve fazer um único SELECT em produtos")
+        void testBuscaPorIdsEmUmaConsulta() {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                        ids.add(criarProduto("Item " + i));
+                }
+
+                SqlCapturadoInspector.iniciar();
+                ResultadoPorIds<Produto> resultado = produtoService.buscarProdutosPorIds(ids);
+                List<String> sqls = SqlCapturadoInspector.parar().stream()
+                                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                                .filter(sql -> sql.startsWith("select") && sql.contains("from produtos"))
+                                .collect(Collectors.toList());
+
+                assertEquals(5, resultado.getItens().size());
+                assertTrue(resultado.getNaoEncontrados().isEmpty());
+                assertEquals(1, sqls.size(), "SELECTs: " + sqls);
+        }
+
+        @Test
+        @DisplayName("POST por-ids deve aceitar a lista no corpo")
+        void testBuscaProdutosPorIdsNoCorpo() throws Exception {
+                long a = criarProduto("Cabo");
+                long b = criarProduto("Fone");
+
+                String corpo = mockMvc.perform(post("/api/produtos/por-ids")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(List.of(b, a)))
+                                .header("Authorization", token()))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+
+                JsonNode resposta = objectMapper.readTree(corpo);
+                assertEquals(List.of(b, a), ids(resposta.get("itens")));
+                assertEquals(0, resposta.get("naoEncontrados").size());
+        }
+
+        @Test
+        @DisplayName("Ids inválidos, lista vazia ou acima do limite devem retornar 400")
+        void testBuscaPorIdsInvalida() throws Exception {
+                mockMvc.perform(get("/api/produtos").param("ids", "1,abc").header("Authorization", token()))
+                                .andExpect(status().isBadRequest());
+
+                mockMvc.perform(post("/api/produtos/por-ids")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[]")
+                                .header("Authorization", token()))
+                                .andExpect(status().isBadRequest());
+
+                List<Long> muitos = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+                mockMvc.perform(post("/api/produtos/por-ids")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(muitos))
+                                .header("Authorization", token()))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Clientes também devem ser buscados por vários ids via GET e POST")
+        void testBuscaClientesPorIds() throws Exception {
+                long a = criarCliente("Ana");
+                long b = criarCliente("Bruno");
+                long inexistente = b + 1_000_000;
+
+                String corpoGet = mockMvc.perform(get("/api")
+                                .param("ids", b + "," + a + "," + inexistente)
+                                .header("Authorization", token()))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                JsonNode respostaGet = objectMapper.readTree(corpoGet);
+                assertEquals(List.of(b, a), ids(respostaGet.get("itens")));
+                assertEquals(List.of(inexistente), valores(respostaGet.get("naoEncontrados")));
+
+                String corpoPost = mockMvc.perform(post("/api/por-ids")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(List.of(a, inexistente)))
+                                .header("Authorization", token()))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                JsonNode respostaPost = objectMapper.readTree(corpoPost);
+                assertEquals(List.of(a), ids(respostaPost.get("itens")));
+                assertEquals("Ana", respostaPost.get("itens").get(0).get("nome").asText());
+                assertEquals(List.of(inexistente), valores(respostaPost.get("naoEncontrados")));
+        }
+}
@@ -0,0 +1,79 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Testes de Busca por Nome - Índice de Trigramas")
+class BuscaPorNomeTest {
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private Produto criar(String nome) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal("10.00"));
+                produto.setQuantidadeEstoque(1);
+                return produtoService.criarProduto(produto);
+        }
+
+        private List<String> nomes(List<Produto> produtos) {
+                return produtos.stream().map(Produto::getNome).collect(Collectors.toList());
+        }
+
+        @Test
+        @DisplayName("Índice deve acompanhar criação, atualização e remoção de produtos")
+        void testIndiceAcompanhaAlteracoes() {
+                Produto notebook = criar("Notebook Gamer");
+                criar("Suporte para notebook");
+
+                assertEquals(List.of("Notebook Gamer", "Suporte para notebook"),
+                                nomes(produtoService.buscarProdutosPorNome("note")));
+
+                Produto alteracao = new Produto();
+                alteracao.setNome("Ultrabook");
+                produtoService.atualizarProduto(notebook.getId(), alteracao);
+                assertEquals(List.of("Suporte para notebook"), nomes(produtoService.buscarProdutosPorNome("note")));
+                assertEquals(List.of("Ultrabook"), nomes(produtoService.buscarProdutosPorNome("book")).subList(0, 1));
+
+                produtoService.deletarProduto(notebook.getId());
+                assertTrue(produtoService.buscarProdutosPorNome("ultra").isEmpty());
+        }
+
+        @Test
+        @DisplayName("Busca paginada deve informar o total de resultados")
+        void testBuscaPaginada() {
+                for (int i = 0; i < 5; i++) {
+                        criar("Cabo HDMI " + i);
+                }
+
+                Page<Produto> pagina = produtoService.buscarProdutosPorNome("hdmi", 1, 2);
+
+                assertEquals(5, pagina.getTotalElements());
+                assertEquals(2, pagina.getContent().size());
+        }
+}
@@ -0,0 +1,85 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes de Busca de Produtos por Faixa de Preço")
+class BuscaPorPrecoTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private Produto criar(String nome, String preco, String categoria) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal(preco));
+                produto.setQuantidadeEstoque(1);
+                produto.setCategoria(categoria);
+                return produtoService.criarProduto(produto);
+        }
+
+        @Test
+        @DisplayName("Faixa de preço deve paginar, filtrar por categoria e refletir alterações de preço")
+        void testFaixaDePreco() throws Exception {
+                criar("Caneta", "3.50", "Papelaria");
+                criar("Caderno", "25.00", "Papelaria");
+                Produto mochila = criar("Mochila", "120.00", "Acessórios");
+                criar("Estojo", "18.90", "Papelaria");
+                String token = "Bearer " + jwtService.generateToken("user", "USER");
+
+                mockMvc.perform(get("/api/produtos/preco").param("precoMin", "1").param("precoMax", "100")
+                                .param("categoria", "Papelaria").param("pagina", "0").param("tamanho", "2")
+                                .header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("X-Total-Count", "3"))
+                                .andExpect(jsonPath("$", hasSize(2)))
+                                .andExpect(jsonPath("$[0].nome").value("Caneta"))
+                                .andExpect(jsonPath("$[1].nome").value("Estojo"));
+
+                Produto alteracao = new Produto();
+                alteracao.setPreco(new BigDecimal("99.00"));
+                produtoService.atualizarProduto(mochila.getId(), alteracao);
+
+                mockMvc.perform(get("/api/produtos/preco").param("precoMin", "20").param("precoMax", "100")
+                                .header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(2)))
+                                .andExpect(jsonPath("$[0].nome").value("Caderno"))
+                                .andExpect(jsonPath("$[1].nome").value("Mochila"));
+        }
+}
@@ -0,0 +1,70 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.service.ClienteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Testes do Agregado Diário de Cadastros de Clientes")
+class CadastroDiarioTest {
+
+        @Autowired
+        private ClienteService clienteService;
+
+        private final List<Long> criados = new ArrayList<>();
+
+        @AfterEach
+        void cleanup() {
+                for (Long id : criados) {
+                        if (clienteService.buscarClientePorId(id).isPresent()) {
+                                clienteService.deletarCliente(id);
+                        }
+                }
+        }
+
+        private Cliente criar(String email) {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente " + email);
+                cliente.setEmail(email);
+                Cliente novo = clienteService.criarCliente(cliente);
+                criados.add(novo.getId());
+                return novo;
+        }
+
+        @Test
+        @DisplayName("Criação e remoção de clientes devem manter a contagem do dia")
+        void testContagemDoDiaAcompanhaCriacaoERemocao() {
+                long antes = clienteService.contarClientesCadastradosHoje();
+
+                Cliente primeiro = criar("diario1@teste.com");
+                criar("diario2@teste.com");
+                assertEquals(antes + 2, clienteService.contarClientesCadastradosHoje());
+
+                clienteService.deletarCliente(primeiro.getId());
+                assertEquals(antes + 1, clienteService.contarClientesCadastradosHoje());
+        }
+
+        @Test
+        @DisplayName("Contagem por período deve somar os dias do intervalo")
+        void testContagemPorPeriodo() {
+                LocalDate hoje = LocalDate.now();
+                long antes = clienteService.contarClientesCadastradosPorPeriodo(hoje.minusDays(7), hoje);
+
+                criar("periodo1@teste.com");
+
+                assertEquals(antes + 1, clienteService.contarClientesCadastradosPorPeriodo(hoje.minusDays(7), hoje));
+                assertEquals(0, clienteService.contarClientesCadastradosPorPeriodo(hoje.plusDays(1), hoje.plusDays(2)));
+        }
+}
@@ -0,0 +1,185 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.service.CamposParciais;
+import com.example.autheticuser.service.ConsultasCompartilhadas;
+import com.example.autheticuser.service.EstoqueQuente;
+import com.example.autheticuser.service.JwtService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes de Respostas com Campos Selecionados (fields=)")
+class CamposParciaisTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private CamposParciais camposParciais;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private EstoqueQuente estoqueQuente;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Autowired
+        private DadosTeste dados;
+
+        @AfterEach
+        void cleanup() {
+                dados.limpar();
+        }
+
+        private ResultActions consultar(String url, Object... variaveis) throws Exception {
+                return mockMvc.perform(get(url, variaveis)
+                                .header("Authorization", "Bearer " + jwtService.generateToken("admin", "ADMIN")));
+        }
+
+        private JsonNode json(ResultActions resultado) throws Exception {
+                return objectMapper.readTree(resultado.andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        }
+
+        private Produto criarProduto(String nome, String preco, String categoria) {
+                Produto produto = dados.novoProduto(nome, preco, 7, categoria);
+                produto.setDescricao("Descrição longa de " + nome + " ".repeat(200) + "fim");
+                return dados.criarProduto(produto);
+        }
+
+        private static List<String> nomesDosCampos(JsonNode objeto) {
+                List<String> nomes = new ArrayList<>();
+                objeto.fieldNames().forEachRemaining(nomes::add);
+                return nomes;
+        }
+
+        @Test
+        @DisplayName("Somente os campos pedidos (mais o id) devem ser lidos e retornados")
+        void testProdutoComCamposSelecionados() throws Exception {
+                Produto produto = criarProduto("Mouse", "59.90", "Periféricos");
+
+                JsonNode parcial = json(consultar("/api/produtos/{id}?fields=preco,nome", produto.getId()));
+                assertEquals(List.of("id", "nome", "preco"), nomesDosCampos(parcial));
+                assertEquals(produto.getNome(), parcial.get("nome").asText());
+                assertEquals(0, new BigDecimal("59.90").compareTo(parcial.get("preco").decimalValue()));
+
+                String completo = consultar("/api/produtos/{id}", produto.getId()).andReturn().getResponse().getContentAsString();
+                String reduzido = consultar("/api/produtos/{id}?fields=nome,preco", produto.getId()).andReturn().getResponse().getContentAsString();
+                assertTrue(reduzido.length() * 3 < completo.length(), reduzido + " / " + completo);
+        }
+
+        @Test
+        @DisplayName("Cada combinação de campos deve ser compilada uma vez, com apenas as colunas pedidas")
+        void testSelecaoCompiladaEReaproveitada() {
+                CamposParciais.Selecao selecao = camposParciais.selecionar(CamposParciais.Recurso.PRODUTOS, "preco, nome");
+
+                assertEquals("id, nome, preco", selecao.getColunas());
+                assertSame(selecao, camposParciais.selecionar(CamposParciais.Recurso.PRODUTOS, "nome,preco,id"));
+                assertThrows(IllegalArgumentException.class,
+                                () -> camposParciais.selecionar(CamposParciais.Recurso.PRODUTOS, "nome,senha"));
+        }
+
+        @Test
+        @DisplayName("Campo desconhecido deve retornar 400")
+        void testCampoDesconhecido() throws Exception {
+                consultar("/api/produtos?fields=nome,inexistente").andExpect(status().isBadRequest());
+                consultar("/api?fields=senha").andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("fields deve valer também para busca por ids, categoria e faixa de preço paginada")
+        void testCamposEmBuscas() throws Exception {
+                String categoria = "Campos " + System.nanoTime();
+                Produto barato = criarProduto("Cabo", "5.00", categoria);
+                Produto caro = criarProduto("Monitor", "900.00", categoria);
+                long inexistente = caro.getId() + 1_000_000;
+
+                JsonNode porIds = json(consultar("/api/produtos?ids={ids}&fields=nome",
+                                caro.getId() + "," + inexistente + "," + barato.getId()));
+                assertEquals(caro.getId(), porIds.get("itens").get(0).get("id").asLong());
+                assertEquals(barato.getNome(), porIds.get("itens").get(1).get("nome").asText());
+                assertEquals(List.of("id", "nome"), nomesDosCampos(porIds.get("itens").get(0)));
+                assertEquals(inexistente, porIds.get("naoEncontrados").get(0).asLong());
+
+                JsonNode porCategoria = json(consultar("/api/produtos/categoria/{categoria}?fields=categoria", categoria));
+                assertEquals(2, porCategoria.size());
+                assertEquals(List.of("id", "categoria"), nomesDosCampos(porCategoria.get(0)));
+
+                JsonNode pagina = json(consultar("/api/produtos/preco?precoMin=1&precoMax=1000&categoria={categoria}"
+                                + "&pagina=0&tamanho=1&fields=preco", categoria)
+                                .andExpect(header().string("X-Total-Count", "2")));
+                assertEquals(1, pagina.size());
+                assertEquals(barato.getId(), pagina.get(0).get("id").asLong());
+        }
+
+        @Test
+        @DisplayName("Com fields, o estoque de produto quente e a execução compartilhada seguem as listas completas")
+        void testCamposSeguemRegrasDaEntidade() throws Exception {
+                String categoria = "Quente " + System.nanoTime();
+                Produto produto = criarProduto("Ingresso", "80.00", categoria);
+                assertTrue(estoqueQuente.ativar(produto.getId()));
+                try {
+                        estoqueQuente.reservar(produto.getId(), 3);
+
+                        JsonNode completo = json(consultar("/api/produtos/{id}", produto.getId()));
+                        JsonNode parcial = json(consultar("/api/produtos/{id}?fields=quantidadeEstoque", produto.getId()));
+                        assertEquals(4, completo.get("quantidadeEstoque").asInt());
+                        assertEquals(4, parcial.get("quantidadeEstoque").asInt());
+
+                        double antes = meterRegistry.counter(ConsultasCompartilhadas.METRICA, "operacao", "campos-categoria",
+                                        "resultado", "executada").count();
+                        JsonNode lista = json(consultar("/api/produtos/categoria/{categoria}?fields=quantidadeEstoque", categoria));
+                        assertEquals(4, lista.get(0).get("quantidadeEstoque").asInt());
+                        assertEquals(antes + 1, meterRegistry.counter(ConsultasCompartilhadas.METRICA, "operacao",
+                                        "campos-categoria", "resultado", "executada").count());
+                } finally {
+                        estoqueQuente.desativar(produto.getId());
+                }
+        }
+
+        @Test
+        @DisplayName("Datas devem sair no mesmo formato da entidade completa")
+        void testClienteComDatas() throws Exception {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente Campos");
+                cliente.setEmail("campos-" + System.nanoTime() + "@teste.com");
+                cliente.setEndereco("Rua Longa, 1000");
+                Cliente criado = dados.criarCliente(cliente);
+
+                JsonNode completo = json(consultar("/api/{id}", criado.getId()));
+                JsonNode parcial = json(consultar("/api/email/{email}?fields=nome,dataCadastro", criado.getEmail()));
+
+                assertEquals(List.of("id", "nome", "dataCadastro"), nomesDosCampos(parcial));
+                assertEquals(completo.get("dataCadastro"), parcial.get("dataCadastro"));
+                consultar("/api/email/{email}?fields=nome", "ninguem-" + System.nanoTime() + "@teste.com")
+                                .andExpect(status().isNotFound());
+        }
+}
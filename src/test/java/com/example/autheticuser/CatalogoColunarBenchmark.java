@@ -0,0 +1,132 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.service.ColunasProdutos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregados do catálogo: cópia colunar em memória x GROUP BY no H2.
+ *
+ * Executar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.autheticuser.CatalogoColunarBenchmark
+ * (ou pelo método main na IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogoColunarBenchmark {
+
+    private static final String[] CATEGORIAS = {"Eletrônicos", "Livros", "Jogos", "Casa", "Esporte", "Moda",
+            "Brinquedos", "Beleza", "Automotivo", "Papelaria"};
+
+    @Param({"100000", "1000000"})
+    private int produtos;
+
+    // OPTIMIZE_REUSE_RESULTS=FALSE: sem isso o H2 devolve o resultado em cache, já que a tabela não muda
+    private Connection conexao;
+    private ColunasProdutos colunas;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        conexao = DriverManager.getConnection("jdbc:h2:mem:benchmark-colunar;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+        try (Statement statement = conexao.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS produtos");
+            statement.execute("CREATE TABLE produtos (id BIGINT PRIMARY KEY, preco NUMERIC(10, 2) NOT NULL, "
+                    + "quantidade_estoque INTEGER NOT NULL, categoria VARCHAR(50))");
+            statement.execute("CREATE INDEX idx_produtos_categoria ON produtos (categoria)");
+        }
+
+        colunas = new ColunasProdutos();
+        Random random = new Random(42);
+        conexao.setAutoCommit(false);
+        try (PreparedStatement insert = conexao.prepareStatement("INSERT INTO produtos VALUES (?, ?, ?, ?)")) {
+            for (int id = 1; id <= produtos; id++) {
+                BigDecimal preco = BigDecimal.valueOf(100 + random.nextInt(500_000), 2);
+                int estoque = random.nextInt(1_000);
+                String categoria = CATEGORIAS[random.nextInt(CATEGORIAS.length)];
+
+                insert.setLong(1, id);
+                insert.setBigDecimal(2, preco);
+                insert.setInt(3, estoque);
+                insert.setString(4, categoria);
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+                colunas.gravar(id, preco, estoque, categoria, 0);
+            }
+            insert.executeBatch();
+        }
+        conexao.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws SQLException {
+        conexao.close();
+    }
+
+    @Benchmark
+    public void valorPorCategoriaSql(Blackhole blackhole) throws SQLException {
+        try (Statement statement = conexao.createStatement();
+                ResultSet resultado = statement.executeQuery("SELECT categoria, COUNT(*), SUM(quantidade_estoque), "
+                        + "SUM(preco * quantidade_estoque) FROM produtos GROUP BY categoria")) {
+            while (resultado.next()) {
+                blackhole.consume(resultado.getString(1));
+                blackhole.consume(resultado.getBigDecimal(4));
+            }
+        }
+    }
+
+    @Benchmark
+    public void agregadosCompletosSql(Blackhole blackhole) throws SQLException {
+        valorPorCategoriaSql(blackhole);
+        try (Statement statement = conexao.createStatement();
+                ResultSet resultado = statement.executeQuery("SELECT MIN(preco), MAX(preco), AVG(preco), "
+                        + "PERCENTILE_DISC(0.5) WITHIN GROUP (ORDER BY preco), "
+                        + "PERCENTILE_DISC(0.9) WITHIN GROUP (ORDER BY preco), "
+                        + "PERCENTILE_DISC(0.99) WITHIN GROUP (ORDER BY preco) FROM produtos")) {
+            resultado.next();
+            blackhole.consume(resultado.getBigDecimal(4));
+        }
+    }
+
+    @Benchmark
+    public void agregadosCompletosColunar(Blackhole blackhole) {
+        ColunasProdutos.Agregados agregados = colunas.agregar(null);
+        blackhole.consume(agregados.getPorCategoria());
+        blackhole.consume(agregados.getPrecos());
+        blackhole.consume(agregados.getHistogramaEstoque());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CatalogoColunarBenchmark.class.getSimpleName()).build()).run();
+    }
+}
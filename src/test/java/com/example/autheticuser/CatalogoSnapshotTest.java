@@ -0,0 +1,229 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.service.CatalogoSnapshot;
+import com.example.autheticuser.service.EstoqueQuente;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes do Snapshot Serializado do Catálogo")
+class CatalogoSnapshotTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private EstoqueQuente estoqueQuente;
+
+        @Autowired
+        private DadosTeste dados;
+
+        @AfterEach
+        void cleanup() {
+                dados.limpar();
+        }
+
+        private MockHttpServletResponse consultar(MockHttpServletRequestBuilder requisicao) throws Exception {
+                return mockMvc.perform(requisicao.header("Authorization", "Bearer " + jwtService.generateToken("admin", "ADMIN")))
+                                .andReturn().getResponse();
+        }
+
+        private Produto criarProduto(String nome, String categoria, int estoque) {
+                Produto produto = dados.novoProduto(nome, "19.90", estoque, categoria);
+                produto.setDescricao("Descrição de " + nome + " com acentuação");
+                return dados.criarProduto(produto);
+        }
+
+        // O snapshot é montado em segundo plano logo após cada alteração
+        private void aguardar(BooleanSupplier condicao) throws InterruptedException {
+                long limite = System.currentTimeMillis() + 5000;
+                while (!condicao.getAsBoolean()) {
+                        assertTrue(System.currentTimeMillis() < limite, "Snapshot do catálogo não ficou em dia");
+                        Thread.sleep(10);
+                }
+        }
+
+        private void aguardarSnapshot() throws InterruptedException {
+                aguardar(() -> produtoService.buscarTodosSerializados().isPresent());
+        }
+
+        @Test
+        @DisplayName("Lista por categoria deve sair do snapshot sem SQL e igual à serialização normal")
+        void testCategoriaServidaDoSnapshot() throws Exception {
+                String categoria = "Snapshot " + System.nanoTime();
+                criarProduto("Caneta", categoria, 40);
+                criarProduto("Lápis", categoria, 40);
+                aguardarSnapshot();
+
+                SqlCapturadoInspector.iniciar();
+                MockHttpServletResponse resposta = consultar(get("/api/produtos/categoria/{categoria}", categoria));
+                List<String> sqls = SqlCapturadoInspector.parar();
+
+                assertEquals(200, resposta.getStatus());
+                assertTrue(sqls.stream().map(sql -> sql.toLowerCase(Locale.ROOT)).noneMatch(sql -> sql.contains("from produtos")),
+                                "SELECTs: " + sqls);
+                String esperado = new String(objectMapper.writeValueAsBytes(produtoService.buscarProdutosPorCategoria(categoria)),
+                                StandardCharsets.UTF_8);
+                assertEquals(esperado, new String(resposta.getContentAsByteArray(), StandardCharsets.UTF_8));
+                assertEquals("[]", consultar(get("/api/produtos/categoria/{categoria}", categoria + " inexistente"))
+                                .getContentAsString());
+        }
+
+        @Test
+        @DisplayName("Uma leitura logo após a escrita deve enxergar a alteração")
+        void testLeituraAposEscrita() throws Exception {
+                String categoria = "Snapshot " + System.nanoTime();
+                Produto produto = criarProduto("Borracha", categoria, 40);
+                aguardarSnapshot();
+
+                produto.setNome("Borracha Renomeada " + System.nanoTime());
+                produtoService.atualizarProduto(produto.getId(), produto);
+
+                JsonNode lista = objectMapper.readTree(consultar(get("/api/produtos/categoria/{categoria}", categoria))
+                                .getContentAsByteArray());
+                assertEquals(produto.getNome(), lista.get(0).get("nome").asText());
+
+                aguardarSnapshot();
+                JsonNode todos = objectMapper.readTree(consultar(get("/api/produtos")).getContentAsByteArray());
+                List<String> nomes = new ArrayList<>();
+                todos.forEach(item -> nomes.add(item.get("nome").asText()));
+                assertTrue(nomes.contains(produto.getNome()));
+        }
+
+        @Test
+        @DisplayName("Com Accept-Encoding gzip a lista deve ir comprimida, com ETag fraca")
+        void testListaComprimida() throws Exception {
+                String categoria = "Snapshot " + System.nanoTime();
+                criarProduto("Régua", categoria, 40);
+                aguardarSnapshot();
+
+                MockHttpServletResponse normal = consultar(get("/api/produtos/categoria/{categoria}", categoria));
+                MockHttpServletResponse comprimida = consultar(get("/api/produtos/categoria/{categoria}", categoria)
+                                .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8"));
+
+                assertEquals("gzip", comprimida.getHeader(HttpHeaders.CONTENT_ENCODING));
+                assertEquals(HttpHeaders.ACCEPT_ENCODING, comprimida.getHeader(HttpHeaders.VARY));
+                assertEquals("W/" + normal.getHeader(HttpHeaders.ETAG), comprimida.getHeader(HttpHeaders.ETAG));
+                try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(comprimida.getContentAsByteArray()))) {
+                        assertArrayEquals(normal.getContentAsByteArray(), entrada.readAllBytes());
+                }
+
+                MockHttpServletResponse recusada = consultar(get("/api/produtos/categoria/{categoria}", categoria)
+                                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"));
+                assertNull(recusada.getHeader(HttpHeaders.CONTENT_ENCODING));
+                assertEquals(304, consultar(get("/api/produtos/categoria/{categoria}", categoria)
+                                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                                .header(HttpHeaders.IF_NONE_MATCH, comprimida.getHeader(HttpHeaders.ETAG))).getStatus());
+        }
+
+        @Test
+        @DisplayName("Estoque baixo deve acompanhar reservas feitas com UPDATE direto")
+        void testEstoqueBaixoAposReserva() throws Exception {
+                Produto produto = criarProduto("Grampeador", null, 30);
+                consultar(post("/api/produtos/{id}/reservar", produto.getId()).param("quantidade", "25"));
+                aguardarSnapshot();
+
+                JsonNode lista = objectMapper.readTree(consultar(get("/api/produtos/estoque-baixo")).getContentAsByteArray());
+                JsonNode encontrado = null;
+                for (JsonNode item : lista) {
+                        if (item.get("id").asLong() == produto.getId()) {
+                                encontrado = item;
+                        }
+                }
+                assertNotNull(encontrado, "Produto com 5 unidades fora da lista de estoque baixo");
+                assertEquals(5, encontrado.get("quantidadeEstoque").asInt());
+        }
+
+        @Test
+        @DisplayName("Reservas e saldos em memória atualizam o snapshot na hora, sem tirá-lo de uso")
+        void testEstoqueSemReleitura() throws Exception {
+                String categoria = "Snapshot " + System.nanoTime();
+                Produto comum = criarProduto("Fita", categoria, 40);
+                Produto quente = criarProduto("Cola", categoria, 40);
+                aguardarSnapshot();
+                produtoService.reservarEstoque(comum.getId(), 3);
+
+                // UPDATE direto: o evento já traz versão e data, o snapshot é refeito na hora e segue em uso
+                assertTrue(produtoService.buscarSerializadosPorCategoria(categoria).isPresent());
+                SqlCapturadoInspector.iniciar();
+                MockHttpServletResponse resposta = consultar(get("/api/produtos/categoria/{categoria}", categoria));
+                List<String> sqls = SqlCapturadoInspector.parar();
+                assertTrue(sqls.stream().map(sql -> sql.toLowerCase(Locale.ROOT)).noneMatch(sql -> sql.contains("from produtos")),
+                                "SELECTs: " + sqls);
+                JsonNode lista = objectMapper.readTree(resposta.getContentAsByteArray());
+                assertEquals(37, lista.get(0).get("quantidadeEstoque").asInt());
+                assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(
+                                produtoService.buscarProdutoPorId(comum.getId()).orElseThrow())), lista.get(0));
+
+                // Saldo em memória: chega pela thread de registro, também sem tirar o snapshot de uso
+                assertTrue(estoqueQuente.ativar(quente.getId()));
+                try {
+                        produtoService.reservarEstoque(quente.getId(), 5);
+                        estoqueQuente.registrar();
+                        aguardar(() -> {
+                                Optional<CatalogoSnapshot.Corpo> corpo = produtoService.buscarSerializadosPorCategoria(categoria);
+                                assertTrue(corpo.isPresent(), "Snapshot fora de uso após um evento de estoque");
+                                return new String(corpo.get().json(), StandardCharsets.UTF_8).contains("\"quantidadeEstoque\":35");
+                        });
+                } finally {
+                        estoqueQuente.desativar(quente.getId());
+                }
+        }
+
+        @Test
+        @DisplayName("Outros formatos no Accept continuam passando pelos conversores")
+        void testCborForaDoSnapshot() throws Exception {
+                String categoria = "Snapshot " + System.nanoTime();
+                criarProduto("Clips", categoria, 40);
+                criarProduto("Pasta", categoria, 40);
+                aguardarSnapshot();
+
+                MockHttpServletResponse resposta = consultar(get("/api/produtos/categoria/{categoria}", categoria)
+                                .accept(MediaType.APPLICATION_CBOR)
+                                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+
+                assertTrue(MediaType.APPLICATION_CBOR.isCompatibleWith(MediaType.parseMediaType(resposta.getContentType())));
+                assertNull(resposta.getHeader(HttpHeaders.CONTENT_ENCODING));
+                assertEquals(2, new ObjectMapper(new CBORFactory()).readTree(resposta.getContentAsByteArray()).size());
+        }
+}
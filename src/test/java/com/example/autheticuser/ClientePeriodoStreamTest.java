@@ -0,0 +1,164 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.JwtService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes do Stream de Clientes por Período")
+class ClientePeriodoStreamTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ClienteService clienteService;
+
+        @Autowired
+        private ClienteRepository clienteRepository;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        private final List<Long> criados = new ArrayList<>();
+
+        @AfterEach
+        void cleanup() {
+                criados.stream().filter(clienteRepository::existsById).forEach(clienteService::deletarCliente);
+        }
+
+        private void criar(String email) {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente " + email);
+                cliente.setEmail(email);
+                cliente.setTelefone("11999990000");
+                criados.add(clienteService.criarCliente(cliente).getId());
+        }
+
+        private JsonNode transmitir(LocalDateTime inicio, LocalDateTime fim) throws Exception {
+                MvcResult resultado = mockMvc.perform(get("/api/periodo/stream")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("admin", "ADMIN"))
+                                .param("dataInicio", inicio.toString())
+                                .param("dataFim", fim.toString()))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                String corpo = mockMvc.perform(asyncDispatch(resultado))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+                return objectMapper.readTree(corpo);
+        }
+
+        @Test
+        @DisplayName("Stream deve devolver os mesmos clientes de /periodo e registrar as métricas")
+        void testStreamIgualAoPeriodo() throws Exception {
+                criar("periodo1@teste.com");
+                criar("periodo2@teste.com");
+                criar("periodo3@teste.com");
+                LocalDateTime inicio = LocalDateTime.now().minusHours(1);
+                LocalDateTime fim = LocalDateTime.now().plusHours(1);
+                double linhasAntes = meterRegistry.counter("clientes.periodo.stream.linhas").count();
+                long envios = meterRegistry.timer("clientes.periodo.stream.primeiro-byte").count();
+
+                List<Cliente> lista = clienteService.buscarClientesPorPeriodo(inicio, fim);
+                JsonNode stream = transmitir(inicio, fim);
+
+                assertTrue(stream.isArray());
+                assertTrue(stream.size() >= 3);
+                assertEquals(lista.size(), stream.size());
+                List<Long> idsStream = new ArrayList<>();
+                stream.forEach(cliente -> idsStream.add(cliente.get("id").asLong()));
+                assertTrue(idsStream.containsAll(criados));
+                JsonNode primeiro = stream.get(idsStream.indexOf(criados.get(0)));
+                assertEquals("periodo1@teste.com", primeiro.get("email").asText());
+                assertEquals("11999990000", primeiro.get("telefone").asText());
+
+                assertEquals(linhasAntes + stream.size(), meterRegistry.counter("clientes.periodo.stream.linhas").count());
+                assertEquals(envios + 1, meterRegistry.timer("clientes.periodo.stream.primeiro-byte").count());
+        }
+
+        @Test
+        @DisplayName("Período sem cadastros deve devolver uma lista vazia")
+        void testStreamVazio() throws Exception {
+                JsonNode stream = transmitir(LocalDateTime.of(2001, 1, 1, 0, 0),
+                                LocalDateTime.of(2001, 12, 31, 0, 0));
+                assertTrue(stream.isArray());
+                assertEquals(0, stream.size());
+        }
+
+        @Test
+        @DisplayName("Falha no destino deve interromper o cursor e propagar o erro")
+        void testDestinoInterrompeCursor() {
+                criar("periodo4@teste.com");
+                criar("periodo5@teste.com");
+                LocalDateTime inicio = LocalDateTime.now().minusHours(1);
+                LocalDateTime fim = LocalDateTime.now().plusHours(1);
+                List<Cliente> recebidos = new ArrayList<>();
+
+                assertThrows(IllegalStateException.class, () -> clienteService.percorrerClientesPorPeriodo(inicio, fim,
+                                cliente -> {
+                                        recebidos.add(cliente);
+                                        throw new IllegalStateException("Cliente desconectou");
+                                }));
+                assertEquals(1, recebidos.size());
+
+                // A conexão volta ao pool em condições de uso
+                assertTrue(clienteService.percorrerClientesPorPeriodo(inicio, fim, cliente -> { }) >= 2);
+        }
+
+        @Test
+        @DisplayName("Consulta do stream deve usar o índice de data de cadastro")
+        void testConsultaUsaIndice() {
+                String plano = jdbcTemplate.queryForObject("EXPLAIN SELECT id, nome, email, telefone, endereco, cpf, "
+                                + "data_nascimento, data_cadastro, data_atualizacao FROM clientes "
+                                + "WHERE data_cadastro BETWEEN '2001-01-01' AND '2001-12-31' ORDER BY data_cadastro",
+                                String.class);
+                assertFalse(plano.contains("tableScan"), plano);
+        }
+
+        @Test
+        @DisplayName("Stream por período deve ser restrito a ADMIN")
+        void testStreamNegadoParaUser() throws Exception {
+                mockMvc.perform(get("/api/periodo/stream")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER"))
+                                .param("dataInicio", "2001-01-01T00:00:00")
+                                .param("dataFim", "2001-12-31T00:00:00"))
+                                .andExpect(status().isForbidden());
+        }
+}
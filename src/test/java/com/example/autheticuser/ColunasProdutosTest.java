@@ -0,0 +1,75 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.service.ColunasProdutos;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da Cópia Colunar do Catálogo")
+class ColunasProdutosTest {
+
+    @Test
+    @DisplayName("Agregados devem somar valor em estoque por categoria e calcular percentis")
+    void testAgregados() {
+        ColunasProdutos colunas = new ColunasProdutos();
+        colunas.gravar(1, new BigDecimal("10.00"), 5, "Livros", 0);
+        colunas.gravar(2, new BigDecimal("2.50"), 0, "Livros", 0);
+        colunas.gravar(3, new BigDecimal("100.00"), 200, "Jogos", 0);
+        colunas.gravar(4, new BigDecimal("7.00"), 12, null, 0);
+
+        ColunasProdutos.Agregados agregados = colunas.agregar(null);
+
+        assertEquals(4, agregados.getProdutos());
+        assertEquals(new BigDecimal("20134.00"), agregados.getValorEstoqueTotal());
+        assertEquals(Map.of("produtos", 2L, "unidades", 5L, "valorEstoque", new BigDecimal("50.00")),
+                agregados.getPorCategoria().get("Livros"));
+        assertEquals(new BigDecimal("84.00"), agregados.getPorCategoria().get("sem-categoria").get("valorEstoque"));
+        assertEquals(new BigDecimal("2.50"), agregados.getPrecos().get("minimo"));
+        assertEquals(new BigDecimal("7.00"), agregados.getPrecos().get("p50"));
+        assertEquals(new BigDecimal("100.00"), agregados.getPrecos().get("p99"));
+        assertEquals(new BigDecimal("29.88"), agregados.getPrecos().get("media"));
+        assertEquals(1L, agregados.getHistogramaEstoque().get("0"));
+        assertEquals(1L, agregados.getHistogramaEstoque().get("1-9"));
+        assertEquals(1L, agregados.getHistogramaEstoque().get("10-49"));
+        assertEquals(1L, agregados.getHistogramaEstoque().get("100-499"));
+    }
+
+    @Test
+    @DisplayName("Remoção, versões antigas e filtro de categoria")
+    void testAtualizacoesEFiltro() {
+        ColunasProdutos colunas = new ColunasProdutos();
+        colunas.gravar(1, new BigDecimal("10.00"), 5, "Livros", 3);
+        colunas.gravar(2, new BigDecimal("20.00"), 1, "Jogos", 0);
+        colunas.gravar(3, new BigDecimal("30.00"), 1, "Livros", 0);
+
+        colunas.gravarEstoque(1, 99, 2); // Versão antiga: ignorada
+        colunas.remover(1);
+        colunas.gravarEstoque(3, 4, 1);
+
+        ColunasProdutos.Agregados livros = colunas.agregar("Livros");
+        assertEquals(1, livros.getProdutos());
+        assertEquals(new BigDecimal("120.00"), livros.getValorEstoqueTotal());
+        assertEquals(0, colunas.agregar("Filmes").getProdutos());
+        assertTrue(colunas.agregar("Filmes").getPrecos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Redução em fork/join deve dar o mesmo resultado que a sequencial")
+    void testReducaoParalela() {
+        ColunasProdutos colunas = new ColunasProdutos();
+        long valorEsperado = 0;
+        for (int id = 1; id <= 200_000; id++) {
+            int estoque = id % 1_000;
+            colunas.gravar(id, BigDecimal.valueOf(id % 997 + 1, 2), estoque, id % 2 == 0 ? "Par" : "Impar", 0);
+            valorEsperado += (long) (id % 997 + 1) * estoque;
+        }
+
+        ColunasProdutos.Agregados agregados = colunas.agregar(null);
+        assertEquals(200_000, agregados.getProdutos());
+        assertEquals(BigDecimal.valueOf(valorEsperado, 2), agregados.getValorEstoqueTotal());
+    }
+}
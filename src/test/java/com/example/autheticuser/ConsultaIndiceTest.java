@@ -0,0 +1,190 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.repository.CadastroDiarioRepository;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Regressão de planos de consulta: executa cada método de ClienteRepository,
+ * ProdutoRepository e CadastroDiarioRepository, captura o SQL gerado pelo Hibernate e exige que o EXPLAIN do
+ * H2 use um índice (nenhum "tableScan").
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Testes de Planos de Consulta - Índices dos Repositórios")
+class ConsultaIndiceTest {
+
+        // Métodos que não podem ser atendidos por B-tree, com o motivo
+        private static final Map<String, String> EXCECOES = Map.of(
+                        "ClienteRepository.findByNomeContainingIgnoreCase", "LIKE '%x%' em lower(nome)",
+                        "ProdutoRepository.findByNomeContainingIgnoreCase", "LIKE '%x%' em lower(nome)",
+                        "ClienteRepository.findByTelefoneContaining", "LIKE '%x%' em telefone",
+                        "ClienteRepository.findByDigitosTelefoneLike", "LIKE '%x%' nos dígitos do telefone",
+                        "ClienteRepository.findIdsENomes", "carga completa do índice de nomes",
+                        "ClienteRepository.findIdsETelefones", "carga completa do índice de telefones",
+                        "ClienteRepository.findEmailsECpfs", "carga completa dos filtros de unicidade",
+                        "ProdutoRepository.findIdsENomes", "carga completa do índice de nomes",
+                        "ProdutoRepository.findIdsPrecosECategorias", "carga completa do índice de preços",
+                        "ProdutoRepository.findIdsCategoriasPrecosEEstoques", "carga completa das facetas");
+
+        @Autowired
+        private ClienteRepository clienteRepository;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private CadastroDiarioRepository cadastroDiarioRepository;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @BeforeEach
+        void setup() {
+                // Volume suficiente para que o otimizador prefira os índices a uma varredura
+                List<Object[]> clientes = new ArrayList<>();
+                List<Object[]> produtos = new ArrayList<>();
+                Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+                for (int i = 0; i < 500; i++) {
+                        clientes.add(new Object[] { "Cliente " + i, "plano" + i + "@teste.com", "1199999" + i,
+                                        "cpf-plano-" + i, agora });
+                        produtos.add(new Object[] { "Produto plano " + i, new BigDecimal(i + 1), i % 50,
+                                        "Categoria " + (i % 10), agora });
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO clientes (nome, email, telefone, cpf, data_cadastro) "
+                                + "VALUES (?, ?, ?, ?, ?)", clientes);
+                jdbcTemplate.batchUpdate("INSERT INTO produtos (nome, preco, quantidade_estoque, categoria, data_criacao) "
+                                + "VALUES (?, ?, ?, ?, ?)", produtos);
+                jdbcTemplate.execute("ANALYZE");
+        }
+
+        @AfterEach
+        void cleanup() {
+                jdbcTemplate.update("DELETE FROM clientes WHERE email LIKE 'plano%@teste.com'");
+                jdbcTemplate.update("DELETE FROM produtos WHERE nome LIKE 'Produto plano %'");
+                jdbcTemplate.update("DELETE FROM cadastros_diarios WHERE dia < ?", LocalDate.now().minusYears(50));
+        }
+
+        private Map<String, Runnable> consultas() {
+                LocalDateTime agora = LocalDateTime.now();
+                Map<String, Runnable> consultas = new LinkedHashMap<>();
+                consultas.put("ClienteRepository.findByEmail", () -> clienteRepository.findByEmail("plano1@teste.com"));
+                consultas.put("ClienteRepository.findByCpf", () -> clienteRepository.findByCpf("cpf-plano-1"));
+                consultas.put("ClienteRepository.existsByEmail", () -> clienteRepository.existsByEmail("plano1@teste.com"));
+                consultas.put("ClienteRepository.existsByCpf", () -> clienteRepository.existsByCpf("cpf-plano-1"));
+                consultas.put("ClienteRepository.findByDataCadastroBetween",
+                                () -> clienteRepository.findByDataCadastroBetween(agora.minusDays(1), agora));
+                consultas.put("ClienteRepository.countCadastradosEntre",
+                                () -> clienteRepository.countCadastradosEntre(agora.minusDays(1), agora));
+                consultas.put("ClienteRepository.countClientesCadastradosHoje",
+                                () -> clienteRepository.countClientesCadastradosHoje());
+                consultas.put("CadastroDiarioRepository.registrar",
+                                () -> transactionTemplate.executeWithoutResult(status -> cadastroDiarioRepository
+                                                .registrar(agora.toLocalDate().minusYears(100), 0)));
+                consultas.put("CadastroDiarioRepository.somarPorPeriodo",
+                                () -> cadastroDiarioRepository.somarPorPeriodo(agora.toLocalDate(), agora.toLocalDate()));
+                consultas.put("ProdutoRepository.findByCategoria", () -> produtoRepository.findByCategoria("Categoria 1"));
+                consultas.put("ProdutoRepository.findByPrecoLessThan",
+                                () -> produtoRepository.findByPrecoLessThan(new BigDecimal("5")));
+                consultas.put("ProdutoRepository.findProdutosComEstoqueBaixo",
+                                () -> produtoRepository.findProdutosComEstoqueBaixo(10));
+                consultas.put("ProdutoRepository.countByQuantidadeEstoqueLessThan",
+                                () -> produtoRepository.countByQuantidadeEstoqueLessThan(10));
+                consultas.put("ProdutoRepository.findByPrecoBetween",
+                                () -> produtoRepository.findByPrecoBetween(new BigDecimal("1"), new BigDecimal("5")));
+                consultas.put("ProdutoRepository.existsByNome", () -> produtoRepository.existsByNome("Produto plano 1"));
+                consultas.put("ProdutoRepository.findNomesExistentes",
+                                () -> produtoRepository.findNomesExistentes(Set.of("Produto plano 1", "Produto plano 2")));
+                consultas.put("ProdutoRepository.findByNomeIn",
+                                () -> produtoRepository.findByNomeIn(Set.of("Produto plano 1", "Produto plano 2")));
+                consultas.put("ProdutoRepository.findEstoqueById", () -> produtoRepository.findEstoqueById(1L));
+                consultas.put("ProdutoRepository.findEstoqueByIdIn",
+                                () -> produtoRepository.findEstoqueByIdIn(Set.of(1L, 2L)));
+                consultas.put("ProdutoRepository.findEstoqueByQuantidadeEstoqueLessThan",
+                                () -> produtoRepository.findEstoqueByQuantidadeEstoqueLessThan(10));
+                consultas.put("ProdutoRepository.reservarEstoque", () -> transactionTemplate.executeWithoutResult(
+                                status -> produtoRepository.reservarEstoque(-1L, 1, agora)));
+                consultas.put("ProdutoRepository.liberarEstoque", () -> transactionTemplate.executeWithoutResult(
+                                status -> produtoRepository.liberarEstoque(-1L, 1, agora)));
+                consultas.put("ProdutoRepository.definirEstoque", () -> transactionTemplate.executeWithoutResult(
+                                status -> produtoRepository.definirEstoque(-1L, 1, agora)));
+                return consultas;
+        }
+
+        @Test
+        @DisplayName("Todo método declarado nos repositórios deve estar coberto pelo teste de planos")
+        void testTodosOsMetodosCobertos() {
+                Map<String, Runnable> consultas = consultas();
+                for (Class<?> repositorio : List.of(ClienteRepository.class, ProdutoRepository.class,
+                                CadastroDiarioRepository.class)) {
+                        for (Method metodo : repositorio.getDeclaredMethods()) {
+                                String chave = repositorio.getSimpleName() + "." + metodo.getName();
+                                assertTrue(consultas.containsKey(chave) || EXCECOES.containsKey(chave),
+                                                "Método sem verificação de plano: " + chave);
+                        }
+                }
+        }
+
+        @Test
+        @DisplayName("Nenhuma consulta dos repositórios deve recorrer a varredura de tabela")
+        void testConsultasUsamIndices() throws Exception {
+                for (Map.Entry<String, Runnable> consulta : consultas().entrySet()) {
+                        SqlCapturadoInspector.iniciar();
+                        consulta.getValue().run();
+                        List<String> sqls = SqlCapturadoInspector.parar();
+                        assertFalse(sqls.isEmpty(), "Nenhum SQL capturado para " + consulta.getKey());
+
+                        for (String sql : sqls) {
+                                String plano = explicar(sql);
+                                assertFalse(plano.contains("tableScan"),
+                                                consulta.getKey() + " faz varredura de tabela:\n" + plano);
+                        }
+                }
+        }
+
+        private String explicar(String sql) throws Exception {
+                try (Connection conexao = jdbcTemplate.getDataSource().getConnection();
+                                PreparedStatement ps = conexao.prepareStatement("EXPLAIN " + sql)) {
+                        // O H2 exige valores para os parâmetros, mas eles não alteram a escolha do índice
+                        int parametros = ps.getParameterMetaData().getParameterCount();
+                        for (int i = 1; i <= parametros; i++) {
+                                ps.setObject(i, null);
+                        }
+                        try (ResultSet rs = ps.executeQuery()) {
+                                StringBuilder plano = new StringBuilder();
+                                while (rs.next()) {
+                                        plano.append(rs.getString(1));
+                                }
+                                return plano.toString();
+                        }
+                }
+        }
+}
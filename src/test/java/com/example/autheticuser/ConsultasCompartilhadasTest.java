@@ -0,0 +1,224 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.service.ConsultasCompartilhadas;
+import com.example.autheticuser.service.VersoesRecursos;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários - ConsultasCompartilhadas")
+class ConsultasCompartilhadasTest {
+
+    @Mock
+    private VersoesRecursos versoesRecursos;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger execucoes = new AtomicInteger();
+    private ConsultasCompartilhadas consultas;
+    private String versao = "v1";
+
+    @BeforeEach
+    void setUp() {
+        consultas = new ConsultasCompartilhadas(versoesRecursos, meterRegistry, transactionManager, entityManager);
+        ReflectionTestUtils.setField(consultas, "habilitado", true);
+        ReflectionTestUtils.setField(consultas, "ttlMs", 0L);
+        ReflectionTestUtils.setField(consultas, "maximoResultados", 1000);
+        lenient().when(versoesRecursos.versaoProdutos()).thenAnswer(invocacao -> versao);
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocacao -> new SimpleTransactionStatus());
+    }
+
+    private List<String> consultar(String categoria, long atrasoMs) {
+        return consultas.executar("categoria", () -> {
+            execucoes.incrementAndGet();
+            try {
+                Thread.sleep(atrasoMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of("Produto de " + categoria);
+        }, categoria);
+    }
+
+    private long contar(String resultado) {
+        return (long) meterRegistry.counter(ConsultasCompartilhadas.METRICA, "operacao", "categoria", "resultado", resultado).count();
+    }
+
+    @Test
+    @DisplayName("Chamadas idênticas simultâneas devem executar a consulta uma única vez")
+    void testChamadasSimultaneasCompartilhamConsulta() throws Exception {
+        // Quem chegar depois do fim da consulta (thread atrasada) é servido pelo cache curto
+        ReflectionTestUtils.setField(consultas, "ttlMs", 60_000L);
+        int pedidos = 20;
+        ExecutorService clientes = Executors.newFixedThreadPool(pedidos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<List<String>>> respostas = new ArrayList<>();
+        try {
+            for (int i = 0; i < pedidos; i++) {
+                respostas.add(clientes.submit(() -> {
+                    largada.await();
+                    return consultar("Livros", 300);
+                }));
+            }
+            largada.countDown();
+            List<String> primeira = respostas.get(0).get();
+            for (Future<List<String>> resposta : respostas) {
+                assertSame(primeira, resposta.get());
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+
+        assertEquals(1, execucoes.get());
+        assertEquals(1, contar("executada"));
+        assertEquals(pedidos - 1, contar("compartilhada") + contar("cache"));
+        assertTrue(contar("compartilhada") > 0);
+    }
+
+    @Test
+    @DisplayName("Argumentos diferentes não devem ser compartilhados")
+    void testArgumentosDiferentes() {
+        assertEquals(List.of("Produto de Livros"), consultar("Livros", 0));
+        assertEquals(List.of("Produto de Jogos"), consultar("Jogos", 0));
+
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Dentro do TTL o resultado deve ser reaproveitado até o catálogo mudar")
+    void testCacheCurtoDescartadoPorAlteracao() {
+        ReflectionTestUtils.setField(consultas, "ttlMs", 60_000L);
+
+        List<String> primeira = consultar("Livros", 0);
+        assertSame(primeira, consultar("Livros", 0));
+        assertEquals(1, contar("cache"));
+
+        versao = "v2";
+        consultar("Livros", 0);
+        assertEquals(2, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Uma versão nova do catálogo descarta os resultados das anteriores")
+    void testVersaoNovaDescartaResultadosAntigos() {
+        ReflectionTestUtils.setField(consultas, "ttlMs", 60_000L);
+        consultar("Livros", 0);
+        consultar("Jogos", 0);
+        assertEquals(2, consultas.tamanho());
+
+        versao = "v2";
+        consultar("Livros", 0);
+        assertEquals(1, consultas.tamanho());
+    }
+
+    @Test
+    @DisplayName("A limpeza remove os resultados vencidos mesmo sem novas chamadas")
+    void testLimpezaRemoveVencidos() {
+        ReflectionTestUtils.setField(consultas, "ttlMs", 60_000L);
+        consultar("Livros", 0);
+        consultas.limpar();
+        assertEquals(1, consultas.tamanho());
+
+        ReflectionTestUtils.setField(consultas, "ttlMs", 0L);
+        consultas.limpar();
+        assertEquals(0, consultas.tamanho());
+    }
+
+    @Test
+    @DisplayName("Sem TTL, chamadas em sequência executam a consulta de novo")
+    void testSemTtlNaoGuardaResultado() {
+        consultar("Livros", 0);
+        consultar("Livros", 0);
+
+        assertEquals(2, execucoes.get());
+        assertEquals(0, contar("cache"));
+    }
+
+    @Test
+    @DisplayName("Um erro deve chegar a quem esperava e não deve ficar guardado")
+    void testErroNaoFicaGuardado() {
+        ReflectionTestUtils.setField(consultas, "ttlMs", 60_000L);
+
+        assertThrows(IllegalStateException.class, () -> consultas.executar("categoria", () -> {
+            throw new IllegalStateException("banco indisponível");
+        }, "Livros"));
+
+        assertEquals(List.of("Produto de Livros"), consultar("Livros", 0));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Dentro de uma transação aberta a consulta não é compartilhada")
+    void testTransacaoAbertaNaoCompartilha() {
+        ReflectionTestUtils.setField(consultas, "ttlMs", 60_000L);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            consultar("Livros", 0);
+            consultar("Livros", 0);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(2, execucoes.get());
+        verifyNoInteractions(versoesRecursos, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Quem executa abre uma transação somente leitura e compartilha entidades desanexadas")
+    void testLeituraEmTransacaoSomenteLeitura() {
+        Produto produto = new Produto();
+        produto.setId(1L);
+        when(entityManager.contains(produto)).thenReturn(true);
+
+        List<Produto> resultado = consultas.executar("todos", () -> List.of(produto));
+
+        assertSame(produto, resultado.get(0));
+        ArgumentCaptor<TransactionDefinition> definicao = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definicao.capture());
+        assertTrue(definicao.getValue().isReadOnly());
+        verify(entityManager).detach(produto);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Com o compartilhamento desligado a consulta ainda roda numa transação somente leitura")
+    void testDesligadoMantemTransacaoSomenteLeitura() {
+        ReflectionTestUtils.setField(consultas, "habilitado", false);
+
+        consultar("Livros", 0);
+        consultar("Livros", 0);
+
+        assertEquals(2, execucoes.get());
+        verify(transactionManager, times(2)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        verifyNoInteractions(versoesRecursos);
+    }
+}
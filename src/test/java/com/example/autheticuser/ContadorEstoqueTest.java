@@ -0,0 +1,108 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.service.ContadorEstoque;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Contador de Estoque em Faixas")
+class ContadorEstoqueTest {
+
+    @Test
+    @DisplayName("Reserva maior que qualquer faixa deve juntar o saldo das faixas")
+    void testReservaQueAtravessaFaixas() {
+        ContadorEstoque contador = new ContadorEstoque(8, 10);
+
+        assertTrue(contador.reservar(7));
+        assertEquals(3, contador.total());
+        assertFalse(contador.reservar(4));
+        assertEquals(3, contador.total());
+        assertTrue(contador.reservar(3));
+        assertEquals(0, contador.total());
+    }
+
+    @Test
+    @DisplayName("Liberar e definir devem ajustar o total")
+    void testLiberarEDefinir() {
+        ContadorEstoque contador = new ContadorEstoque(4, 0);
+        assertFalse(contador.reservar(1));
+
+        contador.liberar(5);
+        assertEquals(5, contador.totalExato());
+
+        contador.definir(2);
+        assertEquals(2, contador.total());
+        assertFalse(contador.reservar(3));
+    }
+
+    @Test
+    @DisplayName("Depois de fechado, o contador devolve o saldo final e recusa novas operações")
+    void testFechar() {
+        ContadorEstoque contador = new ContadorEstoque(4, 10);
+        assertTrue(contador.reservar(3));
+        assertTrue(contador.liberar(1));
+
+        assertEquals(8, contador.fechar());
+        assertTrue(contador.isFechado());
+        assertFalse(contador.reservar(1));
+        assertFalse(contador.liberar(1));
+        assertFalse(contador.definir(5));
+        assertEquals(0, contador.total());
+    }
+
+    @Test
+    @DisplayName("Operações concluídas antes do fechamento devem entrar no saldo final")
+    void testFecharComReservasConcorrentes() throws InterruptedException {
+        ContadorEstoque contador = new ContadorEstoque(16, 10_000_000);
+        AtomicInteger reservadas = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                while (contador.reservar(1)) {
+                    reservadas.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Thread.sleep(5);
+        long saldoFinal = contador.fechar();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(10_000_000 - reservadas.get(), saldoFinal);
+    }
+
+    @Test
+    @DisplayName("Reservas concorrentes nunca devem deixar o saldo negativo")
+    void testReservasConcorrentes() throws InterruptedException {
+        ContadorEstoque contador = new ContadorEstoque(16, 10_000);
+        AtomicInteger reservadas = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    if (contador.reservar(1 + i % 3)) {
+                        reservadas.addAndGet(1 + i % 3);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(10_000 - reservadas.get(), contador.totalExato());
+        assertTrue(contador.totalExato() < 3);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.ProdutoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Produtos e clientes criados por um teste de integração, removidos no @AfterEach com limpar().
+// Os testes dividem o banco do contexto: cada instância de teste recebe a sua (prototype) e só apaga o que criou
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class DadosTeste {
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    private final List<Long> produtosCriados = new ArrayList<>();
+    private final List<Long> clientesCriados = new ArrayList<>();
+
+    public Produto criarProduto(String nome, String preco, int estoque, String categoria) {
+        return criarProduto(novoProduto(nome, preco, estoque, categoria));
+    }
+
+    // Ainda não gravado; o nome ganha um sufixo único, já que outro teste pode ter usado o mesmo no banco
+    public Produto novoProduto(String nome, String preco, int estoque, String categoria) {
+        Produto produto = new Produto();
+        produto.setNome(nome + " " + System.nanoTime());
+        produto.setPreco(new BigDecimal(preco));
+        produto.setQuantidadeEstoque(estoque);
+        produto.setCategoria(categoria);
+        return produto;
+    }
+
+    public Produto criarProduto(Produto produto) {
+        Produto criado = produtoService.criarProduto(produto);
+        produtosCriados.add(criado.getId());
+        return criado;
+    }
+
+    public Cliente criarCliente(Cliente cliente) {
+        Cliente criado = clienteService.criarCliente(cliente);
+        clientesCriados.add(criado.getId());
+        return criado;
+    }
+
+    // Os serviços conferem a existência numa transação de escrita (no primário, mesmo com réplicas);
+    // o que o próprio teste já removeu responde "não encontrado" e é ignorado
+    public void limpar() {
+        for (Long id : produtosCriados) {
+            try {
+                produtoService.deletarProduto(id);
+            } catch (IllegalArgumentException e) {
+                // já removido
+            }
+        }
+        for (Long id : clientesCriados) {
+            try {
+                clienteService.deletarCliente(id);
+            } catch (IllegalArgumentException e) {
+                // já removido
+            }
+        }
+        produtosCriados.clear();
+        clientesCriados.clear();
+    }
+}
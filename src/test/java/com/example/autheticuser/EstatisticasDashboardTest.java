@@ -0,0 +1,176 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import com.example.autheticuser.service.TotaisIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sem cache do resumo: cada chamada ao dashboard recalcula os totais
+@SpringBootTest(properties = {
+                "estatisticas.resumo.ttl-ms=0",
+                "estatisticas.resumo.max-obsoleto-ms=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes dos Totais do Dashboard de Estatísticas")
+class EstatisticasDashboardTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ClienteService clienteService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ClienteRepository clienteRepository;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private TotaisIndex totaisIndex;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @Autowired
+        private DadosTeste dados;
+
+        @AfterEach
+        void cleanup() {
+                dados.limpar();
+        }
+
+        private Cliente criarCliente(String email) {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente " + email);
+                cliente.setEmail(email);
+                return dados.criarCliente(cliente);
+        }
+
+        private Produto criarProduto(String nome, int estoque) {
+                return dados.criarProduto(nome, "10.00", estoque, null);
+        }
+
+        @Test
+        @DisplayName("Totais devem acompanhar criações e remoções e bater com count() no banco")
+        void testTotaisAcompanhamCriacaoERemocao() {
+                // Outros contextos de teste gravam no mesmo banco: parte de um valor conferido
+                totaisIndex.reconciliar();
+                long clientes = clienteService.contarClientes();
+                long produtos = produtoService.contarProdutos();
+                assertEquals(clienteRepository.count(), clientes);
+                assertEquals(produtoRepository.count(), produtos);
+
+                Cliente cliente = criarCliente("dashboard1@teste.com");
+                criarCliente("dashboard2@teste.com");
+                Produto produto = criarProduto("Produto dashboard 1", 50);
+                criarProduto("Produto dashboard 2", 2);
+                assertEquals(clientes + 2, clienteService.contarClientes());
+                assertEquals(produtos + 2, produtoService.contarProdutos());
+
+                clienteService.deletarCliente(cliente.getId());
+                produtoService.deletarProduto(produto.getId());
+                assertEquals(clientes + 1, clienteService.contarClientes());
+                assertEquals(produtos + 1, produtoService.contarProdutos());
+                assertEquals(clienteRepository.count(), clienteService.contarClientes());
+                assertEquals(produtoRepository.count(), produtoService.contarProdutos());
+        }
+
+        @Test
+        @DisplayName("Dashboard e resumo não devem ler as linhas de clientes e produtos")
+        void testDashboardSemLeituraDasTabelas() throws Exception {
+                criarCliente("dashboard3@teste.com");
+                criarProduto("Produto dashboard 3", 1);
+                totaisIndex.reconciliar();
+                String token = "Bearer " + jwtService.generateToken("admin", "ADMIN");
+
+                SqlCapturadoInspector.iniciar();
+                mockMvc.perform(get("/estatisticas/dashboard").header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.clientes.total").value(clienteRepository.count()))
+                                .andExpect(jsonPath("$.produtos.total").value(produtoRepository.count()))
+                                .andExpect(jsonPath("$.produtos.comEstoqueBaixo")
+                                                .value(produtoService.contarProdutosComEstoqueBaixo()));
+                mockMvc.perform(get("/estatisticas/resumo").header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalClientes").value(clienteRepository.count()))
+                                .andExpect(jsonPath("$.totalProdutos").value(produtoRepository.count()));
+                List<String> sqls = SqlCapturadoInspector.parar();
+
+                // Apenas as contagens feitas pelo próprio teste tocam as tabelas
+                long leiturasDeLinhas = sqls.stream()
+                                .map(String::toLowerCase)
+                                .filter(sql -> sql.contains("from clientes") || sql.contains("from produtos"))
+                                .filter(sql -> !sql.contains("count("))
+                                .count();
+                assertEquals(0, leiturasDeLinhas, () -> "SQL inesperado: " + sqls);
+        }
+
+        @Test
+        @DisplayName("Reconciliação deve absorver escritas que não passaram pelos eventos")
+        void testReconciliacaoCorrigeDivergencia() {
+                totaisIndex.reconciliar();
+                long produtos = produtoService.contarProdutos();
+
+                jdbcTemplate.update("INSERT INTO produtos (nome, preco, quantidade_estoque, data_criacao, versao) "
+                                + "VALUES ('Produto dashboard sql', 1.00, 1, CURRENT_TIMESTAMP, 0)");
+                try {
+                        assertEquals(produtos, produtoService.contarProdutos());
+                        assertTrue(totaisIndex.reconciliar());
+                        assertEquals(produtos + 1, produtoService.contarProdutos());
+                        assertFalse(totaisIndex.reconciliar());
+                } finally {
+                        jdbcTemplate.update("DELETE FROM produtos WHERE nome = 'Produto dashboard sql'");
+                }
+                totaisIndex.reconciliar();
+                assertEquals(produtos, produtoService.contarProdutos());
+        }
+
+        @Test
+        @DisplayName("Reconciliação não deve aplicar um count() que já vê uma criação ainda não somada")
+        void testReconciliacaoComCriacaoEmAndamento() {
+                totaisIndex.reconciliar();
+                long produtos = produtoService.contarProdutos();
+
+                transactionTemplate.executeWithoutResult(status -> {
+                        criarProduto("Produto dashboard em andamento", 5);
+                        // O count() desta transação já vê a linha, mas o evento pós-commit ainda vai somar
+                        assertEquals(produtos + 1, produtoRepository.count());
+                        assertFalse(totaisIndex.reconciliar());
+                });
+
+                assertEquals(produtos + 1, produtoService.contarProdutos());
+                assertFalse(totaisIndex.reconciliar());
+        }
+}
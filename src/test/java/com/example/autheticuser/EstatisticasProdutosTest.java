@@ -0,0 +1,106 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.CatalogoColunar;
+import com.example.autheticuser.service.ColunasProdutos;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes das Estatísticas do Catálogo")
+class EstatisticasProdutosTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private Produto criar(String nome, String preco, int estoque, String categoria) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal(preco));
+                produto.setQuantidadeEstoque(estoque);
+                produto.setCategoria(categoria);
+                return produtoService.criarProduto(produto);
+        }
+
+        @Test
+        @DisplayName("Estatísticas devem refletir criações e movimentações de estoque")
+        void testEstatisticasDoCatalogo() throws Exception {
+                Produto livro = criar("Livro", "40.00", 10, "Livros");
+                criar("Jogo", "200.00", 3, "Jogos");
+                produtoService.reservarEstoque(livro.getId(), 4);
+                String token = "Bearer " + jwtService.generateToken("admin", "ADMIN");
+
+                mockMvc.perform(get("/estatisticas/produtos").header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.produtos").value(2))
+                                .andExpect(jsonPath("$.valorEstoqueTotal").value(840.00))
+                                .andExpect(jsonPath("$.porCategoria.Livros.unidades").value(6))
+                                .andExpect(jsonPath("$.porCategoria.Livros.valorEstoque").value(240.00))
+                                .andExpect(jsonPath("$.precos.maximo").value(200.00))
+                                .andExpect(jsonPath("$.histogramaEstoque['1-9']").value(2));
+
+                mockMvc.perform(get("/estatisticas/produtos").param("categoria", "Jogos").header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.produtos").value(1))
+                                .andExpect(jsonPath("$.precos.p50").value(200.00));
+        }
+
+        @Test
+        @DisplayName("Estatísticas do catálogo devem ser restritas a ADMIN")
+        void testEstatisticasNegadasParaUser() throws Exception {
+                mockMvc.perform(get("/estatisticas/produtos")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER")))
+                                .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Antes da carga, as estatísticas devem ser agregadas de uma leitura do banco")
+        void testEstatisticasAntesDaCarga() {
+                criar("Livro", "40.00", 6, "Livros");
+                criar("Jogo", "200.00", 3, "Jogos");
+                criar("Avulso", "15.00", 0, null);
+
+                CatalogoColunar naoCarregado = new CatalogoColunar(produtoRepository);
+                assertFalse(naoCarregado.isPronto());
+                ColunasProdutos.Agregados doBanco = naoCarregado.agregar(null);
+                ColunasProdutos.Agregados emMemoria = produtoService.agregarCatalogo(null);
+
+                assertEquals(3, doBanco.getProdutos());
+                assertEquals(emMemoria.getValorEstoqueTotal(), doBanco.getValorEstoqueTotal());
+                assertEquals(emMemoria.getPorCategoria(), doBanco.getPorCategoria());
+                assertEquals(emMemoria.getPrecos(), doBanco.getPrecos());
+                assertEquals(emMemoria.getHistogramaEstoque(), doBanco.getHistogramaEstoque());
+        }
+}
@@ -0,0 +1,163 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.ResumoEstatisticas;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.EstatisticasService;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários - EstatisticasService")
+class EstatisticasServiceTest {
+
+    private static final long ATRASO_MS = 200;
+
+    @Mock
+    private ClienteService clienteService;
+
+    @Mock
+    private ProdutoService produtoService;
+
+    private EstatisticasService estatisticasService;
+
+    // Relógio controlado pelo teste: a idade do snapshot avança sem esperar
+    private final AtomicLong agora = new AtomicLong(1_000_000L);
+
+    @BeforeEach
+    void setUp() {
+        estatisticasService = new EstatisticasService(clienteService, produtoService);
+        ReflectionTestUtils.setField(estatisticasService, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(estatisticasService, "maxObsoletoMs", 60_000L);
+        ReflectionTestUtils.setField(estatisticasService, "threads", 4);
+        Clock relogio = mock(Clock.class);
+        when(relogio.millis()).thenAnswer(invocacao -> agora.get());
+        ReflectionTestUtils.setField(estatisticasService, "relogio", relogio);
+        estatisticasService.iniciar();
+
+        when(clienteService.contarClientes()).thenAnswer(invocacao -> devagar(10L));
+        when(clienteService.contarClientesCadastradosHoje()).thenAnswer(invocacao -> devagar(2L));
+        when(produtoService.contarProdutos()).thenAnswer(invocacao -> devagar(30L));
+        when(produtoService.contarProdutosComEstoqueBaixo()).thenAnswer(invocacao -> devagar(4L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        estatisticasService.encerrar();
+    }
+
+    private static long devagar(long valor) throws InterruptedException {
+        Thread.sleep(ATRASO_MS);
+        return valor;
+    }
+
+    @Test
+    @DisplayName("As quatro métricas devem ser calculadas em paralelo")
+    void testMetricasCalculadasEmParalelo() {
+        long inicio = System.nanoTime();
+        ResumoEstatisticas resumo = estatisticasService.obterResumo();
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        assertEquals(10, resumo.getTotalClientes());
+        assertEquals(2, resumo.getClientesCadastradosHoje());
+        assertEquals(30, resumo.getTotalProdutos());
+        assertEquals(4, resumo.getProdutosEstoqueBaixo());
+        // Em sequência seriam 4 x ATRASO_MS
+        assertTrue(duracaoMs < 3 * ATRASO_MS, "Cálculo levou " + duracaoMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Pedidos simultâneos devem compartilhar um único cálculo")
+    void testPedidosSimultaneosCompartilhamCalculo() throws Exception {
+        int pedidos = 20;
+        ExecutorService clientes = Executors.newFixedThreadPool(pedidos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResumoEstatisticas>> respostas = new ArrayList<>();
+        try {
+            for (int i = 0; i < pedidos; i++) {
+                respostas.add(clientes.submit(() -> {
+                    largada.await();
+                    return estatisticasService.obterResumo();
+                }));
+            }
+            largada.countDown();
+            for (Future<ResumoEstatisticas> resposta : respostas) {
+                assertEquals(30, resposta.get(5, TimeUnit.SECONDS).getTotalProdutos());
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+
+        verify(clienteService, times(1)).contarClientes();
+        verify(produtoService, times(1)).contarProdutos();
+
+        // Dentro do TTL o snapshot é servido sem tocar nos serviços
+        estatisticasService.obterResumo();
+        verify(produtoService, times(1)).contarProdutos();
+    }
+
+    @Test
+    @DisplayName("Dentro do TTL o snapshot deve ser servido sem recalcular")
+    void testSnapshotDentroDoTtl() {
+        ReflectionTestUtils.setField(estatisticasService, "ttlMs", 50L);
+        ResumoEstatisticas primeiro = estatisticasService.obterResumo();
+
+        agora.addAndGet(49);
+        assertSame(primeiro, estatisticasService.obterResumo());
+        verify(produtoService, times(1)).contarProdutos();
+    }
+
+    @Test
+    @DisplayName("Snapshot vencido deve ser servido enquanto é recalculado em segundo plano")
+    void testSnapshotVencidoServidoDuranteRecalculo() throws Exception {
+        ReflectionTestUtils.setField(estatisticasService, "ttlMs", 50L);
+        ResumoEstatisticas primeiro = estatisticasService.obterResumo();
+        agora.addAndGet(60);
+
+        when(produtoService.contarProdutos()).thenAnswer(invocacao -> devagar(31L));
+        long inicio = System.nanoTime();
+        ResumoEstatisticas vencido = estatisticasService.obterResumo();
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        assertSame(primeiro, vencido);
+        assertEquals(60, vencido.idadeMs(agora.get()));
+        assertTrue(duracaoMs < ATRASO_MS, "Pedido esperou o recálculo (" + duracaoMs + " ms)");
+
+        // O recálculo disparado em segundo plano é o mesmo que recalcular() devolve
+        ResumoEstatisticas atual = estatisticasService.recalcular().get(5, TimeUnit.SECONDS);
+        assertEquals(31, atual.getTotalProdutos());
+        assertEquals(agora.get(), atual.getGeradoEm());
+        assertSame(atual, estatisticasService.obterResumo());
+    }
+
+    @Test
+    @DisplayName("Snapshot além do limite de obsolescência deve esperar o recálculo")
+    void testSnapshotMuitoAntigoEsperaRecalculo() {
+        ReflectionTestUtils.setField(estatisticasService, "ttlMs", 10L);
+        ReflectionTestUtils.setField(estatisticasService, "maxObsoletoMs", 10L);
+        estatisticasService.obterResumo();
+        agora.addAndGet(20);
+
+        when(produtoService.contarProdutos()).thenAnswer(invocacao -> devagar(32L));
+        assertEquals(32, estatisticasService.obterResumo().getTotalProdutos());
+    }
+}
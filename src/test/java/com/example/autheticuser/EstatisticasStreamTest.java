@@ -0,0 +1,106 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// O evento inicial precisa dos totais atuais, sem o cache do resumo
+@SpringBootTest(properties = {
+                "estatisticas.resumo.ttl-ms=0",
+                "estatisticas.resumo.max-obsoleto-ms=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes do Stream SSE de Estatísticas")
+class EstatisticasStreamTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ClienteService clienteService;
+
+        @Autowired
+        private ClienteRepository clienteRepository;
+
+        private final List<Long> criados = new ArrayList<>();
+
+        @AfterEach
+        void cleanup() {
+                criados.stream().filter(clienteRepository::existsById).forEach(clienteService::deletarCliente);
+        }
+
+        private void criar(String email) {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente " + email);
+                cliente.setEmail(email);
+                criados.add(clienteService.criarCliente(cliente).getId());
+        }
+
+        private static int contarEventos(String corpo, String nome) {
+                return corpo.split("event:" + nome + "\n").length - 1;
+        }
+
+        @Test
+        @DisplayName("Stream deve enviar o snapshot e um único delta para um lote de alterações")
+        void testSnapshotEDeltaAgrupado() throws Exception {
+                MvcResult stream = mockMvc.perform(get("/estatisticas/stream")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("admin", "ADMIN")))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                String inicial = stream.getResponse().getContentAsString(StandardCharsets.UTF_8);
+                assertEquals(1, contarEventos(inicial, "snapshot"));
+                long totalAntes = clienteService.contarClientes();
+                assertTrue(inicial.contains("\"totalClientes\":" + totalAntes));
+
+                criar("stream1@teste.com");
+                criar("stream2@teste.com");
+                criar("stream3@teste.com");
+
+                String corpo = "";
+                long limite = System.currentTimeMillis() + 5000;
+                while (!corpo.contains("\"totalClientes\":" + (totalAntes + 3)) && System.currentTimeMillis() < limite) {
+                        Thread.sleep(50);
+                        corpo = stream.getResponse().getContentAsString(StandardCharsets.UTF_8);
+                }
+
+                assertTrue(corpo.contains("\"totalClientes\":" + (totalAntes + 3)), corpo);
+                // As três criações caem na mesma janela de agrupamento (no máximo uma segunda rodada)
+                int deltas = contarEventos(corpo, "estatisticas");
+                assertTrue(deltas >= 1 && deltas <= 2, corpo);
+                // Métricas de produtos não mudaram e não fazem parte do delta
+                String ultimoDelta = corpo.substring(corpo.lastIndexOf("event:estatisticas"));
+                assertFalse(ultimoDelta.contains("totalProdutos"), ultimoDelta);
+        }
+
+        @Test
+        @DisplayName("Stream deve ser restrito a ADMIN")
+        void testStreamNegadoParaUser() throws Exception {
+                mockMvc.perform(get("/estatisticas/stream")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER")))
+                                .andExpect(status().isForbidden());
+        }
+}
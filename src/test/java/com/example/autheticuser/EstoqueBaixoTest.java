@@ -0,0 +1,149 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.AjusteEstoque;
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.EstoqueBaixoIndex;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes do Índice de Estoque Baixo")
+class EstoqueBaixoTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private EstoqueBaixoIndex estoqueBaixoIndex;
+
+        @Autowired
+        private ApplicationEventPublisher eventPublisher;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private Produto criar(String nome, int estoque) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal("10.00"));
+                produto.setQuantidadeEstoque(estoque);
+                return produtoService.criarProduto(produto);
+        }
+
+        private List<String> nomesComEstoqueBaixo() {
+                return produtoService.buscarProdutosComEstoqueBaixo().stream()
+                                .map(Produto::getNome)
+                                .collect(Collectors.toList());
+        }
+
+        @Test
+        @DisplayName("Índice deve acompanhar criação, ajustes de estoque, edição e remoção")
+        void testIndiceAcompanhaAlteracoes() {
+                Produto a = criar("Produto A", 3);
+                Produto b = criar("Produto B", 10);
+                Produto c = criar("Produto C", 50);
+                assertEquals(List.of("Produto A"), nomesComEstoqueBaixo());
+
+                produtoService.reservarEstoque(b.getId(), 1);
+                produtoService.atualizarEstoque(c.getId(), 0);
+                assertEquals(List.of("Produto A", "Produto B", "Produto C"), nomesComEstoqueBaixo());
+                assertEquals(3, produtoService.contarProdutosComEstoqueBaixo());
+
+                Produto alteracao = new Produto();
+                alteracao.setQuantidadeEstoque(100);
+                produtoService.atualizarProduto(a.getId(), alteracao);
+                produtoService.ajustarEstoqueEmLote(List.of(new AjusteEstoque(b.getId(), null, 5)));
+                assertEquals(List.of("Produto C"), nomesComEstoqueBaixo());
+
+                produtoService.deletarProduto(c.getId());
+                assertTrue(nomesComEstoqueBaixo().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Evento de estoque que chega depois da remoção não deve devolver o produto ao índice")
+        void testEventoAtrasadoAposRemocao() {
+                Produto produto = criar("Produto removido", 2);
+                long versao = produtoRepository.findEstoqueById(produto.getId()).orElseThrow().getVersao();
+                produtoService.deletarProduto(produto.getId());
+
+                eventPublisher.publishEvent(new EstoqueAlteradoEvent(produto.getId(), 1, versao + 1));
+
+                assertFalse(estoqueBaixoIndex.ids().contains(produto.getId()));
+        }
+
+        @Test
+        @DisplayName("Endpoint de estoque baixo deve responder a partir do índice")
+        void testEndpointEstoqueBaixo() throws Exception {
+                criar("Produto A", 1);
+                criar("Produto B", 20);
+
+                mockMvc.perform(get("/api/produtos/estoque-baixo")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER")))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$", hasSize(1)))
+                                .andExpect(jsonPath("$[0].nome").value("Produto A"));
+        }
+
+        @Test
+        @DisplayName("Stream SSE deve enviar entradas e saídas da faixa de estoque baixo")
+        void testStreamDeCruzamentos() throws Exception {
+                Produto produto = criar("Produto monitorado", 12);
+
+                MvcResult stream = mockMvc.perform(get("/api/produtos/estoque-baixo/stream")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER")))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                produtoService.reservarEstoque(produto.getId(), 5); // 7: entra na faixa
+                produtoService.reservarEstoque(produto.getId(), 1); // 6: continua, sem evento
+                produtoService.liberarEstoque(produto.getId(), 10); // 16: sai da faixa
+
+                // O envio é assíncrono, fora da thread que alterou o estoque
+                String eventos = stream.getResponse().getContentAsString(StandardCharsets.UTF_8);
+                long limite = System.currentTimeMillis() + 5000;
+                while (!eventos.contains("\"abaixoDoLimite\":false") && System.currentTimeMillis() < limite) {
+                        Thread.sleep(50);
+                        eventos = stream.getResponse().getContentAsString(StandardCharsets.UTF_8);
+                }
+                assertEquals(2, eventos.split("event:estoque-baixo").length - 1);
+                assertTrue(eventos.contains("\"quantidadeEstoque\":7,\"abaixoDoLimite\":true"));
+                assertTrue(eventos.contains("\"quantidadeEstoque\":16,\"abaixoDoLimite\":false"));
+        }
+}
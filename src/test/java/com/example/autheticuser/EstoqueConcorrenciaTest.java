@@ -0,0 +1,130 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes de Estoque - Reservas Atômicas e Controle Otimista")
+class EstoqueConcorrenciaTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private Produto criar(String nome, int estoque) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal("10.00"));
+                produto.setQuantidadeEstoque(estoque);
+                return produtoService.criarProduto(produto);
+        }
+
+        @Test
+        @DisplayName("Reservas concorrentes nunca devem vender mais que o estoque")
+        void testReservasConcorrentes() throws Exception {
+                Produto produto = criar("Console edição limitada", 100);
+                AtomicInteger sucessos = new AtomicInteger();
+                AtomicInteger recusas = new AtomicInteger();
+
+                ExecutorService executor = Executors.newFixedThreadPool(16);
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < 320; i++) {
+                        futures.add(CompletableFuture.runAsync(() -> {
+                                try {
+                                        produtoService.reservarEstoque(produto.getId(), 1);
+                                        sucessos.incrementAndGet();
+                                } catch (IllegalStateException e) {
+                                        recusas.incrementAndGet();
+                                }
+                        }, executor));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+                executor.shutdown();
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+
+                assertEquals(100, sucessos.get());
+                assertEquals(220, recusas.get());
+                assertEquals(0, produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque());
+        }
+
+        @Test
+        @DisplayName("Reservar e liberar devem retornar o estoque disponível")
+        void testReservarELiberarViaApi() throws Exception {
+                Produto produto = criar("Fone Bluetooth", 3);
+                String token = "Bearer " + jwtService.generateToken("user", "USER");
+
+                mockMvc.perform(post("/api/produtos/" + produto.getId() + "/reservar").param("quantidade", "2")
+                                .header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.estoqueDisponivel").value(1));
+
+                mockMvc.perform(post("/api/produtos/" + produto.getId() + "/reservar").param("quantidade", "2")
+                                .header("Authorization", token))
+                                .andExpect(status().isConflict());
+
+                mockMvc.perform(post("/api/produtos/" + produto.getId() + "/liberar").param("quantidade", "2")
+                                .header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.estoqueDisponivel").value(3));
+
+                mockMvc.perform(post("/api/produtos/999999/reservar").param("quantidade", "1")
+                                .header("Authorization", token))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Atualização com versão desatualizada deve ser rejeitada")
+        void testControleOtimista() {
+                Produto produto = criar("Cadeira", 5);
+                long versaoLida = produto.getVersao();
+
+                produtoService.reservarEstoque(produto.getId(), 1); // Incrementa a versão
+
+                Produto alteracao = new Produto();
+                alteracao.setQuantidadeEstoque(50);
+                alteracao.setVersao(versaoLida);
+                assertThrows(ObjectOptimisticLockingFailureException.class,
+                                () -> produtoService.atualizarProduto(produto.getId(), alteracao));
+                assertEquals(4, produtoRepository.findById(produto.getId()).orElseThrow().getQuantidadeEstoque());
+        }
+}
@@ -0,0 +1,106 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.service.ContadorEstoque;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contenção em um produto muito disputado: UPDATE condicional no H2 x contador em faixas.
+ * 16 threads baixam 1 unidade do mesmo produto.
+ *
+ * Executar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.autheticuser.EstoqueQuenteBenchmark
+ * (ou pelo método main na IDE).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class EstoqueQuenteBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:benchmark-estoque;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    // Grande o bastante para não esgotar durante a medição
+    private static final long ESTOQUE_INICIAL = Long.MAX_VALUE / 2;
+
+    @State(Scope.Benchmark)
+    public static class Produto {
+
+        private ContadorEstoque contador;
+        private Connection conexao;
+
+        @Setup(Level.Trial)
+        public void preparar() throws SQLException {
+            conexao = DriverManager.getConnection(URL, "sa", "");
+            try (Statement statement = conexao.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS produtos");
+                statement.execute("CREATE TABLE produtos (id BIGINT PRIMARY KEY, quantidade_estoque BIGINT NOT NULL, "
+                        + "versao BIGINT NOT NULL)");
+                statement.execute("INSERT INTO produtos VALUES (1, " + ESTOQUE_INICIAL + ", 0)");
+            }
+            contador = new ContadorEstoque(16, ESTOQUE_INICIAL);
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() throws SQLException {
+            conexao.close();
+        }
+    }
+
+    // Uma conexão por thread, como um pool entregaria
+    @State(Scope.Thread)
+    public static class Sessao {
+
+        private Connection conexao;
+        private PreparedStatement reservar;
+
+        @Setup(Level.Trial)
+        public void abrir(Produto produto) throws SQLException {
+            conexao = DriverManager.getConnection(URL, "sa", "");
+            reservar = conexao.prepareStatement("UPDATE produtos SET quantidade_estoque = quantidade_estoque - 1, "
+                    + "versao = versao + 1 WHERE id = 1 AND quantidade_estoque >= 1");
+        }
+
+        @TearDown(Level.Trial)
+        public void fechar() throws SQLException {
+            reservar.close();
+            conexao.close();
+        }
+    }
+
+    @Benchmark
+    public int reservarNoBanco(Sessao sessao) throws SQLException {
+        return sessao.reservar.executeUpdate();
+    }
+
+    @Benchmark
+    public boolean reservarEmMemoria(Produto produto) {
+        return produto.contador.reservar(1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EstoqueQuenteBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.EstoqueAlteradoEvent;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.EstoqueQuente;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Testes do Estoque Quente - Contadores em Memória com Gravação Posterior")
+class EstoqueQuenteTest {
+
+        private static final int THREADS = 16;
+
+        @Autowired
+        private EstoqueQuente estoqueQuente;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @Autowired
+        private ApplicationEventPublisher eventPublisher;
+
+        @TempDir
+        Path diretorio;
+
+        private final List<Long> ativados = new ArrayList<>();
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        @AfterEach
+        void limpar() {
+                ativados.forEach(estoqueQuente::desativar);
+                ativados.clear();
+        }
+
+        private Produto criar(String nome, int estoque) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal("10.00"));
+                produto.setQuantidadeEstoque(estoque);
+                return produtoService.criarProduto(produto);
+        }
+
+        private Produto criarQuente(String nome, int estoque) {
+                Produto produto = criar(nome, estoque);
+                assertTrue(estoqueQuente.ativar(produto.getId()));
+                ativados.add(produto.getId());
+                return produto;
+        }
+
+        private int estoqueNoBanco(Long id) {
+                return produtoRepository.findEstoqueById(id).orElseThrow().getQuantidadeEstoque();
+        }
+
+        // Instância à parte, sem agendador, com o log no diretório temporário: o teste controla cada passo
+        private EstoqueQuente instancia(JdbcTemplate jdbc, ApplicationEventPublisher publicador) {
+                EstoqueQuente instancia = new EstoqueQuente(produtoRepository, jdbc, transactionTemplate, publicador);
+                ReflectionTestUtils.setField(instancia, "faixas", 4);
+                ReflectionTestUtils.setField(instancia, "diretorioLog", diretorio.toString());
+                return instancia;
+        }
+
+        // Dispara as reservas de 1 unidade em várias threads; retorna quantas foram aceitas
+        private int reservarEmParalelo(Long id, int tentativas) {
+                AtomicInteger sucessos = new AtomicInteger();
+                ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < tentativas; i++) {
+                        futures.add(CompletableFuture.runAsync(() -> {
+                                try {
+                                        produtoService.reservarEstoque(id, 1);
+                                        sucessos.incrementAndGet();
+                                } catch (IllegalStateException e) {
+                                        // Estoque esgotado
+                                }
+                        }, executor));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+                executor.shutdown();
+                return sucessos.get();
+        }
+
+        @Test
+        @DisplayName("Reservas concorrentes em produto quente não vendem além do estoque e chegam ao banco")
+        void testReservasEmProdutoQuente() {
+                Produto produto = criarQuente("Ingresso show", 500);
+
+                assertEquals(500, reservarEmParalelo(produto.getId(), 800));
+                assertEquals(0, estoqueQuente.saldo(produto.getId()));
+
+                estoqueQuente.gravar();
+                assertEquals(0, estoqueNoBanco(produto.getId()));
+                assertEquals(0, produtoService.buscarProdutoPorId(produto.getId()).orElseThrow().getQuantidadeEstoque());
+        }
+
+        @Test
+        @DisplayName("Leitura, listas e ajuste de estoque devem usar o saldo em memória")
+        void testLeituraEAjusteDeProdutoQuente() {
+                Produto produto = criarQuente("Camiseta oficial", 10);
+
+                produtoService.reservarEstoque(produto.getId(), 4);
+                assertEquals(6, produtoService.buscarProdutoPorId(produto.getId()).orElseThrow().getQuantidadeEstoque());
+                assertEquals(6, produtoService.buscarTodosProdutos().get(0).getQuantidadeEstoque());
+
+                // Só o contador muda: nenhum UPDATE da entidade disputa com a gravação posterior
+                assertEquals(30, produtoService.atualizarEstoque(produto.getId(), 30).getQuantidadeEstoque());
+                produtoService.liberarEstoque(produto.getId(), 2);
+                assertEquals(32, estoqueQuente.saldo(produto.getId()));
+
+                estoqueQuente.desativar(produto.getId());
+                assertFalse(estoqueQuente.isAtivo(produto.getId()));
+                assertEquals(32, estoqueNoBanco(produto.getId()));
+
+                // De volta ao caminho do banco
+                assertEquals(31, produtoService.reservarEstoque(produto.getId(), 1));
+        }
+
+        @Test
+        @DisplayName("Edição de produto quente só muda o saldo em memória depois que a gravação confirmar")
+        void testEdicaoDeProdutoQuente() {
+                criar("Nome ocupado", 1);
+                Produto produto = criarQuente("Boné oficial", 10);
+
+                Produto nomeRepetido = new Produto();
+                nomeRepetido.setNome("Nome ocupado");
+                nomeRepetido.setQuantidadeEstoque(99);
+                assertThrows(IllegalArgumentException.class,
+                                () -> produtoService.atualizarProduto(produto.getId(), nomeRepetido, null));
+                assertEquals(10, estoqueQuente.saldo(produto.getId()));
+
+                // Transação revertida depois da gravação: o saldo também não muda
+                Produto revertido = new Produto();
+                revertido.setQuantidadeEstoque(50);
+                transactionTemplate.executeWithoutResult(status -> {
+                        produtoService.atualizarProduto(produto.getId(), revertido, null);
+                        status.setRollbackOnly();
+                });
+                assertEquals(10, estoqueQuente.saldo(produto.getId()));
+
+                Produto novoSaldo = new Produto();
+                novoSaldo.setQuantidadeEstoque(40);
+                assertEquals(40, produtoService.atualizarProduto(produto.getId(), novoSaldo, null)
+                                .getQuantidadeEstoque());
+                assertEquals(40, estoqueQuente.saldo(produto.getId()));
+        }
+
+        @Test
+        @DisplayName("Cada alteração em memória deve ser publicada com o saldo da memória, antes da gravação")
+        void testEventosDoSaldoEmMemoria() {
+                Produto produto = criar("Caneca", 20);
+                List<EstoqueAlteradoEvent> eventos = new ArrayList<>();
+                EstoqueQuente quente = instancia(jdbcTemplate, evento -> eventos.add((EstoqueAlteradoEvent) evento));
+                quente.ativar(produto.getId());
+                long versao = produtoRepository.findEstoqueById(produto.getId()).orElseThrow().getVersao();
+
+                quente.reservar(produto.getId(), 15);
+                quente.registrar();
+                assertEquals(1, eventos.size());
+                assertEquals(5, eventos.get(0).getQuantidadeEstoque());
+                assertEquals(versao, eventos.get(0).getVersao());
+                assertEquals(20, estoqueNoBanco(produto.getId()));
+
+                // Sem alterações, nada é publicado de novo
+                quente.registrar();
+                assertEquals(1, eventos.size());
+
+                // A gravação sobe a versão da linha; o aviso seguinte já vai com ela
+                quente.gravar();
+                quente.registrar();
+                assertEquals(5, estoqueNoBanco(produto.getId()));
+                assertEquals(versao + 1, eventos.get(eventos.size() - 1).getVersao());
+                assertEquals(5, eventos.get(eventos.size() - 1).getQuantidadeEstoque());
+                quente.desativar(produto.getId());
+        }
+
+        @Test
+        @DisplayName("Queda entre duas gravações: os saldos anotados no log devem ser reaplicados no banco")
+        void testRecuperacaoDoLog() {
+                Produto produto = criar("Produto A", 10);
+                EstoqueQuente antes = instancia(jdbcTemplate, eventPublisher);
+                antes.ativar(produto.getId());
+                antes.reservar(produto.getId(), 3);
+                antes.gravar();
+                assertEquals(7, estoqueNoBanco(produto.getId()));
+
+                antes.reservar(produto.getId(), 2);
+                antes.liberar(produto.getId(), 1);
+                antes.registrar();
+                // Queda: a instância é abandonada sem encerrar(); o banco ainda tem o saldo da última gravação
+                assertEquals(7, estoqueNoBanco(produto.getId()));
+                assertTrue(Files.exists(diretorio.resolve("estoque-quente.log")));
+
+                instancia(jdbcTemplate, eventPublisher).recuperar();
+
+                assertEquals(6, estoqueNoBanco(produto.getId()));
+                assertFalse(Files.exists(diretorio.resolve("estoque-quente.log")));
+                assertFalse(Files.exists(diretorio.resolve("estoque-quente.anterior")));
+        }
+
+        @Test
+        @DisplayName("Queda durante a gravação no banco: o snapshot e o log seguinte devem ser reaplicados")
+        void testRecuperacaoDoSnapshot() {
+                Produto produto = criar("Produto B", 10);
+                JdbcTemplate bancoFalhando = spy(jdbcTemplate);
+                doThrow(new DataAccessResourceFailureException("Banco fora do ar"))
+                                .when(bancoFalhando).batchUpdate(anyString(), anyList());
+                EstoqueQuente antes = instancia(bancoFalhando, eventPublisher);
+                antes.ativar(produto.getId());
+
+                antes.reservar(produto.getId(), 4);
+                assertThrows(DataAccessResourceFailureException.class, antes::gravar);
+                assertTrue(Files.exists(diretorio.resolve("estoque-quente.snapshot")));
+
+                antes.reservar(produto.getId(), 1);
+                antes.registrar();
+                // Queda antes da nova tentativa
+                assertEquals(10, estoqueNoBanco(produto.getId()));
+
+                instancia(jdbcTemplate, eventPublisher).recuperar();
+
+                assertEquals(5, estoqueNoBanco(produto.getId()));
+                assertFalse(Files.exists(diretorio.resolve("estoque-quente.snapshot")));
+                assertFalse(Files.exists(diretorio.resolve("estoque-quente.log")));
+        }
+}
@@ -0,0 +1,137 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.FacetasIndex;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes das Facetas do Catálogo")
+class FacetasTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private FacetasIndex facetasIndex;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private Produto criar(String nome, String preco, int estoque, String categoria) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal(preco));
+                produto.setQuantidadeEstoque(estoque);
+                produto.setCategoria(categoria);
+                return produtoService.criarProduto(produto);
+        }
+
+        @Test
+        @DisplayName("Facetas devem contar por categoria, faixa de preço e estoque")
+        void testFacetas() throws Exception {
+                criar("Livro A", "30.00", 0, "Livros");
+                criar("Livro B", "50.00", 5, "Livros");
+                Produto jogo = criar("Jogo A", "250.00", 40, "Jogos");
+                criar("Avulso", "1500.00", 12, null);
+                String token = "Bearer " + jwtService.generateToken("user", "USER");
+
+                mockMvc.perform(get("/api/produtos/facetas").header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.total").value(4))
+                                .andExpect(jsonPath("$.categorias.Livros").value(2))
+                                .andExpect(jsonPath("$.categorias.Jogos").value(1))
+                                .andExpect(jsonPath("$.faixasPreco['0-50']").value(1))
+                                .andExpect(jsonPath("$.faixasPreco['50-100']").value(1))
+                                .andExpect(jsonPath("$.faixasPreco['100-500']").value(1))
+                                .andExpect(jsonPath("$.faixasPreco['1000+']").value(1))
+                                .andExpect(jsonPath("$.estoque.sem-estoque").value(1))
+                                .andExpect(jsonPath("$.estoque.estoque-baixo").value(1))
+                                .andExpect(jsonPath("$.estoque.disponivel").value(2));
+
+                // Mudanças de estoque, categoria e remoção entram nos bitmaps
+                produtoService.reservarEstoque(jogo.getId(), 35);
+                Produto alteracao = new Produto();
+                alteracao.setCategoria("Livros");
+                produtoService.atualizarProduto(jogo.getId(), alteracao);
+
+                mockMvc.perform(get("/api/produtos/facetas").param("categoria", "Livros").header("Authorization", token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.total").value(3))
+                                .andExpect(jsonPath("$.categorias.Livros").value(3))
+                                .andExpect(jsonPath("$.categorias.Jogos").doesNotExist())
+                                .andExpect(jsonPath("$.faixasPreco['1000+']").value(0))
+                                .andExpect(jsonPath("$.estoque.estoque-baixo").value(2));
+        }
+
+        @Test
+        @DisplayName("Busca por categoria deve usar o bitmap da categoria")
+        void testBuscaPorCategoria() {
+                criar("Livro A", "30.00", 1, "Livros");
+                Produto removido = criar("Livro B", "40.00", 1, "Livros");
+                criar("Jogo A", "250.00", 1, "Jogos");
+                produtoService.deletarProduto(removido.getId());
+
+                List<String> nomes = produtoService.buscarProdutosPorCategoria("Livros").stream()
+                                .map(Produto::getNome)
+                                .collect(Collectors.toList());
+                assertEquals(List.of("Livro A"), nomes);
+                assertTrue(produtoService.buscarProdutosPorCategoria("Filmes").isEmpty());
+        }
+
+        @Test
+        @DisplayName("Antes da carga, as facetas devem vir do banco com as mesmas contagens do índice")
+        void testFacetasAntesDaCarga() {
+                criar("Livro A", "30.00", 0, "Livros");
+                criar("Livro B", "50.00", 5, "Livros");
+                criar("Jogo A", "250.00", 40, "Jogos");
+                criar("Avulso", "1500.00", 12, null);
+
+                FacetasIndex naoCarregado = new FacetasIndex(produtoRepository, jdbcTemplate);
+                ReflectionTestUtils.setField(naoCarregado, "limitesFaixas", List.of(new BigDecimal("50"),
+                                new BigDecimal("100"), new BigDecimal("500"), new BigDecimal("1000")));
+                ReflectionTestUtils.setField(naoCarregado, "limiteEstoqueBaixo", 10);
+                ReflectionTestUtils.invokeMethod(naoCarregado, "configurarFaixas");
+
+                assertFalse(naoCarregado.isPronto());
+                assertEquals(facetasIndex.contar(null), naoCarregado.contar(null));
+                assertEquals(facetasIndex.contar("Livros"), naoCarregado.contar("Livros"));
+                assertEquals(facetasIndex.contar("Filmes"), naoCarregado.contar("Filmes"));
+        }
+}
@@ -0,0 +1,62 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.service.FiltroBloom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Filtro de Bloom")
+class FiltroBloomTest {
+
+    @Test
+    @DisplayName("Valores adicionados nunca devem ser dados como ausentes")
+    void testSemFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("cliente" + i + "@teste.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.podeConter("cliente" + i + "@teste.com"));
+        }
+        assertFalse(filtro.isSaturado());
+    }
+
+    @Test
+    @DisplayName("Taxa de falsos positivos deve ficar próxima da configurada")
+    void testTaxaDeFalsosPositivos() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("produto-" + i);
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.podeConter("ausente-" + i)) {
+                falsosPositivos++;
+            }
+        }
+        assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos);
+    }
+
+    @Test
+    @DisplayName("Valores repetidos não devem contar para a capacidade")
+    void testRepeticoesNaoSaturam() {
+        FiltroBloom filtro = new FiltroBloom(10, 0.01);
+        assertTrue(filtro.adicionar("Teclado"));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(filtro.adicionar("Teclado"));
+        }
+        assertEquals(1, filtro.getInseridos());
+        assertFalse(filtro.isSaturado());
+    }
+
+    @Test
+    @DisplayName("Parâmetros inválidos devem ser rejeitados")
+    void testParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FiltroBloom(100, 1));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listas de produtos e clientes em JSON x CBOR x Smile: tamanho do payload e
+ * vazão de serialização/desserialização com a mesma configuração dos conversores.
+ *
+ * Executar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.autheticuser.FormatosBinariosBenchmark
+ * (ou pelo método main na IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatosBinariosBenchmark {
+
+    private static final String[] CATEGORIAS = {"Eletrônicos", "Livros", "Jogos", "Casa", "Esporte", "Moda"};
+
+    @Param({"json", "cbor", "smile"})
+    private String formato;
+
+    @Param({"100", "10000"})
+    private int itens;
+
+    private List<Produto> produtos;
+    private List<Cliente> clientes;
+    private ObjectWriter escritor;
+    private ObjectReader leitorProdutos;
+    private ObjectReader leitorClientes;
+    private byte[] produtosSerializados;
+    private byte[] clientesSerializados;
+
+    @Setup(Level.Trial)
+    public void preparar() throws JsonProcessingException {
+        ObjectMapper mapper = mapper(formato);
+        escritor = mapper.writer();
+        leitorProdutos = mapper.readerFor(new TypeReference<List<Produto>>() { });
+        leitorClientes = mapper.readerFor(new TypeReference<List<Cliente>>() { });
+
+        Random random = new Random(42);
+        LocalDateTime agora = LocalDateTime.of(2024, 1, 1, 12, 0);
+        produtos = new ArrayList<>(itens);
+        clientes = new ArrayList<>(itens);
+        for (long id = 1; id <= itens; id++) {
+            Produto produto = new Produto();
+            produto.setId(id);
+            produto.setNome("Produto " + id);
+            produto.setDescricao("Descrição do produto " + id + " com detalhes de uso e garantia");
+            produto.setPreco(BigDecimal.valueOf(100 + random.nextInt(500_000), 2));
+            produto.setQuantidadeEstoque(random.nextInt(1_000));
+            produto.setCategoria(CATEGORIAS[random.nextInt(CATEGORIAS.length)]);
+            produto.setDataCriacao(agora.minusMinutes(random.nextInt(100_000)));
+            produto.setDataAtualizacao(agora);
+            produto.setVersao((long) random.nextInt(10));
+            produtos.add(produto);
+
+            Cliente cliente = new Cliente();
+            cliente.setId(id);
+            cliente.setNome("Cliente " + id);
+            cliente.setEmail("cliente" + id + "@teste.com");
+            cliente.setTelefone(String.format("(11) 9%04d-%04d", random.nextInt(10_000), random.nextInt(10_000)));
+            cliente.setEndereco("Rua " + id + ", " + random.nextInt(2_000));
+            cliente.setCpf(String.format("%011d", id));
+            cliente.setDataNascimento(agora.minusDays(7_000 + random.nextInt(15_000)));
+            cliente.setDataCadastro(agora.minusMinutes(random.nextInt(100_000)));
+            cliente.setDataAtualizacao(agora);
+            clientes.add(cliente);
+        }
+
+        produtosSerializados = escritor.writeValueAsBytes(produtos);
+        clientesSerializados = escritor.writeValueAsBytes(clientes);
+        System.out.printf("%n[%s, %d itens] produtos: %d bytes, clientes: %d bytes%n",
+                formato, itens, produtosSerializados.length, clientesSerializados.length);
+    }
+
+    // Mesmo ajuste do Spring Boot para datas (ISO-8601 em vez de números)
+    private static ObjectMapper mapper(String formato) {
+        JsonFactory fabrica;
+        switch (formato) {
+            case "cbor":
+                fabrica = new CBORFactory();
+                break;
+            case "smile":
+                fabrica = new SmileFactory();
+                break;
+            default:
+                fabrica = new JsonFactory();
+        }
+        return new Jackson2ObjectMapperBuilder()
+                .factory(fabrica)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializarProdutos() throws JsonProcessingException {
+        return escritor.writeValueAsBytes(produtos);
+    }
+
+    @Benchmark
+    public List<Produto> desserializarProdutos() throws IOException {
+        return leitorProdutos.readValue(produtosSerializados);
+    }
+
+    @Benchmark
+    public byte[] serializarClientes() throws JsonProcessingException {
+        return escritor.writeValueAsBytes(clientes);
+    }
+
+    @Benchmark
+    public List<Cliente> desserializarClientes() throws IOException {
+        return leitorClientes.readValue(clientesSerializados);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FormatosBinariosBenchmark.class.getSimpleName()).build()).run();
+    }
+}
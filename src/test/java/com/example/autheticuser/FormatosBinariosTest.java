@@ -0,0 +1,170 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.config.FormatosBinariosConfig;
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.service.JwtService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes da Negociação de Formatos Binários (CBOR/Smile)")
+class FormatosBinariosTest {
+
+        private static final MediaType SMILE = MediaType.parseMediaType(FormatosBinariosConfig.APPLICATION_SMILE_VALUE);
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private DadosTeste dados;
+
+        private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+        @AfterEach
+        void cleanup() {
+                dados.limpar();
+        }
+
+        private MockHttpServletRequestBuilder comToken(MockHttpServletRequestBuilder requisicao) {
+                return requisicao.header("Authorization", "Bearer " + jwtService.generateToken("admin", "ADMIN"));
+        }
+
+        private MockHttpServletResponse consultar(MockHttpServletRequestBuilder requisicao) throws Exception {
+                return mockMvc.perform(comToken(requisicao)).andExpect(status().isOk()).andReturn().getResponse();
+        }
+
+        private Produto criarProduto(String nome, String categoria) {
+                Produto produto = dados.novoProduto(nome, "49.90", 4, categoria);
+                produto.setDescricao("Descrição de " + nome);
+                return dados.criarProduto(produto);
+        }
+
+        private Cliente criarCliente(String nome) {
+                Cliente cliente = new Cliente();
+                cliente.setNome(nome);
+                cliente.setEmail("formatos-" + System.nanoTime() + "@teste.com");
+                return dados.criarCliente(cliente);
+        }
+
+        @Test
+        @DisplayName("Accept CBOR deve devolver o mesmo produto codificado em CBOR")
+        void testProdutoEmCbor() throws Exception {
+                Produto produto = criarProduto("Teclado", "Periféricos");
+
+                JsonNode comoJson = objectMapper.readTree(consultar(get("/api/produtos/{id}", produto.getId()))
+                                .getContentAsByteArray());
+                MockHttpServletResponse resposta = consultar(get("/api/produtos/{id}", produto.getId())
+                                .accept(MediaType.APPLICATION_CBOR));
+
+                assertTrue(MediaType.APPLICATION_CBOR.isCompatibleWith(MediaType.parseMediaType(resposta.getContentType())));
+                // Comparação pelo texto: o CBOR traz inteiros e decimais com tipos numéricos mais específicos
+                assertEquals(comoJson.toString(), cbor.readTree(resposta.getContentAsByteArray()).toString());
+        }
+
+        @Test
+        @DisplayName("Sem Accept a resposta continua JSON")
+        void testJsonContinuaPadrao() throws Exception {
+                Produto produto = criarProduto("Mouse", "Periféricos");
+
+                MockHttpServletResponse resposta = consultar(get("/api/produtos/{id}", produto.getId()));
+
+                assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(resposta.getContentType())));
+                assertEquals(produto.getNome(), objectMapper.readTree(resposta.getContentAsString()).get("nome").asText());
+        }
+
+        @Test
+        @DisplayName("Busca paginada e fields= devem funcionar em Smile e CBOR")
+        void testPaginacaoECamposEmBinario() throws Exception {
+                String categoria = "Formatos " + System.nanoTime();
+                Produto primeiro = criarProduto("Cabo", categoria);
+                criarProduto("Fone", categoria);
+
+                MockHttpServletResponse pagina = consultar(get("/api/produtos/preco")
+                                .param("precoMin", "1").param("precoMax", "100").param("categoria", categoria)
+                                .param("pagina", "0").param("tamanho", "1")
+                                .accept(SMILE));
+                assertEquals("2", pagina.getHeader("X-Total-Count"));
+                JsonNode itens = smile.readTree(pagina.getContentAsByteArray());
+                assertEquals(1, itens.size());
+                assertEquals(primeiro.getId(), itens.get(0).get("id").asLong());
+
+                JsonNode parcial = cbor.readTree(consultar(get("/api/produtos/{id}", primeiro.getId())
+                                .param("fields", "nome").accept(MediaType.APPLICATION_CBOR)).getContentAsByteArray());
+                assertEquals(2, parcial.size());
+                assertEquals(primeiro.getNome(), parcial.get("nome").asText());
+        }
+
+        @Test
+        @DisplayName("O stream de clientes por período deve respeitar o Accept")
+        void testStreamEmCbor() throws Exception {
+                LocalDateTime inicio = LocalDateTime.now().minusSeconds(1);
+                Cliente ana = criarCliente("Ana Formatos");
+                Cliente bruno = criarCliente("Bruno Formatos");
+                LocalDateTime fim = LocalDateTime.now().plusSeconds(1);
+
+                MvcResult assincrono = mockMvc.perform(comToken(get("/api/periodo/stream")
+                                .param("dataInicio", inicio.toString())
+                                .param("dataFim", fim.toString())
+                                .header(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.5")))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+                MockHttpServletResponse resposta = mockMvc.perform(asyncDispatch(assincrono))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse();
+
+                assertEquals(MediaType.APPLICATION_CBOR_VALUE, MediaType.parseMediaType(resposta.getContentType()).toString());
+                List<Long> ids = new ArrayList<>();
+                cbor.readTree(resposta.getContentAsByteArray()).forEach(cliente -> ids.add(cliente.get("id").asLong()));
+                assertTrue(ids.containsAll(List.of(ana.getId(), bruno.getId())), "Ids: " + ids);
+        }
+
+        @Test
+        @DisplayName("Listas em CBOR e Smile devem ser menores que em JSON")
+        void testPayloadBinarioMenor() throws Exception {
+                for (int i = 0; i < 5; i++) {
+                        criarCliente("Cliente Formatos " + i);
+                }
+
+                int json = consultar(get("/api").accept(MediaType.APPLICATION_JSON)).getContentAsByteArray().length;
+                int emCbor = consultar(get("/api").accept(MediaType.APPLICATION_CBOR)).getContentAsByteArray().length;
+                int emSmile = consultar(get("/api").accept(SMILE)).getContentAsByteArray().length;
+
+                assertTrue(emCbor < json, "CBOR " + emCbor + " / JSON " + json);
+                assertTrue(emSmile < json, "Smile " + emSmile + " / JSON " + json);
+        }
+}
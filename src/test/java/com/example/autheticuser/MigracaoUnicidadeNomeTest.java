@@ -0,0 +1,36 @@
+package com.example.autheticuser;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da Migração de Unicidade do Nome de Produto")
+class MigracaoUnicidadeNomeTest {
+
+    @Test
+    @DisplayName("Nomes repetidos devem ganhar o id como sufixo antes da restrição única")
+    void testMigracaoComNomesRepetidos() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:migracao-nome;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("5").load().migrate();
+
+        String longo = "L".repeat(100);
+        for (String nome : List.of("Caneca", "Caneca", "Camiseta", "Caneca", longo, longo)) {
+            jdbc.update("INSERT INTO produtos (nome, preco, quantidade_estoque) VALUES (?, 1.00, 1)", nome);
+        }
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        List<String> nomes = jdbc.queryForList("SELECT nome FROM produtos ORDER BY id", String.class);
+        assertEquals(List.of("Caneca", "Caneca (2)", "Camiseta", "Caneca (4)", longo,
+                "L".repeat(96) + " (6)"), nomes);
+        assertEquals(1L, jdbc.queryForObject("SELECT versao FROM produtos WHERE id = 2", Long.class));
+    }
+}
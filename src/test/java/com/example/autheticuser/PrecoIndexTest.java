@@ -0,0 +1,112 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.service.PrecoIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Índice de Preços")
+class PrecoIndexTest {
+
+    private PrecoIndex indice;
+
+    @BeforeEach
+    void setup() {
+        indice = new PrecoIndex(null);
+        indice.indexar(1, new BigDecimal("10.00"), "Livros");
+        indice.indexar(2, new BigDecimal("5.50"), "Livros");
+        indice.indexar(3, new BigDecimal("10.00"), "Jogos");
+        indice.indexar(4, new BigDecimal("99.99"), "Jogos");
+        indice.indexar(5, new BigDecimal("10.01"), null);
+    }
+
+    private static BigDecimal preco(String valor) {
+        return new BigDecimal(valor);
+    }
+
+    @Test
+    @DisplayName("Faixa deve ser inclusiva e ordenada por preço e id")
+    void testFaixaOrdenada() {
+        Page<Long> resultado = indice.buscar(preco("5.50"), preco("10.01"), null, 0, 10);
+
+        assertEquals(List.of(2L, 1L, 3L, 5L), resultado.getContent());
+        assertEquals(4, resultado.getTotalElements());
+        assertEquals(List.of(1L, 3L), indice.buscar(preco("9.999"), preco("10.009"), null, 0, 10).getContent());
+    }
+
+    @Test
+    @DisplayName("Paginação deve contar o total e cortar dentro de um mesmo preço")
+    void testPaginacao() {
+        assertEquals(List.of(2L, 1L), indice.buscar(preco("0"), preco("100"), null, 0, 2).getContent());
+        assertEquals(List.of(3L, 5L), indice.buscar(preco("0"), preco("100"), null, 1, 2).getContent());
+        Page<Long> ultima = indice.buscar(preco("0"), preco("100"), null, 2, 2);
+        assertEquals(List.of(4L), ultima.getContent());
+        assertEquals(5, ultima.getTotalElements());
+        assertTrue(indice.buscar(preco("0"), preco("100"), null, 3, 2).getContent().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Filtro de categoria e reindexação devem usar o índice da categoria")
+    void testCategoriaEReindexacao() {
+        assertEquals(List.of(3L, 4L), indice.buscar(preco("0"), preco("100"), "Jogos", 0, 10).getContent());
+        assertTrue(indice.buscar(preco("0"), preco("100"), "Filmes", 0, 10).getContent().isEmpty());
+
+        indice.indexar(3, new BigDecimal("200.00"), "Livros");
+        indice.remover(4);
+        assertTrue(indice.buscar(preco("0"), preco("1000"), "Jogos", 0, 10).getContent().isEmpty());
+        assertEquals(List.of(2L, 1L, 3L), indice.buscar(preco("0"), preco("1000"), "Livros", 0, 10).getContent());
+    }
+
+    @Test
+    @DisplayName("Limites fora do alcance do índice devem valer como faixa aberta")
+    void testLimitesEnormes() {
+        Page<Long> resultado = indice.buscar(preco("-1e30"), preco("1e30"), null, 0, 10);
+
+        assertEquals(List.of(2L, 1L, 3L, 5L, 4L), resultado.getContent());
+        assertEquals(5, resultado.getTotalElements());
+        assertTrue(indice.buscar(preco("1e30"), preco("1e31"), null, 0, 10).getContent().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Contagem e páginas devem bater com a ordenação completa após muitas alterações")
+    void testContagemAposAlteracoes() {
+        PrecoIndex aleatorio = new PrecoIndex(null);
+        Map<Long, Long> precos = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            long id = random.nextInt(1000);
+            if (random.nextInt(4) == 0) {
+                aleatorio.remover(id);
+                precos.remove(id);
+            } else {
+                long centavos = random.nextInt(200);
+                aleatorio.indexar(id, BigDecimal.valueOf(centavos, 2), null);
+                precos.put(id, centavos);
+            }
+        }
+
+        List<Long> esperado = precos.entrySet().stream()
+                .filter(preco -> preco.getValue() >= 50 && preco.getValue() <= 150)
+                .sorted(Map.Entry.<Long, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        List<Long> paginas = new ArrayList<>();
+        for (int pagina = 0; pagina * 7 < esperado.size(); pagina++) {
+            Page<Long> resultado = aleatorio.buscar(preco("0.50"), preco("1.50"), null, pagina, 7);
+            assertEquals(esperado.size(), resultado.getTotalElements());
+            paginas.addAll(resultado.getContent());
+        }
+        assertEquals(esperado, paginas);
+    }
+}
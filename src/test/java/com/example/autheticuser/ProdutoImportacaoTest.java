@@ -0,0 +1,154 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes de Importação de Produtos via CSV")
+class ProdutoImportacaoTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @BeforeEach
+        void setup() {
+                produtoRepository.deleteAll();
+        }
+
+        private JsonNode importar(String csv, String role) throws Exception {
+                MockMultipartFile arquivo = new MockMultipartFile("arquivo", "produtos.csv", "text/csv",
+                                csv.getBytes(StandardCharsets.UTF_8));
+
+                MvcResult result = mockMvc.perform(multipart("/api/produtos/import").file(arquivo)
+                                .header("Authorization", "Bearer " + jwtService.generateToken("admin", role)))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                String corpo = mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+                // A última linha do NDJSON é o resumo final
+                String[] linhas = corpo.trim().split("\n");
+                return objectMapper.readTree(linhas[linhas.length - 1]);
+        }
+
+        @Test
+        @DisplayName("Importação deve gravar linhas válidas e contabilizar inválidas e duplicadas")
+        void testImportacaoComLinhasInvalidasEDuplicadas() throws Exception {
+                Produto existente = new Produto();
+                existente.setNome("Teclado");
+                existente.setPreco(new BigDecimal("100.00"));
+                existente.setQuantidadeEstoque(5);
+                produtoRepository.save(existente);
+
+                String csv = "nome,descricao,preco,quantidadeEstoque,categoria\n"
+                                + "Mouse,\"Mouse óptico, USB\",59.90,10,Periféricos\n"
+                                + "Monitor,\"Monitor 24\"\"\",899.00,3,Monitores\n"
+                                + "Mouse,Repetido no arquivo,10.00,1,Periféricos\n"
+                                + "Teclado,Já existe no banco,120.00,2,Periféricos\n"
+                                + "Cabo,Preço negativo,-1,5,Cabos\n"
+                                + "Fone,Preço inválido,abc,5,Áudio\n";
+
+                JsonNode resumo = importar(csv, "ADMIN");
+
+                assertTrue(resumo.get("concluido").asBoolean());
+                assertFalse(resumo.get("falhou").asBoolean());
+                assertEquals(6, resumo.get("linhasLidas").asLong());
+                assertEquals(2, resumo.get("importados").asLong());
+                assertEquals(2, resumo.get("duplicados").asLong());
+                assertEquals(2, resumo.get("invalidos").asLong());
+                assertEquals(2, resumo.get("erros").size());
+
+                assertEquals(3, produtoRepository.count());
+                assertTrue(produtoRepository.existsByNome("Monitor"));
+                Produto mouse = produtoRepository.findByNomeContainingIgnoreCase("Mouse").get(0);
+                assertEquals("Mouse óptico, USB", mouse.getDescricao());
+                assertEquals(0, new BigDecimal("59.90").compareTo(mouse.getPreco()));
+
+                // Os produtos importados também entram no índice de nomes
+                assertEquals(1, produtoService.buscarProdutosPorNome("monit").size());
+        }
+
+        @Test
+        @DisplayName("Preço fora de NUMERIC(10,2) deve virar erro da linha, sem derrubar o lote")
+        void testImportacaoComPrecoForaDaColuna() throws Exception {
+                String csv = "nome,preco,quantidadeEstoque\n"
+                                + "Mouse,59.90,10\n"
+                                + "Cabo,1.999,5\n"
+                                + "Servidor,123456789.00,1\n"
+                                + "Monitor,899.000,3\n"
+                                + "Rack,99999999.99,1\n";
+
+                JsonNode resumo = importar(csv, "ADMIN");
+
+                assertTrue(resumo.get("concluido").asBoolean());
+                assertFalse(resumo.get("falhou").asBoolean());
+                assertEquals(3, resumo.get("importados").asLong());
+                assertEquals(2, resumo.get("invalidos").asLong());
+                assertEquals(2, resumo.get("erros").size());
+                assertTrue(resumo.get("erros").get(0).asText().startsWith("Linha 3: "));
+                assertTrue(resumo.get("erros").get(1).asText().startsWith("Linha 4: "));
+
+                assertTrue(produtoRepository.existsByNome("Monitor"));
+                assertTrue(produtoRepository.existsByNome("Rack"));
+                assertFalse(produtoRepository.existsByNome("Cabo"));
+        }
+
+        @Test
+        @DisplayName("Importação sem coluna obrigatória deve falhar sem gravar nada")
+        void testImportacaoSemColunaObrigatoria() throws Exception {
+                JsonNode resumo = importar("nome,descricao\nMouse,Sem preço\n", "ADMIN");
+
+                assertTrue(resumo.get("falhou").asBoolean());
+                assertEquals(0, produtoRepository.count());
+        }
+
+        @Test
+        @DisplayName("Importação deve ser restrita a ADMIN")
+        void testImportacaoNegadaParaUser() throws Exception {
+                MockMultipartFile arquivo = new MockMultipartFile("arquivo", "produtos.csv", "text/csv",
+                                "nome,preco,quantidadeEstoque\nMouse,10,1\n".getBytes(StandardCharsets.UTF_8));
+
+                mockMvc.perform(multipart("/api/produtos/import").file(arquivo)
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER")))
+                                .andExpect(status().isForbidden());
+        }
+}
@@ -0,0 +1,216 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.config.RoteamentoReplicasDataSource;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.ProdutoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+                "spring.datasource.url=jdbc:h2:mem:rl-primario;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "replicas-leitura.habilitado=true",
+                "replicas-leitura.urls=jdbc:h2:mem:rl-replica1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:rl-replica2;DB_CLOSE_DELAY=-1,"
+                                + "jdbc:h2:mem:rl-fora-do-ar;IFEXISTS=TRUE",
+                "replicas-leitura.migrar=true",
+                "replicas-leitura.tempo-conexao-ms=250",
+                "replicas-leitura.intervalo-verificacao-ms=200",
+                "replicas-leitura.janela-leitura-propria-ms=500"
+})
+@ActiveProfiles("test")
+@DisplayName("Testes do Roteamento para Réplicas de Leitura")
+class ReplicasLeituraTest {
+
+        private static final String PRIMARIO = "RL-PRIMARIO";
+        private static final Set<String> REPLICAS = Set.of("RL-REPLICA1", "RL-REPLICA2");
+
+        @Autowired
+        private RoteamentoReplicasDataSource roteamento;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private DadosTeste dados;
+
+        @BeforeEach
+        void aguardarVerificacao() throws InterruptedException {
+                long limite = System.currentTimeMillis() + 5000;
+                while (!roteamento.replicasSaudaveis().equals(List.of("replica-1", "replica-2"))) {
+                        assertTrue(System.currentTimeMillis() < limite, "Réplicas saudáveis: " + roteamento.replicasSaudaveis());
+                        Thread.sleep(20);
+                }
+        }
+
+        @AfterEach
+        void cleanup() {
+                SecurityContextHolder.clearContext();
+                dados.limpar();
+        }
+
+        // Banco que atendeu uma transação (somente leitura ou não)
+        private String banco(boolean somenteLeitura) {
+                TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+                transacao.setReadOnly(somenteLeitura);
+                return transacao.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+        }
+
+        private void autenticar(String usuario) {
+                SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(usuario, null, "ROLE_USER"));
+        }
+
+        private Produto criarProduto(String nome) {
+                return dados.criarProduto(nome, "10.00", 50, null);
+        }
+
+        @Test
+        @DisplayName("Leituras devem se alternar entre as réplicas saudáveis e escritas devem ir ao primário")
+        void testRodizioEntreReplicas() {
+                Set<String> atendidas = new HashSet<>();
+                for (int i = 0; i < 6; i++) {
+                        String banco = banco(true);
+                        assertTrue(REPLICAS.contains(banco), "Leitura atendida por " + banco);
+                        atendidas.add(banco);
+                }
+                assertEquals(REPLICAS, atendidas);
+
+                assertEquals(PRIMARIO, banco(false));
+                assertEquals(PRIMARIO, jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+        }
+
+        @Test
+        @DisplayName("Depois de uma escrita, o mesmo usuário deve ler do primário durante a janela")
+        void testLeituraPropriaAposEscrita() throws InterruptedException {
+                autenticar("ana");
+                Produto produto = criarProduto("Réplica");
+
+                // As réplicas locais são bancos independentes: só o primário tem o produto
+                assertTrue(produtoRepository.findById(produto.getId()).isPresent());
+                assertEquals(PRIMARIO, banco(true));
+
+                autenticar("bruno");
+                assertTrue(REPLICAS.contains(banco(true)));
+                assertTrue(produtoRepository.findById(produto.getId()).isEmpty());
+
+                autenticar("ana");
+                Thread.sleep(600);
+                assertTrue(REPLICAS.contains(banco(true)));
+        }
+
+        @Test
+        @DisplayName("Listas compartilhadas devem ser lidas numa transação somente leitura, da réplica")
+        void testListasCompartilhadasLeemDaReplica() {
+                autenticar("ana");
+                Produto produto = criarProduto("Lista");
+
+                // Fora da janela de quem escreveu, a lista inteira vem de uma réplica (que não tem o produto)
+                autenticar("bruno");
+                assertTrue(produtoService.buscarTodosProdutos().stream().noneMatch(p -> p.getId().equals(produto.getId())));
+        }
+
+        @Test
+        @DisplayName("Uma réplica fora do ar deve ficar fora do rodízio")
+        void testReplicaForaDoAr() {
+                assertEquals(List.of("replica-1", "replica-2"), roteamento.replicasSaudaveis());
+
+                roteamento.verificar();
+
+                assertEquals(List.of("replica-1", "replica-2"), roteamento.replicasSaudaveis());
+                assertTrue(REPLICAS.contains(banco(true)));
+        }
+
+        @Test
+        @DisplayName("A janela de leitura própria deve começar no commit e não abrir após rollback")
+        void testJanelaComecaNoCommit() {
+                TransactionTemplate escrita = new TransactionTemplate(transactionManager);
+                TransactionTemplate leituraSeparada = new TransactionTemplate(transactionManager);
+                leituraSeparada.setReadOnly(true);
+                leituraSeparada.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+                autenticar("carla");
+                escrita.executeWithoutResult(status -> {
+                        assertEquals(PRIMARIO, jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+                        // Ainda sem commit: nada a enxergar no primário, a leitura segue para as réplicas
+                        assertTrue(REPLICAS.contains(leituraSeparada.execute(
+                                        leitura -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class))));
+                });
+                assertEquals(PRIMARIO, banco(true));
+
+                autenticar("davi");
+                escrita.executeWithoutResult(status -> {
+                        jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+                        status.setRollbackOnly();
+                });
+                assertTrue(REPLICAS.contains(banco(true)));
+        }
+
+        @Test
+        @DisplayName("Leituras em SUPPORTS ou fora de transação não devem abrir a janela de leitura própria")
+        void testLeituraSemTransacaoNaoAbreJanela() {
+                TransactionTemplate suporte = new TransactionTemplate(transactionManager);
+                suporte.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+
+                autenticar("elis");
+                // Sem transação real: sincronização ativa, mas nada foi gravado
+                assertEquals(PRIMARIO, suporte.execute(
+                                status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class)));
+                assertEquals(PRIMARIO, jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+
+                assertTrue(REPLICAS.contains(banco(true)));
+        }
+
+        @Test
+        @DisplayName("Conexão com usuário e senha deve seguir o mesmo roteamento")
+        void testConexaoComCredenciais() throws Exception {
+                DataSource primario = mock(DataSource.class);
+                DataSource replica = mock(DataSource.class);
+                Connection doPrimario = mock(Connection.class);
+                Connection daReplica = mock(Connection.class);
+                when(primario.getConnection("leitor", "segredo")).thenReturn(doPrimario);
+                when(replica.getConnection("leitor", "segredo")).thenReturn(daReplica);
+                RoteamentoReplicasDataSource credenciais = new RoteamentoReplicasDataSource(primario,
+                                Map.of("replica-x", replica), () -> null, 0, 0);
+
+                assertSame(doPrimario, credenciais.getConnection("leitor", "segredo"));
+                TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+                leitura.setReadOnly(true);
+                leitura.executeWithoutResult(status -> {
+                        try {
+                                assertSame(daReplica, credenciais.getConnection("leitor", "segredo"));
+                        } catch (Exception e) {
+                                fail(e);
+                        }
+                });
+        }
+}
@@ -0,0 +1,285 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.repository.ProdutoRepository;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.EstoqueQuente;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.ProdutoService;
+import com.example.autheticuser.service.VersoesRecursos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes de ETag e Requisições Condicionais")
+class RequisicoesCondicionaisTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ClienteService clienteService;
+
+        @Autowired
+        private ProdutoRepository produtoRepository;
+
+        @Autowired
+        private ClienteRepository clienteRepository;
+
+        @Autowired
+        private VersoesRecursos versoesRecursos;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private EstoqueQuente estoqueQuente;
+
+        @Autowired
+        private DadosTeste dados;
+
+        @AfterEach
+        void cleanup() {
+                dados.limpar();
+        }
+
+        private MockHttpServletResponse executar(MockHttpServletRequestBuilder requisicao) throws Exception {
+                return mockMvc.perform(requisicao.header("Authorization", "Bearer " + jwtService.generateToken("admin", "ADMIN")))
+                                .andReturn().getResponse();
+        }
+
+        private MockHttpServletResponse consultar(String url, String ifNoneMatch, Object... variaveis) throws Exception {
+                MockHttpServletRequestBuilder requisicao = get(url, variaveis);
+                if (ifNoneMatch != null) {
+                        requisicao.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+                }
+                return executar(requisicao);
+        }
+
+        private Produto criarProduto(String nome, String categoria) {
+                return dados.criarProduto(nome, "30.00", 20, categoria);
+        }
+
+        @Test
+        @DisplayName("If-None-Match com a ETag atual deve retornar 304 sem carregar o produto")
+        void testProdutoNaoModificado() throws Exception {
+                Produto produto = criarProduto("Teclado", null);
+
+                MockHttpServletResponse primeira = consultar("/api/produtos/{id}", null, produto.getId());
+                assertEquals(200, primeira.getStatus());
+                String etag = primeira.getHeader(HttpHeaders.ETAG);
+                assertNotNull(etag);
+
+                SqlCapturadoInspector.iniciar();
+                MockHttpServletResponse segunda = consultar("/api/produtos/{id}", etag, produto.getId());
+                List<String> sqls = SqlCapturadoInspector.parar();
+
+                assertEquals(304, segunda.getStatus());
+                assertEquals(etag, segunda.getHeader(HttpHeaders.ETAG));
+                assertEquals(0, segunda.getContentLength());
+                assertTrue(sqls.stream().map(sql -> sql.toLowerCase(Locale.ROOT)).noneMatch(sql -> sql.contains("from produtos")),
+                                "SELECTs: " + sqls);
+        }
+
+        @Test
+        @DisplayName("Atualização e reserva de estoque devem gerar uma nova ETag")
+        void testEtagMudaComAlteracoes() throws Exception {
+                Produto produto = criarProduto("Mouse", null);
+                String original = consultar("/api/produtos/{id}", null, produto.getId()).getHeader(HttpHeaders.ETAG);
+
+                produto.setDescricao("Sem fio");
+                produtoService.atualizarProduto(produto.getId(), produto);
+                MockHttpServletResponse atualizado = consultar("/api/produtos/{id}", original, produto.getId());
+                assertEquals(200, atualizado.getStatus());
+                String depoisDaAtualizacao = atualizado.getHeader(HttpHeaders.ETAG);
+                assertNotEquals(original, depoisDaAtualizacao);
+
+                // UPDATE direto de estoque, sem callbacks JPA
+                executar(post("/api/produtos/{id}/reservar", produto.getId()).param("quantidade", "2"));
+                MockHttpServletResponse reservado = consultar("/api/produtos/{id}", depoisDaAtualizacao, produto.getId());
+                assertEquals(200, reservado.getStatus());
+                assertNotEquals(depoisDaAtualizacao, reservado.getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @DisplayName("Listas e buscas devem retornar 304 até que algum produto mude")
+        void testVersaoDaColecao() throws Exception {
+                String categoria = "Condicional " + System.nanoTime();
+                criarProduto("Cabo", categoria);
+
+                String etag = consultar("/api/produtos/categoria/{categoria}", null, categoria).getHeader(HttpHeaders.ETAG);
+                assertNotNull(etag);
+                assertEquals(304, consultar("/api/produtos/categoria/{categoria}", etag, categoria).getStatus());
+                assertEquals(304, consultar("/api/produtos/categoria/{categoria}", "W/" + etag + ", \"outra\"", categoria).getStatus());
+
+                criarProduto("Fone", categoria);
+                MockHttpServletResponse depois = consultar("/api/produtos/categoria/{categoria}", etag, categoria);
+                assertEquals(200, depois.getStatus());
+                assertNotEquals(etag, depois.getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @DisplayName("Alteração feita fora da aplicação deve invalidar a ETag das listas na reconciliação")
+        void testReconciliacaoComAlteracaoExterna() throws Exception {
+                String categoria = "Externa " + System.nanoTime();
+                Produto produto = criarProduto("Hub", categoria);
+                versoesRecursos.reconciliar();
+                String etag = consultar("/api/produtos/categoria/{categoria}", null, categoria).getHeader(HttpHeaders.ETAG);
+                assertFalse(versoesRecursos.reconciliar());
+                assertEquals(304, consultar("/api/produtos/categoria/{categoria}", etag, categoria).getStatus());
+
+                // SQL manual: nenhum evento, só a reconciliação percebe
+                jdbcTemplate.update("UPDATE produtos SET preco = 45.00, data_atualizacao = CURRENT_TIMESTAMP WHERE id = ?",
+                                produto.getId());
+                assertTrue(versoesRecursos.reconciliar());
+
+                MockHttpServletResponse depois = consultar("/api/produtos/categoria/{categoria}", etag, categoria);
+                assertEquals(200, depois.getStatus());
+                assertNotEquals(etag, depois.getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @DisplayName("Versões por id guardadas em memória devem respeitar o máximo configurado")
+        void testLimiteDeVersoesEmMemoria() {
+                VersoesRecursos limitada = new VersoesRecursos(jdbcTemplate, estoqueQuente);
+                ReflectionTestUtils.setField(limitada, "maximoIds", 2);
+                List<Produto> produtos = List.of(criarProduto("Caixa 1", null), criarProduto("Caixa 2", null),
+                                criarProduto("Caixa 3", null));
+
+                for (Produto produto : produtos) {
+                        assertTrue(limitada.versaoProduto(produto.getId()).isPresent());
+                }
+                assertEquals(2, ((Map<?, ?>) ReflectionTestUtils.getField(limitada, "produtos")).size());
+                // Uma versão descartada é relida do banco, com o mesmo valor
+                for (Produto produto : produtos) {
+                        assertEquals(versoesRecursos.versaoProduto(produto.getId()), limitada.versaoProduto(produto.getId()));
+                }
+        }
+
+        @Test
+        @DisplayName("JSON e CBOR devem ter ETags diferentes para a mesma versão")
+        void testEtagPorFormato() throws Exception {
+                Produto produto = criarProduto("Monitor", null);
+
+                String json = consultar("/api/produtos/{id}", null, produto.getId()).getHeader(HttpHeaders.ETAG);
+                MockHttpServletResponse cbor = executar(get("/api/produtos/{id}", produto.getId())
+                                .accept(MediaType.APPLICATION_CBOR)
+                                .header(HttpHeaders.IF_NONE_MATCH, json));
+
+                assertEquals(200, cbor.getStatus());
+                assertNotEquals(json, cbor.getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @DisplayName("Com e sem fields= a mesma versão deve ter ETags diferentes")
+        void testEtagPorSelecaoDeCampos() throws Exception {
+                Produto produto = criarProduto("Headset", null);
+
+                String completo = consultar("/api/produtos/{id}", null, produto.getId()).getHeader(HttpHeaders.ETAG);
+                MockHttpServletResponse parcial = executar(get("/api/produtos/{id}", produto.getId())
+                                .param("fields", "id,nome")
+                                .header(HttpHeaders.IF_NONE_MATCH, completo));
+                assertEquals(200, parcial.getStatus());
+                String etagParcial = parcial.getHeader(HttpHeaders.ETAG);
+                assertNotEquals(completo, etagParcial);
+
+                assertEquals(304, executar(get("/api/produtos/{id}", produto.getId())
+                                .param("fields", "id,nome")
+                                .header(HttpHeaders.IF_NONE_MATCH, etagParcial)).getStatus());
+                // A ETag de uma leitura parcial ainda serve como If-Match da versão
+                assertTrue(VersoesRecursos.confere(etagParcial, versoesRecursos.versaoProduto(produto.getId()).orElseThrow()));
+        }
+
+        @Test
+        @DisplayName("PUT com If-Match desatualizado deve retornar 412; com o atual, deve atualizar")
+        void testIfMatchNoPut() throws Exception {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente Condicional");
+                cliente.setEmail("condicional-" + System.nanoTime() + "@teste.com");
+                Cliente criado = dados.criarCliente(cliente);
+
+                String lida = consultar("/api/{id}", null, criado.getId()).getHeader(HttpHeaders.ETAG);
+                Cliente alteracao = new Cliente();
+                alteracao.setEndereco("Rua A, 1");
+                clienteService.atualizarCliente(criado.getId(), alteracao);
+
+                MockHttpServletResponse recusada = executar(put("/api/{id}", criado.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header(HttpHeaders.IF_MATCH, lida)
+                                .content("{\"nome\":\"Nome Perdido\",\"email\":\"" + criado.getEmail() + "\"}"));
+                assertEquals(412, recusada.getStatus());
+                assertEquals("Cliente Condicional", clienteRepository.findById(criado.getId()).orElseThrow().getNome());
+
+                String atual = consultar("/api/{id}", null, criado.getId()).getHeader(HttpHeaders.ETAG);
+                MockHttpServletResponse aceita = executar(put("/api/{id}", criado.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header(HttpHeaders.IF_MATCH, atual)
+                                .content("{\"nome\":\"Nome Novo\",\"email\":\"" + criado.getEmail() + "\"}"));
+                assertEquals(200, aceita.getStatus());
+                assertNotEquals(atual, aceita.getHeader(HttpHeaders.ETAG));
+                assertEquals(aceita.getHeader(HttpHeaders.ETAG), consultar("/api/{id}", null, criado.getId()).getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @DisplayName("Produto: If-Match desatualizado deve retornar 412")
+        void testIfMatchProduto() throws Exception {
+                Produto produto = criarProduto("Webcam", null);
+                String lida = consultar("/api/produtos/{id}", null, produto.getId()).getHeader(HttpHeaders.ETAG);
+                executar(post("/api/produtos/{id}/reservar", produto.getId()).param("quantidade", "1"));
+
+                MockHttpServletResponse recusada = executar(put("/api/produtos/{id}", produto.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .header(HttpHeaders.IF_MATCH, lida)
+                                .content("{\"nome\":\"" + produto.getNome() + "\",\"preco\":99.00,\"quantidadeEstoque\":1}"));
+                assertEquals(412, recusada.getStatus());
+                assertEquals(0, new BigDecimal("30.00").compareTo(produtoRepository.findById(produto.getId()).orElseThrow().getPreco()));
+        }
+
+        @Test
+        @DisplayName("Comparação de ETags em If-None-Match e If-Match")
+        void testComparacaoDeEtags() {
+                assertTrue(VersoesRecursos.naoModificado("*", "\"p1-10\""));
+                assertTrue(VersoesRecursos.naoModificado("\"x\", W/\"p1-10\"", "\"p1-10\""));
+                assertFalse(VersoesRecursos.naoModificado("\"p1-10\"", "\"p1-10+cbor\""));
+                assertFalse(VersoesRecursos.naoModificado(null, "\"p1-10\""));
+
+                assertTrue(VersoesRecursos.confere(null, "p1-10"));
+                assertTrue(VersoesRecursos.confere("\"p1-10+cbor\"", "p1-10"));
+                assertTrue(VersoesRecursos.confere("\"p1-10;id.nome+cbor\"", "p1-10"));
+                assertFalse(VersoesRecursos.confere("W/\"p1-10\"", "p1-10"));
+                assertFalse(VersoesRecursos.confere("\"p1-9\"", "p1-10"));
+        }
+}
@@ -0,0 +1,178 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.SerieMetrica;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.JwtService;
+import com.example.autheticuser.service.SerieTemporal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes das Séries Temporais de Estatísticas")
+class SerieTemporalTest {
+
+        // Período sem nenhum outro dado: os totais dependem apenas deste teste
+        private static final LocalDateTime BASE = LocalDateTime.of(2001, 1, 1, 10, 15, 30);
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private JwtService jwtService;
+
+        @Autowired
+        private SerieTemporal serieTemporal;
+
+        @Autowired
+        private ClienteService clienteService;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        private final List<Long> criados = new ArrayList<>();
+
+        @AfterEach
+        void cleanup() {
+                criados.forEach(clienteService::deletarCliente);
+                serieTemporal.gravar();
+                jdbcTemplate.update("DELETE FROM metricas_serie WHERE inicio < '2002-01-01'");
+        }
+
+        private void registrarExemplo() {
+                serieTemporal.registrar(SerieTemporal.Metrica.PRODUTOS_CRIADOS, BASE);
+                serieTemporal.registrar(SerieTemporal.Metrica.PRODUTOS_CRIADOS, BASE.plusSeconds(10));
+                serieTemporal.registrar(SerieTemporal.Metrica.PRODUTOS_CRIADOS, BASE.plusMinutes(50));
+                serieTemporal.registrar(SerieTemporal.Metrica.PRODUTOS_CRIADOS, BASE.plusDays(1));
+                serieTemporal.registrar(SerieTemporal.Metrica.PRODUTOS_CRIADOS, BASE.plusDays(9));
+        }
+
+        private static List<Long> totais(SerieMetrica serie) {
+                List<Long> totais = new ArrayList<>();
+                serie.getPontos().forEach(ponto -> totais.add(ponto.getTotal()));
+                return totais;
+        }
+
+        @Test
+        @DisplayName("Pontos devem ser os mesmos antes e depois da gravação dos agregados")
+        void testConsultaAntesEDepoisDaGravacao() {
+                registrarExemplo();
+                LocalDateTime de = BASE.withHour(9);
+                LocalDateTime ate = BASE.withHour(12);
+
+                SerieMetrica emMemoria = serieTemporal.consultar("produtos-criados", de, ate, "hora");
+                assertEquals(List.of(0L, 2L, 1L, 0L), totais(emMemoria));
+                assertEquals(LocalDateTime.of(2001, 1, 1, 9, 0), emMemoria.getPontos().get(0).getInicio());
+
+                serieTemporal.gravar();
+                SerieMetrica gravada = serieTemporal.consultar("produtos-criados", de, ate, "hora");
+                assertEquals(totais(emMemoria), totais(gravada));
+                assertEquals(3, jdbcTemplate.queryForObject("SELECT total FROM metricas_serie WHERE metrica = 'produtos-criados' "
+                                + "AND granularidade = 'DIA' AND inicio = '2001-01-01 00:00:00'", Long.class));
+
+                // Outras métricas não são afetadas
+                assertEquals(0, serieTemporal.consultar("estoque-alterado", de, ate, "hora").getTotal());
+        }
+
+        @Test
+        @DisplayName("Semana e mês devem ser reagrupados a partir das linhas diárias")
+        void testReagrupamentoSemanalEMensal() {
+                registrarExemplo();
+                serieTemporal.gravar();
+                LocalDateTime de = BASE.withDayOfMonth(1);
+                LocalDateTime ate = BASE.withDayOfMonth(31);
+
+                // 01/01/2001 foi uma segunda-feira
+                SerieMetrica semanal = serieTemporal.consultar("produtos-criados", de, ate, "semana");
+                assertEquals(List.of(4L, 1L, 0L, 0L, 0L), totais(semanal));
+
+                SerieMetrica mensal = serieTemporal.consultar("produtos-criados", de, ate, "mes");
+                assertEquals(List.of(5L), totais(mensal));
+                assertEquals(5, mensal.getTotal());
+
+                // Sem granularidade: a menor que caiba em 500 pontos
+                assertEquals("dia", serieTemporal.consultar("produtos-criados", de, ate, null).getGranularidade());
+                assertEquals("hora", serieTemporal.consultar("produtos-criados", de, de.plusDays(10), null).getGranularidade());
+        }
+
+        @Test
+        @DisplayName("Cadastros de clientes devem entrar na série do minuto atual")
+        void testCadastroEntraNaSerie() {
+                LocalDateTime de = LocalDateTime.now().minusMinutes(1);
+                long antes = serieTemporal.consultar("clientes-cadastrados", de, de.plusMinutes(2), "minuto").getTotal();
+
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente série");
+                cliente.setEmail("serie@teste.com");
+                criados.add(clienteService.criarCliente(cliente).getId());
+
+                long depois = serieTemporal.consultar("clientes-cadastrados", de, de.plusMinutes(2), "minuto").getTotal();
+                assertTrue(depois >= antes + 1, antes + " -> " + depois);
+        }
+
+        @Test
+        @DisplayName("Consulta da série deve usar a chave primária, sem varrer a tabela")
+        void testConsultaUsaChavePrimaria() {
+                String plano = jdbcTemplate.queryForObject("EXPLAIN SELECT inicio, total FROM metricas_serie "
+                                + "WHERE metrica = 'produtos-criados' AND granularidade = 'DIA' "
+                                + "AND inicio BETWEEN '2001-01-01' AND '2001-02-01' ORDER BY inicio", String.class);
+                assertFalse(plano.contains("tableScan"), plano);
+        }
+
+        @Test
+        @DisplayName("Endpoint da série deve validar parâmetros e ser restrito a ADMIN")
+        void testEndpointSerie() throws Exception {
+                registrarExemplo();
+                String admin = "Bearer " + jwtService.generateToken("admin", "ADMIN");
+
+                mockMvc.perform(get("/estatisticas/serie").header("Authorization", admin)
+                                .param("metric", "produtos-criados")
+                                .param("from", "2001-01-01T00:00:00")
+                                .param("to", "2001-01-03T00:00:00")
+                                .param("granularity", "dia"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.granularidade").value("dia"))
+                                .andExpect(jsonPath("$.total").value(4))
+                                .andExpect(jsonPath("$.pontos", hasSize(3)))
+                                .andExpect(jsonPath("$.pontos[1].total").value(1));
+
+                mockMvc.perform(get("/estatisticas/serie").header("Authorization", admin)
+                                .param("metric", "inexistente")
+                                .param("from", "2001-01-01T00:00:00")
+                                .param("to", "2001-01-03T00:00:00"))
+                                .andExpect(status().isBadRequest());
+
+                mockMvc.perform(get("/estatisticas/serie").header("Authorization", admin)
+                                .param("metric", "produtos-criados")
+                                .param("from", "2001-01-01T00:00:00")
+                                .param("to", "2002-01-01T00:00:00")
+                                .param("granularity", "minuto"))
+                                .andExpect(status().isBadRequest());
+
+                mockMvc.perform(get("/estatisticas/serie")
+                                .header("Authorization", "Bearer " + jwtService.generateToken("user", "USER"))
+                                .param("metric", "produtos-criados")
+                                .param("from", "2001-01-01T00:00:00")
+                                .param("to", "2001-01-03T00:00:00"))
+                                .andExpect(status().isForbidden());
+        }
+}
@@ -0,0 +1,38 @@
+package com.example.autheticuser;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Registra o SQL gerado pelo Hibernate enquanto a captura estiver ativa (usado em ConsultaIndiceTest).
+// Só entra o SQL da thread que iniciou a captura: tarefas em segundo plano (ex.: snapshot do catálogo) ficam de fora
+public class SqlCapturadoInspector implements StatementInspector {
+
+    private static final List<String> capturados = new ArrayList<>();
+    private static volatile Thread capturando;
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == capturando) {
+            synchronized (capturados) {
+                capturados.add(sql);
+            }
+        }
+        return sql;
+    }
+
+    public static void iniciar() {
+        synchronized (capturados) {
+            capturados.clear();
+        }
+        capturando = Thread.currentThread();
+    }
+
+    public static List<String> parar() {
+        capturando = null;
+        synchronized (capturados) {
+            return new ArrayList<>(capturados);
+        }
+    }
+}
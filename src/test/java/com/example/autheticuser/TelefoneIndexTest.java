@@ -0,0 +1,93 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.service.TelefoneIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Testes Unitários - TelefoneIndex")
+class TelefoneIndexTest {
+
+    private TelefoneIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new TelefoneIndex(null);
+        indice.indexar(1L, "(11) 98888-7777");
+        indice.indexar(2L, "+55 21 3333-4444");
+        indice.indexar(3L, "11 3333-7777");
+    }
+
+    @Test
+    @DisplayName("Busca por trecho deve ignorar a pontuação")
+    void testBuscaPorTrecho() {
+        assertEquals(List.of(2L, 3L), indice.buscar("3333", false));
+        assertEquals(List.of(1L), indice.buscar("8888-77", false));
+    }
+
+    @Test
+    @DisplayName("Busca por sufixo deve considerar apenas o final do número")
+    void testBuscaPorSufixo() {
+        assertEquals(List.of(1L, 3L), indice.buscar("7777", true));
+        assertTrue(indice.buscar("3333", true).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Trechos com menos de 3 dígitos devem funcionar")
+    void testTrechosCurtos() {
+        assertEquals(List.of(1L, 3L), indice.buscar("11", false));
+    }
+
+    @Test
+    @DisplayName("Alterar ou remover telefone deve atualizar o índice")
+    void testAlterarERemover() {
+        indice.indexar(1L, "(31) 5555-0000");
+        assertTrue(indice.buscar("98888", false).isEmpty());
+        assertEquals(List.of(1L), indice.buscar("5555", false));
+
+        indice.remover(1L);
+        indice.indexar(2L, null);
+        assertEquals(1, indice.tamanho());
+    }
+
+    @Test
+    @DisplayName("Trechos curtos e números longos devem ser encontrados pela faixa de sufixos")
+    void testTrechosDeQualquerTamanho() {
+        assertEquals(List.of(2L), indice.buscar("4", false));
+        assertEquals(List.of(2L), indice.buscar("552133334444", false));
+        assertEquals(List.of(2L), indice.buscar("+55 21 3333-4444", true));
+        assertTrue(indice.buscar("5521333344445", false).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A recarga deve montar o índice à parte e manter as alterações recebidas durante ela")
+    void testRecargaMantemAlteracoesConcorrentes() {
+        ClienteRepository repositorio = mock(ClienteRepository.class);
+        TelefoneIndex recarregado = new TelefoneIndex(repositorio);
+        recarregado.indexar(1L, "(11) 98888-7777");
+        when(repositorio.findIdsETelefones()).thenAnswer(invocacao -> {
+            // Enquanto a carga lê o banco, o índice atual continua respondendo e recebendo eventos
+            assertEquals(List.of(1L), recarregado.buscar("7777", true));
+            recarregado.indexar(4L, "(41) 2222-1111");
+            recarregado.remover(2L);
+            List<Object[]> linhas = new ArrayList<>();
+            linhas.add(new Object[] { 1L, "(11) 98888-7777" });
+            linhas.add(new Object[] { 2L, "+55 21 3333-4444" });
+            return linhas;
+        });
+
+        recarregado.carregar();
+
+        assertTrue(recarregado.isPronto());
+        assertEquals(List.of(4L), recarregado.buscar("2222", false));
+        assertTrue(recarregado.buscar("3333", false).isEmpty());
+        assertEquals(2, recarregado.tamanho());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.service.TrigramIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes Unitários - TrigramIndex")
+class TrigramIndexTest {
+
+    private TrigramIndex indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new TrigramIndex();
+        indice.indexar(1L, "Teclado Mecânico");
+        indice.indexar(2L, "Mouse sem fio");
+        indice.indexar(3L, "Mecânica de Motos");
+        indice.indexar(4L, "Cabo para teclado");
+    }
+
+    @Test
+    @DisplayName("Busca deve ignorar maiúsculas e acentos")
+    void testBuscaIgnoraMaiusculasEAcentos() {
+        assertEquals(List.of(3L, 1L), indice.buscar("MECANIC", 0, 10).getContent());
+    }
+
+    @Test
+    @DisplayName("Resultados devem ser ordenados por relevância")
+    void testOrdenacaoPorRelevancia() {
+        // "Teclado..." começa com o termo; em "Cabo para teclado" o termo inicia uma palavra
+        assertEquals(List.of(1L, 4L), indice.buscar("tecla", 0, 10).getContent());
+    }
+
+    @Test
+    @DisplayName("Busca deve confirmar a substring, não apenas os trigramas")
+    void testIntersecaoConfirmaSubstring() {
+        indice.indexar(5L, "abc bcd");
+        // Os trigramas de "abcd" (abc, bcd) ocorrem em "abc bcd", mas a substring não
+        assertTrue(indice.buscar("abcd", 0, 10).getContent().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Termos curtos devem usar bigramas ou percorrer os textos")
+    void testTermosCurtos() {
+        assertEquals(List.of(2L), indice.buscar("fi", 0, 10).getContent());
+        assertEquals(4, indice.buscar("o", 0, 10).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Paginação deve respeitar limite e total")
+    void testPaginacao() {
+        Page<Long> primeira = indice.buscar("o", 0, 3);
+        Page<Long> segunda = indice.buscar("o", 1, 3);
+
+        assertEquals(3, primeira.getContent().size());
+        assertEquals(1, segunda.getContent().size());
+        assertEquals(4, segunda.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Reindexar e remover devem atualizar as listas de ocorrência")
+    void testReindexarERemover() {
+        indice.indexar(2L, "Monitor curvo");
+        assertTrue(indice.buscar("mouse", 0, 10).getContent().isEmpty());
+        assertEquals(List.of(2L), indice.buscar("curvo", 0, 10).getContent());
+
+        indice.remover(2L);
+        assertTrue(indice.buscar("curvo", 0, 10).getContent().isEmpty());
+        assertEquals(3, indice.tamanho());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.autheticuser;
+
+import com.example.autheticuser.model.Cliente;
+import com.example.autheticuser.model.Produto;
+import com.example.autheticuser.repository.ClienteRepository;
+import com.example.autheticuser.service.ClienteService;
+import com.example.autheticuser.service.ProdutoService;
+import com.example.autheticuser.service.UnicidadeIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("Testes dos Filtros de Unicidade em Memória")
+class UnicidadeBloomTest {
+
+        @Autowired
+        private ClienteService clienteService;
+
+        @Autowired
+        private ProdutoService produtoService;
+
+        @Autowired
+        private ClienteRepository clienteRepository;
+
+        @Autowired
+        private UnicidadeIndex unicidadeIndex;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private DadosTeste dados;
+
+        private int sequencia;
+
+        @AfterEach
+        void cleanup() {
+                dados.limpar();
+                // Linhas gravadas direto via JDBC não passaram pelos contadores em memória
+                jdbcTemplate.update("DELETE FROM clientes WHERE email LIKE 'bloom-jdbc-%'");
+                jdbcTemplate.update("DELETE FROM produtos WHERE nome LIKE 'Bloom JDBC %'");
+        }
+
+        // Valor que o filtro certamente não contém (evita depender da taxa de falsos positivos)
+        private String valorAusente(String prefixo, String sufixo, Predicate<String> podeExistir) {
+                String valor;
+                do {
+                        valor = prefixo + System.nanoTime() + "-" + (sequencia++) + sufixo;
+                } while (podeExistir.test(valor));
+                return valor;
+        }
+
+        private Cliente novoCliente(String email, String cpf) {
+                Cliente cliente = new Cliente();
+                cliente.setNome("Cliente Bloom");
+                cliente.setEmail(email);
+                cliente.setCpf(cpf);
+                return cliente;
+        }
+
+        private Produto novoProduto(String nome) {
+                Produto produto = new Produto();
+                produto.setNome(nome);
+                produto.setPreco(new BigDecimal("10.00"));
+                produto.setQuantidadeEstoque(1);
+                return produto;
+        }
+
+        private static boolean consultaExistencia(List<String> sqls, String coluna) {
+                return sqls.stream().map(sql -> sql.toLowerCase(Locale.ROOT))
+                                .anyMatch(sql -> sql.startsWith("select") && sql.contains("." + coluna + "=?"));
+        }
+
+        @Test
+        @DisplayName("Email, CPF e nome novos não devem gerar consulta de existência")
+        void testValoresNovosPulamConsulta() {
+                assertTrue(unicidadeIndex.isPronto());
+                String email = valorAusente("bloom-", "@teste.com", unicidadeIndex::podeExistirEmail);
+                String cpf = valorAusente("b", "", unicidadeIndex::podeExistirCpf);
+                String nome = valorAusente("Bloom ", "", unicidadeIndex::podeExistirNomeProduto);
+                long evitadasAntes = unicidadeIndex.getConsultasEvitadas();
+
+                SqlCapturadoInspector.iniciar();
+                dados.criarCliente(novoCliente(email, cpf));
+                dados.criarProduto(novoProduto(nome));
+                List<String> sqls = SqlCapturadoInspector.parar();
+
+                assertFalse(consultaExistencia(sqls, "email"), "existsByEmail executado: " + sqls);
+                assertFalse(consultaExistencia(sqls, "cpf"), "existsByCpf executado: " + sqls);
+                assertFalse(consultaExistencia(sqls, "nome"), "existsByNome executado: " + sqls);
+                assertTrue(unicidadeIndex.getConsultasEvitadas() - evitadasAntes >= 3);
+
+                // Depois do commit os valores gravados passam a ser "talvez presentes"
+                assertTrue(unicidadeIndex.podeExistirEmail(email));
+                assertTrue(unicidadeIndex.podeExistirCpf(cpf));
+                assertTrue(unicidadeIndex.podeExistirNomeProduto(nome));
+        }
+
+        @Test
+        @DisplayName("Duplicados conhecidos pelo filtro devem continuar sendo rejeitados")
+        void testDuplicadoConhecidoRejeitado() {
+                String email = valorAusente("bloom-", "@teste.com", unicidadeIndex::podeExistirEmail);
+                String cpf = valorAusente("b", "", unicidadeIndex::podeExistirCpf);
+                String nome = valorAusente("Bloom ", "", unicidadeIndex::podeExistirNomeProduto);
+                dados.criarCliente(novoCliente(email, cpf));
+                dados.criarProduto(novoProduto(nome));
+
+                IllegalArgumentException erroEmail = assertThrows(IllegalArgumentException.class,
+                                () -> clienteService.criarCliente(novoCliente(email, null)));
+                assertEquals("Já existe um cliente com este email", erroEmail.getMessage());
+
+                String outroEmail = valorAusente("bloom-", "@teste.com", unicidadeIndex::podeExistirEmail);
+                IllegalArgumentException erroCpf = assertThrows(IllegalArgumentException.class,
+                                () -> clienteService.criarCliente(novoCliente(outroEmail, cpf)));
+                assertEquals("Já existe um cliente com este CPF", erroCpf.getMessage());
+
+                IllegalArgumentException erroNome = assertThrows(IllegalArgumentException.class,
+                                () -> produtoService.criarProduto(novoProduto(nome)));
+                assertEquals("Já existe um produto com este nome", erroNome.getMessage());
+        }
+
+        @Test
+        @DisplayName("Duplicado gravado fora da aplicação deve virar a mesma mensagem pela restrição do banco")
+        void testViolacaoDeRestricaoTraduzida() {
+                String email = valorAusente("bloom-jdbc-", "@teste.com", unicidadeIndex::podeExistirEmail);
+                String cpf = valorAusente("j", "", unicidadeIndex::podeExistirCpf);
+                String nome = valorAusente("Bloom JDBC ", "", unicidadeIndex::podeExistirNomeProduto);
+                jdbcTemplate.update("INSERT INTO clientes (nome, email, cpf) VALUES ('Cliente JDBC', ?, ?)", email, cpf);
+                jdbcTemplate.update("INSERT INTO produtos (nome, preco, quantidade_estoque) VALUES (?, 10.00, 1)", nome);
+
+                // O filtro não viu as inserções: a verificação prévia passa e a restrição única decide
+                assertFalse(unicidadeIndex.podeExistirEmail(email));
+                IllegalArgumentException erroEmail = assertThrows(IllegalArgumentException.class,
+                                () -> clienteService.criarCliente(novoCliente(email, null)));
+                assertEquals("Já existe um cliente com este email", erroEmail.getMessage());
+
+                String outroEmail = valorAusente("bloom-jdbc-", "@teste.com", unicidadeIndex::podeExistirEmail);
+                IllegalArgumentException erroCpf = assertThrows(IllegalArgumentException.class,
+                                () -> clienteService.criarCliente(novoCliente(outroEmail, cpf)));
+                assertEquals("Já existe um cliente com este CPF", erroCpf.getMessage());
+
+                IllegalArgumentException erroNome = assertThrows(IllegalArgumentException.class,
+                                () -> produtoService.criarProduto(novoProduto(nome)));
+                assertEquals("Já existe um produto com este nome", erroNome.getMessage());
+                assertFalse(clienteRepository.existsByEmail(outroEmail));
+
+                // A reconstrução a partir do banco passa a enxergar as linhas gravadas via JDBC
+                unicidadeIndex.reconstruir();
+                assertTrue(unicidadeIndex.podeExistirEmail(email));
+                assertTrue(unicidadeIndex.podeExistirCpf(cpf));
+                assertTrue(unicidadeIndex.podeExistirNomeProduto(nome));
+        }
+}